@@ -0,0 +1,62 @@
+package com.aiapp.api_gateway.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Entry point of the benchmarks jar. Takes the usual JMH arguments, and unless they say otherwise
+ * adds the GC profiler (allocation rate per operation) and writes JSON results to
+ * {@code target/jmh-<commit>.json}, so runs from two commits can be diffed or loaded into a JMH visualizer.
+ * <pre>
+ * java -jar target/benchmarks.jar              # everything
+ * java -jar target/benchmarks.jar Jwt -f 2     # JWT benchmarks only, two forks
+ * </pre>
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine);
+        if (commandLine.getProfilers().isEmpty()) {
+            options.addProfiler(GCProfiler.class);
+        }
+        if (!commandLine.getResultFormat().hasValue()) {
+            options.resultFormat(ResultFormatType.JSON);
+        }
+        if (!commandLine.getResult().hasValue()) {
+            options.result("target/jmh-" + commitId() + ".json");
+        }
+        new Runner(options.build()).run();
+    }
+
+    /**
+     * Short hash of the checked-out commit, or {@code local} outside a git work tree
+     */
+    private static String commitId() {
+        try {
+            Process git = new ProcessBuilder("git", "rev-parse", "--short", "HEAD")
+                    .redirectErrorStream(true)
+                    .start();
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(git.getInputStream(), StandardCharsets.UTF_8))) {
+                String line = reader.readLine();
+                if (git.waitFor() == 0 && line != null && !line.isBlank()) {
+                    return line.trim();
+                }
+            }
+        } catch (Exception ex) {
+            // Fall through to the default label
+        }
+        return "local";
+    }
+}
@@ -0,0 +1,51 @@
+package com.aiapp.api_gateway.benchmark;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * HS256 tokens shaped like the ones auth-service issues, signed with {@link #SECRET}
+ */
+final class BenchmarkTokens {
+
+    static final String SECRET = "benchmark-secret-that-is-long-enough-for-hs256";
+
+    private static final SecretKey KEY = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+    private static final SecretKey OTHER_KEY = Keys.hmacShaKeyFor(
+            "a-different-secret-nobody-at-the-gateway-knows".getBytes(StandardCharsets.UTF_8));
+
+    private BenchmarkTokens() {
+    }
+
+    /**
+     * One of {@code valid}, {@code expired} or {@code badSignature}
+     */
+    static String token(String kind) {
+        return switch (kind) {
+            case "valid" -> sign(KEY, Instant.now().plus(Duration.ofHours(1)));
+            case "expired" -> sign(KEY, Instant.now().minus(Duration.ofMinutes(5)));
+            case "badSignature" -> sign(OTHER_KEY, Instant.now().plus(Duration.ofHours(1)));
+            default -> throw new IllegalArgumentException("Unknown token kind: " + kind);
+        };
+    }
+
+    private static String sign(SecretKey key, Instant expiration) {
+        Instant issuedAt = expiration.minus(Duration.ofHours(2));
+        return Jwts.builder()
+                .id(UUID.randomUUID().toString())
+                .subject("benchmark@lexaai.com")
+                .claim("roles", List.of("USER", "PREMIUM_USER"))
+                .issuedAt(Date.from(issuedAt))
+                .expiration(Date.from(expiration))
+                .signWith(key)
+                .compact();
+    }
+}
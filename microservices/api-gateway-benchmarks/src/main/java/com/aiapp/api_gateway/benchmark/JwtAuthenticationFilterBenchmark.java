@@ -0,0 +1,96 @@
+package com.aiapp.api_gateway.benchmark;
+
+import com.aiapp.api_gateway.filter.JwtAuthenticationFilter;
+import com.aiapp.api_gateway.security.PublicPathMatcher;
+import com.aiapp.api_gateway.service.JwksKeySet;
+import com.aiapp.api_gateway.service.JwtValidationService;
+import com.aiapp.api_gateway.service.TokenRevocationService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link JwtAuthenticationFilter#filter} end to end against a chain that completes at once.
+ * Each call builds a mock exchange; {@link #exchangeOnly()} measures that part alone so it can be subtracted.
+ * Valid tokens hit the claims cache after the first call, as they do for an active user.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtAuthenticationFilterBenchmark {
+
+    private static final WebFilterChain CHAIN = exchange -> Mono.empty();
+
+    /** {@code valid}, {@code expired}, {@code badSignature}, {@code missing} (no header) or {@code public} (no token needed) */
+    @Param({"valid", "expired", "badSignature", "missing", "public"})
+    public String request;
+
+    private JwtAuthenticationFilter filter;
+    private String path;
+    private String authorization;
+
+    @Setup
+    public void setUp() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        JwksKeySet jwksKeySet = new JwksKeySet(WebClient.builder(), "", Duration.ofMinutes(5),
+                Duration.ofSeconds(10), Duration.ofSeconds(5), meterRegistry);
+        JwtValidationService validationService = new JwtValidationService(BenchmarkTokens.SECRET, 10_000,
+                Schedulers.immediate(), jwksKeySet, meterRegistry);
+        // Revocation disabled: the Redis mirror is never started, lookups hit empty in-memory maps
+        TokenRevocationService revocationService = new TokenRevocationService(null, false, Duration.ofMinutes(1),
+                Duration.ofHours(24), 100_000, meterRegistry);
+        PublicPathMatcher publicPaths = new PublicPathMatcher(List.of(
+                "/api/auth/login", "/api/auth/register", "/api/auth/oauth/**", "/api/*/actuator/health"));
+        filter = new JwtAuthenticationFilter(validationService, publicPaths, revocationService);
+
+        path = "public".equals(request) ? "/api/auth/login" : "/api/content/scripts/42";
+        authorization = switch (request) {
+            case "valid", "expired", "badSignature" -> "Bearer " + BenchmarkTokens.token(request);
+            default -> null;
+        };
+    }
+
+    @Benchmark
+    public HttpStatusCode filter() {
+        MockServerWebExchange exchange = exchange();
+        filter.filter(exchange, CHAIN).block();
+        return exchange.getResponse().getStatusCode();
+    }
+
+    @Benchmark
+    public MockServerWebExchange exchangeOnly() {
+        return exchange();
+    }
+
+    private MockServerWebExchange exchange() {
+        MockServerHttpRequest.BaseBuilder<?> builder = MockServerHttpRequest.get(path);
+        if (authorization != null) {
+            builder.header(HttpHeaders.AUTHORIZATION, authorization);
+        }
+        return MockServerWebExchange.from(builder);
+    }
+}
@@ -0,0 +1,60 @@
+package com.aiapp.api_gateway.benchmark;
+
+import com.aiapp.api_gateway.service.JwksKeySet;
+import com.aiapp.api_gateway.service.JwtValidationService;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link JwtValidationService#validateToken} for each kind of token, with the claims cache on
+ * (the steady state for repeat callers) and off (every call pays for the signature check).
+ * Verification runs on the calling thread so the scheduler hop is not part of the measurement.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtValidationBenchmark {
+
+    @Param({"valid", "expired", "badSignature"})
+    public String tokenKind;
+
+    @Param({"true", "false"})
+    public boolean claimsCache;
+
+    private JwtValidationService validationService;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        JwksKeySet jwksKeySet = new JwksKeySet(WebClient.builder(), "", Duration.ofMinutes(5),
+                Duration.ofSeconds(10), Duration.ofSeconds(5), meterRegistry);
+        validationService = new JwtValidationService(BenchmarkTokens.SECRET, claimsCache ? 10_000 : 0,
+                Schedulers.immediate(), jwksKeySet, meterRegistry);
+        token = BenchmarkTokens.token(tokenKind);
+    }
+
+    @Benchmark
+    public Claims validateToken() {
+        return validationService.validateToken(token).block();
+    }
+}
@@ -0,0 +1,83 @@
+package com.aiapp.api_gateway.benchmark;
+
+import com.aiapp.api_gateway.security.PublicPathMatcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of classifying a request path as public as the route table grows,
+ * against the linear startsWith chain the filter used before.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PublicPathMatcherBenchmark {
+
+    @Param({"8", "64", "512"})
+    public int routeCount;
+
+    private PublicPathMatcher matcher;
+    private String[] prefixes;
+    private String[] paths;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        List<String> patterns = new ArrayList<>();
+        List<String> prefixList = new ArrayList<>();
+        for (int i = 0; i < routeCount; i++) {
+            patterns.add("/api/service" + i + "/public/**");
+            prefixList.add("/api/service" + i + "/public");
+        }
+        patterns.add("/api/*/actuator/health");
+        matcher = new PublicPathMatcher(patterns);
+        prefixes = prefixList.toArray(new String[0]);
+
+        // Mix of public hits at both ends of the table, wildcard hits and protected misses
+        paths = new String[] {
+                "/api/service0/public/docs",
+                "/api/service" + (routeCount - 1) + "/public/docs",
+                "/api/payments/actuator/health",
+                "/api/service" + (routeCount / 2) + "/private/orders/42",
+                "/api/unknown/resource"
+        };
+    }
+
+    @Benchmark
+    public boolean segmentTrie() {
+        return matcher.isPublic(nextPath());
+    }
+
+    @Benchmark
+    public boolean startsWithChain() {
+        String path = nextPath();
+        for (String prefix : prefixes) {
+            if (path.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String nextPath() {
+        String path = paths[next];
+        next = next + 1 == paths.length ? 0 : next + 1;
+        return path;
+    }
+}
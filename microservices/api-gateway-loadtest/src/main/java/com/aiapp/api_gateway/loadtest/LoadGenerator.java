@@ -0,0 +1,152 @@
+package com.aiapp.api_gateway.loadtest;
+
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import reactor.core.publisher.Mono;
+import reactor.netty.ByteBufFlux;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-model traffic: requests are due at Poisson-distributed instants for the target rate and are
+ * sent when due, whether or not earlier ones have completed. A slow gateway therefore builds up
+ * concurrency, as it would with real users, instead of slowing the generator down.
+ */
+final class LoadGenerator {
+
+    private static final String PAYMENT_BODY = "{\"amount\":1999,\"currency\":\"USD\",\"method\":\"card\"}";
+
+    private final HttpClient client;
+    private final List<Target> targets;
+    private final int[] cumulativeWeights;
+    private final List<String> tokens;
+    private final Duration timeout;
+    private final Map<String, RouteStats> stats = new LinkedHashMap<>();
+    private final AtomicLong inFlight = new AtomicLong();
+    private final AtomicLong maxLagNanos = new AtomicLong();
+
+    LoadGenerator(String baseUrl, List<Target> targets, List<String> tokens, int maxConnections,
+                  Duration timeout, String acceptEncoding) {
+        ConnectionProvider provider = ConnectionProvider.builder("loadtest")
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(-1)
+                .pendingAcquireTimeout(timeout)
+                .build();
+        this.client = HttpClient.create(provider)
+                .baseUrl(baseUrl)
+                .headers(headers -> {
+                    if (!acceptEncoding.isEmpty()) {
+                        headers.set(HttpHeaderNames.ACCEPT_ENCODING, acceptEncoding);
+                    }
+                });
+        this.targets = targets;
+        this.tokens = tokens;
+        this.timeout = timeout;
+        this.cumulativeWeights = new int[targets.size()];
+        int total = 0;
+        for (int i = 0; i < targets.size(); i++) {
+            total += targets.get(i).weight();
+            cumulativeWeights[i] = total;
+            stats.put(targets.get(i).name(), new RouteStats(targets.get(i).name()));
+        }
+    }
+
+    /**
+     * Sends traffic for {@code warmup + duration} and returns what was recorded after the warm-up
+     */
+    Map<String, RouteStats> run(double ratePerSecond, Duration warmup, Duration duration) throws InterruptedException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        double meanIntervalNanos = 1_000_000_000.0 / ratePerSecond;
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+
+        long due = start;
+        while (due < end) {
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            boolean measured = due >= measureFrom;
+            if (measured) {
+                long lag = System.nanoTime() - due;
+                maxLagNanos.accumulateAndGet(lag, Math::max);
+            }
+            send(due, measured, random);
+            due += (long) (-Math.log(1 - random.nextDouble()) * meanIntervalNanos);
+        }
+
+        // Let the last requests finish or time out
+        long deadline = System.nanoTime() + timeout.toNanos() + 1_000_000_000L;
+        while (inFlight.get() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        return stats;
+    }
+
+    /** Largest delay between a request being due and being sent; large values mean the generator itself saturated */
+    long maxLagNanos() {
+        return maxLagNanos.get();
+    }
+
+    private void send(long dueNanos, boolean measured, ThreadLocalRandom random) {
+        Target target = pick(random);
+        RouteStats routeStats = measured ? stats.get(target.name()) : null;
+        String token = tokens.get(random.nextInt(tokens.size()));
+        String path = target.path(random.nextInt(target.idRange()));
+        if (routeStats != null) {
+            routeStats.sent();
+        }
+
+        HttpClient.RequestSender sender = client
+                .headers(headers -> {
+                    headers.set(HttpHeaderNames.AUTHORIZATION, "Bearer " + token);
+                    if (target.idempotencyKey()) {
+                        headers.set("Idempotency-Key", UUID.randomUUID().toString());
+                    }
+                    if (target.method() == HttpMethod.POST) {
+                        headers.set(HttpHeaderNames.CONTENT_TYPE, "application/json");
+                    }
+                })
+                .request(target.method())
+                .uri(path);
+        HttpClient.ResponseReceiver<?> receiver = target.method() == HttpMethod.POST
+                ? sender.send(ByteBufFlux.fromString(Mono.just(PAYMENT_BODY)))
+                : sender;
+
+        inFlight.incrementAndGet();
+        receiver.responseSingle((response, body) -> body.then(Mono.just(response.status().code())))
+                .timeout(timeout)
+                .doFinally(signal -> inFlight.decrementAndGet())
+                .subscribe(
+                        status -> {
+                            if (routeStats != null) {
+                                routeStats.response(status, System.nanoTime() - dueNanos);
+                            }
+                        },
+                        error -> {
+                            if (routeStats != null) {
+                                routeStats.failure(System.nanoTime() - dueNanos);
+                            }
+                        });
+    }
+
+    private Target pick(ThreadLocalRandom random) {
+        int roll = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (roll < cumulativeWeights[i]) {
+                return targets.get(i);
+            }
+        }
+        return targets.get(targets.size() - 1);
+    }
+}
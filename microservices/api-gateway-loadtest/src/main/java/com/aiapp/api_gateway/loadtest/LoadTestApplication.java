@@ -0,0 +1,140 @@
+package com.aiapp.api_gateway.loadtest;
+
+import com.aiapp.api_gateway.ApiGatewayApplication;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Starts stub backends and the real gateway in one JVM, drives open-model traffic through the
+ * gateway and prints per-route latency and error rates. The process exits non-zero when the
+ * error rate exceeds {@code --max-error-rate}, so a CI job can gate on it.
+ *
+ * Options: {@code rate} (requests/s), {@code duration}, {@code warmup}, {@code users},
+ * {@code premium-share}, {@code timeout}, {@code connections}, {@code instances} (stubs per service),
+ * {@code accept-encoding}, {@code max-error-rate}; {@code stub.[service.]*} for {@link StubBackend.Profile};
+ * {@code gateway.*} is passed to the gateway as a property. See README.md for how to build and run it.
+ */
+public final class LoadTestApplication {
+
+    static final List<String> SERVICES = List.of(
+            "auth-service", "payment-service", "ai-content-service", "notification-service", "analytics-service");
+
+    private static final String JWT_SECRET = "loadtest-jwt-secret-that-is-long-enough-for-hs256";
+
+    private static final String IDENTITY_SECRET = "loadtest-identity-secret-that-is-long-enough";
+
+    private LoadTestApplication() {
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        double rate = options.doubleValue("rate", 200);
+        Duration duration = options.duration("duration", Duration.ofSeconds(60));
+        Duration warmup = options.duration("warmup", Duration.ofSeconds(10));
+        Duration timeout = options.duration("timeout", Duration.ofSeconds(10));
+        int instances = options.intValue("instances", 1);
+
+        Map<String, List<StubBackend>> stubs = new LinkedHashMap<>();
+        for (String service : SERVICES) {
+            StubBackend.Profile profile = StubBackend.Profile.of(options, service);
+            List<StubBackend> replicas = new ArrayList<>();
+            for (int i = 0; i < instances; i++) {
+                replicas.add(new StubBackend(service, profile));
+            }
+            stubs.put(service, replicas);
+        }
+
+        ConfigurableApplicationContext gateway = null;
+        double errorRate;
+        try {
+            gateway = SpringApplication.run(ApiGatewayApplication.class, gatewayArguments(options, stubs));
+            int port = ((WebServerApplicationContext) gateway).getWebServer().getPort();
+
+            List<String> tokens = tokens(options.intValue("users", 1000), options.doubleValue("premium-share", 0.1));
+            LoadGenerator generator = new LoadGenerator("http://127.0.0.1:" + port, Target.defaultMix(), tokens,
+                    options.intValue("connections", 1000), timeout, options.string("accept-encoding", "br, gzip"));
+
+            System.out.printf("Sending %.0f req/s to the gateway on port %d for %s after a %s warm-up%n",
+                    rate, port, duration, warmup);
+            Map<String, RouteStats> stats = generator.run(rate, warmup, duration);
+            System.out.println();
+            errorRate = Report.print(stats, duration, generator.maxLagNanos(), System.out);
+        } finally {
+            if (gateway != null) {
+                gateway.close();
+            }
+            stubs.values().forEach(replicas -> replicas.forEach(StubBackend::stop));
+        }
+
+        System.exit(errorRate > options.doubleValue("max-error-rate", 1.0) ? 1 : 0);
+    }
+
+    /**
+     * Points every service at its stubs and switches off what needs Redis, so the run is self-contained.
+     * Passed as command-line arguments because those take precedence over the gateway's application.yml.
+     */
+    private static String[] gatewayArguments(LoadTestOptions options, Map<String, List<StubBackend>> stubs) {
+        Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("server.port", "0");
+        properties.put("app.jwt.secret", JWT_SECRET);
+        properties.put("app.jwt.jwks.uri", "");
+        properties.put("app.internal-identity.secret", IDENTITY_SECRET);
+        properties.put("app.revocation.enabled", "false");
+        properties.put("app.rate-limit.enabled", "false");
+        properties.put("app.response-cache.remote-enabled", "false");
+        properties.put("management.health.redis.enabled", "false");
+        // The gateway pins a Spring Cloud train older than its Boot version; the run is about latency, not that check
+        properties.put("spring.cloud.compatibility-verifier.enabled", "false");
+        properties.put("logging.level.org.springframework.cloud.gateway", "WARN");
+        properties.put("logging.level.com.aiapp", "WARN");
+        stubs.forEach((service, replicas) -> {
+            properties.put("app.services." + service + ".url", replicas.get(0).url());
+            for (int i = 0; i < replicas.size(); i++) {
+                properties.put("spring.cloud.discovery.client.simple.instances." + service + "[" + i + "].uri",
+                        replicas.get(i).url());
+            }
+        });
+        // Later puts replace earlier ones: a repeated command-line key would be joined with a comma instead
+        properties.putAll(options.withPrefix("gateway."));
+
+        return properties.entrySet().stream()
+                .map(property -> "--" + property.getKey() + "=" + property.getValue())
+                .toArray(String[]::new);
+    }
+
+    /**
+     * HS256 tokens shaped like auth-service's, one per simulated user; {@code premiumShare} of them are premium
+     */
+    private static List<String> tokens(int users, double premiumShare) {
+        SecretKey key = Keys.hmacShaKeyFor(JWT_SECRET.getBytes(StandardCharsets.UTF_8));
+        Instant now = Instant.now();
+        int premiumUsers = (int) Math.round(users * premiumShare);
+        List<String> tokens = new ArrayList<>(users);
+        for (int i = 0; i < users; i++) {
+            List<String> roles = i < premiumUsers ? List.of("USER", "PREMIUM_USER") : List.of("USER");
+            tokens.add(Jwts.builder()
+                    .id(UUID.randomUUID().toString())
+                    .subject("loadtest-user-" + i + "@lexaai.com")
+                    .claim("roles", roles)
+                    .issuedAt(Date.from(now))
+                    .expiration(Date.from(now.plus(Duration.ofHours(6))))
+                    .signWith(key)
+                    .compact());
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,76 @@
+package com.aiapp.api_gateway.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * {@code --key=value} arguments. Stub settings are looked up per service first
+ * ({@code --stub.ai-content-service.latency}) and then for all stubs ({@code --stub.latency}).
+ */
+final class LoadTestOptions {
+
+    private final Map<String, String> values;
+
+    private LoadTestOptions(Map<String, String> values) {
+        this.values = values;
+    }
+
+    static LoadTestOptions parse(String[] args) {
+        Map<String, String> values = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Expected --key=value, got " + arg);
+            }
+            int equals = arg.indexOf('=');
+            if (equals < 0) {
+                values.put(arg.substring(2), "true");
+            } else {
+                values.put(arg.substring(2, equals), arg.substring(equals + 1));
+            }
+        }
+        return new LoadTestOptions(values);
+    }
+
+    String string(String key, String defaultValue) {
+        return values.getOrDefault(key, defaultValue);
+    }
+
+    int intValue(String key, int defaultValue) {
+        String value = values.get(key);
+        return value != null ? Integer.parseInt(value) : defaultValue;
+    }
+
+    double doubleValue(String key, double defaultValue) {
+        String value = values.get(key);
+        return value != null ? Double.parseDouble(value) : defaultValue;
+    }
+
+    Duration duration(String key, Duration defaultValue) {
+        String value = values.get(key);
+        return value != null ? DurationStyle.detectAndParse(value) : defaultValue;
+    }
+
+    /**
+     * The stub setting for one service, falling back to the setting shared by all stubs
+     */
+    String stub(String service, String key, String defaultValue) {
+        String value = values.get("stub." + service + "." + key);
+        return value != null ? value : values.getOrDefault("stub." + key, defaultValue);
+    }
+
+    /**
+     * Arguments starting with {@code prefix}, with the prefix removed
+     */
+    Map<String, String> withPrefix(String prefix) {
+        Map<String, String> matching = new LinkedHashMap<>();
+        values.forEach((key, value) -> {
+            if (key.startsWith(prefix)) {
+                matching.put(key.substring(prefix.length()), value);
+            }
+        });
+        return matching;
+    }
+}
@@ -0,0 +1,60 @@
+package com.aiapp.api_gateway.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Per-route table of throughput, latency percentiles and error rates for the measured window
+ */
+final class Report {
+
+    private static final String FORMAT = "%-16s %8s %8s %9s %9s %9s %9s %7s %7s %7s %7s %8s%n";
+
+    private Report() {
+    }
+
+    /**
+     * Prints the table and returns the overall error rate: 5xx plus requests that got no response, over requests sent
+     */
+    static double print(Map<String, RouteStats> stats, Duration measured, long maxLagNanos, PrintStream out) {
+        out.printf(FORMAT, "route", "sent", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms",
+                "2xx", "4xx", "5xx", "no-resp", "error %");
+        RouteStats total = new RouteStats("total");
+        for (RouteStats route : stats.values()) {
+            row(route, measured, out);
+            route.addTo(total);
+        }
+        row(total, measured, out);
+        out.printf("%nGenerator max send lag: %.1f ms%n", maxLagNanos / 1_000_000.0);
+        return errorRate(total);
+    }
+
+    private static void row(RouteStats route, Duration measured, PrintStream out) {
+        Histogram latency = route.latencyMicros();
+        out.printf(FORMAT,
+                route.name(),
+                route.sentCount(),
+                String.format("%.1f", route.sentCount() / (measured.toNanos() / 1_000_000_000.0)),
+                millis(latency.getValueAtPercentile(50)),
+                millis(latency.getValueAtPercentile(99)),
+                millis(latency.getValueAtPercentile(99.9)),
+                millis(latency.getMaxValue()),
+                route.successCount(),
+                route.clientErrorCount(),
+                route.serverErrorCount(),
+                route.failureCount(),
+                String.format("%.2f", errorRate(route) * 100));
+    }
+
+    private static double errorRate(RouteStats route) {
+        long sent = route.sentCount();
+        return sent == 0 ? 0 : (double) (route.serverErrorCount() + route.failureCount()) / sent;
+    }
+
+    private static String millis(long micros) {
+        return String.format("%.2f", micros / 1000.0);
+    }
+}
@@ -0,0 +1,84 @@
+package com.aiapp.api_gateway.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Outcomes of one target. Latency runs from the moment a request was due, not when it was sent,
+ * so a gateway that stalls is charged for the requests that queued behind the stall.
+ */
+final class RouteStats {
+
+    private final String name;
+    private final Histogram latencyMicros = new ConcurrentHistogram(3);
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder success = new LongAdder();
+    private final LongAdder clientErrors = new LongAdder();
+    private final LongAdder serverErrors = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    RouteStats(String name) {
+        this.name = name;
+    }
+
+    void sent() {
+        sent.increment();
+    }
+
+    void response(int status, long latencyNanos) {
+        latencyMicros.recordValue(TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+        if (status >= 500) {
+            serverErrors.increment();
+        } else if (status >= 400) {
+            clientErrors.increment();
+        } else {
+            success.increment();
+        }
+    }
+
+    /** No response at all: connection error or client-side timeout */
+    void failure(long latencyNanos) {
+        latencyMicros.recordValue(TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+        failures.increment();
+    }
+
+    String name() {
+        return name;
+    }
+
+    long sentCount() {
+        return sent.sum();
+    }
+
+    long successCount() {
+        return success.sum();
+    }
+
+    long clientErrorCount() {
+        return clientErrors.sum();
+    }
+
+    long serverErrorCount() {
+        return serverErrors.sum();
+    }
+
+    long failureCount() {
+        return failures.sum();
+    }
+
+    Histogram latencyMicros() {
+        return latencyMicros;
+    }
+
+    void addTo(RouteStats total) {
+        total.latencyMicros.add(latencyMicros);
+        total.sent.add(sent.sum());
+        total.success.add(success.sum());
+        total.clientErrors.add(clientErrors.sum());
+        total.serverErrors.add(serverErrors.sum());
+        total.failures.add(failures.sum());
+    }
+}
@@ -0,0 +1,111 @@
+package com.aiapp.api_gateway.loadtest;
+
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import org.springframework.boot.convert.DurationStyle;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * In-process stand-in for one backend instance on a loopback port. Every request is answered after
+ * the configured latency plus uniform jitter, fails with {@code errorStatus} at {@code errorRate},
+ * and otherwise returns a JSON body of {@code payloadBytes}. Health and JWKS endpoints always answer at once.
+ */
+final class StubBackend {
+
+    record Profile(Duration latency, Duration jitter, double errorRate, int errorStatus, int payloadBytes,
+                   String cacheControl) {
+
+        static Profile of(LoadTestOptions options, String service) {
+            return new Profile(
+                    DurationStyle.detectAndParse(options.stub(service, "latency", "20ms")),
+                    DurationStyle.detectAndParse(options.stub(service, "jitter", "10ms")),
+                    Double.parseDouble(options.stub(service, "error-rate", "0")),
+                    Integer.parseInt(options.stub(service, "error-status", "503")),
+                    Integer.parseInt(options.stub(service, "payload-bytes", "2048")),
+                    options.stub(service, "cache-control", null));
+        }
+    }
+
+    private final String service;
+    private final Profile profile;
+    private final byte[] payload;
+    private final DisposableServer server;
+
+    StubBackend(String service, Profile profile) {
+        this.service = service;
+        this.profile = profile;
+        this.payload = payload(service, profile.payloadBytes());
+        this.server = HttpServer.create()
+                .host("127.0.0.1")
+                .port(0)
+                .handle((request, response) -> {
+                    String path = request.fullPath();
+                    if (path.endsWith("/actuator/health")) {
+                        return response.header(HttpHeaderNames.CONTENT_TYPE, "application/json")
+                                .sendString(Mono.just("{\"status\":\"UP\"}"));
+                    }
+                    if (path.endsWith("/.well-known/jwks.json")) {
+                        return response.header(HttpHeaderNames.CONTENT_TYPE, "application/json")
+                                .sendString(Mono.just("{\"keys\":[]}"));
+                    }
+
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    long delayNanos = profile.latency().toNanos()
+                            + (profile.jitter().isZero() ? 0 : random.nextLong(profile.jitter().toNanos()));
+                    boolean fail = random.nextDouble() < profile.errorRate();
+                    return request.receive().then()
+                            .then(Mono.delay(Duration.ofNanos(delayNanos)))
+                            .then(Mono.defer(() -> {
+                                if (fail) {
+                                    return response.status(profile.errorStatus()).send().then();
+                                }
+                                response.status(HttpResponseStatus.OK)
+                                        .header(HttpHeaderNames.CONTENT_TYPE, "application/json");
+                                if (profile.cacheControl() != null) {
+                                    response.header(HttpHeaderNames.CACHE_CONTROL, profile.cacheControl());
+                                }
+                                return response.sendByteArray(Mono.just(payload)).then();
+                            }));
+                })
+                .bindNow();
+    }
+
+    String service() {
+        return service;
+    }
+
+    Profile profile() {
+        return profile;
+    }
+
+    String url() {
+        return "http://127.0.0.1:" + server.port();
+    }
+
+    void stop() {
+        server.disposeNow();
+    }
+
+    /**
+     * Text-like filler so compression behaves as it would on real JSON
+     */
+    private static byte[] payload(String service, int size) {
+        StringBuilder json = new StringBuilder(size + 64)
+                .append("{\"service\":\"").append(service).append("\",\"items\":[");
+        int item = 0;
+        while (json.length() < size - 2) {
+            if (item > 0) {
+                json.append(',');
+            }
+            json.append("{\"id\":").append(item).append(",\"text\":\"Lorem ipsum dolor sit amet ").append(item).append("\"}");
+            item++;
+        }
+        return json.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,30 @@
+package com.aiapp.api_gateway.loadtest;
+
+import io.netty.handler.codec.http.HttpMethod;
+
+import java.util.List;
+
+/**
+ * One kind of request in the traffic mix. {@code {id}} in the path is replaced by a random id
+ * in {@code [0, idRange)}, so a small range means many repeated URLs for caches and coalescing to work on.
+ */
+record Target(String name, HttpMethod method, String path, int weight, int idRange, boolean idempotencyKey) {
+
+    /**
+     * Roughly the read-heavy mix the frontend produces, across every proxied service
+     */
+    static List<Target> defaultMix() {
+        return List.of(
+                new Target("content-script", HttpMethod.GET, "/api/content/scripts/{id}", 25, 1000, false),
+                new Target("teleprompter", HttpMethod.GET, "/api/teleprompter/sessions/{id}", 10, 1000, false),
+                new Target("analytics", HttpMethod.GET, "/api/analytics/dashboard/{id}", 20, 50, false),
+                new Target("billing-plans", HttpMethod.GET, "/api/billing/plans", 15, 1, false),
+                new Target("payment", HttpMethod.POST, "/api/payments/{id}", 10, 100_000, true),
+                new Target("notifications", HttpMethod.GET, "/api/notifications/{id}", 10, 1000, false),
+                new Target("user-profile", HttpMethod.GET, "/api/users/{id}", 10, 1000, false));
+    }
+
+    String path(int id) {
+        return path.replace("{id}", Integer.toString(id));
+    }
+}
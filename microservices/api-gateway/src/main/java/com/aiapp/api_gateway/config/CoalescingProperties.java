@@ -0,0 +1,53 @@
+package com.aiapp.api_gateway.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Single-flight settings: identical concurrent GETs on these routes share one upstream exchange
+ */
+@ConfigurationProperties(prefix = "app.coalescing")
+public class CoalescingProperties {
+
+    private boolean enabled = true;
+
+    /** Responses above this size are not shared; waiting requests then go upstream themselves */
+    private DataSize maxBodySize = DataSize.ofKilobytes(512);
+
+    /** Upper bound on how long a request waits for an in-flight twin before calling upstream itself */
+    private Duration maxWait = Duration.ofSeconds(10);
+
+    /** Route ID -> settings */
+    private Map<String, RouteCoalescing> routes = new HashMap<>();
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public DataSize getMaxBodySize() { return maxBodySize; }
+    public void setMaxBodySize(DataSize maxBodySize) { this.maxBodySize = maxBodySize; }
+
+    public Duration getMaxWait() { return maxWait; }
+    public void setMaxWait(Duration maxWait) { this.maxWait = maxWait; }
+
+    public Map<String, RouteCoalescing> getRoutes() { return routes; }
+    public void setRoutes(Map<String, RouteCoalescing> routes) { this.routes = routes; }
+
+    public static class RouteCoalescing {
+        /** Path patterns within the route to coalesce; empty means every GET on the route */
+        private List<String> paths = new ArrayList<>();
+        /** Only share between requests of the same user; turn off for responses identical for everyone */
+        private boolean perUser = true;
+
+        public List<String> getPaths() { return paths; }
+        public void setPaths(List<String> paths) { this.paths = paths; }
+
+        public boolean isPerUser() { return perUser; }
+        public void setPerUser(boolean perUser) { this.perUser = perUser; }
+    }
+}
@@ -0,0 +1,68 @@
+package com.aiapp.api_gateway.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streaming response compression for the routes under {@code routes}. Responses already encoded
+ * upstream, smaller than {@code minSize} or of a type outside {@code mimeTypes} pass through untouched.
+ */
+@ConfigurationProperties(prefix = "app.compression")
+public class CompressionProperties {
+
+    private boolean enabled = true;
+
+    /** Bodies with a known length below this are not worth the framing and CPU */
+    private DataSize minSize = DataSize.ofKilobytes(1);
+
+    /** 1 (fastest) to 9 (smallest) */
+    private int gzipLevel = 5;
+
+    /** 0 (fastest) to 11 (smallest); mid-range settings stay close to gzip speed */
+    private int brotliQuality = 4;
+
+    /** Content types that compress well; parameters such as charset are ignored */
+    private List<String> mimeTypes = new ArrayList<>(List.of(
+            "text/html", "text/plain", "text/css", "text/csv", "text/markdown", "application/json",
+            "application/javascript", "application/xml", "application/problem+json"));
+
+    /** Route ID -> compressed paths and encodings */
+    private Map<String, RouteCompression> routes = new HashMap<>();
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public DataSize getMinSize() { return minSize; }
+    public void setMinSize(DataSize minSize) { this.minSize = minSize; }
+
+    public int getGzipLevel() { return gzipLevel; }
+    public void setGzipLevel(int gzipLevel) { this.gzipLevel = gzipLevel; }
+
+    public int getBrotliQuality() { return brotliQuality; }
+    public void setBrotliQuality(int brotliQuality) { this.brotliQuality = brotliQuality; }
+
+    public List<String> getMimeTypes() { return mimeTypes; }
+    public void setMimeTypes(List<String> mimeTypes) { this.mimeTypes = mimeTypes; }
+
+    public Map<String, RouteCompression> getRoutes() { return routes; }
+    public void setRoutes(Map<String, RouteCompression> routes) { this.routes = routes; }
+
+    public static class RouteCompression {
+        /** Path patterns to compress; empty means the whole route */
+        private List<String> paths = new ArrayList<>();
+
+        /** Encodings offered in order of preference; the first one the client accepts is used */
+        private List<String> encodings = new ArrayList<>(List.of("br", "gzip"));
+
+        public List<String> getPaths() { return paths; }
+        public void setPaths(List<String> paths) { this.paths = paths; }
+
+        public List<String> getEncodings() { return encodings; }
+        public void setEncodings(List<String> encodings) { this.encodings = encodings; }
+    }
+}
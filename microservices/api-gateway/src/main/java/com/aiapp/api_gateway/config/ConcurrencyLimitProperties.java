@@ -0,0 +1,86 @@
+package com.aiapp.api_gateway.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Adaptive per-route concurrency limits. Each route starts at {@code initialLimit} and moves between
+ * {@code minLimit} and its {@code maxLimit} as upstream latency rises above or settles at its no-load baseline.
+ */
+@ConfigurationProperties(prefix = "app.concurrency-limit")
+public class ConcurrencyLimitProperties {
+
+    private boolean enabled = true;
+
+    private int initialLimit = 20;
+
+    private int minLimit = 4;
+
+    private int maxLimit = 500;
+
+    /** Weight of each new limit estimate; lower values react more slowly but jitter less */
+    private double smoothing = 0.2;
+
+    /** How often the no-load latency baseline is forgotten, so a backend that got slower for good is relearned */
+    private Duration baselineResetInterval = Duration.ofSeconds(30);
+
+    /** Share of each limit held back for premium callers, who are shed last */
+    private double premiumReserve = 0.2;
+
+    /** Suggested wait sent with shed requests */
+    private Duration retryAfter = Duration.ofSeconds(1);
+
+    /** Route ID -> overrides; routes without an entry use the defaults above */
+    private Map<String, RouteLimit> routes = new HashMap<>();
+
+    public int initialLimitFor(String routeId) {
+        RouteLimit route = routes.get(routeId);
+        return route != null && route.getInitialLimit() != null ? route.getInitialLimit() : initialLimit;
+    }
+
+    public int maxLimitFor(String routeId) {
+        RouteLimit route = routes.get(routeId);
+        return route != null && route.getMaxLimit() != null ? route.getMaxLimit() : maxLimit;
+    }
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public int getInitialLimit() { return initialLimit; }
+    public void setInitialLimit(int initialLimit) { this.initialLimit = initialLimit; }
+
+    public int getMinLimit() { return minLimit; }
+    public void setMinLimit(int minLimit) { this.minLimit = minLimit; }
+
+    public int getMaxLimit() { return maxLimit; }
+    public void setMaxLimit(int maxLimit) { this.maxLimit = maxLimit; }
+
+    public double getSmoothing() { return smoothing; }
+    public void setSmoothing(double smoothing) { this.smoothing = smoothing; }
+
+    public Duration getBaselineResetInterval() { return baselineResetInterval; }
+    public void setBaselineResetInterval(Duration baselineResetInterval) { this.baselineResetInterval = baselineResetInterval; }
+
+    public double getPremiumReserve() { return premiumReserve; }
+    public void setPremiumReserve(double premiumReserve) { this.premiumReserve = premiumReserve; }
+
+    public Duration getRetryAfter() { return retryAfter; }
+    public void setRetryAfter(Duration retryAfter) { this.retryAfter = retryAfter; }
+
+    public Map<String, RouteLimit> getRoutes() { return routes; }
+    public void setRoutes(Map<String, RouteLimit> routes) { this.routes = routes; }
+
+    public static class RouteLimit {
+        private Integer initialLimit;
+        private Integer maxLimit;
+
+        public Integer getInitialLimit() { return initialLimit; }
+        public void setInitialLimit(Integer initialLimit) { this.initialLimit = initialLimit; }
+
+        public Integer getMaxLimit() { return maxLimit; }
+        public void setMaxLimit(Integer maxLimit) { this.maxLimit = maxLimit; }
+    }
+}
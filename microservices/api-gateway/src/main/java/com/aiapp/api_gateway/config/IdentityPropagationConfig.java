@@ -0,0 +1,10 @@
+package com.aiapp.api_gateway.config;
+
+import com.aiapp.internal_identity.InternalIdentityProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(InternalIdentityProperties.class)
+public class IdentityPropagationConfig {
+}
@@ -0,0 +1,58 @@
+package com.aiapp.api_gateway.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dedicated CPU pool for JWT signature checks, kept off the Netty event loop.
+ * The queue is bounded so a burst of unseen tokens is rejected fast instead of piling up.
+ */
+@Configuration
+public class JwtVerificationConfig {
+
+    @Value("${app.jwt.verification.threads:0}")
+    private int threads;
+
+    @Value("${app.jwt.verification.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Bean(destroyMethod = "dispose")
+    public Scheduler jwtVerificationScheduler(MeterRegistry meterRegistry) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+
+        Counter rejections = Counter.builder("jwt.verification.rejected")
+                .description("JWT verifications rejected because the verification queue was full")
+                .register(meterRegistry);
+
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("jwt-verify-");
+        threadFactory.setDaemon(true);
+
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                poolSize, poolSize,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                threadFactory,
+                (task, pool) -> {
+                    rejections.increment();
+                    throw new RejectedExecutionException("JWT verification queue is full");
+                });
+
+        // Publishes executor.queued (queue depth), executor.active and friends tagged name=jwt.verification
+        new ExecutorServiceMetrics(executor, "jwt.verification", Tags.empty()).bindTo(meterRegistry);
+
+        return Schedulers.fromExecutorService(executor, "jwt-verification");
+    }
+}
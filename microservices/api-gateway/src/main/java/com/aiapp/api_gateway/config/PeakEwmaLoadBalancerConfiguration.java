@@ -0,0 +1,25 @@
+package com.aiapp.api_gateway.config;
+
+import com.aiapp.api_gateway.service.PeakEwmaLoadBalancer;
+import com.aiapp.api_gateway.service.UpstreamInstanceTracker;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.ReactorLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+/**
+ * Per-service load-balancer context. Deliberately not a {@code @Configuration}: it is registered
+ * through {@link LoadBalancingConfig} and must stay out of the main application context.
+ */
+public class PeakEwmaLoadBalancerConfiguration {
+
+    @Bean
+    public ReactorLoadBalancer<ServiceInstance> reactorServiceInstanceLoadBalancer(Environment environment,
+                                                                                    LoadBalancerClientFactory clientFactory,
+                                                                                    UpstreamInstanceTracker tracker) {
+        String serviceId = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+        return new PeakEwmaLoadBalancer(clientFactory.getLazyProvider(serviceId, ServiceInstanceListSupplier.class), tracker);
+    }
+}
@@ -0,0 +1,16 @@
+package com.aiapp.api_gateway.config;
+
+import com.aiapp.api_gateway.security.PublicPathMatcher;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(PublicPathProperties.class)
+public class PublicPathConfig {
+
+    @Bean
+    public PublicPathMatcher publicPathMatcher(PublicPathProperties properties) {
+        return new PublicPathMatcher(properties.getPublicPaths());
+    }
+}
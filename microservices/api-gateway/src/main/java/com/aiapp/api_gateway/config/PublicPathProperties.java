@@ -0,0 +1,18 @@
+package com.aiapp.api_gateway.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Routes reachable without a bearer token, shared by the security chain and the JWT filter
+ */
+@ConfigurationProperties(prefix = "app.security")
+public class PublicPathProperties {
+
+    private List<String> publicPaths = new ArrayList<>();
+
+    public List<String> getPublicPaths() { return publicPaths; }
+    public void setPublicPaths(List<String> publicPaths) { this.publicPaths = publicPaths; }
+}
@@ -0,0 +1,68 @@
+package com.aiapp.api_gateway.config;
+
+import com.aiapp.api_gateway.security.UserTier;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Per-route, per-tier token buckets. Routes without an entry are not limited.
+ */
+@ConfigurationProperties(prefix = "app.rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    /** Upper bound on the tokens a pod takes from the shared bucket in one Redis call */
+    private int leaseSize = 10;
+
+    /** Largest share of a bucket's burst capacity one pod may lease at once */
+    private double maxLeaseFraction = 0.1;
+
+    /** Unused leased tokens are forfeited after this long so a pod cannot hoard capacity */
+    private Duration leaseTtl = Duration.ofSeconds(1);
+
+    /** Proxies in front of the gateway that append to X-Forwarded-For; 0 keys anonymous callers by peer address */
+    private int trustedProxies = 0;
+
+    /** Route ID -> tier -> limit */
+    private Map<String, Map<UserTier, Limit>> routes = new HashMap<>();
+
+    public Limit limitFor(String routeId, UserTier tier) {
+        Map<UserTier, Limit> tiers = routes.get(routeId);
+        return tiers != null ? tiers.get(tier) : null;
+    }
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public int getLeaseSize() { return leaseSize; }
+    public void setLeaseSize(int leaseSize) { this.leaseSize = leaseSize; }
+
+    public double getMaxLeaseFraction() { return maxLeaseFraction; }
+    public void setMaxLeaseFraction(double maxLeaseFraction) { this.maxLeaseFraction = maxLeaseFraction; }
+
+    public Duration getLeaseTtl() { return leaseTtl; }
+    public void setLeaseTtl(Duration leaseTtl) { this.leaseTtl = leaseTtl; }
+
+    public int getTrustedProxies() { return trustedProxies; }
+    public void setTrustedProxies(int trustedProxies) { this.trustedProxies = trustedProxies; }
+
+    public Map<String, Map<UserTier, Limit>> getRoutes() { return routes; }
+    public void setRoutes(Map<String, Map<UserTier, Limit>> routes) { this.routes = routes; }
+
+    public static class Limit {
+        /** Tokens added per second */
+        private int replenishRate;
+        /** Maximum tokens the bucket holds */
+        private int burstCapacity;
+
+        public int getReplenishRate() { return replenishRate; }
+        public void setReplenishRate(int replenishRate) { this.replenishRate = replenishRate; }
+
+        public int getBurstCapacity() { return burstCapacity; }
+        public void setBurstCapacity(int burstCapacity) { this.burstCapacity = burstCapacity; }
+    }
+}
@@ -0,0 +1,69 @@
+package com.aiapp.api_gateway.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Opt-in response caching for read-heavy routes. Routes without an entry are never cached.
+ */
+@ConfigurationProperties(prefix = "app.response-cache")
+public class ResponseCacheProperties {
+
+    private boolean enabled = true;
+
+    /** Larger bodies are streamed through without being cached */
+    private DataSize maxEntrySize = DataSize.ofKilobytes(256);
+
+    /** Total body bytes held by the in-process tier */
+    private DataSize localMaxSize = DataSize.ofMegabytes(64);
+
+    /** Share entries between gateway pods through Redis */
+    private boolean remoteEnabled = true;
+
+    private String remoteKeyPrefix = "gateway:cache:";
+
+    /** Route ID -> cache settings */
+    private Map<String, RouteCache> routes = new HashMap<>();
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public DataSize getMaxEntrySize() { return maxEntrySize; }
+    public void setMaxEntrySize(DataSize maxEntrySize) { this.maxEntrySize = maxEntrySize; }
+
+    public DataSize getLocalMaxSize() { return localMaxSize; }
+    public void setLocalMaxSize(DataSize localMaxSize) { this.localMaxSize = localMaxSize; }
+
+    public boolean isRemoteEnabled() { return remoteEnabled; }
+    public void setRemoteEnabled(boolean remoteEnabled) { this.remoteEnabled = remoteEnabled; }
+
+    public String getRemoteKeyPrefix() { return remoteKeyPrefix; }
+    public void setRemoteKeyPrefix(String remoteKeyPrefix) { this.remoteKeyPrefix = remoteKeyPrefix; }
+
+    public Map<String, RouteCache> getRoutes() { return routes; }
+    public void setRoutes(Map<String, RouteCache> routes) { this.routes = routes; }
+
+    public static class RouteCache {
+        /** Path patterns within the route whose GET responses may be cached */
+        private List<String> paths = new ArrayList<>();
+        /** Freshness when the backend sends no max-age or s-maxage */
+        private Duration ttl = Duration.ofSeconds(30);
+        /** How long a stale entry with a backend ETag is kept for conditional revalidation */
+        private Duration revalidateWindow = Duration.ofMinutes(5);
+
+        public List<String> getPaths() { return paths; }
+        public void setPaths(List<String> paths) { this.paths = paths; }
+
+        public Duration getTtl() { return ttl; }
+        public void setTtl(Duration ttl) { this.ttl = ttl; }
+
+        public Duration getRevalidateWindow() { return revalidateWindow; }
+        public void setRevalidateWindow(Duration revalidateWindow) { this.revalidateWindow = revalidateWindow; }
+    }
+}
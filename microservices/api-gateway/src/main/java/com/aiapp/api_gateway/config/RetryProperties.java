@@ -0,0 +1,89 @@
+package com.aiapp.api_gateway.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Budgeted retries and optional hedging for upstream calls. Retries and hedges share one budget per
+ * route, so extra attempts stay a bounded fraction of live traffic even while a backend is down.
+ */
+@ConfigurationProperties(prefix = "app.retry")
+public class RetryProperties {
+
+    private boolean enabled = true;
+
+    /** Attempts per request including the first, whether retries or hedges */
+    private int maxAttempts = 3;
+
+    /** Extra attempts allowed as a fraction of requests seen in the budget window */
+    private double budgetRatio = 0.1;
+
+    /** Extra attempts always allowed per second, so low-traffic routes can still retry */
+    private int minRetriesPerSecond = 5;
+
+    private Duration budgetWindow = Duration.ofSeconds(10);
+
+    /** Pause before a retry; hedges are timed by latency instead */
+    private Duration backoff = Duration.ofMillis(50);
+
+    /** Upstream statuses worth another attempt; connection errors and timeouts always are */
+    private List<Integer> retryableStatuses = List.of(502, 503, 504);
+
+    /** Route ID -> overrides; routes without an entry get retries but no hedging */
+    private Map<String, RouteRetry> routes = new HashMap<>();
+
+    public RouteRetry routeSettings(String routeId) {
+        return routes.getOrDefault(routeId, RouteRetry.DEFAULTS);
+    }
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public int getMaxAttempts() { return maxAttempts; }
+    public void setMaxAttempts(int maxAttempts) { this.maxAttempts = maxAttempts; }
+
+    public double getBudgetRatio() { return budgetRatio; }
+    public void setBudgetRatio(double budgetRatio) { this.budgetRatio = budgetRatio; }
+
+    public int getMinRetriesPerSecond() { return minRetriesPerSecond; }
+    public void setMinRetriesPerSecond(int minRetriesPerSecond) { this.minRetriesPerSecond = minRetriesPerSecond; }
+
+    public Duration getBudgetWindow() { return budgetWindow; }
+    public void setBudgetWindow(Duration budgetWindow) { this.budgetWindow = budgetWindow; }
+
+    public Duration getBackoff() { return backoff; }
+    public void setBackoff(Duration backoff) { this.backoff = backoff; }
+
+    public List<Integer> getRetryableStatuses() { return retryableStatuses; }
+    public void setRetryableStatuses(List<Integer> retryableStatuses) { this.retryableStatuses = retryableStatuses; }
+
+    public Map<String, RouteRetry> getRoutes() { return routes; }
+    public void setRoutes(Map<String, RouteRetry> routes) { this.routes = routes; }
+
+    public static class RouteRetry {
+        static final RouteRetry DEFAULTS = new RouteRetry();
+
+        private boolean retries = true;
+        /** Send a second GET when the first is slower than the hedge quantile of recent latency */
+        private boolean hedge;
+        private double hedgeQuantile = 0.95;
+        /** Never hedge sooner than this, whatever the quantile says */
+        private Duration minHedgeDelay = Duration.ofMillis(10);
+
+        public boolean isRetries() { return retries; }
+        public void setRetries(boolean retries) { this.retries = retries; }
+
+        public boolean isHedge() { return hedge; }
+        public void setHedge(boolean hedge) { this.hedge = hedge; }
+
+        public double getHedgeQuantile() { return hedgeQuantile; }
+        public void setHedgeQuantile(double hedgeQuantile) { this.hedgeQuantile = hedgeQuantile; }
+
+        public Duration getMinHedgeDelay() { return minHedgeDelay; }
+        public void setMinHedgeDelay(Duration minHedgeDelay) { this.minHedgeDelay = minHedgeDelay; }
+    }
+}
@@ -0,0 +1,46 @@
+package com.aiapp.api_gateway.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Per-route latency histograms for the phases of a proxied request: authentication, connection
+ * acquire, time to the first upstream byte and total
+ */
+@ConfigurationProperties(prefix = "app.route-timing")
+public class RouteTimingProperties {
+
+    private boolean enabled = true;
+
+    /** Adds a Server-Timing header with the same phases, for browser dev tools and client-side tracing */
+    private boolean serverTimingHeader = false;
+
+    /** Histogram bucket boundaries; keep them on the latency objectives alerts are written against */
+    private List<Duration> sloBuckets = new ArrayList<>(List.of(
+            Duration.ofMillis(5), Duration.ofMillis(10), Duration.ofMillis(25), Duration.ofMillis(50),
+            Duration.ofMillis(100), Duration.ofMillis(250), Duration.ofMillis(500), Duration.ofSeconds(1),
+            Duration.ofMillis(2500), Duration.ofSeconds(5), Duration.ofSeconds(10)));
+
+    private List<Double> percentiles = new ArrayList<>(List.of(0.5, 0.95, 0.99));
+
+    /** Window the published percentiles cover */
+    private Duration percentileWindow = Duration.ofMinutes(2);
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public boolean isServerTimingHeader() { return serverTimingHeader; }
+    public void setServerTimingHeader(boolean serverTimingHeader) { this.serverTimingHeader = serverTimingHeader; }
+
+    public List<Duration> getSloBuckets() { return sloBuckets; }
+    public void setSloBuckets(List<Duration> sloBuckets) { this.sloBuckets = sloBuckets; }
+
+    public List<Double> getPercentiles() { return percentiles; }
+    public void setPercentiles(List<Double> percentiles) { this.percentiles = percentiles; }
+
+    public Duration getPercentileWindow() { return percentileWindow; }
+    public void setPercentileWindow(Duration percentileWindow) { this.percentileWindow = percentileWindow; }
+}
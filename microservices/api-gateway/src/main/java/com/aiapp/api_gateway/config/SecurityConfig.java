@@ -1,6 +1,7 @@
 package com.aiapp.api_gateway.config;
 
 import com.aiapp.api_gateway.filter.JwtAuthenticationFilter;
+import com.aiapp.api_gateway.security.PublicPathMatcher;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
@@ -18,9 +19,11 @@ import java.util.Arrays;
 public class SecurityConfig {
 
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
+    private final PublicPathMatcher publicPathMatcher;
 
-    public SecurityConfig(JwtAuthenticationFilter jwtAuthenticationFilter) {
+    public SecurityConfig(JwtAuthenticationFilter jwtAuthenticationFilter, PublicPathMatcher publicPathMatcher) {
         this.jwtAuthenticationFilter = jwtAuthenticationFilter;
+        this.publicPathMatcher = publicPathMatcher;
     }
 
     @Bean
@@ -29,12 +32,8 @@ public class SecurityConfig {
                 .csrf(ServerHttpSecurity.CsrfSpec::disable)
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .authorizeExchange(exchange -> exchange
-                        // Public endpoints
-                        .pathMatchers("/api/auth/login", "/api/auth/register", 
-                                     "/api/auth/oauth/**", "/actuator/health",
-                                     "/swagger-ui/**", "/v3/api-docs/**").permitAll()
-                        // Health checks
-                        .pathMatchers("/api/*/actuator/health").permitAll()
+                        // Public endpoints and health checks (app.security.public-paths)
+                        .matchers(publicPathMatcher).permitAll()
                         // All other endpoints require authentication
                         .anyExchange().authenticated())
                 .addFilterBefore(jwtAuthenticationFilter, SecurityWebFiltersOrder.AUTHENTICATION)
@@ -0,0 +1,47 @@
+package com.aiapp.api_gateway.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Instance selection and outlier ejection for {@code lb://} routes. Instances themselves are listed under
+ * {@code spring.cloud.discovery.client.simple.instances.<service-id>}.
+ */
+@ConfigurationProperties(prefix = "app.load-balancing")
+public class UpstreamBalancingProperties {
+
+    /** Consecutive failures (connect errors, timeouts, 502/503/504) before an instance is ejected */
+    private int failureThreshold = 3;
+
+    /** How quickly latency samples age out of the moving average */
+    private Duration latencyDecay = Duration.ofSeconds(10);
+
+    /** Assumed latency of an instance with no samples yet, so new instances are not flooded */
+    private Duration initialLatency = Duration.ofMillis(50);
+
+    /** Ejected instances are probed at this interval and return once healthy */
+    private Duration probeInterval = Duration.ofSeconds(5);
+
+    private Duration probeTimeout = Duration.ofSeconds(2);
+
+    private String probePath = "/actuator/health";
+
+    public int getFailureThreshold() { return failureThreshold; }
+    public void setFailureThreshold(int failureThreshold) { this.failureThreshold = failureThreshold; }
+
+    public Duration getLatencyDecay() { return latencyDecay; }
+    public void setLatencyDecay(Duration latencyDecay) { this.latencyDecay = latencyDecay; }
+
+    public Duration getInitialLatency() { return initialLatency; }
+    public void setInitialLatency(Duration initialLatency) { this.initialLatency = initialLatency; }
+
+    public Duration getProbeInterval() { return probeInterval; }
+    public void setProbeInterval(Duration probeInterval) { this.probeInterval = probeInterval; }
+
+    public Duration getProbeTimeout() { return probeTimeout; }
+    public void setProbeTimeout(Duration probeTimeout) { this.probeTimeout = probeTimeout; }
+
+    public String getProbePath() { return probePath; }
+    public void setProbePath(String probePath) { this.probePath = probePath; }
+}
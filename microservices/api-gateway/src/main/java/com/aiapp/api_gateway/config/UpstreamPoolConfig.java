@@ -0,0 +1,41 @@
+package com.aiapp.api_gateway.config;
+
+import com.aiapp.api_gateway.filter.PooledNettyRoutingFilter;
+import com.aiapp.api_gateway.service.UpstreamConnectionPools;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.gateway.config.GatewayProperties;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.netty.http.client.HttpClient;
+
+import java.util.List;
+
+@Configuration
+@EnableConfigurationProperties(UpstreamPoolProperties.class)
+public class UpstreamPoolConfig {
+
+    /**
+     * Stands in for the stock routing filter, disabled in application.yml; the shared gateway client
+     * remains the fallback when per-route pools are turned off
+     */
+    @Bean
+    public PooledNettyRoutingFilter pooledNettyRoutingFilter(HttpClient httpClient,
+                                                             ObjectProvider<List<HttpHeadersFilter>> headersFilters,
+                                                             HttpClientProperties httpClientProperties,
+                                                             UpstreamConnectionPools pools) {
+        return new PooledNettyRoutingFilter(httpClient, headersFilters, httpClientProperties, pools);
+    }
+
+    /**
+     * Writes the upstream body to the client. The stock bean is switched off together with the stock
+     * routing filter, and without it proxied responses would go out with headers only.
+     */
+    @Bean
+    public NettyWriteResponseFilter nettyWriteResponseFilter(GatewayProperties gatewayProperties) {
+        return new NettyWriteResponseFilter(gatewayProperties.getStreamingMediaTypes());
+    }
+}
@@ -0,0 +1,124 @@
+package com.aiapp.api_gateway.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Connection pools for proxied traffic. Every route gets a pool of its own, sized by the profile
+ * it is mapped to under {@code routes}; unmapped routes use the {@code default} profile.
+ */
+@ConfigurationProperties(prefix = "app.upstream-pools")
+public class UpstreamPoolProperties {
+
+    public static final String DEFAULT_PROFILE = "default";
+
+    private boolean enabled = true;
+
+    /** Profile name -> pool settings */
+    private Map<String, Profile> profiles = new HashMap<>();
+
+    /** Route ID -> profile name */
+    private Map<String, String> routes = new HashMap<>();
+
+    public Profile profileFor(String routeId) {
+        Profile profile = profiles.get(routes.getOrDefault(routeId, DEFAULT_PROFILE));
+        if (profile == null) {
+            profile = profiles.get(DEFAULT_PROFILE);
+        }
+        return profile != null ? profile : new Profile();
+    }
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public Map<String, Profile> getProfiles() { return profiles; }
+    public void setProfiles(Map<String, Profile> profiles) { this.profiles = profiles; }
+
+    public Map<String, String> getRoutes() { return routes; }
+    public void setRoutes(Map<String, String> routes) { this.routes = routes; }
+
+    public enum Protocol {
+        /** HTTP/1.1 only */
+        HTTP1,
+        /** HTTP/2 negotiated over TLS, falling back to HTTP/1.1 */
+        H2,
+        /** HTTP/2 over plain TCP with prior knowledge; the backend must accept it */
+        H2C
+    }
+
+    public static class Profile {
+        /** Connections per backend instance; for HTTP/2 each carries up to {@code maxConcurrentStreams} requests */
+        private int maxConnections = 200;
+
+        /** Requests allowed to wait for a connection before new ones are rejected */
+        private int pendingAcquireMaxCount = 400;
+
+        private Duration pendingAcquireTimeout = Duration.ofSeconds(5);
+
+        /** Idle connections are closed after this long, before upstream keep-alive timeouts close them mid-request */
+        private Duration maxIdleTime = Duration.ofSeconds(20);
+
+        /** Connections are retired after this long so load spreads again after scaling events */
+        private Duration maxLifeTime = Duration.ofMinutes(5);
+
+        private Duration evictionInterval = Duration.ofSeconds(10);
+
+        private Duration connectTimeout = Duration.ofSeconds(2);
+
+        private boolean keepAlive = true;
+
+        private Protocol protocol = Protocol.HTTP1;
+
+        private int maxConcurrentStreams = 100;
+
+        /** Connections opened to every instance at startup */
+        private int warmupConnections = 0;
+
+        /** Resumable TLS sessions kept per pool; resumption skips the full handshake on reconnect */
+        private int tlsSessionCacheSize = 1000;
+
+        private Duration tlsSessionTimeout = Duration.ofHours(1);
+
+        public int getMaxConnections() { return maxConnections; }
+        public void setMaxConnections(int maxConnections) { this.maxConnections = maxConnections; }
+
+        public int getPendingAcquireMaxCount() { return pendingAcquireMaxCount; }
+        public void setPendingAcquireMaxCount(int pendingAcquireMaxCount) { this.pendingAcquireMaxCount = pendingAcquireMaxCount; }
+
+        public Duration getPendingAcquireTimeout() { return pendingAcquireTimeout; }
+        public void setPendingAcquireTimeout(Duration pendingAcquireTimeout) { this.pendingAcquireTimeout = pendingAcquireTimeout; }
+
+        public Duration getMaxIdleTime() { return maxIdleTime; }
+        public void setMaxIdleTime(Duration maxIdleTime) { this.maxIdleTime = maxIdleTime; }
+
+        public Duration getMaxLifeTime() { return maxLifeTime; }
+        public void setMaxLifeTime(Duration maxLifeTime) { this.maxLifeTime = maxLifeTime; }
+
+        public Duration getEvictionInterval() { return evictionInterval; }
+        public void setEvictionInterval(Duration evictionInterval) { this.evictionInterval = evictionInterval; }
+
+        public Duration getConnectTimeout() { return connectTimeout; }
+        public void setConnectTimeout(Duration connectTimeout) { this.connectTimeout = connectTimeout; }
+
+        public boolean isKeepAlive() { return keepAlive; }
+        public void setKeepAlive(boolean keepAlive) { this.keepAlive = keepAlive; }
+
+        public Protocol getProtocol() { return protocol; }
+        public void setProtocol(Protocol protocol) { this.protocol = protocol; }
+
+        public int getMaxConcurrentStreams() { return maxConcurrentStreams; }
+        public void setMaxConcurrentStreams(int maxConcurrentStreams) { this.maxConcurrentStreams = maxConcurrentStreams; }
+
+        public int getWarmupConnections() { return warmupConnections; }
+        public void setWarmupConnections(int warmupConnections) { this.warmupConnections = warmupConnections; }
+
+        public int getTlsSessionCacheSize() { return tlsSessionCacheSize; }
+        public void setTlsSessionCacheSize(int tlsSessionCacheSize) { this.tlsSessionCacheSize = tlsSessionCacheSize; }
+
+        public Duration getTlsSessionTimeout() { return tlsSessionTimeout; }
+        public void setTlsSessionTimeout(Duration tlsSessionTimeout) { this.tlsSessionTimeout = tlsSessionTimeout; }
+    }
+}
@@ -0,0 +1,157 @@
+package com.aiapp.api_gateway.filter;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseCookie;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Stand-in response for one upstream attempt. Status, headers and cookies are kept locally and
+ * the body is held back, so several attempts can run side by side; only the attempt chosen by
+ * {@link #commitTo(ServerHttpResponse)} reaches the client. Until then writes stay pending.
+ */
+class AttemptResponse extends ServerHttpResponseDecorator {
+
+    private final HttpHeaders headers = new HttpHeaders();
+    private final MultiValueMap<String, ResponseCookie> cookies = new LinkedMultiValueMap<>();
+    private final List<Supplier<? extends Mono<Void>>> commitActions = new ArrayList<>();
+    private final Sinks.Empty<Void> written = Sinks.empty();
+    private final Consumer<AttemptResponse> onReady;
+    private HttpStatusCode statusCode;
+    private Publisher<? extends DataBuffer> body;
+    private Publisher<? extends Publisher<? extends DataBuffer>> streamedBody;
+    private volatile boolean ready;
+
+    AttemptResponse(ServerHttpResponse client, Consumer<AttemptResponse> onReady) {
+        super(client);
+        this.onReady = onReady;
+    }
+
+    @Override
+    public boolean setStatusCode(HttpStatusCode status) {
+        this.statusCode = status;
+        return true;
+    }
+
+    @Override
+    public HttpStatusCode getStatusCode() {
+        return statusCode;
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public boolean setRawStatusCode(Integer value) {
+        this.statusCode = value != null ? HttpStatusCode.valueOf(value) : null;
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public Integer getRawStatusCode() {
+        return statusCode != null ? statusCode.value() : null;
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        return headers;
+    }
+
+    @Override
+    public MultiValueMap<String, ResponseCookie> getCookies() {
+        return cookies;
+    }
+
+    @Override
+    public void addCookie(ResponseCookie cookie) {
+        cookies.add(cookie.getName(), cookie);
+    }
+
+    @Override
+    public void beforeCommit(Supplier<? extends Mono<Void>> action) {
+        commitActions.add(action);
+    }
+
+    @Override
+    public boolean isCommitted() {
+        return false;
+    }
+
+    @Override
+    public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+        this.body = body;
+        markReady();
+        return written.asMono();
+    }
+
+    @Override
+    public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+        this.streamedBody = body;
+        markReady();
+        return written.asMono();
+    }
+
+    @Override
+    public Mono<Void> setComplete() {
+        if (!ready) {
+            this.body = Flux.empty();
+            markReady();
+        }
+        return written.asMono();
+    }
+
+    boolean isReady() {
+        return ready;
+    }
+
+    private void markReady() {
+        if (!ready) {
+            ready = true;
+            onReady.accept(this);
+        }
+    }
+
+    /**
+     * Copies status, headers and cookies onto the client response and streams the held-back body to it.
+     * The pending write of this attempt completes with the outcome.
+     */
+    Mono<Void> commitTo(ServerHttpResponse client) {
+        if (statusCode != null) {
+            client.setStatusCode(statusCode);
+        }
+        client.getHeaders().putAll(headers);
+        cookies.values().forEach(list -> list.forEach(client::addCookie));
+        commitActions.forEach(client::beforeCommit);
+
+        Mono<Void> write = streamedBody != null ? client.writeAndFlushWith(streamedBody)
+                : body != null ? client.writeWith(body)
+                : client.setComplete();
+        return write
+                .doOnSuccess(done -> written.tryEmitEmpty())
+                .doOnError(written::tryEmitError);
+    }
+
+    /**
+     * Releases the held-back body of an attempt that lost or is being retried
+     */
+    void discard() {
+        if (body != null) {
+            // Draining lets the upstream connection go back to the pool instead of being closed
+            Flux.from(body).subscribe(DataBufferUtils::release, ex -> { });
+        }
+        written.tryEmitEmpty();
+    }
+}
@@ -0,0 +1,159 @@
+package com.aiapp.api_gateway.filter;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Copies the response body as it streams to the client, so filters can keep it after the
+ * exchange completes without delaying the first byte. Bodies above {@code maxBytes} and
+ * streamed ({@code writeAndFlushWith}) responses are passed through and reported as not captured.
+ * Must be installed by a filter ordered before {@code NettyWriteResponseFilter}.
+ */
+public class BodyCaptureResponseDecorator extends ServerHttpResponseDecorator {
+
+    public interface Listener {
+
+        /**
+         * Called once status and headers are final; return false to stream the body through untouched
+         */
+        boolean shouldCapture(ServerHttpResponse response);
+
+        void onCaptured(ServerHttpResponse response, byte[] body);
+
+        default void onNotCaptured() {
+        }
+    }
+
+    /** Hop-by-hop, or set per request by the gateway itself; never replayed from a captured response */
+    private static final Set<String> PER_EXCHANGE_HEADERS = Set.of(
+            "connection", "keep-alive", "transfer-encoding", "content-length", "date", "age",
+            "set-cookie", "retry-after", "proxy-authenticate", "upgrade", "trailer", "x-cache");
+    private static final List<String> PER_EXCHANGE_HEADER_PREFIXES = List.of("access-control-", "x-ratelimit-");
+
+    private final int maxBytes;
+    private final Listener listener;
+    private final AtomicBoolean reported = new AtomicBoolean();
+
+    public BodyCaptureResponseDecorator(ServerHttpResponse delegate, int maxBytes, Listener listener) {
+        super(delegate);
+        this.maxBytes = maxBytes;
+        this.listener = listener;
+    }
+
+    @Override
+    public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+        if (!listener.shouldCapture(getDelegate())) {
+            reportNotCaptured();
+            return super.writeWith(body);
+        }
+
+        Capture capture = new Capture(maxBytes);
+        return super.writeWith(Flux.from(body).doOnNext(capture::append))
+                .doOnSuccess(done -> {
+                    if (capture.overflowed) {
+                        reportNotCaptured();
+                    } else if (reported.compareAndSet(false, true)) {
+                        listener.onCaptured(getDelegate(), capture.toByteArray());
+                    }
+                })
+                .doOnError(ex -> reportNotCaptured())
+                .doOnCancel(this::reportNotCaptured);
+    }
+
+    @Override
+    public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+        reportNotCaptured();
+        return super.writeAndFlushWith(body);
+    }
+
+    @Override
+    public Mono<Void> setComplete() {
+        // Completed without a body (e.g. 204 or an error status set by a filter)
+        if (!isCommitted() && listener.shouldCapture(getDelegate())) {
+            if (reported.compareAndSet(false, true)) {
+                listener.onCaptured(getDelegate(), new byte[0]);
+            }
+        } else {
+            reportNotCaptured();
+        }
+        return super.setComplete();
+    }
+
+    /**
+     * Backend headers of a captured response that are safe to replay onto another exchange
+     */
+    public static Map<String, List<String>> replayableHeaders(HttpHeaders headers) {
+        Map<String, List<String>> replayable = new LinkedHashMap<>();
+        headers.forEach((name, values) -> {
+            if (isReplayable(name)) {
+                replayable.put(name, List.copyOf(values));
+            }
+        });
+        return replayable;
+    }
+
+    private static boolean isReplayable(String headerName) {
+        String name = headerName.toLowerCase(Locale.ROOT);
+        if (PER_EXCHANGE_HEADERS.contains(name)) {
+            return false;
+        }
+        for (String prefix : PER_EXCHANGE_HEADER_PREFIXES) {
+            if (name.startsWith(prefix)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void reportNotCaptured() {
+        if (reported.compareAndSet(false, true)) {
+            listener.onNotCaptured();
+        }
+    }
+
+    /**
+     * Growable copy of the streamed buffers; read positions are left untouched for the real write
+     */
+    private static final class Capture {
+        private final int maxBytes;
+        private byte[] bytes = new byte[1024];
+        private int length;
+        private boolean overflowed;
+
+        Capture(int maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        void append(DataBuffer buffer) {
+            int readable = buffer.readableByteCount();
+            if (overflowed || length + readable > maxBytes) {
+                overflowed = true;
+                bytes = null;
+                return;
+            }
+            if (length + readable > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.min(maxBytes, Math.max(length + readable, bytes.length * 2)));
+            }
+            buffer.toByteBuffer(buffer.readPosition(), ByteBuffer.wrap(bytes), length, readable);
+            length += readable;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(bytes, length);
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.aiapp.api_gateway.filter;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBuffer;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Compresses the response body chunk by chunk as it is written, through a Netty encoder in an
+ * embedded channel, so the body is never buffered as a whole and stays in pooled buffers. Bodies
+ * that are already encoded, too small, of an incompressible type or marked {@code no-transform}
+ * are handed to the client response as they are.
+ */
+class CompressingResponseDecorator extends ServerHttpResponseDecorator {
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final boolean CPU_TIME = THREADS.isCurrentThreadCpuTimeSupported();
+
+    /**
+     * Reports the outcome of one response
+     */
+    interface Listener {
+        void onCompressed(long bytesIn, long bytesOut, long cpuNanos);
+
+        void onSkipped(String reason);
+    }
+
+    private final String encoding;
+    private final Supplier<ChannelHandler> encoder;
+    private final long minSize;
+    private final Predicate<MediaType> compressible;
+    private final Listener listener;
+
+    CompressingResponseDecorator(ServerHttpResponse delegate, String encoding, Supplier<ChannelHandler> encoder,
+                                 long minSize, Predicate<MediaType> compressible, Listener listener) {
+        super(delegate);
+        this.encoding = encoding;
+        this.encoder = encoder;
+        this.minSize = minSize;
+        this.compressible = compressible;
+        this.listener = listener;
+    }
+
+    @Override
+    public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+        String skipReason = skipReason();
+        if (skipReason != null) {
+            listener.onSkipped(skipReason);
+            return super.writeWith(body);
+        }
+
+        HttpHeaders headers = getHeaders();
+        headers.remove(HttpHeaders.CONTENT_LENGTH);
+        headers.set(HttpHeaders.CONTENT_ENCODING, encoding);
+        if (!headers.getVary().contains(HttpHeaders.ACCEPT_ENCODING)) {
+            headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+        // The encoded bytes differ from what a strong validator promised
+        String etag = headers.getETag();
+        if (etag != null && !etag.startsWith("W/")) {
+            headers.setETag("W/" + etag);
+        }
+
+        return super.writeWith(Flux.using(
+                        () -> new Compression(encoder.get(), bufferFactory()),
+                        compression -> Flux.from(body)
+                                .concatMapIterable(compression::encode)
+                                .concatWith(Flux.defer(() -> Flux.fromIterable(compression.finish()))),
+                        Compression::close)
+                .doOnDiscard(DataBuffer.class, DataBufferUtils::release));
+    }
+
+    private String skipReason() {
+        HttpStatusCode status = getStatusCode();
+        if (status == null || status.value() == 204 || status.value() == 304 || status.is1xxInformational()) {
+            return "status";
+        }
+        HttpHeaders headers = getHeaders();
+        String contentEncoding = headers.getFirst(HttpHeaders.CONTENT_ENCODING);
+        if (contentEncoding != null && !"identity".equalsIgnoreCase(contentEncoding)) {
+            return "encoded";
+        }
+        String cacheControl = headers.getCacheControl();
+        if (cacheControl != null && cacheControl.toLowerCase(Locale.ROOT).contains("no-transform")) {
+            return "no-transform";
+        }
+        MediaType contentType = headers.getContentType();
+        if (contentType == null || !compressible.test(contentType)) {
+            return "type";
+        }
+        long length = headers.getContentLength();
+        if (length >= 0 && length < minSize) {
+            return "small";
+        }
+        return null;
+    }
+
+    private static long cpuTime() {
+        return CPU_TIME ? THREADS.getCurrentThreadCpuTime() : System.nanoTime();
+    }
+
+    /**
+     * Encoder state of one body. Reactor serializes the calls, which is all an embedded channel needs.
+     */
+    private final class Compression {
+
+        private final EmbeddedChannel channel;
+        private final DataBufferFactory bufferFactory;
+        private long bytesIn;
+        private long bytesOut;
+        private long cpuNanos;
+        private boolean finished;
+
+        Compression(ChannelHandler encoder, DataBufferFactory bufferFactory) {
+            this.channel = new EmbeddedChannel(encoder);
+            this.bufferFactory = bufferFactory;
+        }
+
+        List<DataBuffer> encode(DataBuffer buffer) {
+            long start = cpuTime();
+            bytesIn += buffer.readableByteCount();
+            // The encoder releases its input
+            channel.writeOutbound(toByteBuf(buffer));
+            List<DataBuffer> out = drain();
+            cpuNanos += cpuTime() - start;
+            return out;
+        }
+
+        List<DataBuffer> finish() {
+            long start = cpuTime();
+            channel.finish();
+            List<DataBuffer> out = drain();
+            cpuNanos += cpuTime() - start;
+            finished = true;
+            listener.onCompressed(bytesIn, bytesOut, cpuNanos);
+            return out;
+        }
+
+        void close() {
+            if (!finished) {
+                channel.finishAndReleaseAll();
+            }
+        }
+
+        private List<DataBuffer> drain() {
+            List<DataBuffer> out = new ArrayList<>(2);
+            ByteBuf chunk;
+            while ((chunk = channel.readOutbound()) != null) {
+                if (!chunk.isReadable()) {
+                    chunk.release();
+                    continue;
+                }
+                bytesOut += chunk.readableBytes();
+                out.add(toDataBuffer(chunk));
+            }
+            return out;
+        }
+
+        private ByteBuf toByteBuf(DataBuffer buffer) {
+            if (buffer instanceof NettyDataBuffer netty) {
+                return netty.getNativeBuffer();
+            }
+            byte[] bytes = new byte[buffer.readableByteCount()];
+            buffer.read(bytes);
+            DataBufferUtils.release(buffer);
+            return Unpooled.wrappedBuffer(bytes);
+        }
+
+        private DataBuffer toDataBuffer(ByteBuf chunk) {
+            if (bufferFactory instanceof NettyDataBufferFactory netty) {
+                return netty.wrap(chunk);
+            }
+            byte[] bytes = new byte[chunk.readableBytes()];
+            chunk.readBytes(bytes);
+            chunk.release();
+            return bufferFactory.wrap(bytes);
+        }
+    }
+}
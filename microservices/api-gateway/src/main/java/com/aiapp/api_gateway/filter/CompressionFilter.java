@@ -0,0 +1,231 @@
+package com.aiapp.api_gateway.filter;
+
+import com.aiapp.api_gateway.config.CompressionProperties;
+import com.aayushatharva.brotli4j.encoder.Encoder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.netty.channel.ChannelHandler;
+import io.netty.handler.codec.compression.Brotli;
+import io.netty.handler.codec.compression.BrotliEncoder;
+import io.netty.handler.codec.compression.ZlibCodecFactory;
+import io.netty.handler.codec.compression.ZlibWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Negotiates gzip or Brotli with the client for the routes under {@code app.compression.routes} and
+ * compresses their responses while they stream, see {@link CompressingResponseDecorator}. Everything
+ * else, including streamed (flush-per-chunk) responses, passes through as the pooled buffers
+ * Reactor Netty read from the upstream.
+ */
+@Component
+public class CompressionFilter implements GlobalFilter, Ordered {
+
+    /** Outside the response cache and coalescing, so they keep identity bodies and each client gets its own encoding */
+    public static final int ORDER = ResponseCacheFilter.ORDER - 10;
+
+    private static final Logger log = LoggerFactory.getLogger(CompressionFilter.class);
+
+    private static final String GZIP = "gzip";
+    private static final String BROTLI = "br";
+
+    private final boolean enabled;
+    private final long minSize;
+    private final List<MediaType> mimeTypes = new ArrayList<>();
+    private final Map<String, Supplier<ChannelHandler>> encoders = new HashMap<>();
+    private final Map<String, RouteCompression> routes = new HashMap<>();
+
+    public CompressionFilter(CompressionProperties properties, MeterRegistry meterRegistry) {
+        this.enabled = properties.isEnabled();
+        this.minSize = properties.getMinSize().toBytes();
+        properties.getMimeTypes().forEach(type -> mimeTypes.add(MediaType.parseMediaType(type)));
+
+        int gzipLevel = properties.getGzipLevel();
+        encoders.put(GZIP, () -> ZlibCodecFactory.newZlibEncoder(ZlibWrapper.GZIP, gzipLevel));
+        if (Brotli.isAvailable()) {
+            int quality = properties.getBrotliQuality();
+            encoders.put(BROTLI, () -> new BrotliEncoder(new Encoder.Parameters().setQuality(quality)));
+        } else {
+            log.warn("Brotli native library not available ({}), responses will only be gzip-compressed",
+                    Brotli.cause().getMessage());
+            log.debug("Brotli native library failed to load", Brotli.cause());
+        }
+
+        properties.getRoutes().forEach((routeId, settings) ->
+                routes.put(routeId, new RouteCompression(routeId, settings, meterRegistry)));
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        RouteCompression routeCompression = enabled && route != null ? routes.get(route.getId()) : null;
+        ServerHttpRequest request = exchange.getRequest();
+        if (routeCompression == null || request.getMethod() == HttpMethod.HEAD || !routeCompression.covers(request)) {
+            return chain.filter(exchange);
+        }
+
+        String encoding = negotiate(routeCompression.encodings.keySet(), request.getHeaders().getFirst(HttpHeaders.ACCEPT_ENCODING));
+        if (encoding == null) {
+            return chain.filter(exchange);
+        }
+        EncodingMeters meters = routeCompression.encodings.get(encoding);
+        CompressingResponseDecorator decorated = new CompressingResponseDecorator(exchange.getResponse(), encoding,
+                encoders.get(encoding), minSize, this::isCompressible, new CompressingResponseDecorator.Listener() {
+                    @Override
+                    public void onCompressed(long bytesIn, long bytesOut, long cpuNanos) {
+                        meters.bytesIn.increment(bytesIn);
+                        meters.bytesOut.increment(bytesOut);
+                        meters.cpu.record(cpuNanos, TimeUnit.NANOSECONDS);
+                        if (bytesIn > 0) {
+                            meters.ratio.record((double) bytesOut / bytesIn);
+                        }
+                    }
+
+                    @Override
+                    public void onSkipped(String reason) {
+                        routeCompression.skipped(reason).increment();
+                    }
+                });
+        return chain.filter(exchange.mutate().response(decorated).build());
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    private boolean isCompressible(MediaType contentType) {
+        for (MediaType type : mimeTypes) {
+            if (type.isCompatibleWith(contentType)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The first offered encoding the client accepts with a non-zero quality, explicitly or through {@code *}
+     */
+    private static String negotiate(Iterable<String> offered, String acceptEncoding) {
+        if (!StringUtils.hasText(acceptEncoding)) {
+            return null;
+        }
+        Map<String, Double> accepted = new HashMap<>();
+        for (String part : acceptEncoding.split(",")) {
+            String[] tokens = part.trim().split(";");
+            double quality = 1.0;
+            for (int i = 1; i < tokens.length; i++) {
+                String parameter = tokens[i].trim();
+                if (parameter.startsWith("q=")) {
+                    try {
+                        quality = Double.parseDouble(parameter.substring(2));
+                    } catch (NumberFormatException ex) {
+                        quality = 0;
+                    }
+                }
+            }
+            accepted.put(tokens[0].trim().toLowerCase(Locale.ROOT), quality);
+        }
+        Double wildcard = accepted.get("*");
+        for (String encoding : offered) {
+            Double quality = accepted.getOrDefault(encoding, wildcard);
+            if (quality != null && quality > 0) {
+                return encoding;
+            }
+        }
+        return null;
+    }
+
+    private record EncodingMeters(Counter bytesIn, Counter bytesOut, Timer cpu, DistributionSummary ratio) {
+    }
+
+    /**
+     * Compiled per-route settings and meters
+     */
+    private final class RouteCompression {
+        private final String routeId;
+        private final MeterRegistry meterRegistry;
+        private final List<PathPattern> paths = new ArrayList<>();
+        private final Map<String, EncodingMeters> encodings = new LinkedHashMap<>();
+
+        RouteCompression(String routeId, CompressionProperties.RouteCompression settings, MeterRegistry meterRegistry) {
+            this.routeId = routeId;
+            this.meterRegistry = meterRegistry;
+            for (String path : settings.getPaths()) {
+                paths.add(PathPatternParser.defaultInstance.parse(path));
+            }
+            for (String encoding : settings.getEncodings()) {
+                String name = encoding.toLowerCase(Locale.ROOT);
+                if (encoders.containsKey(name)) {
+                    encodings.put(name, meters(name));
+                }
+            }
+        }
+
+        private EncodingMeters meters(String encoding) {
+            return new EncodingMeters(
+                    Counter.builder("gateway.compression.bytes")
+                            .description("Response bytes before and after compression")
+                            .baseUnit("bytes")
+                            .tags("route", routeId, "encoding", encoding, "stage", "in")
+                            .register(meterRegistry),
+                    Counter.builder("gateway.compression.bytes")
+                            .description("Response bytes before and after compression")
+                            .baseUnit("bytes")
+                            .tags("route", routeId, "encoding", encoding, "stage", "out")
+                            .register(meterRegistry),
+                    Timer.builder("gateway.compression.cpu")
+                            .description("CPU time spent compressing one response")
+                            .tags("route", routeId, "encoding", encoding)
+                            .register(meterRegistry),
+                    DistributionSummary.builder("gateway.compression.ratio")
+                            .description("Compressed size as a fraction of the original, per response")
+                            .tags("route", routeId, "encoding", encoding)
+                            .register(meterRegistry));
+        }
+
+        Counter skipped(String reason) {
+            return meterRegistry.counter("gateway.compression.skipped", "route", routeId, "reason", reason);
+        }
+
+        boolean covers(ServerHttpRequest request) {
+            if (paths.isEmpty()) {
+                return true;
+            }
+            PathContainer path = request.getPath().pathWithinApplication();
+            for (PathPattern pattern : paths) {
+                if (pattern.matches(path)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.aiapp.api_gateway.filter;
+
+import com.aiapp.api_gateway.config.ConcurrencyLimitProperties;
+import com.aiapp.api_gateway.security.UserTier;
+import com.aiapp.api_gateway.service.AdaptiveConcurrencyLimiter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Sheds load per route once it reaches the adaptive limit of its {@link AdaptiveConcurrencyLimiter}:
+ * excess requests are answered 503 with {@code Retry-After} at once rather than queued. The limit
+ * is learned from the latency of the response headers, so long streamed bodies do not skew it.
+ * Premium callers may use the reserve at the top of each limit and are shed last.
+ */
+@Component
+public class ConcurrencyLimitFilter implements GlobalFilter, Ordered {
+
+    /** Behind cache and coalescing so only requests bound for the backend count; outside retries so shed requests are not retried */
+    public static final int ORDER = RequestCoalescingFilter.ORDER + 5;
+
+    private final ConcurrencyLimitProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final String retryAfterSeconds;
+    private final Map<String, RouteLimit> routes = new ConcurrentHashMap<>();
+
+    public ConcurrencyLimitFilter(ConcurrencyLimitProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.retryAfterSeconds = Long.toString(Math.max(1, properties.getRetryAfter().toSeconds()));
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        if (!properties.isEnabled() || route == null) {
+            return chain.filter(exchange);
+        }
+
+        RouteLimit routeLimit = routes.computeIfAbsent(route.getId(), RouteLimit::new);
+        UserTier tier = UserTier.of(exchange);
+        AdaptiveConcurrencyLimiter.Permit permit = routeLimit.limiter.tryAcquire(tier == UserTier.PREMIUM);
+        if (permit == null) {
+            routeLimit.rejected.get(tier).increment();
+            ServerHttpResponse response = exchange.getResponse();
+            response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+            response.getHeaders().set(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+            return response.setComplete();
+        }
+
+        AtomicBoolean released = new AtomicBoolean();
+        ServerHttpResponse response = exchange.getResponse();
+        response.beforeCommit(() -> {
+            if (released.compareAndSet(false, true)) {
+                if (isOverloaded(response.getStatusCode())) {
+                    permit.onDropped();
+                } else {
+                    permit.onSuccess();
+                }
+            }
+            return Mono.empty();
+        });
+        return chain.filter(exchange)
+                .doFinally(signal -> {
+                    if (released.compareAndSet(false, true)) {
+                        // No response reached the client: errors point at the backend, cancellations at the client
+                        if (signal == SignalType.ON_ERROR) {
+                            permit.onDropped();
+                        } else {
+                            permit.onIgnore();
+                        }
+                    }
+                });
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    private static boolean isOverloaded(HttpStatusCode status) {
+        return status != null && (status.value() == 502 || status.value() == 503 || status.value() == 504);
+    }
+
+    /**
+     * Limiter and meters of one route
+     */
+    private final class RouteLimit {
+        private final AdaptiveConcurrencyLimiter limiter;
+        private final Map<UserTier, Counter> rejected = new EnumMap<>(UserTier.class);
+
+        RouteLimit(String routeId) {
+            this.limiter = new AdaptiveConcurrencyLimiter(
+                    properties.initialLimitFor(routeId),
+                    properties.getMinLimit(),
+                    properties.maxLimitFor(routeId),
+                    properties.getSmoothing(),
+                    properties.getPremiumReserve(),
+                    properties.getBaselineResetInterval().toNanos());
+            Gauge.builder("gateway.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::limit)
+                    .description("Current adaptive concurrency limit")
+                    .tag("route", routeId)
+                    .register(meterRegistry);
+            Gauge.builder("gateway.concurrency.in.flight", limiter, AdaptiveConcurrencyLimiter::inFlight)
+                    .tag("route", routeId)
+                    .register(meterRegistry);
+            for (UserTier tier : UserTier.values()) {
+                rejected.put(tier, Counter.builder("gateway.concurrency.rejected")
+                        .description("Requests shed with 503 because the route was at its concurrency limit")
+                        .tag("route", routeId)
+                        .tag("tier", tier.name())
+                        .register(meterRegistry));
+            }
+        }
+    }
+}
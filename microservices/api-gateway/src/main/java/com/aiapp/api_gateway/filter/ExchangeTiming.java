@@ -0,0 +1,52 @@
+package com.aiapp.api_gateway.filter;
+
+import org.springframework.web.server.ServerWebExchange;
+
+/**
+ * Phase durations of one request, filled in by the filters that see each phase and read by
+ * {@link RouteTimingFilter}. Retried or hedged attempts share one instance; the last attempt wins.
+ */
+public final class ExchangeTiming {
+
+    public static final String ATTRIBUTE = ExchangeTiming.class.getName();
+
+    private final long startNanos = System.nanoTime();
+    private volatile long authNanos = -1;
+    private volatile long acquireNanos = -1;
+    private volatile long firstByteNanos = -1;
+
+    public static ExchangeTiming of(ServerWebExchange exchange) {
+        return exchange.getAttribute(ATTRIBUTE);
+    }
+
+    long startNanos() {
+        return startNanos;
+    }
+
+    /** Time spent verifying the caller; added up if authentication runs more than once */
+    public synchronized void addAuth(long nanos) {
+        authNanos = Math.max(authNanos, 0) + nanos;
+    }
+
+    /** Time from handing the request to the routing filter until a connection was ready to send on */
+    public void connectionAcquired(long nanos) {
+        acquireNanos = nanos;
+    }
+
+    /** Time from handing the request to the routing filter until the upstream response headers arrived */
+    public void firstByte(long nanos) {
+        firstByteNanos = nanos;
+    }
+
+    long authNanos() {
+        return authNanos;
+    }
+
+    long acquireNanos() {
+        return acquireNanos;
+    }
+
+    long firstByteNanos() {
+        return firstByteNanos;
+    }
+}
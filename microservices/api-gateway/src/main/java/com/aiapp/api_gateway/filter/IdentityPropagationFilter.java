@@ -0,0 +1,77 @@
+package com.aiapp.api_gateway.filter;
+
+import com.aiapp.internal_identity.InternalIdentity;
+import com.aiapp.internal_identity.InternalIdentityCodec;
+import com.aiapp.internal_identity.InternalIdentityProperties;
+import io.jsonwebtoken.Claims;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Forwards the caller verified by {@link JwtAuthenticationFilter} as a signed
+ * {@link InternalIdentity#HEADER}, so services can trust subject and roles with one MAC check instead
+ * of verifying the JWT again. Copies of the header sent by clients are always removed, also when
+ * propagation is disabled.
+ */
+@Component
+public class IdentityPropagationFilter implements GlobalFilter, Ordered {
+
+    /** Ahead of every filter that may send the request upstream */
+    public static final int ORDER = RateLimitFilter.ORDER - 10;
+
+    private final InternalIdentityCodec codec;
+    private final Duration ttl;
+
+    public IdentityPropagationFilter(InternalIdentityProperties properties) {
+        this.codec = properties.isEnabled() ? InternalIdentityCodec.from(properties) : null;
+        this.ttl = properties.getTtl();
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Claims claims = exchange.getAttribute(JwtAuthenticationFilter.CLAIMS_ATTRIBUTE);
+        String identity = codec != null && claims != null && claims.getSubject() != null ? sign(claims) : null;
+        HttpHeaders incoming = exchange.getRequest().getHeaders();
+        if (identity == null && !incoming.containsKey(InternalIdentity.HEADER)) {
+            return chain.filter(exchange);
+        }
+
+        ServerHttpRequest request = exchange.getRequest().mutate()
+                .headers(headers -> {
+                    headers.remove(InternalIdentity.HEADER);
+                    if (identity != null) {
+                        headers.set(InternalIdentity.HEADER, identity);
+                    }
+                })
+                .build();
+        return chain.filter(exchange.mutate().request(request).build());
+    }
+
+    private String sign(Claims claims) {
+        Instant expiresAt = Instant.now().plus(ttl);
+        if (claims.getExpiration() != null && claims.getExpiration().toInstant().isBefore(expiresAt)) {
+            expiresAt = claims.getExpiration().toInstant();
+        }
+        List<String> roles = new ArrayList<>();
+        if (claims.get("roles") instanceof List<?> claimed) {
+            claimed.forEach(role -> roles.add(String.valueOf(role)));
+        }
+        return codec.encode(new InternalIdentity(claims.getSubject(), roles, expiresAt));
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+}
@@ -1,11 +1,14 @@
 package com.aiapp.api_gateway.filter;
 
+import com.aiapp.api_gateway.security.ClaimsAuthorities;
+import com.aiapp.api_gateway.security.PublicPathMatcher;
 import com.aiapp.api_gateway.service.JwtValidationService;
+import com.aiapp.api_gateway.service.TokenRevocationService;
+import io.jsonwebtoken.Claims;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.ReactiveSecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
@@ -13,16 +16,27 @@ import org.springframework.web.server.WebFilter;
 import org.springframework.web.server.WebFilterChain;
 import reactor.core.publisher.Mono;
 
-import java.util.List;
-import java.util.stream.Collectors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
 
 @Component
 public class JwtAuthenticationFilter implements WebFilter {
 
+    /**
+     * Exchange attribute holding the verified {@link Claims}, for gateway filters that key on the caller
+     */
+    public static final String CLAIMS_ATTRIBUTE = JwtAuthenticationFilter.class.getName() + ".claims";
+
     private final JwtValidationService jwtValidationService;
+    private final PublicPathMatcher publicPathMatcher;
+    private final TokenRevocationService tokenRevocationService;
 
-    public JwtAuthenticationFilter(JwtValidationService jwtValidationService) {
+    public JwtAuthenticationFilter(JwtValidationService jwtValidationService,
+                                   PublicPathMatcher publicPathMatcher,
+                                   TokenRevocationService tokenRevocationService) {
         this.jwtValidationService = jwtValidationService;
+        this.publicPathMatcher = publicPathMatcher;
+        this.tokenRevocationService = tokenRevocationService;
     }
 
     @Override
@@ -30,7 +44,7 @@ public class JwtAuthenticationFilter implements WebFilter {
         String path = exchange.getRequest().getPath().value();
         
         // Skip JWT validation for public endpoints
-        if (isPublicPath(path)) {
+        if (publicPathMatcher.isPublic(path)) {
             return chain.filter(exchange);
         }
 
@@ -41,40 +55,43 @@ public class JwtAuthenticationFilter implements WebFilter {
         }
 
         String token = authHeader.substring(7);
+        long authStart = System.nanoTime();
         
+        // Verification runs off the event loop; an empty result means the token was rejected or revoked
         return jwtValidationService.validateToken(token)
-                .flatMap(claims -> {
-                    if (claims == null) {
-                        return handleUnauthorized(exchange);
-                    }
-                    
-                    String username = claims.getSubject();
-                    List<String> roles = (List<String>) claims.get("roles");
-                    
-                    List<SimpleGrantedAuthority> authorities = roles.stream()
-                            .map(role -> new SimpleGrantedAuthority("ROLE_" + role))
-                            .collect(Collectors.toList());
-                    
-                    Authentication auth = new UsernamePasswordAuthenticationToken(
-                            username, null, authorities);
-                    
+                .filter(claims -> !tokenRevocationService.isRevoked(claims))
+                .doOnTerminate(() -> recordAuthTime(exchange, authStart))
+                .map(claims -> {
+                    exchange.getAttributes().put(CLAIMS_ATTRIBUTE, claims);
                     return chain.filter(exchange)
-                            .contextWrite(ReactiveSecurityContextHolder.withAuthentication(auth));
+                            .contextWrite(ReactiveSecurityContextHolder.withAuthentication(toAuthentication(claims)));
                 })
-                .onErrorResume(ex -> handleUnauthorized(exchange));
+                .defaultIfEmpty(Mono.defer(() -> handleUnauthorized(exchange)))
+                .onErrorResume(RejectedExecutionException.class,
+                        ex -> Mono.just(Mono.defer(() -> handleServiceUnavailable(exchange))))
+                .onErrorResume(ex -> Mono.just(Mono.defer(() -> handleUnauthorized(exchange))))
+                .flatMap(Function.identity());
+    }
+
+    private static void recordAuthTime(ServerWebExchange exchange, long startNanos) {
+        ExchangeTiming timing = ExchangeTiming.of(exchange);
+        if (timing != null) {
+            timing.addAuth(System.nanoTime() - startNanos);
+        }
     }
 
-    private boolean isPublicPath(String path) {
-        return path.startsWith("/api/auth/login") ||
-               path.startsWith("/api/auth/register") ||
-               path.startsWith("/api/auth/oauth") ||
-               path.startsWith("/actuator/health") ||
-               path.startsWith("/swagger-ui") ||
-               path.startsWith("/v3/api-docs");
+    private Authentication toAuthentication(Claims claims) {
+        return new UsernamePasswordAuthenticationToken(claims.getSubject(), null, ClaimsAuthorities.of(claims));
     }
 
     private Mono<Void> handleUnauthorized(ServerWebExchange exchange) {
         exchange.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED);
         return exchange.getResponse().setComplete();
     }
+
+    private Mono<Void> handleServiceUnavailable(ServerWebExchange exchange) {
+        exchange.getResponse().setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+        exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER, "1");
+        return exchange.getResponse().setComplete();
+    }
 }
\ No newline at end of file
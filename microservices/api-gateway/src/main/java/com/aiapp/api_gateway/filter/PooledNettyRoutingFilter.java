@@ -0,0 +1,47 @@
+package com.aiapp.api_gateway.filter;
+
+import com.aiapp.api_gateway.service.UpstreamConnectionPools;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.filter.NettyRoutingFilter;
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.netty.http.client.HttpClient;
+
+import java.util.List;
+
+/**
+ * The gateway's routing filter, sending each route through its own pool from {@link UpstreamConnectionPools}.
+ * Replaces the stock filter, which is switched off with {@code spring.cloud.gateway.global-filter.netty-routing.enabled};
+ * that switch also drops the stock {@code NettyWriteResponseFilter}, so {@code UpstreamPoolConfig} declares its own.
+ * Also reports the connection-acquire and first-byte phases to {@link ExchangeTiming}.
+ */
+public class PooledNettyRoutingFilter extends NettyRoutingFilter {
+
+    private final UpstreamConnectionPools pools;
+
+    public PooledNettyRoutingFilter(HttpClient httpClient,
+                                    ObjectProvider<List<HttpHeadersFilter>> headersFiltersProvider,
+                                    HttpClientProperties properties,
+                                    UpstreamConnectionPools pools) {
+        super(httpClient, headersFiltersProvider, properties);
+        this.pools = pools;
+    }
+
+    @Override
+    protected HttpClient getHttpClient(Route route, ServerWebExchange exchange) {
+        HttpClient pooled = pools.clientFor(route.getId());
+        HttpClient client = pooled != null ? pooled : super.getHttpClient(route, exchange);
+
+        ExchangeTiming timing = ExchangeTiming.of(exchange);
+        if (timing == null) {
+            return client;
+        }
+        // The request is sent as soon as the client is returned, so timing starts here
+        long start = System.nanoTime();
+        return client
+                .doOnRequest((request, connection) -> timing.connectionAcquired(System.nanoTime() - start))
+                .doOnResponse((response, connection) -> timing.firstByte(System.nanoTime() - start));
+    }
+}
@@ -0,0 +1,86 @@
+package com.aiapp.api_gateway.filter;
+
+import com.aiapp.api_gateway.config.RateLimitProperties;
+import com.aiapp.api_gateway.security.UserTier;
+import com.aiapp.api_gateway.service.LeasedRateLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * Applies the per-route, per-tier limits from {@code app.rate-limit} to authenticated callers
+ * (by token subject) and anonymous ones (by client address)
+ */
+@Component
+public class RateLimitFilter implements GlobalFilter, Ordered {
+
+    public static final int ORDER = -200;
+
+    public static final String REMAINING_HEADER = "X-RateLimit-Remaining";
+    public static final String REPLENISH_RATE_HEADER = "X-RateLimit-Replenish-Rate";
+    public static final String BURST_CAPACITY_HEADER = "X-RateLimit-Burst-Capacity";
+    public static final String REQUESTED_TOKENS_HEADER = "X-RateLimit-Requested-Tokens";
+
+    private final LeasedRateLimiter rateLimiter;
+    private final RateLimitProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    public RateLimitFilter(LeasedRateLimiter rateLimiter, RateLimitProperties properties, MeterRegistry meterRegistry) {
+        this.rateLimiter = rateLimiter;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        if (!properties.isEnabled() || route == null) {
+            return chain.filter(exchange);
+        }
+
+        UserTier tier = UserTier.of(exchange);
+        RateLimitProperties.Limit limit = properties.limitFor(route.getId(), tier);
+        if (limit == null) {
+            return chain.filter(exchange);
+        }
+
+        String bucketKey = route.getId() + ":" + tier.name() + ":" + UserTier.callerKey(exchange, properties.getTrustedProxies());
+        return rateLimiter.tryAcquire(bucketKey, limit)
+                .flatMap(decision -> {
+                    HttpHeaders headers = exchange.getResponse().getHeaders();
+                    if (decision.isRemainingKnown()) {
+                        headers.set(REMAINING_HEADER, Long.toString(decision.remaining()));
+                    }
+                    headers.set(REPLENISH_RATE_HEADER, Integer.toString(limit.getReplenishRate()));
+                    headers.set(BURST_CAPACITY_HEADER, Integer.toString(limit.getBurstCapacity()));
+                    headers.set(REQUESTED_TOKENS_HEADER, "1");
+
+                    meterRegistry.counter("gateway.ratelimit.requests",
+                            "route", route.getId(),
+                            "tier", tier.name(),
+                            "result", decision.allowed() ? "allowed" : "throttled").increment();
+
+                    if (decision.allowed()) {
+                        return chain.filter(exchange);
+                    }
+
+                    long retryAfterSeconds = Math.max(1, (long) Math.ceil(1.0 / Math.max(limit.getReplenishRate(), 1)));
+                    exchange.getResponse().setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+                    headers.set(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+                    return exchange.getResponse().setComplete();
+                });
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+}
@@ -0,0 +1,221 @@
+package com.aiapp.api_gateway.filter;
+
+import com.aiapp.api_gateway.config.CoalescingProperties;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * Single-flight for GETs on the routes under {@code app.coalescing.routes}: while one request for a
+ * key is upstream, identical requests wait for it and receive a replay of its buffered response.
+ * The key is route, path, query, content negotiation headers and, unless disabled per route, the user.
+ * If the leader's response cannot be shared (a 5xx, a {@code Set-Cookie}, too large, streamed, failed or
+ * cancelled) the waiters go upstream themselves.
+ */
+@Component
+public class RequestCoalescingFilter implements GlobalFilter, Ordered {
+
+    /** Behind the response cache, so only cache misses are coalesced */
+    public static final int ORDER = ResponseCacheFilter.ORDER + 10;
+
+    private final boolean enabled;
+    private final int maxBodyBytes;
+    private final Duration maxWait;
+    private final Map<String, RouteCoalescing> routes = new HashMap<>();
+    private final Map<String, Flight> inFlight = new ConcurrentHashMap<>();
+
+    public RequestCoalescingFilter(CoalescingProperties properties, MeterRegistry meterRegistry) {
+        this.enabled = properties.isEnabled();
+        this.maxBodyBytes = (int) Math.min(Integer.MAX_VALUE, properties.getMaxBodySize().toBytes());
+        this.maxWait = properties.getMaxWait();
+        properties.getRoutes().forEach((routeId, settings) ->
+                routes.put(routeId, new RouteCoalescing(routeId, settings, meterRegistry)));
+        Gauge.builder("gateway.coalescing.in.flight", inFlight, Map::size)
+                .description("Distinct upstream requests currently shared by coalesced callers")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        RouteCoalescing routeCoalescing = enabled && route != null ? routes.get(route.getId()) : null;
+        ServerHttpRequest request = exchange.getRequest();
+        if (routeCoalescing == null || request.getMethod() != HttpMethod.GET || !routeCoalescing.covers(request)) {
+            return chain.filter(exchange);
+        }
+
+        String key = key(exchange, routeCoalescing);
+        Flight flight = new Flight();
+        Flight existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            return follow(exchange, chain, routeCoalescing, existing);
+        }
+        return lead(exchange, chain, routeCoalescing, key, flight);
+    }
+
+    private Mono<Void> lead(ServerWebExchange exchange, GatewayFilterChain chain, RouteCoalescing routeCoalescing,
+                            String key, Flight flight) {
+        routeCoalescing.leaders.increment();
+        BodyCaptureResponseDecorator decorated = new BodyCaptureResponseDecorator(exchange.getResponse(), maxBodyBytes,
+                new BodyCaptureResponseDecorator.Listener() {
+                    @Override
+                    public boolean shouldCapture(ServerHttpResponse response) {
+                        // A server error is the leader's own bad luck; each waiter gets its own attempt
+                        HttpStatusCode status = response.getStatusCode();
+                        return status != null && !status.is5xxServerError()
+                                && !response.getHeaders().containsKey(HttpHeaders.SET_COOKIE);
+                    }
+
+                    @Override
+                    public void onCaptured(ServerHttpResponse response, byte[] body) {
+                        // Leave the map first so requests arriving from now on start a fresh flight
+                        inFlight.remove(key, flight);
+                        flight.sink.tryEmitValue(new SharedResponse(response.getStatusCode(),
+                                BodyCaptureResponseDecorator.replayableHeaders(response.getHeaders()), body));
+                    }
+
+                    @Override
+                    public void onNotCaptured() {
+                        inFlight.remove(key, flight);
+                        flight.sink.tryEmitEmpty();
+                    }
+                });
+
+        return chain.filter(exchange.mutate().response(decorated).build())
+                .doFinally(signal -> {
+                    // Errors and cancellations never reach the decorator; release the waiters here
+                    inFlight.remove(key, flight);
+                    flight.sink.tryEmitEmpty();
+                });
+    }
+
+    private Mono<Void> follow(ServerWebExchange exchange, GatewayFilterChain chain, RouteCoalescing routeCoalescing,
+                              Flight flight) {
+        return flight.sink.asMono()
+                .timeout(maxWait)
+                .map(shared -> {
+                    routeCoalescing.collapsed.increment();
+                    return replay(exchange.getResponse(), shared);
+                })
+                .defaultIfEmpty(Mono.defer(() -> {
+                    routeCoalescing.fallbacks.increment();
+                    return chain.filter(exchange);
+                }))
+                .onErrorResume(TimeoutException.class, ex -> Mono.just(Mono.defer(() -> {
+                    routeCoalescing.fallbacks.increment();
+                    return chain.filter(exchange);
+                })))
+                .flatMap(Function.identity());
+    }
+
+    private static Mono<Void> replay(ServerHttpResponse response, SharedResponse shared) {
+        response.setStatusCode(shared.status());
+        HttpHeaders headers = response.getHeaders();
+        shared.headers().forEach(headers::put);
+        headers.setContentLength(shared.body().length);
+        return response.writeWith(Mono.fromSupplier(() -> response.bufferFactory().wrap(shared.body())));
+    }
+
+    private static String key(ServerWebExchange exchange, RouteCoalescing routeCoalescing) {
+        ServerHttpRequest request = exchange.getRequest();
+        HttpHeaders headers = request.getHeaders();
+        StringBuilder key = new StringBuilder(128)
+                .append(routeCoalescing.routeId).append('\n')
+                .append(request.getURI().getRawPath()).append('?');
+        if (request.getURI().getRawQuery() != null) {
+            key.append(request.getURI().getRawQuery());
+        }
+        // Negotiated representations differ even for the same URL
+        key.append('\n').append(headers.getFirst(HttpHeaders.ACCEPT))
+                .append('\n').append(headers.getFirst(HttpHeaders.ACCEPT_ENCODING))
+                .append('\n').append(headers.getFirst(HttpHeaders.ACCEPT_LANGUAGE));
+        if (routeCoalescing.perUser) {
+            Claims claims = exchange.getAttribute(JwtAuthenticationFilter.CLAIMS_ATTRIBUTE);
+            key.append('\n').append(claims != null ? claims.getSubject() : headers.getFirst(HttpHeaders.AUTHORIZATION));
+        }
+        return key.toString();
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    private record SharedResponse(HttpStatusCode status, Map<String, List<String>> headers, byte[] body) {
+    }
+
+    private static final class Flight {
+        private final Sinks.One<SharedResponse> sink = Sinks.one();
+    }
+
+    /**
+     * Compiled per-route settings and meters
+     */
+    private static final class RouteCoalescing {
+        private final String routeId;
+        private final List<PathPattern> paths = new ArrayList<>();
+        private final boolean perUser;
+        private final Counter leaders;
+        private final Counter collapsed;
+        private final Counter fallbacks;
+
+        RouteCoalescing(String routeId, CoalescingProperties.RouteCoalescing settings, MeterRegistry meterRegistry) {
+            this.routeId = routeId;
+            for (String path : settings.getPaths()) {
+                paths.add(PathPatternParser.defaultInstance.parse(path));
+            }
+            this.perUser = settings.isPerUser();
+            this.leaders = requests(meterRegistry, "leader");
+            this.collapsed = requests(meterRegistry, "collapsed");
+            this.fallbacks = requests(meterRegistry, "fallback");
+        }
+
+        private Counter requests(MeterRegistry meterRegistry, String result) {
+            return Counter.builder("gateway.coalescing.requests")
+                    .description("Coalescable GETs by outcome: sent upstream, served from a shared response, or sent upstream after waiting")
+                    .tag("route", routeId)
+                    .tag("result", result)
+                    .register(meterRegistry);
+        }
+
+        boolean covers(ServerHttpRequest request) {
+            if (paths.isEmpty()) {
+                return true;
+            }
+            PathContainer path = request.getPath().pathWithinApplication();
+            for (PathPattern pattern : paths) {
+                if (pattern.matches(path)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
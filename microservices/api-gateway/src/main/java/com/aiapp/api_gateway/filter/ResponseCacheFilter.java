@@ -0,0 +1,360 @@
+package com.aiapp.api_gateway.filter;
+
+import com.aiapp.api_gateway.config.ResponseCacheProperties;
+import com.aiapp.api_gateway.service.CachedResponse;
+import com.aiapp.api_gateway.service.ResponseCacheStore;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Serves cached GET responses for the routes and paths listed under {@code app.response-cache.routes}.
+ * Honours request and response {@code Cache-Control}, stores one entry per {@code Vary} variant,
+ * keys authenticated requests per user, answers matching {@code If-None-Match} with 304 and
+ * revalidates stale entries upstream with the backend's ETag.
+ */
+@Component
+public class ResponseCacheFilter implements GlobalFilter, Ordered {
+
+    /** After rate limiting, before the body is written by NettyWriteResponseFilter */
+    public static final int ORDER = RateLimitFilter.ORDER + 50;
+
+    public static final String CACHE_STATUS_HEADER = "X-Cache";
+
+    private final ResponseCacheStore store;
+    private final boolean enabled;
+    private final int maxEntryBytes;
+    private final Map<String, RouteCache> routes = new HashMap<>();
+
+    public ResponseCacheFilter(ResponseCacheStore store, ResponseCacheProperties properties, MeterRegistry meterRegistry) {
+        this.store = store;
+        this.enabled = properties.isEnabled();
+        this.maxEntryBytes = (int) Math.min(Integer.MAX_VALUE, properties.getMaxEntrySize().toBytes());
+        properties.getRoutes().forEach((routeId, settings) ->
+                routes.put(routeId, new RouteCache(routeId, settings, meterRegistry)));
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        RouteCache routeCache = enabled && route != null ? routes.get(route.getId()) : null;
+        ServerHttpRequest request = exchange.getRequest();
+        if (routeCache == null || request.getMethod() != HttpMethod.GET || !routeCache.covers(request)) {
+            return chain.filter(exchange);
+        }
+
+        String requestCacheControl = request.getHeaders().getCacheControl();
+        Claims claims = exchange.getAttribute(JwtAuthenticationFilter.CLAIMS_ATTRIBUTE);
+        boolean credentialsWithoutClaims = claims == null && request.getHeaders().containsKey(HttpHeaders.AUTHORIZATION);
+        if (hasDirective(requestCacheControl, "no-store") || credentialsWithoutClaims) {
+            routeCache.bypasses.increment();
+            return chain.filter(exchange);
+        }
+
+        String subject = claims != null ? claims.getSubject() : null;
+        String primaryKey = digest(routeCache.routeId + '\n' + (subject != null ? subject : "") + '\n'
+                + request.getURI().getRawPath() + '?' + (request.getURI().getRawQuery() != null ? request.getURI().getRawQuery() : ""));
+
+        // no-cache asks for an end-to-end reload; the fresh response still refreshes the cache
+        boolean reload = hasDirective(requestCacheControl, "no-cache")
+                || "no-cache".equalsIgnoreCase(request.getHeaders().getFirst(HttpHeaders.PRAGMA));
+        Mono<CachedResponse> lookup = reload ? Mono.empty() : store.find(primaryKey, request.getHeaders());
+
+        return lookup
+                .map(cached -> cached.isFresh(System.currentTimeMillis())
+                        ? serveFromCache(exchange, routeCache, cached, "HIT")
+                        : forward(exchange, chain, routeCache, primaryKey, subject != null, cached))
+                .defaultIfEmpty(Mono.defer(() -> forward(exchange, chain, routeCache, primaryKey, subject != null, null)))
+                .flatMap(Function.identity());
+    }
+
+    private Mono<Void> serveFromCache(ServerWebExchange exchange, RouteCache routeCache, CachedResponse cached, String cacheStatus) {
+        ServerHttpResponse response = exchange.getResponse();
+        HttpHeaders headers = response.getHeaders();
+        cached.headers().forEach(headers::put);
+        headers.setETag(cached.etag());
+        headers.set(HttpHeaders.AGE, Long.toString(Math.max(0, (System.currentTimeMillis() - cached.storedAtMillis()) / 1000)));
+        headers.set(CACHE_STATUS_HEADER, cacheStatus);
+        routeCache.bytesSaved.increment(cached.body().length);
+
+        if (etagMatches(exchange.getRequest().getHeaders().getIfNoneMatch(), cached.etag())) {
+            routeCache.notModified.increment();
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            headers.remove(HttpHeaders.CONTENT_TYPE);
+            headers.remove(HttpHeaders.CONTENT_ENCODING);
+            return response.setComplete();
+        }
+
+        (cacheStatus.equals("HIT") ? routeCache.hits : routeCache.revalidated).increment();
+        response.setStatusCode(HttpStatusCode.valueOf(cached.status()));
+        headers.setContentLength(cached.body().length);
+        return response.writeWith(Mono.fromSupplier(() -> response.bufferFactory().wrap(cached.body())));
+    }
+
+    /**
+     * Proxies upstream and stores a cacheable 200. With a stale entry the request is made
+     * conditional on its ETag, and a 304 from the backend is answered from the entry.
+     */
+    private Mono<Void> forward(ServerWebExchange exchange, GatewayFilterChain chain, RouteCache routeCache,
+                               String primaryKey, boolean authenticated, CachedResponse cached) {
+        CachedResponse stale = cached != null && cached.upstreamEtag() ? cached : null;
+        ServerWebExchange upstreamExchange = exchange;
+        if (stale != null) {
+            upstreamExchange = exchange.mutate()
+                    .request(builder -> builder.headers(headers -> {
+                        headers.setIfNoneMatch(stale.etag());
+                        headers.remove(HttpHeaders.IF_MODIFIED_SINCE);
+                    }))
+                    .build();
+        }
+
+        HttpHeaders requestHeaders = exchange.getRequest().getHeaders();
+        ServerHttpResponse original = exchange.getResponse();
+        CachingListener listener = new CachingListener(routeCache, primaryKey, authenticated, requestHeaders);
+        BodyCaptureResponseDecorator decorated = new BodyCaptureResponseDecorator(original, maxEntryBytes, listener) {
+            @Override
+            public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+                if (stale != null && getStatusCode() != null && HttpStatus.NOT_MODIFIED.isSameCodeAs(getStatusCode())) {
+                    long now = System.currentTimeMillis();
+                    long ttlMillis = routeCache.freshnessMillis(getHeaders().getCacheControl(), authenticated);
+                    CachedResponse refreshed = stale.revalidated(now, ttlMillis, routeCache.revalidateWindowMillis);
+                    store.put(primaryKey, refreshed);
+                    return Flux.from(body).doOnNext(DataBufferUtils::release)
+                            .then(Mono.defer(() -> serveFromCache(exchange, routeCache, refreshed, "REVALIDATED")));
+                }
+                routeCache.misses.increment();
+                return super.writeWith(body);
+            }
+        };
+        original.getHeaders().set(CACHE_STATUS_HEADER, "MISS");
+        return chain.filter(upstreamExchange.mutate().response(decorated).build());
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    private final class CachingListener implements BodyCaptureResponseDecorator.Listener {
+
+        private final RouteCache routeCache;
+        private final String primaryKey;
+        private final boolean authenticated;
+        private final HttpHeaders requestHeaders;
+        private long ttlMillis;
+
+        CachingListener(RouteCache routeCache, String primaryKey, boolean authenticated, HttpHeaders requestHeaders) {
+            this.routeCache = routeCache;
+            this.primaryKey = primaryKey;
+            this.authenticated = authenticated;
+            this.requestHeaders = requestHeaders;
+        }
+
+        @Override
+        public boolean shouldCapture(ServerHttpResponse response) {
+            HttpHeaders headers = response.getHeaders();
+            if (response.getStatusCode() == null
+                    || !HttpStatus.OK.isSameCodeAs(response.getStatusCode())
+                    || headers.containsKey(HttpHeaders.SET_COOKIE)
+                    || headers.getVary().contains("*")
+                    || headers.getContentLength() > maxEntryBytes) {
+                return false;
+            }
+            ttlMillis = routeCache.freshnessMillis(headers.getCacheControl(), authenticated);
+            return ttlMillis > 0;
+        }
+
+        @Override
+        public void onCaptured(ServerHttpResponse response, byte[] body) {
+            HttpHeaders headers = response.getHeaders();
+            Map<String, List<String>> stored = BodyCaptureResponseDecorator.replayableHeaders(headers);
+            // Kept as its own field so it can be matched against If-None-Match
+            stored.keySet().removeIf(HttpHeaders.ETAG::equalsIgnoreCase);
+
+            // Without a backend ETag one is derived from the body; it serves If-None-Match but cannot revalidate
+            String upstreamEtag = headers.getETag();
+            String etag = upstreamEtag != null ? upstreamEtag : '"' + digest(body).substring(0, 22) + '"';
+            List<String> vary = List.copyOf(headers.getVary());
+            long now = System.currentTimeMillis();
+            long retainUntil = now + ttlMillis + (upstreamEtag != null ? routeCache.revalidateWindowMillis : 0);
+
+            store.put(primaryKey, new CachedResponse(response.getStatusCode().value(), stored, body, etag,
+                    upstreamEtag != null, vary, CachedResponse.variantOf(vary, requestHeaders),
+                    now, now + ttlMillis, retainUntil));
+        }
+    }
+
+    /**
+     * Compiled per-route settings and meters
+     */
+    private static final class RouteCache {
+        private final String routeId;
+        private final List<PathPattern> paths = new ArrayList<>();
+        private final long defaultTtlMillis;
+        private final long revalidateWindowMillis;
+        private final Counter hits;
+        private final Counter revalidated;
+        private final Counter notModified;
+        private final Counter misses;
+        private final Counter bypasses;
+        private final Counter bytesSaved;
+
+        RouteCache(String routeId, ResponseCacheProperties.RouteCache settings, MeterRegistry meterRegistry) {
+            this.routeId = routeId;
+            for (String path : settings.getPaths()) {
+                paths.add(PathPatternParser.defaultInstance.parse(path));
+            }
+            this.defaultTtlMillis = settings.getTtl().toMillis();
+            this.revalidateWindowMillis = settings.getRevalidateWindow().toMillis();
+            this.hits = requests(meterRegistry, "hit");
+            this.revalidated = requests(meterRegistry, "revalidated");
+            this.notModified = requests(meterRegistry, "not_modified");
+            this.misses = requests(meterRegistry, "miss");
+            this.bypasses = requests(meterRegistry, "bypass");
+            this.bytesSaved = Counter.builder("gateway.cache.bytes.saved")
+                    .description("Response body bytes served from the gateway cache instead of the backend")
+                    .baseUnit("bytes")
+                    .tag("route", routeId)
+                    .register(meterRegistry);
+            Gauge.builder("gateway.cache.hit.ratio", this, RouteCache::hitRatio)
+                    .description("Share of cacheable requests answered without a full backend response")
+                    .tag("route", routeId)
+                    .register(meterRegistry);
+        }
+
+        private Counter requests(MeterRegistry meterRegistry, String result) {
+            return Counter.builder("gateway.cache.requests")
+                    .tag("route", routeId)
+                    .tag("result", result)
+                    .register(meterRegistry);
+        }
+
+        boolean covers(ServerHttpRequest request) {
+            PathContainer path = request.getPath().pathWithinApplication();
+            for (PathPattern pattern : paths) {
+                if (pattern.matches(path)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Milliseconds the response may be served, or 0 when it must not be stored.
+         * {@code private} responses are only kept for authenticated callers, whose entries are keyed per user.
+         */
+        long freshnessMillis(String cacheControl, boolean authenticated) {
+            if (hasDirective(cacheControl, "no-store") || hasDirective(cacheControl, "no-cache")) {
+                return 0;
+            }
+            boolean isPrivate = hasDirective(cacheControl, "private");
+            if (isPrivate && !authenticated) {
+                return 0;
+            }
+            long sharedMaxAge = isPrivate ? -1 : directiveSeconds(cacheControl, "s-maxage");
+            long maxAge = sharedMaxAge >= 0 ? sharedMaxAge : directiveSeconds(cacheControl, "max-age");
+            return maxAge >= 0 ? maxAge * 1000 : defaultTtlMillis;
+        }
+
+        double hitRatio() {
+            double served = hits.count() + revalidated.count() + notModified.count();
+            double total = served + misses.count();
+            return total == 0 ? 0 : served / total;
+        }
+    }
+
+    private static boolean hasDirective(String cacheControl, String directive) {
+        return directiveValue(cacheControl, directive) != null;
+    }
+
+    private static long directiveSeconds(String cacheControl, String directive) {
+        String value = directiveValue(cacheControl, directive);
+        if (value == null || value.isEmpty()) {
+            return -1;
+        }
+        try {
+            return Math.max(0, Long.parseLong(value.replace("\"", "")));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Value of a Cache-Control directive, "" when present without one, null when absent
+     */
+    private static String directiveValue(String cacheControl, String directive) {
+        if (cacheControl == null) {
+            return null;
+        }
+        for (String part : cacheControl.split(",")) {
+            String token = part.trim();
+            int equals = token.indexOf('=');
+            String name = equals < 0 ? token : token.substring(0, equals).trim();
+            if (name.equalsIgnoreCase(directive)) {
+                return equals < 0 ? "" : token.substring(equals + 1).trim();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Weak comparison as required for If-None-Match
+     */
+    private static boolean etagMatches(List<String> ifNoneMatch, String etag) {
+        String opaque = etag.startsWith("W/") ? etag.substring(2) : etag;
+        for (String candidate : ifNoneMatch) {
+            if (candidate.equals("*") || (candidate.startsWith("W/") ? candidate.substring(2) : candidate).equals(opaque)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * SHA-256 so neither subjects nor query strings appear in Redis keys
+     */
+    private static String digest(String value) {
+        return digest(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String digest(byte[] value) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(value);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
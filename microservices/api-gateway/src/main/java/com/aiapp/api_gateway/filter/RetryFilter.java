@@ -0,0 +1,414 @@
+package com.aiapp.api_gateway.filter;
+
+import com.aiapp.api_gateway.config.RetryProperties;
+import com.aiapp.api_gateway.service.RetryBudget;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.ServerWebExchangeDecorator;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.util.context.ContextView;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replaces the blanket Retry default filter. Extra attempts, whether retries or hedges, are drawn
+ * from a per-route {@link RetryBudget}, so they stay a bounded share of live traffic during an outage.
+ * Safe methods are retried on connection errors, timeouts and retryable statuses; anything else only
+ * when the caller sent an {@code Idempotency-Key}. On routes with hedging enabled, a GET still
+ * unanswered after the route's recent latency quantile gets a second attempt and the first response wins.
+ */
+@Component
+public class RetryFilter implements GlobalFilter, Ordered {
+
+    /** Inside coalescing, so one shared upstream call is retried once rather than per waiter */
+    public static final int ORDER = RequestCoalescingFilter.ORDER + 10;
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+    /** Latency samples needed before the hedge delay is trusted */
+    private static final long MIN_HEDGE_SAMPLES = 20;
+
+    private final RetryProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Set<Integer> retryableStatuses;
+    private final Map<String, RouteState> routes = new ConcurrentHashMap<>();
+
+    public RetryFilter(RetryProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.retryableStatuses = new HashSet<>(properties.getRetryableStatuses());
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        if (!properties.isEnabled() || route == null) {
+            return chain.filter(exchange);
+        }
+
+        RouteState state = routes.computeIfAbsent(route.getId(), RouteState::new);
+        state.budget.recordRequest();
+
+        HttpMethod method = exchange.getRequest().getMethod();
+        boolean safe = method == HttpMethod.GET || method == HttpMethod.HEAD || method == HttpMethod.OPTIONS;
+        boolean retry = state.settings.isRetries()
+                && (safe || exchange.getRequest().getHeaders().containsKey(IDEMPOTENCY_KEY_HEADER));
+        boolean hedge = state.settings.isHedge() && (method == HttpMethod.GET || method == HttpMethod.HEAD);
+        if (!retry && !hedge) {
+            return chain.filter(exchange);
+        }
+        if (safe) {
+            return new Attempts(exchange, chain, state, retry, hedge).run();
+        }
+        // Every attempt re-reads the request body from one cached copy
+        return ServerWebExchangeUtils.cacheRequestBodyAndRequest(exchange, request ->
+                new Attempts(exchange.mutate().request(request).build(), chain, state, true, false).run());
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    private boolean isFailure(HttpStatusCode status) {
+        return status != null && retryableStatuses.contains(status.value());
+    }
+
+    /**
+     * The attempts made for one client request. Attempts run against {@link AttemptResponse} stand-ins;
+     * the first acceptable one is committed to the client and the rest are cancelled or drained.
+     * A failed response is held back while other attempts are pending, and committed if nothing better arrives.
+     */
+    private final class Attempts {
+
+        private final ServerWebExchange exchange;
+        private final GatewayFilterChain chain;
+        private final RouteState state;
+        private final boolean retry;
+        private final boolean hedge;
+        private final List<Attempt> running = new ArrayList<>();
+
+        private MonoSink<Void> sink;
+        private ContextView context;
+        private int started;
+        private int scheduled;
+        private boolean decided;
+        private Attempt heldFailure;
+        /** Hedge and backoff timers plus the final write, all cancelled with the client request */
+        private final Disposable.Composite subscriptions = Disposables.composite();
+
+        Attempts(ServerWebExchange exchange, GatewayFilterChain chain, RouteState state, boolean retry, boolean hedge) {
+            this.exchange = exchange;
+            this.chain = chain;
+            this.state = state;
+            this.retry = retry;
+            this.hedge = hedge;
+        }
+
+        Mono<Void> run() {
+            return Mono.create(sink -> {
+                synchronized (this) {
+                    this.sink = sink;
+                    this.context = sink.contextView();
+                    started++;
+                }
+                sink.onDispose(this::cancelAll);
+                launch(false);
+            });
+        }
+
+        private void launch(boolean isHedge) {
+            Attempt attempt = new Attempt(isHedge);
+            AttemptResponse response = new AttemptResponse(exchange.getResponse(), ready -> onReady(attempt));
+            attempt.response = response;
+            synchronized (this) {
+                if (decided) {
+                    return;
+                }
+                running.add(attempt);
+            }
+
+            attempt.subscription = chain.filter(new AttemptExchange(exchange, response))
+                    .contextWrite(context)
+                    .subscribe(null, error -> onError(attempt, error), () -> onComplete(attempt));
+
+            if (hedge && !isHedge) {
+                long delayNanos = state.hedgeDelayNanos();
+                if (delayNanos > 0) {
+                    subscriptions.add(Mono.delay(Duration.ofNanos(delayNanos)).subscribe(tick -> hedge()));
+                }
+            }
+        }
+
+        private void hedge() {
+            synchronized (this) {
+                if (decided || running.isEmpty() || started >= properties.getMaxAttempts()) {
+                    return;
+                }
+                if (!state.budget.tryAcquire()) {
+                    state.budgetExhausted.increment();
+                    return;
+                }
+                started++;
+            }
+            state.hedgesSent.increment();
+            launch(true);
+        }
+
+        private void onReady(Attempt attempt) {
+            HttpStatusCode status = attempt.response.getStatusCode();
+            if (isFailure(status)) {
+                onFailure(attempt, null);
+                return;
+            }
+            state.latency.record(System.nanoTime() - attempt.startNanos, TimeUnit.NANOSECONDS);
+            onSuccess(attempt);
+        }
+
+        private void onError(Attempt attempt, Throwable error) {
+            // Once a response arrived, write failures surface through the commit instead
+            if (!attempt.response.isReady()) {
+                onFailure(attempt, error);
+            }
+        }
+
+        private void onComplete(Attempt attempt) {
+            // Completed without writing a response: treat the empty outcome like any other
+            if (!attempt.response.isReady()) {
+                onSuccess(attempt);
+            }
+        }
+
+        private void onSuccess(Attempt attempt) {
+            List<Attempt> losers;
+            Attempt failure;
+            synchronized (this) {
+                if (decided || !running.remove(attempt)) {
+                    attempt.abandon();
+                    return;
+                }
+                decided = true;
+                attempt.winner = true;
+                losers = new ArrayList<>(running);
+                running.clear();
+                failure = heldFailure;
+                heldFailure = null;
+            }
+            if (attempt.isHedge) {
+                state.hedgeWins.increment();
+            }
+            losers.forEach(Attempt::abandon);
+            if (failure != null) {
+                failure.abandon();
+            }
+            commit(attempt);
+        }
+
+        private void onFailure(Attempt attempt, Throwable error) {
+            boolean retryNow = false;
+            Attempt toCommit = null;
+            Attempt toAbandon = null;
+            synchronized (this) {
+                if (decided || !running.remove(attempt)) {
+                    attempt.abandon();
+                    return;
+                }
+                attempt.error = error;
+                if (retry && started < properties.getMaxAttempts()) {
+                    if (state.budget.tryAcquire()) {
+                        started++;
+                        scheduled++;
+                        retryNow = true;
+                    } else {
+                        state.budgetExhausted.increment();
+                    }
+                }
+                // Keep the latest failed response in case no other attempt does better
+                toAbandon = heldFailure;
+                heldFailure = attempt;
+                if (!retryNow && running.isEmpty() && scheduled == 0) {
+                    decided = true;
+                    toCommit = heldFailure;
+                    heldFailure = null;
+                }
+            }
+            if (toAbandon != null) {
+                toAbandon.abandon();
+            }
+            if (retryNow) {
+                state.retriesSent.increment();
+                subscriptions.add(Mono.delay(properties.getBackoff()).subscribe(tick -> {
+                    synchronized (this) {
+                        scheduled--;
+                    }
+                    launch(false);
+                }));
+                return;
+            }
+            if (toCommit != null) {
+                if (toCommit.error != null) {
+                    sink.error(toCommit.error);
+                } else {
+                    toCommit.winner = true;
+                    commit(toCommit);
+                }
+            }
+        }
+
+        private void commit(Attempt attempt) {
+            subscriptions.add(attempt.response.commitTo(exchange.getResponse())
+                    .contextWrite(context)
+                    .subscribe(null, sink::error, sink::success));
+        }
+
+        private void cancelAll() {
+            List<Attempt> pending;
+            synchronized (this) {
+                decided = true;
+                pending = new ArrayList<>(running);
+                running.clear();
+                if (heldFailure != null) {
+                    pending.add(heldFailure);
+                    heldFailure = null;
+                }
+            }
+            subscriptions.dispose();
+            pending.forEach(Attempt::abandon);
+        }
+    }
+
+    private static final class Attempt {
+        private final boolean isHedge;
+        private final long startNanos = System.nanoTime();
+        private AttemptResponse response;
+        private Disposable subscription;
+        private Throwable error;
+        private volatile boolean winner;
+
+        Attempt(boolean isHedge) {
+            this.isHedge = isHedge;
+        }
+
+        /**
+         * Drains a response that already arrived so its connection can be reused; otherwise cancels the call
+         */
+        void abandon() {
+            if (winner) {
+                return;
+            }
+            if (response.isReady()) {
+                response.discard();
+            } else if (subscription != null) {
+                subscription.dispose();
+            }
+        }
+    }
+
+    /**
+     * Attempt view of the exchange: its own response stand-in and a private copy of the attributes,
+     * so routing state from one attempt (chosen instance, routed flag, client connection) never leaks into another
+     */
+    private static final class AttemptExchange extends ServerWebExchangeDecorator {
+
+        private final ServerHttpResponse response;
+        private final Map<String, Object> attributes;
+
+        AttemptExchange(ServerWebExchange delegate, ServerHttpResponse response) {
+            super(delegate);
+            this.response = response;
+            this.attributes = new ConcurrentHashMap<>(delegate.getAttributes());
+        }
+
+        @Override
+        public ServerHttpResponse getResponse() {
+            return response;
+        }
+
+        @Override
+        public Map<String, Object> getAttributes() {
+            return attributes;
+        }
+    }
+
+    private final class RouteState {
+        private final RetryProperties.RouteRetry settings;
+        private final RetryBudget budget;
+        private final Timer latency;
+        private final Counter retriesSent;
+        private final Counter hedgesSent;
+        private final Counter hedgeWins;
+        private final Counter budgetExhausted;
+        private volatile long hedgeDelayNanos = -1;
+        private volatile long hedgeDelayComputedAtNanos;
+
+        RouteState(String routeId) {
+            this.settings = properties.routeSettings(routeId);
+            this.budget = new RetryBudget(properties.getBudgetRatio(), properties.getMinRetriesPerSecond(),
+                    properties.getBudgetWindow());
+            this.latency = Timer.builder("gateway.upstream.attempt.duration")
+                    .description("Time until an upstream attempt produced its response headers")
+                    .tag("route", routeId)
+                    .publishPercentiles(settings.getHedgeQuantile())
+                    .distributionStatisticExpiry(Duration.ofMinutes(1))
+                    .register(meterRegistry);
+            this.retriesSent = counter("gateway.retry.sent", routeId, "Retries sent after a failed attempt");
+            this.hedgesSent = counter("gateway.hedge.sent", routeId, "Hedged second attempts sent for slow requests");
+            this.hedgeWins = counter("gateway.hedge.wins", routeId, "Requests answered by the hedged attempt");
+            this.budgetExhausted = counter("gateway.retry.budget.exhausted", routeId,
+                    "Retries or hedges skipped because the route's retry budget was spent");
+        }
+
+        private Counter counter(String name, String routeId, String description) {
+            return Counter.builder(name)
+                    .description(description)
+                    .tag("route", routeId)
+                    .register(meterRegistry);
+        }
+
+        /**
+         * The configured latency quantile, refreshed at most once a second; -1 until there are enough samples
+         */
+        long hedgeDelayNanos() {
+            long now = System.nanoTime();
+            if (now - hedgeDelayComputedAtNanos < TimeUnit.SECONDS.toNanos(1) && hedgeDelayComputedAtNanos != 0) {
+                return hedgeDelayNanos;
+            }
+            hedgeDelayComputedAtNanos = now;
+
+            HistogramSnapshot snapshot = latency.takeSnapshot();
+            long delay = -1;
+            if (snapshot.count() >= MIN_HEDGE_SAMPLES) {
+                for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+                    if (percentile.percentile() == settings.getHedgeQuantile()) {
+                        delay = Math.max((long) percentile.value(TimeUnit.NANOSECONDS), settings.getMinHedgeDelay().toNanos());
+                    }
+                }
+            }
+            hedgeDelayNanos = delay;
+            return delay;
+        }
+    }
+}
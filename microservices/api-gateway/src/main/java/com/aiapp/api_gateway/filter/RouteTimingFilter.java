@@ -0,0 +1,157 @@
+package com.aiapp.api_gateway.filter;
+
+import com.aiapp.api_gateway.config.RouteTimingProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.opentelemetry.api.trace.Span;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records where the time of each request goes, per route: {@code auth} (JWT verification),
+ * {@code acquire} (waiting for an upstream connection), {@code first_byte} (until the upstream
+ * response headers) and {@code total}. Histograms use the configured SLO buckets; the route tag
+ * only takes configured route ids, or {@code none} for requests that never reached a route.
+ * The same phases can be sent as a {@code Server-Timing} header and are set on the current span.
+ */
+@Component
+public class RouteTimingFilter implements WebFilter, Ordered {
+
+    /** Ahead of the security chain, so authentication is inside the total */
+    public static final int ORDER = Ordered.HIGHEST_PRECEDENCE + 10;
+
+    public static final String SERVER_TIMING_HEADER = "Server-Timing";
+
+    private static final String NO_ROUTE = "none";
+
+    private final RouteTimingProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Duration[] sloBuckets;
+    private final double[] percentiles;
+    private final Map<String, RouteTimers> routes = new ConcurrentHashMap<>();
+
+    public RouteTimingFilter(RouteTimingProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.sloBuckets = properties.getSloBuckets().toArray(Duration[]::new);
+        this.percentiles = properties.getPercentiles().stream().mapToDouble(Double::doubleValue).toArray();
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        if (!properties.isEnabled()) {
+            return chain.filter(exchange);
+        }
+
+        ExchangeTiming timing = new ExchangeTiming();
+        exchange.getAttributes().put(ExchangeTiming.ATTRIBUTE, timing);
+        if (properties.isServerTimingHeader()) {
+            ServerHttpResponse response = exchange.getResponse();
+            response.beforeCommit(() -> {
+                response.getHeaders().set(SERVER_TIMING_HEADER, serverTiming(timing));
+                return Mono.empty();
+            });
+        }
+        return chain.filter(exchange)
+                .doFinally(signal -> record(exchange, timing));
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    private void record(ServerWebExchange exchange, ExchangeTiming timing) {
+        long totalNanos = System.nanoTime() - timing.startNanos();
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        String routeId = route != null ? route.getId() : NO_ROUTE;
+        RouteTimers timers = routes.computeIfAbsent(routeId, RouteTimers::new);
+
+        record(timers.auth, timing.authNanos());
+        record(timers.acquire, timing.acquireNanos());
+        record(timers.firstByte, timing.firstByteNanos());
+        record(timers.total, totalNanos);
+
+        Span span = Span.current();
+        if (span.getSpanContext().isValid()) {
+            span.setAttribute("gateway.route", routeId);
+            setMillis(span, "gateway.phase.auth_ms", timing.authNanos());
+            setMillis(span, "gateway.phase.acquire_ms", timing.acquireNanos());
+            setMillis(span, "gateway.phase.first_byte_ms", timing.firstByteNanos());
+            setMillis(span, "gateway.phase.total_ms", totalNanos);
+        }
+    }
+
+    private static void record(Timer timer, long nanos) {
+        if (nanos >= 0) {
+            timer.record(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static void setMillis(Span span, String key, long nanos) {
+        if (nanos >= 0) {
+            span.setAttribute(key, nanos / 1_000_000.0);
+        }
+    }
+
+    private static String serverTiming(ExchangeTiming timing) {
+        StringBuilder header = new StringBuilder(96);
+        appendMetric(header, "auth", timing.authNanos());
+        appendMetric(header, "acquire", timing.acquireNanos());
+        appendMetric(header, "first_byte", timing.firstByteNanos());
+        appendMetric(header, "total", System.nanoTime() - timing.startNanos());
+        return header.toString();
+    }
+
+    private static void appendMetric(StringBuilder header, String name, long nanos) {
+        if (nanos < 0) {
+            return;
+        }
+        if (!header.isEmpty()) {
+            header.append(", ");
+        }
+        header.append(name).append(";dur=").append(String.format(Locale.ROOT, "%.2f", nanos / 1_000_000.0));
+    }
+
+    /**
+     * Phase timers of one route
+     */
+    private final class RouteTimers {
+        private final Timer auth;
+        private final Timer acquire;
+        private final Timer firstByte;
+        private final Timer total;
+
+        RouteTimers(String routeId) {
+            this.auth = timer(routeId, "auth");
+            this.acquire = timer(routeId, "acquire");
+            this.firstByte = timer(routeId, "first_byte");
+            this.total = timer(routeId, "total");
+        }
+
+        private Timer timer(String routeId, String phase) {
+            // Percentiles are computed from an HdrHistogram over the configured window
+            return Timer.builder("gateway.route.phase")
+                    .description("Time spent in each phase of a proxied request")
+                    .tag("route", routeId)
+                    .tag("phase", phase)
+                    .serviceLevelObjectives(sloBuckets)
+                    .publishPercentiles(percentiles)
+                    .distributionStatisticExpiry(properties.getPercentileWindow())
+                    .register(meterRegistry);
+        }
+    }
+}
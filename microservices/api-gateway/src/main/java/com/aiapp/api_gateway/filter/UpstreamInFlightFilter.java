@@ -0,0 +1,50 @@
+package com.aiapp.api_gateway.filter;
+
+import com.aiapp.api_gateway.service.UpstreamInstanceTracker;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * Counts in-flight requests per upstream instance for {@link com.aiapp.api_gateway.service.PeakEwmaLoadBalancer}.
+ * The load-balancer lifecycle is not told when an exchange is cancelled, as a losing hedge or a client
+ * disconnect is, so the count is released here on every terminal signal, cancellation included.
+ */
+@Component
+public class UpstreamInFlightFilter implements GlobalFilter, Ordered {
+
+    /** Right after the load balancer has chosen the instance */
+    public static final int ORDER = ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER + 1;
+
+    private final UpstreamInstanceTracker tracker;
+
+    public UpstreamInFlightFilter(UpstreamInstanceTracker tracker) {
+        this.tracker = tracker;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Response<ServiceInstance> lbResponse = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR);
+        if (lbResponse == null || !lbResponse.hasServer()) {
+            return chain.filter(exchange);
+        }
+
+        UpstreamInstanceTracker.InstanceStats stats = tracker.stats(lbResponse.getServer());
+        return Mono.defer(() -> {
+            stats.requestStarted();
+            return chain.filter(exchange).doFinally(signal -> stats.requestFinished());
+        });
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+}
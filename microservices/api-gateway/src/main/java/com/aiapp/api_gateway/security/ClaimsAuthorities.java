@@ -0,0 +1,27 @@
+package com.aiapp.api_gateway.security;
+
+import io.jsonwebtoken.Claims;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Spring Security authorities for the {@code roles} claim of a verified token, one {@code ROLE_} authority per role
+ */
+public final class ClaimsAuthorities {
+
+    private ClaimsAuthorities() {
+    }
+
+    public static List<SimpleGrantedAuthority> of(Claims claims) {
+        if (!(claims.get("roles") instanceof List<?> roles) || roles.isEmpty()) {
+            return List.of();
+        }
+        List<SimpleGrantedAuthority> authorities = new ArrayList<>(roles.size());
+        for (Object role : roles) {
+            authorities.add(new SimpleGrantedAuthority("ROLE_" + role));
+        }
+        return authorities;
+    }
+}
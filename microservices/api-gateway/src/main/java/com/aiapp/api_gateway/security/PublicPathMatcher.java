@@ -0,0 +1,167 @@
+package com.aiapp.api_gateway.security;
+
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatcher;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Segment trie compiled once from the public-route table. Supports literal segments,
+ * {@code *} for exactly one segment and a trailing {@code **} for any remainder
+ * (including none, so {@code /swagger-ui/**} also matches {@code /swagger-ui}).
+ * Matching walks the request path by index and allocates nothing.
+ */
+public final class PublicPathMatcher implements ServerWebExchangeMatcher {
+
+    private static final Mono<MatchResult> MATCH = MatchResult.match();
+    private static final Mono<MatchResult> NO_MATCH = MatchResult.notMatch();
+
+    private final Node root;
+
+    public PublicPathMatcher(Collection<String> patterns) {
+        NodeBuilder rootBuilder = new NodeBuilder();
+        for (String pattern : patterns) {
+            add(rootBuilder, pattern);
+        }
+        this.root = rootBuilder.build();
+    }
+
+    public boolean isPublic(String path) {
+        if (path.isEmpty() || path.charAt(0) != '/') {
+            return false;
+        }
+        return match(root, path, 1);
+    }
+
+    @Override
+    public Mono<MatchResult> matches(ServerWebExchange exchange) {
+        return isPublic(exchange.getRequest().getPath().value()) ? MATCH : NO_MATCH;
+    }
+
+    private static boolean match(Node node, String path, int start) {
+        if (node.matchesRest) {
+            return true;
+        }
+        if (start > path.length()) {
+            return node.terminal;
+        }
+
+        int end = path.indexOf('/', start);
+        if (end < 0) {
+            end = path.length();
+        }
+
+        // Literal children take precedence; fall back to the single-segment wildcard
+        Node literal = node.child(path, start, end);
+        if (literal != null && match(literal, path, end + 1)) {
+            return true;
+        }
+        return node.wildcard != null && match(node.wildcard, path, end + 1);
+    }
+
+    private static void add(NodeBuilder rootBuilder, String pattern) {
+        if (!pattern.startsWith("/")) {
+            throw new IllegalArgumentException("Public path must start with '/': " + pattern);
+        }
+
+        NodeBuilder current = rootBuilder;
+        String[] segments = pattern.substring(1).split("/", -1);
+        for (int i = 0; i < segments.length; i++) {
+            String segment = segments[i];
+            if (segment.equals("**")) {
+                if (i != segments.length - 1) {
+                    throw new IllegalArgumentException("'**' is only supported as the last segment: " + pattern);
+                }
+                current.matchesRest = true;
+                return;
+            }
+            if (segment.equals("*")) {
+                if (current.wildcard == null) {
+                    current.wildcard = new NodeBuilder();
+                }
+                current = current.wildcard;
+            } else if (segment.indexOf('*') >= 0 || segment.indexOf('{') >= 0) {
+                throw new IllegalArgumentException("Only whole-segment wildcards are supported: " + pattern);
+            } else {
+                current = current.children.computeIfAbsent(segment, s -> new NodeBuilder());
+            }
+        }
+        current.terminal = true;
+    }
+
+    private static int segmentHash(String path, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + path.charAt(i);
+        }
+        return hash;
+    }
+
+    private static final class NodeBuilder {
+        private final Map<String, NodeBuilder> children = new LinkedHashMap<>();
+        private NodeBuilder wildcard;
+        private boolean terminal;
+        private boolean matchesRest;
+
+        Node build() {
+            String[] segments = children.keySet().toArray(new String[0]);
+            // Order by String.hashCode so lookups can binary search on a hash computed in place
+            Arrays.sort(segments, (a, b) -> Integer.compare(a.hashCode(), b.hashCode()));
+
+            int[] hashes = new int[segments.length];
+            Node[] nodes = new Node[segments.length];
+            for (int i = 0; i < segments.length; i++) {
+                hashes[i] = segments[i].hashCode();
+                nodes[i] = children.get(segments[i]).build();
+            }
+            return new Node(hashes, segments, nodes,
+                    wildcard != null ? wildcard.build() : null, terminal, matchesRest);
+        }
+    }
+
+    private static final class Node {
+        private final int[] hashes;
+        private final String[] segments;
+        private final Node[] children;
+        private final Node wildcard;
+        private final boolean terminal;
+        private final boolean matchesRest;
+
+        Node(int[] hashes, String[] segments, Node[] children, Node wildcard, boolean terminal, boolean matchesRest) {
+            this.hashes = hashes;
+            this.segments = segments;
+            this.children = children;
+            this.wildcard = wildcard;
+            this.terminal = terminal;
+            this.matchesRest = matchesRest;
+        }
+
+        Node child(String path, int start, int end) {
+            if (hashes.length == 0) {
+                return null;
+            }
+            int hash = segmentHash(path, start, end);
+            int index = Arrays.binarySearch(hashes, hash);
+            if (index < 0) {
+                return null;
+            }
+
+            // Step back to the first entry with this hash, then compare every colliding segment
+            while (index > 0 && hashes[index - 1] == hash) {
+                index--;
+            }
+            int length = end - start;
+            for (; index < hashes.length && hashes[index] == hash; index++) {
+                String segment = segments[index];
+                if (segment.length() == length && path.regionMatches(start, segment, 0, length)) {
+                    return children[index];
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.aiapp.api_gateway.security;
+
+import com.aiapp.api_gateway.filter.JwtAuthenticationFilter;
+import io.jsonwebtoken.Claims;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.server.ServerWebExchange;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Service plan of the caller, derived from the {@code roles} claim of the verified token
+ */
+public enum UserTier {
+    ANONYMOUS,
+    USER,
+    PREMIUM;
+
+    public static UserTier of(ServerWebExchange exchange) {
+        Claims claims = exchange.getAttribute(JwtAuthenticationFilter.CLAIMS_ATTRIBUTE);
+        if (claims == null) {
+            return ANONYMOUS;
+        }
+        if (claims.get("roles") instanceof List<?> roles) {
+            for (Object role : roles) {
+                // Tokens carry either the enum name (ROLE_PREMIUM_USER) or the bare role (PREMIUM_USER)
+                if (role instanceof String name && (name.endsWith("PREMIUM_USER") || name.endsWith("ADMIN"))) {
+                    return PREMIUM;
+                }
+            }
+        }
+        return USER;
+    }
+
+    /**
+     * Stable per-caller key: the token subject, or the client address for anonymous traffic.
+     * Behind {@code trustedProxies} proxies the client is the X-Forwarded-For entry the outermost one
+     * appended; entries to its left are client-supplied and never used.
+     */
+    public static String callerKey(ServerWebExchange exchange, int trustedProxies) {
+        Claims claims = exchange.getAttribute(JwtAuthenticationFilter.CLAIMS_ATTRIBUTE);
+        if (claims != null && claims.getSubject() != null) {
+            return claims.getSubject();
+        }
+        if (trustedProxies > 0) {
+            List<String> hops = forwardedFor(exchange.getRequest().getHeaders());
+            if (hops.size() >= trustedProxies) {
+                return hops.get(hops.size() - trustedProxies);
+            }
+        }
+        var remoteAddress = exchange.getRequest().getRemoteAddress();
+        return remoteAddress != null && remoteAddress.getAddress() != null
+                ? remoteAddress.getAddress().getHostAddress()
+                : "unknown";
+    }
+
+    private static List<String> forwardedFor(HttpHeaders headers) {
+        List<String> hops = new ArrayList<>();
+        for (String value : headers.getOrEmpty("X-Forwarded-For")) {
+            for (String hop : value.split(",")) {
+                String trimmed = hop.trim();
+                if (!trimmed.isEmpty()) {
+                    hops.add(trimmed);
+                }
+            }
+        }
+        return hops;
+    }
+}
@@ -0,0 +1,127 @@
+package com.aiapp.api_gateway.service;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limit for one route that follows the backend's capacity, TCP Vegas style: the lowest
+ * latency seen is taken as the no-load baseline, and the share of latency above it estimates how many
+ * requests are queued at the backend. Few queued requests raise the limit, a growing queue or a drop
+ * (5xx overload status, timeout, connection error) lowers it. Acquiring a permit never waits.
+ */
+public final class AdaptiveConcurrencyLimiter {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double smoothing;
+    private final double premiumReserve;
+    private final long baselineResetNanos;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile int limit;
+    private double estimate;
+    private long rttNoLoadNanos;
+    private long baselineSetAtNanos;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double smoothing,
+                                      double premiumReserve, long baselineResetNanos) {
+        this.minLimit = minLimit;
+        this.maxLimit = Math.max(minLimit, maxLimit);
+        this.smoothing = smoothing;
+        this.premiumReserve = premiumReserve;
+        this.baselineResetNanos = baselineResetNanos;
+        this.estimate = Math.min(this.maxLimit, Math.max(minLimit, initialLimit));
+        this.limit = (int) estimate;
+        this.baselineSetAtNanos = System.nanoTime();
+    }
+
+    public int limit() {
+        return limit;
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Takes a slot, or returns null when the route is at its limit. Callers without {@code premium}
+     * are held below the limit by the premium reserve, so they are shed first.
+     */
+    public Permit tryAcquire(boolean premium) {
+        int current = limit;
+        int cap = premium ? current : Math.max(1, current - (int) Math.ceil(current * premiumReserve));
+        while (true) {
+            int active = inFlight.get();
+            if (active >= cap) {
+                return null;
+            }
+            if (inFlight.compareAndSet(active, active + 1)) {
+                return new Permit(active + 1);
+            }
+        }
+    }
+
+    synchronized void update(long rttNanos, int inFlightAtStart, boolean dropped, long now) {
+        if (now - baselineSetAtNanos > baselineResetNanos) {
+            rttNoLoadNanos = 0;
+            baselineSetAtNanos = now;
+        }
+        if (!dropped && (rttNoLoadNanos == 0 || rttNanos < rttNoLoadNanos)) {
+            rttNoLoadNanos = rttNanos;
+            return;
+        }
+
+        double log = Math.max(1, Math.log10(estimate));
+        double next;
+        if (dropped) {
+            next = estimate - log;
+        } else if (inFlightAtStart * 2 < estimate) {
+            // Far below the limit the latency says nothing about capacity
+            return;
+        } else {
+            double queued = Math.ceil(estimate * (1 - (double) rttNoLoadNanos / rttNanos));
+            if (queued <= log) {
+                next = estimate + 6 * log;
+            } else if (queued < 3 * log) {
+                next = estimate + log;
+            } else if (queued > 6 * log) {
+                next = estimate - log;
+            } else {
+                return;
+            }
+        }
+        estimate = Math.min(maxLimit, Math.max(minLimit, (1 - smoothing) * estimate + smoothing * next));
+        limit = (int) estimate;
+    }
+
+    /**
+     * One admitted request; exactly one of the completion methods must be called
+     */
+    public final class Permit {
+
+        private final int inFlightAtStart;
+        private final long startNanos = System.nanoTime();
+
+        private Permit(int inFlightAtStart) {
+            this.inFlightAtStart = inFlightAtStart;
+        }
+
+        /** The backend answered normally; its latency feeds the limit */
+        public void onSuccess() {
+            long now = System.nanoTime();
+            inFlight.decrementAndGet();
+            update(now - startNanos, inFlightAtStart, false, now);
+        }
+
+        /** The backend was overloaded or unreachable */
+        public void onDropped() {
+            long now = System.nanoTime();
+            inFlight.decrementAndGet();
+            update(now - startNanos, inFlightAtStart, true, now);
+        }
+
+        /** Outcome says nothing about the backend, e.g. the client went away */
+        public void onIgnore() {
+            inFlight.decrementAndGet();
+        }
+    }
+}
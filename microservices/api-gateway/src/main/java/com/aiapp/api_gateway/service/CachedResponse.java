@@ -0,0 +1,64 @@
+package com.aiapp.api_gateway.service;
+
+import org.springframework.http.HttpHeaders;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Buffered upstream response as stored in both cache tiers.
+ *
+ * @param variant       request header values named by {@code Vary}, see {@link #variantOf}
+ * @param upstreamEtag  whether {@code etag} came from the backend and can be sent back for revalidation
+ */
+public record CachedResponse(int status,
+                             Map<String, List<String>> headers,
+                             byte[] body,
+                             String etag,
+                             boolean upstreamEtag,
+                             List<String> varyHeaders,
+                             String variant,
+                             long storedAtMillis,
+                             long expiresAtMillis,
+                             long retainUntilMillis) {
+
+    public boolean isFresh(long nowMillis) {
+        return nowMillis < expiresAtMillis;
+    }
+
+    public boolean isRetained(long nowMillis) {
+        return nowMillis < retainUntilMillis;
+    }
+
+    public boolean matches(HttpHeaders requestHeaders) {
+        return variant.equals(variantOf(varyHeaders, requestHeaders));
+    }
+
+    /**
+     * Same body and headers with a new freshness window, after the backend confirmed the ETag
+     */
+    public CachedResponse revalidated(long nowMillis, long ttlMillis, long revalidateWindowMillis) {
+        return new CachedResponse(status, headers, body, etag, upstreamEtag, varyHeaders, variant,
+                nowMillis, nowMillis + ttlMillis, nowMillis + ttlMillis + revalidateWindowMillis);
+    }
+
+    /**
+     * Values of the {@code Vary} request headers, one per line in the order the backend listed them
+     */
+    public static String variantOf(List<String> varyHeaders, HttpHeaders requestHeaders) {
+        if (varyHeaders.isEmpty()) {
+            return "";
+        }
+        StringBuilder variant = new StringBuilder();
+        for (String name : varyHeaders) {
+            List<String> values = requestHeaders.get(name);
+            variant.append(name.toLowerCase(Locale.ROOT)).append('=');
+            if (values != null) {
+                variant.append(String.join(",", values).trim());
+            }
+            variant.append('\n');
+        }
+        return variant.toString();
+    }
+}
@@ -0,0 +1,226 @@
+package com.aiapp.api_gateway.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigInteger;
+import java.security.AlgorithmParameters;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.ECParameterSpec;
+import java.security.spec.ECPoint;
+import java.security.spec.ECPublicKeySpec;
+import java.security.spec.RSAPublicKeySpec;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * In-memory kid to public key map backed by auth-service's JWKS endpoint.
+ * Keys are fetched at startup and refreshed in the background; lookups never wait on the network.
+ */
+@Component
+public class JwksKeySet {
+
+    private static final Logger log = LoggerFactory.getLogger(JwksKeySet.class);
+
+    private final WebClient webClient;
+    private final String jwksUri;
+    private final Duration refreshInterval;
+    private final Duration minRefreshInterval;
+    private final Duration startupTimeout;
+    private final Counter refreshSuccesses;
+    private final Counter refreshFailures;
+
+    private final AtomicReference<Mono<Void>> inFlightRefresh = new AtomicReference<>();
+    private volatile Map<String, PublicKey> keys = Map.of();
+    private volatile long lastRefreshStartedNanos;
+    private Disposable backgroundRefresh;
+
+    public JwksKeySet(WebClient.Builder webClientBuilder,
+                      @Value("${app.jwt.jwks.uri:}") String jwksUri,
+                      @Value("${app.jwt.jwks.refresh-interval:5m}") Duration refreshInterval,
+                      @Value("${app.jwt.jwks.min-refresh-interval:10s}") Duration minRefreshInterval,
+                      @Value("${app.jwt.jwks.startup-timeout:5s}") Duration startupTimeout,
+                      MeterRegistry meterRegistry) {
+        this.webClient = webClientBuilder.build();
+        this.jwksUri = jwksUri;
+        this.refreshInterval = refreshInterval;
+        this.minRefreshInterval = minRefreshInterval;
+        this.startupTimeout = startupTimeout;
+        this.lastRefreshStartedNanos = System.nanoTime() - minRefreshInterval.toNanos();
+        this.refreshSuccesses = Counter.builder("jwt.jwks.refresh")
+                .tag("result", "success")
+                .register(meterRegistry);
+        this.refreshFailures = Counter.builder("jwt.jwks.refresh")
+                .tag("result", "failure")
+                .register(meterRegistry);
+        Gauge.builder("jwt.jwks.keys", this, jwks -> jwks.keys.size())
+                .description("Public keys currently available for JWT verification")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        if (!isEnabled()) {
+            return;
+        }
+
+        // Pre-warm so the first requests after startup do not all miss
+        refresh().timeout(startupTimeout)
+                .onErrorResume(ex -> {
+                    log.warn("JWKS not available within {} at startup, continuing with an empty key set", startupTimeout);
+                    return Mono.empty();
+                })
+                .block();
+
+        backgroundRefresh = Flux.interval(refreshInterval, refreshInterval)
+                .onBackpressureDrop()
+                .concatMap(tick -> refresh())
+                .subscribe();
+    }
+
+    @PreDestroy
+    void stop() {
+        if (backgroundRefresh != null) {
+            backgroundRefresh.dispose();
+        }
+    }
+
+    public boolean isEnabled() {
+        return StringUtils.hasText(jwksUri);
+    }
+
+    public PublicKey find(String keyId) {
+        return keys.get(keyId);
+    }
+
+    /**
+     * Refresh triggered by a token carrying an unknown kid. Concurrent callers share one fetch,
+     * and fetches are spaced by the minimum refresh interval so random kids cannot hammer auth-service.
+     */
+    public Mono<Void> refreshForUnknownKey() {
+        if (!isEnabled()) {
+            return Mono.empty();
+        }
+        Mono<Void> inFlight = inFlightRefresh.get();
+        if (inFlight != null) {
+            return inFlight;
+        }
+        if (System.nanoTime() - lastRefreshStartedNanos < minRefreshInterval.toNanos()) {
+            return Mono.empty();
+        }
+        return refresh();
+    }
+
+    private Mono<Void> refresh() {
+        Mono<Void> inFlight = inFlightRefresh.get();
+        if (inFlight != null) {
+            return inFlight;
+        }
+
+        Mono<Void> fetch = webClient.get()
+                .uri(jwksUri)
+                .retrieve()
+                .bodyToMono(JwkSetDocument.class)
+                .map(this::toPublicKeys)
+                .doOnNext(fetched -> {
+                    keys = fetched;
+                    refreshSuccesses.increment();
+                    log.debug("Loaded {} JWKS keys from {}", fetched.size(), jwksUri);
+                })
+                .onErrorResume(ex -> {
+                    refreshFailures.increment();
+                    log.warn("Failed to refresh JWKS from {}: {}", jwksUri, ex.getMessage());
+                    return Mono.empty();
+                })
+                .then()
+                .doFinally(signal -> inFlightRefresh.set(null))
+                .cache();
+
+        if (inFlightRefresh.compareAndSet(null, fetch)) {
+            lastRefreshStartedNanos = System.nanoTime();
+            return fetch;
+        }
+        Mono<Void> winner = inFlightRefresh.get();
+        return winner != null ? winner : Mono.empty();
+    }
+
+    private Map<String, PublicKey> toPublicKeys(JwkSetDocument document) {
+        Map<String, PublicKey> parsed = new HashMap<>();
+        if (document.keys() == null) {
+            return Map.of();
+        }
+        for (Map<String, Object> jwk : document.keys()) {
+            String keyId = stringValue(jwk, "kid");
+            String use = stringValue(jwk, "use");
+            if (keyId == null || (use != null && !"sig".equals(use))) {
+                continue;
+            }
+            try {
+                PublicKey key = switch (String.valueOf(jwk.get("kty"))) {
+                    case "RSA" -> rsaKey(jwk);
+                    case "EC" -> ecKey(jwk);
+                    default -> null;
+                };
+                if (key != null) {
+                    parsed.put(keyId, key);
+                }
+            } catch (GeneralSecurityException | IllegalArgumentException e) {
+                log.warn("Skipping unusable JWK {}: {}", keyId, e.getMessage());
+            }
+        }
+        return Map.copyOf(parsed);
+    }
+
+    private static PublicKey rsaKey(Map<String, Object> jwk) throws GeneralSecurityException {
+        BigInteger modulus = unsigned(stringValue(jwk, "n"));
+        BigInteger exponent = unsigned(stringValue(jwk, "e"));
+        return KeyFactory.getInstance("RSA").generatePublic(new RSAPublicKeySpec(modulus, exponent));
+    }
+
+    private static PublicKey ecKey(Map<String, Object> jwk) throws GeneralSecurityException {
+        String curve = switch (String.valueOf(jwk.get("crv"))) {
+            case "P-256" -> "secp256r1";
+            case "P-384" -> "secp384r1";
+            case "P-521" -> "secp521r1";
+            default -> throw new IllegalArgumentException("unsupported curve " + jwk.get("crv"));
+        };
+        AlgorithmParameters parameters = AlgorithmParameters.getInstance("EC");
+        parameters.init(new ECGenParameterSpec(curve));
+        ECParameterSpec spec = parameters.getParameterSpec(ECParameterSpec.class);
+        ECPoint point = new ECPoint(unsigned(stringValue(jwk, "x")), unsigned(stringValue(jwk, "y")));
+        return KeyFactory.getInstance("EC").generatePublic(new ECPublicKeySpec(point, spec));
+    }
+
+    private static BigInteger unsigned(String base64Url) {
+        if (base64Url == null) {
+            throw new IllegalArgumentException("missing key parameter");
+        }
+        return new BigInteger(1, Base64.getUrlDecoder().decode(base64Url));
+    }
+
+    private static String stringValue(Map<String, Object> jwk, String name) {
+        return jwk.get(name) instanceof String value ? value : null;
+    }
+
+    record JwkSetDocument(List<Map<String, Object>> keys) {
+    }
+}
@@ -1,33 +1,99 @@
 package com.aiapp.api_gateway.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.UnsupportedJwtException;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.util.Base64;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class JwtValidationService {
 
-    @Value("${app.jwt.secret}")
-    private String jwtSecret;
+    private final JwtParser jwtParser;
+    private final Cache<String, Claims> claimsCache;
+    private final Counter validationFailures;
+    private final Timer verificationTimer;
+    private final Scheduler verificationScheduler;
+    private final JwksKeySet jwksKeySet;
 
+    public JwtValidationService(@Value("${app.jwt.secret:}") String jwtSecret,
+                                @Value("${app.jwt.claims-cache.max-size:10000}") long claimsCacheMaxSize,
+                                @Qualifier("jwtVerificationScheduler") Scheduler verificationScheduler,
+                                JwksKeySet jwksKeySet,
+                                MeterRegistry meterRegistry) {
+        // HMAC stays available for tokens issued with the shared secret until every issuer signs with the JWKS keys
+        if (!StringUtils.hasText(jwtSecret)) {
+            throw new IllegalStateException("app.jwt.secret must be set");
+        }
+        SecretKey hmacKey = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        this.jwksKeySet = jwksKeySet;
+        this.jwtParser = Jwts.parser()
+                .keyLocator(new SigningKeyLocator(hmacKey, jwksKeySet))
+                .build();
+
+        // Verified claims live until the token's own expiry, so a cache hit can never outlive the token
+        this.claimsCache = Caffeine.newBuilder()
+                .maximumSize(claimsCacheMaxSize)
+                .expireAfter(new TokenExpiry())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, claimsCache, "jwt.claims");
+
+        this.validationFailures = Counter.builder("jwt.validation.failures")
+                .description("Bearer tokens rejected by signature or claims validation")
+                .register(meterRegistry);
+        this.verificationTimer = Timer.builder("jwt.verification.duration")
+                .description("Time spent verifying a JWT signature and decoding its claims")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.verificationScheduler = verificationScheduler;
+    }
+
+    /**
+     * Emits the verified claims, or completes empty when the token is invalid.
+     * Cache hits are answered inline; only unseen tokens are handed to the verification
+     * scheduler, which signals {@link java.util.concurrent.RejectedExecutionException} when saturated.
+     */
     public Mono<Claims> validateToken(String token) {
-        return Mono.fromCallable(() -> {
-            try {
-                SecretKey key = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
-                return Jwts.parserBuilder()
-                        .setSigningKey(key)
-                        .build()
-                        .parseClaimsJws(token)
-                        .getBody();
-            } catch (Exception e) {
-                return null;
+        return Mono.defer(() -> {
+            String cacheKey = digest(token);
+            Claims cached = claimsCache.getIfPresent(cacheKey);
+            if (cached != null) {
+                return Mono.just(cached);
             }
+
+            return Mono.fromCallable(() -> verify(token, cacheKey, true))
+                    .subscribeOn(verificationScheduler)
+                    // Signed with a key we have not seen yet: wait for one shared JWKS refresh, then retry once
+                    .onErrorResume(UnknownSigningKeyException.class, ex -> jwksKeySet.refreshForUnknownKey()
+                            .then(Mono.fromCallable(() -> verify(token, cacheKey, false))
+                                    .subscribeOn(verificationScheduler)));
         });
     }
 
@@ -35,4 +101,101 @@ public class JwtValidationService {
         return validateToken(token)
                 .map(Claims::getSubject);
     }
-}
\ No newline at end of file
+
+    private Claims verify(String token, String cacheKey, boolean allowKeyRefresh) {
+        long start = System.nanoTime();
+        try {
+            Claims claims = jwtParser.parseSignedClaims(token).getPayload();
+            if (claims.getExpiration() != null) {
+                claimsCache.put(cacheKey, claims);
+            }
+            return claims;
+        } catch (JwtException | IllegalArgumentException e) {
+            UnknownSigningKeyException unknownKey = findUnknownSigningKey(e);
+            if (unknownKey != null && allowKeyRefresh) {
+                throw unknownKey;
+            }
+            validationFailures.increment();
+            return null;
+        } finally {
+            verificationTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static UnknownSigningKeyException findUnknownSigningKey(Throwable error) {
+        for (Throwable current = error; current != null; current = current.getCause()) {
+            if (current instanceof UnknownSigningKeyException unknownKey) {
+                return unknownKey;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * SHA-256 of the raw token, so the cache never retains bearer credentials as keys
+     */
+    private static String digest(String token) {
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = messageDigest.digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Picks the shared secret for HS* tokens and the JWKS public key named by {@code kid} for RS*, PS* and ES* tokens
+     */
+    private static final class SigningKeyLocator extends LocatorAdapter<Key> {
+
+        private final SecretKey hmacKey;
+        private final JwksKeySet jwksKeySet;
+
+        SigningKeyLocator(SecretKey hmacKey, JwksKeySet jwksKeySet) {
+            this.hmacKey = hmacKey;
+            this.jwksKeySet = jwksKeySet;
+        }
+
+        @Override
+        protected Key locate(JwsHeader header) {
+            String algorithm = header.getAlgorithm();
+            if (algorithm != null && algorithm.startsWith("HS")) {
+                return hmacKey;
+            }
+
+            String keyId = header.getKeyId();
+            if (keyId == null) {
+                throw new UnsupportedJwtException("Asymmetrically signed tokens must carry a kid header");
+            }
+            PublicKey publicKey = jwksKeySet.find(keyId);
+            if (publicKey == null) {
+                throw new UnknownSigningKeyException(keyId);
+            }
+            return publicKey;
+        }
+    }
+
+    /**
+     * Expires each cached entry at the {@code exp} claim of the token it was verified from
+     */
+    private static final class TokenExpiry implements Expiry<String, Claims> {
+
+        @Override
+        public long expireAfterCreate(String key, Claims claims, long currentTime) {
+            Date expiration = claims.getExpiration();
+            long remainingMillis = expiration.getTime() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(remainingMillis, 0));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, claims, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.aiapp.api_gateway.service;
+
+import com.aiapp.api_gateway.config.RateLimitProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Distributed token bucket kept in Redis, consumed through short-lived local leases.
+ * A pod takes a batch of tokens per Redis call and spends them in memory, so only
+ * one request per batch pays a round-trip. Batches stay a small share of the bucket,
+ * so small buckets are consumed one token per call.
+ */
+@Service
+public class LeasedRateLimiter {
+
+    private static final Logger log = LoggerFactory.getLogger(LeasedRateLimiter.class);
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> LEASE_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/leased_token_bucket.lua"), List.class);
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final RateLimitProperties properties;
+    private final Cache<String, Lease> leases;
+
+    public LeasedRateLimiter(ReactiveStringRedisTemplate redisTemplate, RateLimitProperties properties) {
+        this.redisTemplate = redisTemplate;
+        this.properties = properties;
+        // Idle callers fall out so the map stays bounded by active users
+        this.leases = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterAccess(Duration.ofMinutes(1))
+                .build();
+    }
+
+    /**
+     * Takes one token for {@code bucketKey}, locally when the pod still holds leased tokens
+     */
+    public Mono<Decision> tryAcquire(String bucketKey, RateLimitProperties.Limit limit) {
+        Lease lease = leases.get(bucketKey, key -> new Lease());
+        long now = System.nanoTime();
+        if (lease.tryTake(now)) {
+            return Mono.just(new Decision(true, lease.estimatedRemaining()));
+        }
+        if (lease.isDenied(now)) {
+            // The bucket was empty moments ago; a flood of retries should not all reach Redis
+            return Mono.just(new Decision(false, 0));
+        }
+
+        int wanted = leaseSize(limit);
+        List<String> keys = List.of("rate_limit.{" + bucketKey + "}.tokens", "rate_limit.{" + bucketKey + "}.timestamp");
+        List<String> args = List.of(
+                Integer.toString(limit.getReplenishRate()),
+                Integer.toString(limit.getBurstCapacity()),
+                Integer.toString(wanted));
+
+        return redisTemplate.execute(LEASE_SCRIPT, keys, args)
+                .next()
+                .map(result -> {
+                    long granted = ((Number) result.get(0)).longValue();
+                    long remaining = ((Number) result.get(1)).longValue();
+                    if (granted <= 0) {
+                        lease.deny(remaining, now + refillNanos(limit));
+                        return new Decision(false, 0);
+                    }
+                    // This request spends one of the granted tokens; the rest stay local
+                    lease.grant(granted - 1, remaining, now + properties.getLeaseTtl().toNanos());
+                    return new Decision(true, lease.estimatedRemaining());
+                })
+                .onErrorResume(ex -> {
+                    // Fail open: losing Redis must not take the API down with it
+                    log.warn("Rate limiter unavailable, allowing request: {}", ex.getMessage());
+                    return Mono.just(new Decision(true, Decision.UNKNOWN));
+                });
+    }
+
+    /**
+     * Tokens to ask for: what the bucket refills over one lease, capped at a fraction of the burst so
+     * that a single pod cannot drain a small bucket that every pod shares
+     */
+    int leaseSize(RateLimitProperties.Limit limit) {
+        double refilledPerLease = limit.getReplenishRate() * (properties.getLeaseTtl().toMillis() / 1000.0);
+        double burstShare = limit.getBurstCapacity() * properties.getMaxLeaseFraction();
+        long wanted = (long) Math.floor(Math.min(Math.min(refilledPerLease, burstShare), properties.getLeaseSize()));
+        return (int) Math.max(1, wanted);
+    }
+
+    private static long refillNanos(RateLimitProperties.Limit limit) {
+        return Duration.ofSeconds(1).toNanos() / Math.max(1, limit.getReplenishRate());
+    }
+
+    /**
+     * @param remaining best estimate of tokens left for the caller, {@link #UNKNOWN} when Redis was unreachable
+     */
+    public record Decision(boolean allowed, long remaining) {
+
+        public static final long UNKNOWN = -1;
+
+        public boolean isRemainingKnown() {
+            return remaining != UNKNOWN;
+        }
+    }
+
+    private static final class Lease {
+        private final AtomicLong tokens = new AtomicLong();
+        private volatile long expiresAtNanos;
+        private volatile long deniedUntilNanos;
+        private volatile long sharedRemaining;
+
+        Lease() {
+            long now = System.nanoTime();
+            this.expiresAtNanos = now;
+            this.deniedUntilNanos = now;
+        }
+
+        boolean tryTake(long now) {
+            if (now - expiresAtNanos > 0) {
+                return false;
+            }
+            long current;
+            do {
+                current = tokens.get();
+                if (current <= 0) {
+                    return false;
+                }
+            } while (!tokens.compareAndSet(current, current - 1));
+            return true;
+        }
+
+        void grant(long granted, long remaining, long expiresAt) {
+            // Tokens from an expired lease are forfeited rather than carried over
+            if (System.nanoTime() - expiresAtNanos > 0) {
+                tokens.set(granted);
+            } else {
+                tokens.addAndGet(granted);
+            }
+            expiresAtNanos = expiresAt;
+            sharedRemaining = remaining;
+        }
+
+        boolean isDenied(long now) {
+            return now - deniedUntilNanos < 0;
+        }
+
+        void deny(long remaining, long until) {
+            sharedRemaining = remaining;
+            deniedUntilNanos = until;
+        }
+
+        long estimatedRemaining() {
+            return Math.max(0, tokens.get()) + sharedRemaining;
+        }
+    }
+}
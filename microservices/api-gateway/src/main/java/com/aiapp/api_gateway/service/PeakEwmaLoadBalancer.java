@@ -0,0 +1,75 @@
+package com.aiapp.api_gateway.service;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Power-of-two-choices over the service's instances: samples two at random and sends the request
+ * to the one with the lower latency-times-queue cost. Ejected instances are skipped unless every
+ * instance is ejected, in which case all of them are candidates again.
+ */
+public class PeakEwmaLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+
+    private final ObjectProvider<ServiceInstanceListSupplier> instanceListSupplier;
+    private final UpstreamInstanceTracker tracker;
+
+    public PeakEwmaLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> instanceListSupplier,
+                                UpstreamInstanceTracker tracker) {
+        this.instanceListSupplier = instanceListSupplier;
+        this.tracker = tracker;
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        ServiceInstanceListSupplier supplier = instanceListSupplier.getIfAvailable(NoopServiceInstanceListSupplier::new);
+        return supplier.get(request)
+                .next()
+                .map(this::choose);
+    }
+
+    Response<ServiceInstance> choose(List<ServiceInstance> instances) {
+        if (instances.isEmpty()) {
+            return new EmptyResponse();
+        }
+
+        List<UpstreamInstanceTracker.InstanceStats> candidates = new ArrayList<>(instances.size());
+        for (ServiceInstance instance : instances) {
+            UpstreamInstanceTracker.InstanceStats stats = tracker.stats(instance);
+            if (!stats.isEjected()) {
+                candidates.add(stats);
+            }
+        }
+        if (candidates.isEmpty()) {
+            // Everything is ejected: spreading load over suspect instances beats failing every request
+            for (ServiceInstance instance : instances) {
+                candidates.add(tracker.stats(instance));
+            }
+        }
+        if (candidates.size() == 1) {
+            return new DefaultResponse(candidates.get(0).instance());
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(candidates.size());
+        int second = random.nextInt(candidates.size() - 1);
+        if (second >= first) {
+            second++;
+        }
+        UpstreamInstanceTracker.InstanceStats a = candidates.get(first);
+        UpstreamInstanceTracker.InstanceStats b = candidates.get(second);
+        return new DefaultResponse((a.cost() <= b.cost() ? a : b).instance());
+    }
+}
@@ -0,0 +1,188 @@
+package com.aiapp.api_gateway.service;
+
+import com.aiapp.api_gateway.config.ResponseCacheProperties;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Two-tier store for cached responses: a byte-bounded Caffeine map in front of Redis.
+ * Each primary key (route, caller, path and query) holds its {@code Vary} variants side by side,
+ * as a Redis hash remotely, so a lookup is one round-trip whichever variant the request needs.
+ */
+@Service
+public class ResponseCacheStore {
+
+    private static final Logger log = LoggerFactory.getLogger(ResponseCacheStore.class);
+
+    /** Rough per-entry overhead for headers and bookkeeping, so tiny bodies still count */
+    private static final int ENTRY_OVERHEAD_BYTES = 512;
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final boolean remoteEnabled;
+    private final String remoteKeyPrefix;
+    private final Cache<String, Map<String, CachedResponse>> local;
+
+    public ResponseCacheStore(ReactiveStringRedisTemplate redisTemplate,
+                              ObjectMapper objectMapper,
+                              ResponseCacheProperties properties,
+                              MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.remoteEnabled = properties.isRemoteEnabled();
+        this.remoteKeyPrefix = properties.getRemoteKeyPrefix();
+        this.local = Caffeine.newBuilder()
+                .maximumWeight(properties.getLocalMaxSize().toBytes())
+                .weigher((String key, Map<String, CachedResponse> variants) -> weigh(variants))
+                .expireAfter(new RetentionExpiry())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, local, "gateway.response.cache");
+    }
+
+    /**
+     * Emits the freshest retained variant matching the request, or completes empty.
+     * Redis is only consulted when the local tier has nothing fresh; its failures count as a miss.
+     */
+    public Mono<CachedResponse> find(String primaryKey, HttpHeaders requestHeaders) {
+        long now = System.currentTimeMillis();
+        CachedResponse localHit = select(local.getIfPresent(primaryKey), requestHeaders, now);
+        if ((localHit != null && localHit.isFresh(now)) || !remoteEnabled) {
+            return Mono.justOrEmpty(localHit);
+        }
+
+        return redisTemplate.<String, String>opsForHash()
+                .entries(remoteKeyPrefix + primaryKey)
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue)
+                .mapNotNull(stored -> {
+                    Map<String, CachedResponse> variants = new HashMap<>();
+                    stored.forEach((variant, json) -> {
+                        CachedResponse response = deserialize(json);
+                        if (response != null && response.isRetained(now)) {
+                            variants.put(variant, response);
+                        }
+                    });
+                    if (!variants.isEmpty()) {
+                        local.asMap().merge(primaryKey, Map.copyOf(variants), ResponseCacheStore::newest);
+                    }
+                    CachedResponse remoteHit = select(variants, requestHeaders, now);
+                    return newer(localHit, remoteHit);
+                })
+                .onErrorResume(ex -> {
+                    log.warn("Response cache lookup in Redis failed: {}", ex.getMessage());
+                    return Mono.justOrEmpty(localHit);
+                });
+    }
+
+    /**
+     * Stores locally right away and writes through to Redis in the background
+     */
+    public void put(String primaryKey, CachedResponse response) {
+        local.asMap().merge(primaryKey, Map.of(response.variant(), response), ResponseCacheStore::newest);
+        if (!remoteEnabled) {
+            return;
+        }
+
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            log.warn("Could not serialise cached response: {}", e.getMessage());
+            return;
+        }
+        String key = remoteKeyPrefix + primaryKey;
+        // The hash expires with its latest write; variants outliving it are simply fetched again
+        Duration retention = Duration.ofMillis(Math.max(1, response.retainUntilMillis() - System.currentTimeMillis()));
+        redisTemplate.opsForHash().put(key, response.variant(), json)
+                .then(redisTemplate.expire(key, retention))
+                .subscribe(null, ex -> log.warn("Response cache write to Redis failed: {}", ex.getMessage()));
+    }
+
+    private CachedResponse deserialize(String json) {
+        try {
+            return objectMapper.readValue(json, CachedResponse.class);
+        } catch (JsonProcessingException e) {
+            log.debug("Discarding unreadable cached response: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static CachedResponse select(Map<String, CachedResponse> variants, HttpHeaders requestHeaders, long now) {
+        if (variants == null) {
+            return null;
+        }
+        // Variants are few (typically one per Accept-Encoding), so a scan beats a second key
+        for (CachedResponse candidate : variants.values()) {
+            if (candidate.isRetained(now) && candidate.matches(requestHeaders)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    private static CachedResponse newer(CachedResponse a, CachedResponse b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+        return a.storedAtMillis() >= b.storedAtMillis() ? a : b;
+    }
+
+    private static Map<String, CachedResponse> newest(Map<String, CachedResponse> current,
+                                                      Map<String, CachedResponse> incoming) {
+        Map<String, CachedResponse> merged = new HashMap<>(current);
+        incoming.forEach((variant, response) -> merged.merge(variant, response, ResponseCacheStore::newer));
+        return Map.copyOf(merged);
+    }
+
+    private static int weigh(Map<String, CachedResponse> variants) {
+        long bytes = 0;
+        for (CachedResponse response : variants.values()) {
+            bytes += response.body().length + ENTRY_OVERHEAD_BYTES;
+        }
+        return (int) Math.min(Integer.MAX_VALUE, bytes);
+    }
+
+    /**
+     * Keeps a primary key until its longest-retained variant can no longer be served or revalidated
+     */
+    private static final class RetentionExpiry implements Expiry<String, Map<String, CachedResponse>> {
+
+        @Override
+        public long expireAfterCreate(String key, Map<String, CachedResponse> variants, long currentTime) {
+            long retainUntil = 0;
+            for (CachedResponse response : variants.values()) {
+                retainUntil = Math.max(retainUntil, response.retainUntilMillis());
+            }
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(retainUntil - System.currentTimeMillis(), 0));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Map<String, CachedResponse> variants, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, variants, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Map<String, CachedResponse> variants, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
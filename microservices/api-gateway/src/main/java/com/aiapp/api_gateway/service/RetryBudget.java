@@ -0,0 +1,67 @@
+package com.aiapp.api_gateway.service;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Sliding-window budget for extra upstream attempts: within the window, retries may not exceed
+ * {@code ratio} of requests plus a small per-second floor. One-second slots in a ring are reset
+ * lazily when their second comes round again, so recording is lock-free.
+ */
+public final class RetryBudget {
+
+    private final double ratio;
+    private final long floor;
+    private final int slots;
+    private final AtomicLongArray slotSecond;
+    private final AtomicLongArray requests;
+    private final AtomicLongArray retries;
+
+    public RetryBudget(double ratio, int minRetriesPerSecond, Duration window) {
+        this.ratio = ratio;
+        this.slots = (int) Math.max(1, window.toSeconds());
+        this.floor = (long) minRetriesPerSecond * slots;
+        this.slotSecond = new AtomicLongArray(slots);
+        this.requests = new AtomicLongArray(slots);
+        this.retries = new AtomicLongArray(slots);
+    }
+
+    public void recordRequest() {
+        requests.incrementAndGet(slot(currentSecond()));
+    }
+
+    /**
+     * Reserves one extra attempt, or returns false when the budget is spent
+     */
+    public boolean tryAcquire() {
+        long now = currentSecond();
+        long windowRequests = 0;
+        long windowRetries = 0;
+        for (int i = 0; i < slots; i++) {
+            if (now - slotSecond.get(i) < slots) {
+                windowRequests += requests.get(i);
+                windowRetries += retries.get(i);
+            }
+        }
+        if (windowRetries >= floor + (long) (ratio * windowRequests)) {
+            return false;
+        }
+        retries.incrementAndGet(slot(now));
+        return true;
+    }
+
+    private int slot(long second) {
+        int index = (int) Math.floorMod(second, slots);
+        long current = slotSecond.get(index);
+        if (current != second && slotSecond.compareAndSet(index, current, second)) {
+            // First touch of this slot in a new second; a racing increment may land in the stale count
+            requests.set(index, 0);
+            retries.set(index, 0);
+        }
+        return index;
+    }
+
+    private static long currentSecond() {
+        return System.nanoTime() / 1_000_000_000L;
+    }
+}
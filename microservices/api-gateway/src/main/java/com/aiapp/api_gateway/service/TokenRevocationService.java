@@ -0,0 +1,193 @@
+package com.aiapp.api_gateway.service;
+
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Gateway-side view of the revocation list that auth-service keeps in Redis.
+ * Per-user "issued before" watermarks, written when a user logs out, are mirrored into an exact
+ * in-memory map fronted by a Bloom filter, kept current over Redis pub/sub and periodically
+ * resynchronised. {@link #isRevoked(Claims)} never leaves the JVM.
+ */
+@Service
+public class TokenRevocationService {
+
+    // Shared with auth-service's TokenRevocationPublisher
+    static final String REVOKED_USERS_KEY = "auth:revoked:users";
+    static final String REVOCATION_CHANNEL = "auth:revocations";
+
+    private static final char USER_KIND = 'u';
+
+    private static final Logger log = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final boolean enabled;
+    private final Duration resyncInterval;
+    private final Duration maxTokenLifetime;
+    private final long bloomExpectedEntries;
+    private final Counter revokedRejections;
+
+    /** username -> tokens issued before this instant are revoked, epoch millis */
+    private final Map<String, Long> userWatermarks = new ConcurrentHashMap<>();
+    private volatile BloomFilter bloomFilter;
+
+    private Disposable subscription;
+    private Disposable resync;
+
+    public TokenRevocationService(ReactiveStringRedisTemplate redisTemplate,
+                                  @Value("${app.revocation.enabled:true}") boolean enabled,
+                                  @Value("${app.revocation.resync-interval:60s}") Duration resyncInterval,
+                                  @Value("${app.revocation.max-token-lifetime:24h}") Duration maxTokenLifetime,
+                                  @Value("${app.revocation.bloom-expected-entries:100000}") long bloomExpectedEntries,
+                                  MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.enabled = enabled;
+        this.resyncInterval = resyncInterval;
+        this.maxTokenLifetime = maxTokenLifetime;
+        this.bloomExpectedEntries = bloomExpectedEntries;
+        this.bloomFilter = new BloomFilter(bloomExpectedEntries, 0.01);
+        this.revokedRejections = Counter.builder("jwt.revocation.rejected")
+                .description("Verified tokens rejected because they were revoked")
+                .register(meterRegistry);
+        Gauge.builder("jwt.revocation.entries", userWatermarks, Map::size)
+                .tag("kind", "user")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs once the gateway is up, so an unreachable Redis only delays revocation instead of failing startup
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    void start() {
+        if (!enabled) {
+            return;
+        }
+
+        // Subscribe first so nothing published during the initial load is lost. listenToChannel connects
+        // as soon as it is called; deferring it turns a failed connect into an error the retry handles.
+        subscription = Flux.defer(() -> redisTemplate.listenToChannel(REVOCATION_CHANNEL))
+                .doOnNext(message -> apply(message.getMessage()))
+                .doOnError(ex -> log.warn("Revocation subscription lost, reconnecting: {}", ex.getMessage()))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30)))
+                .subscribe();
+
+        resync = Flux.interval(Duration.ZERO, resyncInterval)
+                .onBackpressureDrop()
+                .concatMap(tick -> resynchronize())
+                .subscribe();
+    }
+
+    @PreDestroy
+    void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+        if (resync != null) {
+            resync.dispose();
+        }
+    }
+
+    /**
+     * In-memory check; the Bloom filter answers the common not-revoked case without touching the map
+     */
+    public boolean isRevoked(Claims claims) {
+        String subject = claims.getSubject();
+        if (subject != null && bloomFilter.mightContain(USER_KIND, subject)) {
+            Long watermark = userWatermarks.get(subject);
+            if (watermark != null) {
+                Date issuedAt = claims.getIssuedAt();
+                // iat has whole-second precision, so compare against the second of the logout; otherwise
+                // a token issued later in that same second (an immediate re-login) would count as revoked.
+                // Without iat we cannot prove the token postdates the logout.
+                if (issuedAt == null || issuedAt.getTime() < watermark / 1000 * 1000) {
+                    revokedRejections.increment();
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Messages are {@code user:<watermarkMillis>:<username>}
+     */
+    private void apply(String message) {
+        String[] parts = message.split(":", 3);
+        if (parts.length != 3) {
+            log.warn("Ignoring malformed revocation message");
+            return;
+        }
+        try {
+            long instant = Long.parseLong(parts[1]);
+            switch (parts[0]) {
+                case "user" -> revokeUser(parts[2], instant);
+                default -> log.warn("Ignoring revocation message of unknown kind {}", parts[0]);
+            }
+        } catch (NumberFormatException e) {
+            log.warn("Ignoring revocation message with invalid timestamp");
+        }
+    }
+
+    private void revokeUser(String username, long watermarkMillis) {
+        userWatermarks.merge(username, watermarkMillis, Math::max);
+        bloomFilter.put(USER_KIND, username);
+    }
+
+    /**
+     * Reloads the live watermarks from Redis, drops entries that can no longer match
+     * a valid token and rebuilds the Bloom filter so it does not silt up with expired keys
+     */
+    private Mono<Void> resynchronize() {
+        long oldestRelevantIssue = System.currentTimeMillis() - maxTokenLifetime.toMillis();
+
+        return loadSince(REVOKED_USERS_KEY, oldestRelevantIssue)
+                .doOnNext(loaded -> {
+                    loaded.forEach((username, watermark) -> userWatermarks.merge(username, watermark, Math::max));
+                    userWatermarks.values().removeIf(watermark -> watermark < oldestRelevantIssue);
+                    rebuildBloomFilter();
+                })
+                .onErrorResume(ex -> {
+                    log.warn("Revocation resync failed, keeping last known state: {}", ex.getMessage());
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private Mono<Map<String, Long>> loadSince(String key, long minScore) {
+        return redisTemplate.opsForZSet()
+                .rangeByScoreWithScores(key, Range.rightUnbounded(Range.Bound.inclusive((double) minScore)))
+                .filter(tuple -> tuple.getValue() != null && tuple.getScore() != null)
+                .collectMap(ZSetOperations.TypedTuple::getValue, tuple -> tuple.getScore().longValue());
+    }
+
+    private void rebuildBloomFilter() {
+        long expected = Math.max(bloomExpectedEntries, 2L * userWatermarks.size());
+        BloomFilter rebuilt = new BloomFilter(expected, 0.01);
+        userWatermarks.keySet().forEach(username -> rebuilt.put(USER_KIND, username));
+        bloomFilter = rebuilt;
+
+        // Entries that arrived over pub/sub while rebuilding
+        userWatermarks.keySet().forEach(username -> rebuilt.put(USER_KIND, username));
+    }
+}
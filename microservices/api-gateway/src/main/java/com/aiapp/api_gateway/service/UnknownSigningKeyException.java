@@ -0,0 +1,20 @@
+package com.aiapp.api_gateway.service;
+
+import io.jsonwebtoken.JwtException;
+
+/**
+ * Thrown while locating a verification key when the token's kid is not in the current JWKS
+ */
+public class UnknownSigningKeyException extends JwtException {
+
+    private final String keyId;
+
+    public UnknownSigningKeyException(String keyId) {
+        super("No verification key for kid " + keyId);
+        this.keyId = keyId;
+    }
+
+    public String getKeyId() {
+        return keyId;
+    }
+}
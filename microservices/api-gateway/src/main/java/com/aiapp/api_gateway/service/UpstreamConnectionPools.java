@@ -0,0 +1,220 @@
+package com.aiapp.api_gateway.service;
+
+import com.aiapp.api_gateway.config.UpstreamBalancingProperties;
+import com.aiapp.api_gateway.config.UpstreamPoolProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.netty.channel.ChannelOption;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.ReactiveDiscoveryClient;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.route.RouteLocator;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.Http11SslContextSpec;
+import reactor.netty.http.Http2SslContextSpec;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.Http2AllocationStrategy;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionPoolMetrics;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.netty.tcp.SslProvider;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * One Reactor Netty client and connection pool per route, built from the route's profile in
+ * {@code app.upstream-pools}. A slow backend can then only exhaust its own pool, and each pool
+ * reports its active, idle and pending-acquire counts as {@code gateway.upstream.pool.*} gauges.
+ */
+@Component
+public class UpstreamConnectionPools {
+
+    private static final Logger log = LoggerFactory.getLogger(UpstreamConnectionPools.class);
+
+    private final UpstreamPoolProperties properties;
+    private final UpstreamBalancingProperties balancingProperties;
+    private final MeterRegistry meterRegistry;
+    private final ObjectProvider<RouteLocator> routeLocator;
+    private final ObjectProvider<ReactiveDiscoveryClient> discoveryClient;
+    private final Map<String, Pool> pools = new ConcurrentHashMap<>();
+    private final Map<String, List<Meter>> poolMeters = new ConcurrentHashMap<>();
+
+    public UpstreamConnectionPools(UpstreamPoolProperties properties,
+                                   UpstreamBalancingProperties balancingProperties,
+                                   MeterRegistry meterRegistry,
+                                   ObjectProvider<RouteLocator> routeLocator,
+                                   ObjectProvider<ReactiveDiscoveryClient> discoveryClient) {
+        this.properties = properties;
+        this.balancingProperties = balancingProperties;
+        this.meterRegistry = meterRegistry;
+        this.routeLocator = routeLocator;
+        this.discoveryClient = discoveryClient;
+    }
+
+    /**
+     * The client for a route, or null when per-route pools are disabled
+     */
+    public HttpClient clientFor(String routeId) {
+        if (!properties.isEnabled()) {
+            return null;
+        }
+        return pools.computeIfAbsent(routeId, this::create).client;
+    }
+
+    /**
+     * Opens {@code warmupConnections} to every instance behind the routes that ask for it, so the
+     * first requests after a deploy skip the TCP and TLS handshakes
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        RouteLocator routes = routeLocator.getIfAvailable();
+        ReactiveDiscoveryClient discovery = discoveryClient.getIfAvailable();
+        if (!properties.isEnabled() || routes == null || discovery == null) {
+            return;
+        }
+        routes.getRoutes()
+                .filter(route -> "lb".equals(route.getUri().getScheme())
+                        && properties.profileFor(route.getId()).getWarmupConnections() > 0)
+                .flatMap(route -> discovery.getInstances(route.getUri().getHost())
+                        .flatMap(instance -> warmUp(route, instance)))
+                .reduce(0, Integer::sum)
+                .subscribe(opened -> log.info("Warmed up {} upstream connections", opened),
+                        ex -> log.warn("Upstream connection warm-up failed", ex));
+    }
+
+    private Mono<Integer> warmUp(Route route, ServiceInstance instance) {
+        HttpClient client = clientFor(route.getId());
+        int connections = properties.profileFor(route.getId()).getWarmupConnections();
+        String uri = instance.getUri().resolve(balancingProperties.getProbePath()).toString();
+        // Concurrent requests each need a connection of their own; all return to the pool idle
+        return Flux.range(0, connections)
+                .flatMap(i -> client.get()
+                        .uri(uri)
+                        .responseSingle((response, body) -> body.then(Mono.just(1)))
+                        .timeout(balancingProperties.getProbeTimeout())
+                        .onErrorResume(ex -> Mono.empty()), connections)
+                .reduce(0, Integer::sum);
+    }
+
+    @PreDestroy
+    void close() {
+        pools.values().forEach(pool -> pool.provider.dispose());
+    }
+
+    private Pool create(String routeId) {
+        UpstreamPoolProperties.Profile profile = properties.profileFor(routeId);
+        ConnectionProvider.Builder builder = ConnectionProvider.builder("gateway-" + routeId)
+                .pendingAcquireMaxCount(profile.getPendingAcquireMaxCount())
+                .pendingAcquireTimeout(profile.getPendingAcquireTimeout())
+                .maxIdleTime(profile.getMaxIdleTime())
+                .maxLifeTime(profile.getMaxLifeTime())
+                .evictInBackground(profile.getEvictionInterval())
+                // Reuse the most recent connection so surplus ones idle out after a burst
+                .lifo()
+                .metrics(true, () -> new PoolMeterRegistrar(routeId));
+        if (profile.getProtocol() == UpstreamPoolProperties.Protocol.HTTP1) {
+            builder.maxConnections(profile.getMaxConnections());
+        } else {
+            builder.allocationStrategy(Http2AllocationStrategy.builder()
+                    .maxConnections(profile.getMaxConnections())
+                    .minConnections(Math.min(profile.getWarmupConnections(), profile.getMaxConnections()))
+                    .maxConcurrentStreams(profile.getMaxConcurrentStreams())
+                    .build());
+        }
+        ConnectionProvider provider = builder.build();
+
+        HttpClient client = HttpClient.create(provider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) profile.getConnectTimeout().toMillis())
+                .keepAlive(profile.isKeepAlive());
+        client = switch (profile.getProtocol()) {
+            case HTTP1 -> client.protocol(HttpProtocol.HTTP11)
+                    .secure(ssl -> ssl.sslContext(tls(Http11SslContextSpec.forClient(), profile)));
+            case H2 -> client.protocol(HttpProtocol.H2, HttpProtocol.HTTP11)
+                    .secure(ssl -> ssl.sslContext(tls(Http2SslContextSpec.forClient(), profile)));
+            case H2C -> client.protocol(HttpProtocol.H2C);
+        };
+        log.info("Upstream pool for route {}: protocol {}, max {} connections", routeId, profile.getProtocol(),
+                profile.getMaxConnections());
+        return new Pool(provider, client);
+    }
+
+    /**
+     * One TLS context per pool, so sessions cached by earlier handshakes can be resumed. Only used for
+     * https upstreams; plain http URIs are not affected.
+     */
+    private static <S extends SslProvider.ProtocolSslContextSpec> S tls(S spec, UpstreamPoolProperties.Profile profile) {
+        spec.configure(builder -> builder
+                .sessionCacheSize(profile.getTlsSessionCacheSize())
+                .sessionTimeout(profile.getTlsSessionTimeout().toSeconds()));
+        return spec;
+    }
+
+    private record Pool(ConnectionProvider provider, HttpClient client) {
+    }
+
+    /**
+     * Registers pool gauges in the application registry, one set per backend address the pool connects to
+     */
+    private final class PoolMeterRegistrar implements ConnectionProvider.MeterRegistrar {
+
+        private final String routeId;
+
+        PoolMeterRegistrar(String routeId) {
+            this.routeId = routeId;
+        }
+
+        @Override
+        public void registerMetrics(String poolName, String id, SocketAddress remoteAddress, ConnectionPoolMetrics metrics) {
+            Tags tags = Tags.of("route", routeId, "remote", address(remoteAddress));
+            poolMeters.put(id + remoteAddress, List.of(
+                    gauge("gateway.upstream.pool.active", "Connections currently lent to requests",
+                            metrics, ConnectionPoolMetrics::acquiredSize, tags),
+                    gauge("gateway.upstream.pool.idle", "Open connections waiting in the pool",
+                            metrics, ConnectionPoolMetrics::idleSize, tags),
+                    gauge("gateway.upstream.pool.pending", "Requests waiting to acquire a connection",
+                            metrics, ConnectionPoolMetrics::pendingAcquireSize, tags),
+                    gauge("gateway.upstream.pool.max", "Maximum connections the pool may open",
+                            metrics, ConnectionPoolMetrics::maxAllocatedSize, tags)));
+        }
+
+        @Override
+        public void deRegisterMetrics(String poolName, String id, SocketAddress remoteAddress) {
+            List<Meter> meters = poolMeters.remove(id + remoteAddress);
+            if (meters != null) {
+                meters.forEach(meterRegistry::remove);
+            }
+        }
+
+        private Meter gauge(String name, String description, ConnectionPoolMetrics metrics,
+                            ToDoubleFunction<ConnectionPoolMetrics> value, Tags tags) {
+            // The pool keeps its metrics object only as long as the backend address is in use; hold it until deregistered
+            return Gauge.builder(name, metrics, value)
+                    .description(description)
+                    .tags(tags)
+                    .strongReference(true)
+                    .register(meterRegistry);
+        }
+
+        private static String address(SocketAddress remoteAddress) {
+            if (remoteAddress instanceof InetSocketAddress inet) {
+                return inet.getHostString() + ':' + inet.getPort();
+            }
+            return String.valueOf(remoteAddress);
+        }
+    }
+}
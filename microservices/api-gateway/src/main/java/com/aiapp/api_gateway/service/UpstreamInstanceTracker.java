@@ -0,0 +1,256 @@
+package com.aiapp.api_gateway.service;
+
+import com.aiapp.api_gateway.config.UpstreamBalancingProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.ResponseData;
+import org.springframework.cloud.client.loadbalancer.TimedRequestContext;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Per-instance load and health for {@code lb://} routes, fed by the gateway's load-balancer lifecycle.
+ * Tracks a peak-sensitive latency average for {@link PeakEwmaLoadBalancer}, ejects instances after
+ * consecutive failures and re-admits them once their health endpoint answers. In-flight counts come from
+ * {@link com.aiapp.api_gateway.filter.UpstreamInFlightFilter}, which also sees cancelled exchanges.
+ */
+@Component
+public class UpstreamInstanceTracker implements LoadBalancerLifecycle<RequestDataContext, ResponseData, ServiceInstance> {
+
+    private static final Logger log = LoggerFactory.getLogger(UpstreamInstanceTracker.class);
+
+    private final WebClient webClient;
+    private final MeterRegistry meterRegistry;
+    private final UpstreamBalancingProperties properties;
+    private final long initialLatencyNanos;
+    private final long latencyDecayNanos;
+    private final Map<String, InstanceStats> instances = new ConcurrentHashMap<>();
+
+    private Disposable prober;
+
+    public UpstreamInstanceTracker(WebClient.Builder webClientBuilder,
+                                   UpstreamBalancingProperties properties,
+                                   MeterRegistry meterRegistry) {
+        this.webClient = webClientBuilder.build();
+        this.meterRegistry = meterRegistry;
+        this.properties = properties;
+        this.initialLatencyNanos = properties.getInitialLatency().toNanos();
+        this.latencyDecayNanos = properties.getLatencyDecay().toNanos();
+    }
+
+    @PostConstruct
+    void start() {
+        prober = Flux.interval(properties.getProbeInterval(), properties.getProbeInterval())
+                .onBackpressureDrop()
+                .concatMap(tick -> probeEjected())
+                .subscribe();
+    }
+
+    @PreDestroy
+    void stop() {
+        if (prober != null) {
+            prober.dispose();
+        }
+    }
+
+    public InstanceStats stats(ServiceInstance instance) {
+        return instances.computeIfAbsent(key(instance), key -> register(instance));
+    }
+
+    @Override
+    public boolean supports(Class requestContextClass, Class responseClass, Class serverTypeClass) {
+        return RequestDataContext.class.isAssignableFrom(requestContextClass)
+                && ResponseData.class.isAssignableFrom(responseClass)
+                && ServiceInstance.class.isAssignableFrom(serverTypeClass);
+    }
+
+    @Override
+    public void onStart(Request<RequestDataContext> request) {
+    }
+
+    @Override
+    public void onStartRequest(Request<RequestDataContext> request, Response<ServiceInstance> lbResponse) {
+        if (!lbResponse.hasServer()) {
+            return;
+        }
+        if (request.getContext() instanceof TimedRequestContext timed) {
+            timed.setRequestStartTime(System.nanoTime());
+        }
+    }
+
+    @Override
+    public void onComplete(CompletionContext<ResponseData, ServiceInstance, RequestDataContext> completionContext) {
+        Response<ServiceInstance> lbResponse = completionContext.getLoadBalancerResponse();
+        if (completionContext.status() == CompletionContext.Status.DISCARD || lbResponse == null || !lbResponse.hasServer()) {
+            return;
+        }
+
+        InstanceStats stats = stats(lbResponse.getServer());
+        long now = System.nanoTime();
+
+        if (completionContext.status() == CompletionContext.Status.FAILED || isUpstreamFailure(completionContext.getClientResponse())) {
+            // Failures feed ejection only: a fast connection refusal must not look like a fast instance
+            if (stats.consecutiveFailures.incrementAndGet() >= properties.getFailureThreshold() && stats.eject()) {
+                Counter.builder("gateway.upstream.ejections")
+                        .tag("service", stats.instance.getServiceId())
+                        .register(meterRegistry)
+                        .increment();
+                log.warn("Ejecting {} instance {} after {} consecutive failures",
+                        stats.instance.getServiceId(), stats.instance.getUri(), stats.consecutiveFailures.get());
+            }
+            return;
+        }
+
+        stats.consecutiveFailures.set(0);
+        Object context = completionContext.getLoadBalancerRequest() != null
+                ? completionContext.getLoadBalancerRequest().getContext() : null;
+        if (context instanceof TimedRequestContext timed && timed.getRequestStartTime() > 0) {
+            stats.observeLatency(now - timed.getRequestStartTime(), now, latencyDecayNanos);
+        }
+    }
+
+    /**
+     * Calls the health endpoint of every ejected instance and re-admits those that answer 2xx
+     */
+    Mono<Void> probeEjected() {
+        return Flux.fromIterable(instances.values())
+                .filter(stats -> stats.ejected)
+                .flatMap(stats -> webClient.get()
+                        .uri(stats.instance.getUri().resolve(properties.getProbePath()))
+                        .retrieve()
+                        .toBodilessEntity()
+                        .timeout(properties.getProbeTimeout())
+                        .doOnNext(response -> {
+                            stats.readmit();
+                            log.info("Re-admitting {} instance {} after a successful health probe",
+                                    stats.instance.getServiceId(), stats.instance.getUri());
+                        })
+                        .onErrorResume(ex -> Mono.empty()))
+                .then();
+    }
+
+    private InstanceStats register(ServiceInstance instance) {
+        InstanceStats stats = new InstanceStats(instance, initialLatencyNanos);
+        String address = instance.getUri().toString();
+        Gauge.builder("gateway.upstream.in.flight", stats, s -> s.inFlight.get())
+                .tag("service", instance.getServiceId())
+                .tag("instance", address)
+                .register(meterRegistry);
+        Gauge.builder("gateway.upstream.latency.ewma", stats, s -> s.latencyNanos() / 1_000_000.0)
+                .description("Peak-sensitive moving average of request latency")
+                .baseUnit("milliseconds")
+                .tag("service", instance.getServiceId())
+                .tag("instance", address)
+                .register(meterRegistry);
+        Gauge.builder("gateway.upstream.ejected", stats, s -> s.ejected ? 1 : 0)
+                .tag("service", instance.getServiceId())
+                .tag("instance", address)
+                .register(meterRegistry);
+        return stats;
+    }
+
+    private static boolean isUpstreamFailure(ResponseData response) {
+        if (response == null) {
+            return false;
+        }
+        HttpStatusCode status = response.getHttpStatus();
+        return status != null && (status.value() == 502 || status.value() == 503 || status.value() == 504);
+    }
+
+    private static String key(ServiceInstance instance) {
+        return instance.getServiceId() + '@' + instance.getUri();
+    }
+
+    public static final class InstanceStats {
+
+        private final ServiceInstance instance;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger consecutiveFailures = new AtomicInteger();
+        private volatile boolean ejected;
+        private long latencyNanos;
+        private long lastSampleNanos;
+
+        InstanceStats(ServiceInstance instance, long initialLatencyNanos) {
+            this.instance = instance;
+            this.latencyNanos = initialLatencyNanos;
+            this.lastSampleNanos = System.nanoTime();
+        }
+
+        public ServiceInstance instance() {
+            return instance;
+        }
+
+        public int inFlight() {
+            return inFlight.get();
+        }
+
+        public void requestStarted() {
+            inFlight.incrementAndGet();
+        }
+
+        public void requestFinished() {
+            inFlight.decrementAndGet();
+        }
+
+        public boolean isEjected() {
+            return ejected;
+        }
+
+        /**
+         * Expected wait for one more request: latency scaled by the queue already in front of it
+         */
+        public double cost() {
+            return (double) latencyNanos() * (inFlight.get() + 1);
+        }
+
+        synchronized long latencyNanos() {
+            return latencyNanos;
+        }
+
+        /**
+         * Jumps straight to samples above the average so a stalling instance is avoided at once,
+         * and decays towards lower samples by elapsed time rather than by request count
+         */
+        synchronized void observeLatency(long sampleNanos, long now, long decayNanos) {
+            if (sampleNanos > latencyNanos) {
+                latencyNanos = sampleNanos;
+            } else {
+                double weight = Math.exp(-(double) Math.max(0, now - lastSampleNanos) / decayNanos);
+                latencyNanos = (long) (latencyNanos * weight + sampleNanos * (1 - weight));
+            }
+            lastSampleNanos = now;
+        }
+
+        synchronized boolean eject() {
+            if (ejected) {
+                return false;
+            }
+            ejected = true;
+            return true;
+        }
+
+        void readmit() {
+            consecutiveFailures.set(0);
+            ejected = false;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+-- Token bucket that hands out up to ARGV[3] tokens in one call, so gateway pods can
+-- lease a batch and serve most requests locally.
+-- KEYS[1] remaining tokens, KEYS[2] last refill time (ms)
+-- ARGV[1] replenish rate (tokens/s), ARGV[2] burst capacity, ARGV[3] tokens wanted
+-- Returns { granted, remaining }
+local rate = tonumber(ARGV[1])
+local capacity = tonumber(ARGV[2])
+local wanted = tonumber(ARGV[3])
+
+-- Redis time, so pods with skewed clocks agree on refill
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+
+-- A bucket with no refill never fills up again, so keep it until it has been idle for an hour
+local ttl = 3600
+if rate > 0 then
+  ttl = math.floor(capacity / rate * 2) + 1
+end
+
+local tokens = tonumber(redis.call('get', KEYS[1]))
+if tokens == nil then
+  tokens = capacity
+end
+local last_refill = tonumber(redis.call('get', KEYS[2]))
+if last_refill == nil then
+  last_refill = now
+end
+
+local elapsed = math.max(0, now - last_refill) / 1000
+local available = math.min(capacity, tokens + elapsed * rate)
+local granted = math.min(wanted, math.floor(available))
+local remaining = available - granted
+
+redis.call('setex', KEYS[1], ttl, remaining)
+redis.call('setex', KEYS[2], ttl, now)
+
+return { granted, math.floor(remaining) }
@@ -3,7 +3,10 @@ package com.aiapp.api_gateway;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = {
+		"app.jwt.secret=api-gateway-test-jwt-secret-0123456789abcdef",
+		"app.internal-identity.secret=api-gateway-test-identity-secret-0123456789"
+})
 class ApiGatewayApplicationTests {
 
 	@Test
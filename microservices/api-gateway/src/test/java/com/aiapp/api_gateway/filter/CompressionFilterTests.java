@@ -0,0 +1,218 @@
+package com.aiapp.api_gateway.filter;
+
+import com.aiapp.api_gateway.config.CompressionProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelInitializer;
+import io.netty.handler.codec.compression.ZlibCodecFactory;
+import io.netty.handler.codec.compression.ZlibWrapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Flux;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompressionFilterTests {
+
+	/** Compresses well and spans several chunks */
+	private static final String BODY = "{\"title\":\"An article\",\"text\":\"" + "lorem ipsum dolor sit amet ".repeat(400) + "\"}";
+
+	private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private final CompressionFilter filter = new CompressionFilter(properties(), meterRegistry);
+
+	private final Route route = Route.async()
+			.id("stub-route")
+			.uri("lb://stub-service")
+			.predicate(exchange -> true)
+			.build();
+
+	@Test
+	void gzipBodyDecodesToTheUpstreamBody() throws IOException {
+		MockServerWebExchange exchange = gzipRequest();
+
+		filter.filter(exchange, respond(HttpStatus.OK, BODY, headers -> {
+			headers.setContentType(MediaType.APPLICATION_JSON);
+			headers.setContentLength(BODY.length());
+		})).block(Duration.ofSeconds(5));
+
+		HttpHeaders headers = exchange.getResponse().getHeaders();
+		assertThat(headers.getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+		// The upstream length no longer describes the body
+		assertThat(headers.containsKey(HttpHeaders.CONTENT_LENGTH)).isFalse();
+		byte[] compressed = body(exchange.getResponse());
+		assertThat(compressed.length).isLessThan(BODY.length() / 10);
+		try (InputStream gzip = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+			assertThat(new String(gzip.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(BODY);
+		}
+		assertThat(meterRegistry.get("gateway.compression.bytes").tag("encoding", "gzip").tag("stage", "in")
+				.counter().count()).isEqualTo(BODY.length());
+	}
+
+	@Test
+	void strongEtagIsWeakenedAndVaryNamesAcceptEncoding() {
+		MockServerWebExchange exchange = gzipRequest();
+
+		filter.filter(exchange, respond(HttpStatus.OK, BODY, headers -> {
+			headers.setContentType(MediaType.APPLICATION_JSON);
+			headers.setETag("\"v1\"");
+			headers.setVary(List.of(HttpHeaders.ACCEPT_LANGUAGE));
+		})).block(Duration.ofSeconds(5));
+
+		HttpHeaders headers = exchange.getResponse().getHeaders();
+		assertThat(headers.getETag()).isEqualTo("W/\"v1\"");
+		assertThat(headers.getVary()).containsExactly(HttpHeaders.ACCEPT_LANGUAGE, HttpHeaders.ACCEPT_ENCODING);
+	}
+
+	@Test
+	void bodiesThatShouldNotBeCompressedPassThrough() {
+		assertSkipped("encoded", HttpStatus.OK, headers -> {
+			headers.setContentType(MediaType.APPLICATION_JSON);
+			headers.set(HttpHeaders.CONTENT_ENCODING, "br");
+		});
+		assertSkipped("small", HttpStatus.OK, headers -> {
+			headers.setContentType(MediaType.APPLICATION_JSON);
+			headers.setContentLength(100);
+		});
+		assertSkipped("type", HttpStatus.OK, headers -> headers.setContentType(MediaType.IMAGE_PNG));
+		assertSkipped("no-transform", HttpStatus.OK, headers -> {
+			headers.setContentType(MediaType.APPLICATION_JSON);
+			headers.setCacheControl("max-age=60, no-transform");
+		});
+		assertSkipped("status", HttpStatus.NO_CONTENT, headers -> headers.setContentType(MediaType.APPLICATION_JSON));
+		assertSkipped("status", HttpStatus.NOT_MODIFIED, headers -> headers.setContentType(MediaType.APPLICATION_JSON));
+
+		assertThat(meterRegistry.get("gateway.compression.skipped").tag("reason", "status").counter().count())
+				.isEqualTo(2);
+	}
+
+	@Test
+	void cancellingMidBodyReleasesEveryBuffer() {
+		// Counts live bytes, so anything neither written nor released shows up
+		UnpooledByteBufAllocator allocator = new UnpooledByteBufAllocator(false);
+		NettyDataBufferFactory bufferFactory = new NettyDataBufferFactory(allocator);
+		MockServerHttpResponse client = new MockServerHttpResponse(bufferFactory);
+		List<DataBuffer> sent = new ArrayList<>();
+		// The client takes the first compressed chunk and goes away
+		client.setWriteHandler(body -> body.take(1).doOnNext(sent::add).then());
+		client.setStatusCode(HttpStatus.OK);
+		client.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+		// The encoder allocates its output from the tracked allocator too
+		Supplier<ChannelHandler> encoder = () -> new ChannelInitializer<>() {
+			@Override
+			protected void initChannel(Channel channel) {
+				channel.config().setAllocator(allocator);
+				channel.pipeline().addLast(ZlibCodecFactory.newZlibEncoder(ZlibWrapper.GZIP, 1));
+			}
+		};
+		CompressingResponseDecorator decorated = new CompressingResponseDecorator(client, "gzip", encoder, 0,
+				type -> true, new CompressingResponseDecorator.Listener() {
+					@Override
+					public void onCompressed(long bytesIn, long bytesOut, long cpuNanos) {
+					}
+
+					@Override
+					public void onSkipped(String reason) {
+					}
+				});
+
+		// Incompressible chunks, so the encoder has output before the body ends
+		List<DataBuffer> chunks = new ArrayList<>();
+		Random random = new Random(42);
+		for (int i = 0; i < 20; i++) {
+			byte[] bytes = new byte[16 * 1024];
+			random.nextBytes(bytes);
+			chunks.add(bufferFactory.wrap(allocator.heapBuffer(bytes.length).writeBytes(bytes)));
+		}
+		decorated.writeWith(Flux.fromIterable(chunks)).block(Duration.ofSeconds(5));
+
+		assertThat(sent).hasSize(1);
+		// What the client received is the client's to release
+		sent.forEach(DataBufferUtils::release);
+		assertThat(allocator.metric().usedHeapMemory() + allocator.metric().usedDirectMemory()).isZero();
+	}
+
+	private void assertSkipped(String reason, HttpStatus status, Consumer<HttpHeaders> upstreamHeaders) {
+		MockServerWebExchange exchange = gzipRequest();
+		String body = status == HttpStatus.OK ? BODY : "";
+
+		filter.filter(exchange, respond(status, body, upstreamHeaders)).block(Duration.ofSeconds(5));
+
+		assertThat(exchange.getResponse().getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isNotEqualTo("gzip");
+		assertThat(exchange.getResponse().getHeaders().getVary()).doesNotContain(HttpHeaders.ACCEPT_ENCODING);
+		assertThat(new String(body(exchange.getResponse()), StandardCharsets.UTF_8)).isEqualTo(body);
+		assertThat(meterRegistry.get("gateway.compression.skipped").tag("reason", reason).counter().count())
+				.isPositive();
+	}
+
+	/**
+	 * Backend writing the body in 1 KiB chunks, as NettyWriteResponseFilter passes them on
+	 */
+	private static GatewayFilterChain respond(HttpStatus status, String body, Consumer<HttpHeaders> headers) {
+		return exchange -> {
+			exchange.getResponse().setStatusCode(status);
+			headers.accept(exchange.getResponse().getHeaders());
+			byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+			List<DataBuffer> chunks = new ArrayList<>();
+			for (int offset = 0; offset < bytes.length; offset += 1024) {
+				int length = Math.min(1024, bytes.length - offset);
+				chunks.add(exchange.getResponse().bufferFactory().wrap(
+						Arrays.copyOfRange(bytes, offset, offset + length)));
+			}
+			return exchange.getResponse().writeWith(Flux.fromIterable(chunks));
+		};
+	}
+
+	private static byte[] body(MockServerHttpResponse response) {
+		return DataBufferUtils.join(response.getBody())
+				.map(buffer -> {
+					byte[] bytes = new byte[buffer.readableByteCount()];
+					buffer.read(bytes);
+					DataBufferUtils.release(buffer);
+					return bytes;
+				})
+				.defaultIfEmpty(new byte[0])
+				.block(Duration.ofSeconds(5));
+	}
+
+	private MockServerWebExchange gzipRequest() {
+		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/content/1")
+				.header(HttpHeaders.ACCEPT_ENCODING, "gzip"));
+		exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, route);
+		return exchange;
+	}
+
+	private static CompressionProperties properties() {
+		CompressionProperties properties = new CompressionProperties();
+		properties.setRoutes(Map.of("stub-route", new CompressionProperties.RouteCompression()));
+		return properties;
+	}
+}
@@ -0,0 +1,79 @@
+package com.aiapp.api_gateway.filter;
+
+import com.aiapp.internal_identity.InternalIdentity;
+import com.aiapp.internal_identity.InternalIdentityCodec;
+import com.aiapp.internal_identity.InternalIdentityProperties;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IdentityPropagationFilterTests {
+
+	private static final String FORGED = "v1.k1.4102444800.YWRh.QURNSU4.forged";
+
+	private final AtomicReference<HttpHeaders> forwarded = new AtomicReference<>();
+
+	private final GatewayFilterChain upstream = exchange -> {
+		forwarded.set(exchange.getRequest().getHeaders());
+		return Mono.empty();
+	};
+
+	@Test
+	void clientSuppliedHeaderIsStrippedFromAnonymousRequests() {
+		new IdentityPropagationFilter(properties(true)).filter(exchange(false), upstream).block();
+
+		assertThat(forwarded.get().containsKey(InternalIdentity.HEADER)).isFalse();
+	}
+
+	@Test
+	void clientSuppliedHeaderIsReplacedByTheVerifiedCaller() {
+		InternalIdentityProperties properties = properties(true);
+
+		new IdentityPropagationFilter(properties).filter(exchange(true), upstream).block();
+
+		List<String> headers = forwarded.get().get(InternalIdentity.HEADER);
+		assertThat(headers).hasSize(1);
+		InternalIdentity identity = InternalIdentityCodec.from(properties).decode(headers.get(0), Instant.now());
+		assertThat(identity.subject()).isEqualTo("ada@lexaai.com");
+		assertThat(identity.roles()).containsExactly("ROLE_USER");
+	}
+
+	@Test
+	void clientSuppliedHeaderIsStrippedWhenPropagationIsDisabled() {
+		new IdentityPropagationFilter(properties(false)).filter(exchange(true), upstream).block();
+
+		assertThat(forwarded.get().containsKey(InternalIdentity.HEADER)).isFalse();
+	}
+
+	private static InternalIdentityProperties properties(boolean enabled) {
+		InternalIdentityProperties properties = new InternalIdentityProperties();
+		properties.setEnabled(enabled);
+		properties.setSecret("propagation-test-secret-that-is-long-enough");
+		return properties;
+	}
+
+	private static MockServerWebExchange exchange(boolean authenticated) {
+		// Every request carries a header the client made up
+		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/content/1")
+				.header(InternalIdentity.HEADER, FORGED));
+		if (authenticated) {
+			exchange.getAttributes().put(JwtAuthenticationFilter.CLAIMS_ATTRIBUTE, Jwts.claims()
+					.subject("ada@lexaai.com")
+					.add("roles", List.of("ROLE_USER"))
+					.expiration(new Date(System.currentTimeMillis() + 60_000))
+					.build());
+		}
+		return exchange;
+	}
+}
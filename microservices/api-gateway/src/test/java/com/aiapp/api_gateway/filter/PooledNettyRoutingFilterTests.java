@@ -0,0 +1,76 @@
+package com.aiapp.api_gateway.filter;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyRoutingFilter;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Proxies through the whole gateway to a local backend, so a routing setup that drops the body fails here
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		// The Spring Cloud train is pinned behind the Boot version; the check is not what this test is about
+		"spring.cloud.compatibility-verifier.enabled=false",
+		"app.jwt.secret=pooled-routing-test-jwt-secret-0123456789abcdef",
+		"app.internal-identity.secret=pooled-routing-test-identity-secret",
+		"app.rate-limit.enabled=false"
+})
+class PooledNettyRoutingFilterTests {
+
+	private static final String BODY = "{\"status\":\"UP\",\"components\":{\"db\":{\"status\":\"UP\"}}}";
+
+	private static final DisposableServer backend = HttpServer.create()
+			.host("127.0.0.1")
+			.port(0)
+			.route(routes -> routes.get("/api/auth/actuator/health", (request, response) -> response
+					.header("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+					.sendString(Mono.just(BODY))))
+			.bindNow();
+
+	@Autowired
+	private WebTestClient webTestClient;
+
+	@Autowired
+	private ApplicationContext context;
+
+	@DynamicPropertySource
+	static void backendUrl(DynamicPropertyRegistry registry) {
+		registry.add("app.services.auth-service.url", () -> "http://127.0.0.1:" + backend.port());
+	}
+
+	@AfterAll
+	static void stopBackend() {
+		backend.disposeNow();
+	}
+
+	@Test
+	void routesThroughThePooledFilterOnly() {
+		assertThat(context.getBeansOfType(NettyRoutingFilter.class).values())
+				.singleElement()
+				.isInstanceOf(PooledNettyRoutingFilter.class);
+		assertThat(context.getBeansOfType(GlobalFilter.class).values())
+				.anyMatch(filter -> filter.getClass().getSimpleName().equals("NettyWriteResponseFilter"));
+	}
+
+	@Test
+	void proxiesTheUpstreamBody() {
+		webTestClient.get()
+				.uri("/api/auth/actuator/health")
+				.exchange()
+				.expectStatus().isOk()
+				.expectHeader().contentType(MediaType.APPLICATION_JSON)
+				.expectBody(String.class).isEqualTo(BODY);
+	}
+}
@@ -0,0 +1,168 @@
+package com.aiapp.api_gateway.filter;
+
+import com.aiapp.api_gateway.config.CoalescingProperties;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RequestCoalescingFilterTests {
+
+	private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private final AtomicInteger upstreamCalls = new AtomicInteger();
+
+	/** Holds the first upstream call until the test has its followers waiting */
+	private final Sinks.Empty<Void> leaderGate = Sinks.empty();
+
+	private final Route route = Route.async()
+			.id("stub-route")
+			.uri("lb://stub-service")
+			.predicate(exchange -> true)
+			.build();
+
+	@Test
+	void concurrentIdenticalRequestsShareOneUpstreamCall() {
+		RequestCoalescingFilter filter = new RequestCoalescingFilter(properties(Duration.ofSeconds(5)), meterRegistry);
+		GatewayFilterChain upstream = upstream(HttpStatus.OK, headers -> { });
+
+		MockServerWebExchange leader = anonymous();
+		Mono<Void> leading = filter.filter(leader, upstream);
+		MockServerWebExchange follower = anonymous();
+		Mono<Void> following = filter.filter(follower, upstream);
+		leaderGate.tryEmitEmpty();
+		Mono.when(leading, following).block(Duration.ofSeconds(5));
+
+		assertThat(upstreamCalls).hasValue(1);
+		assertThat(follower.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(follower.getResponse().getBodyAsString().block()).isEqualTo("response-1");
+		assertThat(counter("collapsed")).isEqualTo(1);
+	}
+
+	@Test
+	void followerGoesUpstreamAfterMaxWait() {
+		RequestCoalescingFilter filter = new RequestCoalescingFilter(properties(Duration.ofMillis(100)), meterRegistry);
+		GatewayFilterChain upstream = upstream(HttpStatus.OK, headers -> { });
+
+		Disposable leading = filter.filter(anonymous(), upstream).subscribe();
+		try {
+			MockServerWebExchange follower = anonymous();
+			filter.filter(follower, upstream).block(Duration.ofSeconds(5));
+
+			assertThat(upstreamCalls).hasValue(2);
+			assertThat(follower.getResponse().getBodyAsString().block()).isEqualTo("response-2");
+			assertThat(counter("fallback")).isEqualTo(1);
+		} finally {
+			leading.dispose();
+		}
+	}
+
+	@Test
+	void serverErrorIsNotShared() {
+		assertFollowerGoesUpstream(upstream(HttpStatus.SERVICE_UNAVAILABLE, headers -> { }));
+	}
+
+	@Test
+	void responseSettingACookieIsNotShared() {
+		assertFollowerGoesUpstream(upstream(HttpStatus.OK, headers -> headers.add(HttpHeaders.SET_COOKIE, "session=abc")));
+	}
+
+	@Test
+	void requestsOfDifferentUsersAreNotShared() {
+		RequestCoalescingFilter filter = new RequestCoalescingFilter(properties(Duration.ofSeconds(5)), meterRegistry);
+		GatewayFilterChain upstream = upstream(HttpStatus.OK, headers -> { });
+
+		Mono<Void> ada = filter.filter(authenticated("ada"), upstream);
+		MockServerWebExchange grace = authenticated("grace");
+		Mono<Void> graces = filter.filter(grace, upstream);
+		MockServerWebExchange adaAgain = authenticated("ada");
+		Mono<Void> adasAgain = filter.filter(adaAgain, upstream);
+		leaderGate.tryEmitEmpty();
+		Mono.when(ada, graces, adasAgain).block(Duration.ofSeconds(5));
+
+		assertThat(upstreamCalls).hasValue(2);
+		assertThat(grace.getResponse().getBodyAsString().block()).isEqualTo("response-2");
+		assertThat(adaAgain.getResponse().getBodyAsString().block()).isEqualTo("response-1");
+	}
+
+	private void assertFollowerGoesUpstream(GatewayFilterChain upstream) {
+		RequestCoalescingFilter filter = new RequestCoalescingFilter(properties(Duration.ofSeconds(5)), meterRegistry);
+
+		Mono<Void> leading = filter.filter(anonymous(), upstream);
+		MockServerWebExchange follower = anonymous();
+		Mono<Void> following = filter.filter(follower, upstream);
+		leaderGate.tryEmitEmpty();
+		Mono.when(leading, following).block(Duration.ofSeconds(5));
+
+		assertThat(upstreamCalls).hasValue(2);
+		assertThat(follower.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(follower.getResponse().getBodyAsString().block()).isEqualTo("response-2");
+		assertThat(counter("collapsed")).isZero();
+		assertThat(counter("fallback")).isEqualTo(1);
+	}
+
+	/**
+	 * Backend whose first answer, with the given status and headers, waits for the gate; later calls answer
+	 * 200 at once. Bodies are numbered by call.
+	 */
+	private GatewayFilterChain upstream(HttpStatus leaderStatus, Consumer<HttpHeaders> leaderHeaders) {
+		return exchange -> {
+			int call = upstreamCalls.incrementAndGet();
+			Mono<Void> write = Mono.defer(() -> {
+				exchange.getResponse().setStatusCode(call == 1 ? leaderStatus : HttpStatus.OK);
+				if (call == 1) {
+					leaderHeaders.accept(exchange.getResponse().getHeaders());
+				}
+				byte[] body = ("response-" + call).getBytes(StandardCharsets.UTF_8);
+				return exchange.getResponse().writeWith(Mono.just(exchange.getResponse().bufferFactory().wrap(body)));
+			});
+			return call == 1 ? leaderGate.asMono().then(write) : write;
+		};
+	}
+
+	private double counter(String result) {
+		return meterRegistry.get("gateway.coalescing.requests").tag("result", result).counter().count();
+	}
+
+	private MockServerWebExchange anonymous() {
+		return exchange(MockServerHttpRequest.get("/api/content/1"));
+	}
+
+	private MockServerWebExchange authenticated(String subject) {
+		MockServerWebExchange exchange = exchange(MockServerHttpRequest.get("/api/content/inbox")
+				.header(HttpHeaders.AUTHORIZATION, "Bearer token-of-" + subject));
+		exchange.getAttributes().put(JwtAuthenticationFilter.CLAIMS_ATTRIBUTE, Jwts.claims().subject(subject).build());
+		return exchange;
+	}
+
+	private MockServerWebExchange exchange(MockServerHttpRequest.BaseBuilder<?> request) {
+		MockServerWebExchange exchange = MockServerWebExchange.from(request);
+		exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, route);
+		return exchange;
+	}
+
+	private static CoalescingProperties properties(Duration maxWait) {
+		CoalescingProperties properties = new CoalescingProperties();
+		properties.setMaxWait(maxWait);
+		properties.setRoutes(Map.of("stub-route", new CoalescingProperties.RouteCoalescing()));
+		return properties;
+	}
+}
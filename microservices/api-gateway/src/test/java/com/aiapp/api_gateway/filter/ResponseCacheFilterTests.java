@@ -0,0 +1,267 @@
+package com.aiapp.api_gateway.filter;
+
+import com.aiapp.api_gateway.config.ResponseCacheProperties;
+import com.aiapp.api_gateway.service.CachedResponse;
+import com.aiapp.api_gateway.service.ResponseCacheStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+class ResponseCacheFilterTests {
+
+	private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private final ResponseCacheProperties properties = properties();
+
+	private final ResponseCacheStore store = spy(new ResponseCacheStore(null, new ObjectMapper(), properties, meterRegistry));
+
+	private final ResponseCacheFilter filter = new ResponseCacheFilter(store, properties, meterRegistry);
+
+	private final AtomicInteger upstreamCalls = new AtomicInteger();
+
+	private final AtomicReference<HttpHeaders> upstreamRequest = new AtomicReference<>();
+
+	private final Route route = Route.async()
+			.id("stub-route")
+			.uri("lb://stub-service")
+			.predicate(exchange -> true)
+			.build();
+
+	@Test
+	void freshnessFollowsResponseCacheControl() {
+		assertThat(storedFreshness("max-age=10", false)).isEqualTo(10_000);
+		// s-maxage is meant for shared caches such as this one
+		assertThat(storedFreshness("max-age=10, s-maxage=60", false)).isEqualTo(60_000);
+		// ...unless the response is private, when the entry is the caller's own
+		assertThat(storedFreshness("private, max-age=10, s-maxage=60", true)).isEqualTo(10_000);
+		// The route's ttl applies when the backend says nothing
+		assertThat(storedFreshness(null, false)).isEqualTo(30_000);
+		assertThat(storedFreshness("no-cache", false)).isNull();
+		assertThat(storedFreshness("no-store", true)).isNull();
+	}
+
+	@Test
+	void privateResponseIsNotStoredForAnonymousCallers() {
+		assertThat(storedFreshness("private, max-age=60", false)).isNull();
+	}
+
+	@Test
+	void freshEntryIsServedWithoutCallingUpstream() {
+		GatewayFilterChain upstream = respond(HttpStatus.OK, "article", headers -> headers.setCacheControl("max-age=60"));
+
+		MockServerWebExchange miss = anonymous("/api/content/1");
+		filter.filter(miss, upstream).block();
+		MockServerWebExchange hit = anonymous("/api/content/1");
+		filter.filter(hit, upstream).block();
+
+		assertThat(upstreamCalls).hasValue(1);
+		assertThat(miss.getResponse().getHeaders().getFirst(ResponseCacheFilter.CACHE_STATUS_HEADER)).isEqualTo("MISS");
+		assertThat(hit.getResponse().getHeaders().getFirst(ResponseCacheFilter.CACHE_STATUS_HEADER)).isEqualTo("HIT");
+		assertThat(hit.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(hit.getResponse().getBodyAsString().block()).isEqualTo("article");
+		// The body-derived ETag lets the client revalidate against the gateway
+		assertThat(hit.getResponse().getHeaders().getETag()).isNotNull();
+	}
+
+	@Test
+	void matchingIfNoneMatchIsAnsweredWithNotModified() {
+		GatewayFilterChain upstream = respond(HttpStatus.OK, "article", headers -> {
+			headers.setCacheControl("max-age=60");
+			headers.setETag("\"v1\"");
+		});
+		filter.filter(anonymous("/api/content/1"), upstream).block();
+
+		MockServerWebExchange conditional = exchange(MockServerHttpRequest.get("/api/content/1")
+				.header(HttpHeaders.IF_NONE_MATCH, "W/\"v1\""));
+		filter.filter(conditional, upstream).block();
+
+		assertThat(upstreamCalls).hasValue(1);
+		assertThat(conditional.getResponse().getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+		assertThat(meterRegistry.get("gateway.cache.requests").tag("result", "not_modified").counter().count())
+				.isEqualTo(1);
+	}
+
+	@Test
+	void staleEntryIsRevalidatedWithTheBackendEtag() throws InterruptedException {
+		filter.filter(anonymous("/api/content/1"), respond(HttpStatus.OK, "article", headers -> {
+			headers.setCacheControl("max-age=1");
+			headers.setETag("\"v1\"");
+		})).block();
+		// Past max-age, but kept for the revalidate window because the backend sent an ETag
+		Thread.sleep(1100);
+
+		// The backend confirms the entry is unchanged and grants it a new lifetime
+		MockServerWebExchange revalidated = anonymous("/api/content/1");
+		filter.filter(revalidated, respond(HttpStatus.NOT_MODIFIED, "", headers -> headers.setCacheControl("max-age=60")))
+				.block();
+
+		assertThat(upstreamRequest.get().getIfNoneMatch()).containsExactly("\"v1\"");
+		assertThat(revalidated.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(revalidated.getResponse().getBodyAsString().block()).isEqualTo("article");
+		assertThat(revalidated.getResponse().getHeaders().getFirst(ResponseCacheFilter.CACHE_STATUS_HEADER))
+				.isEqualTo("REVALIDATED");
+		assertThat(lastStored().isFresh(System.currentTimeMillis())).isTrue();
+
+		MockServerWebExchange hit = anonymous("/api/content/1");
+		filter.filter(hit, respond(HttpStatus.OK, "changed", headers -> { })).block();
+		assertThat(upstreamCalls).hasValue(2);
+		assertThat(hit.getResponse().getBodyAsString().block()).isEqualTo("article");
+	}
+
+	@Test
+	void responsesSettingCookiesOrVaryingOnEverythingAreNotStored() {
+		filter.filter(anonymous("/api/content/1"), respond(HttpStatus.OK, "article", headers -> {
+			headers.setCacheControl("max-age=60");
+			headers.add(HttpHeaders.SET_COOKIE, "session=abc");
+		})).block();
+		filter.filter(anonymous("/api/content/2"), respond(HttpStatus.OK, "article", headers -> {
+			headers.setCacheControl("max-age=60");
+			headers.setVary(List.of("*"));
+		})).block();
+
+		assertThat(mockingDetails(store).getInvocations())
+				.noneMatch(invocation -> invocation.getMethod().getName().equals("put"));
+	}
+
+	@Test
+	void varyVariantsAreStoredSideBySide() {
+		GatewayFilterChain upstream = exchange -> {
+			String language = exchange.getRequest().getHeaders().getFirst(HttpHeaders.ACCEPT_LANGUAGE);
+			return respond(HttpStatus.OK, "article-" + language, headers -> {
+				headers.setCacheControl("max-age=60");
+				headers.setVary(List.of(HttpHeaders.ACCEPT_LANGUAGE));
+			}).filter(exchange);
+		};
+
+		for (String language : List.of("en", "de", "en", "de")) {
+			MockServerWebExchange exchange = exchange(MockServerHttpRequest.get("/api/content/1")
+					.header(HttpHeaders.ACCEPT_LANGUAGE, language));
+			filter.filter(exchange, upstream).block();
+			assertThat(exchange.getResponse().getBodyAsString().block()).isEqualTo("article-" + language);
+		}
+
+		assertThat(upstreamCalls).hasValue(2);
+	}
+
+	@Test
+	void authenticatedCallersAreKeyedPerSubject() {
+		MockServerWebExchange ada = authenticated("ada");
+		filter.filter(ada, respond(HttpStatus.OK, "ada's inbox", headers -> headers.setCacheControl("private, max-age=60")))
+				.block();
+		MockServerWebExchange grace = authenticated("grace");
+		filter.filter(grace, respond(HttpStatus.OK, "grace's inbox", headers -> headers.setCacheControl("private, max-age=60")))
+				.block();
+		MockServerWebExchange adaAgain = authenticated("ada");
+		filter.filter(adaAgain, respond(HttpStatus.OK, "not cached", headers -> { })).block();
+
+		assertThat(upstreamCalls).hasValue(2);
+		assertThat(grace.getResponse().getBodyAsString().block()).isEqualTo("grace's inbox");
+		assertThat(adaAgain.getResponse().getBodyAsString().block()).isEqualTo("ada's inbox");
+	}
+
+	@Test
+	void requestWithAuthorizationButNoClaimsBypassesTheCache() {
+		GatewayFilterChain upstream = respond(HttpStatus.OK, "article", headers -> headers.setCacheControl("max-age=60"));
+
+		for (int i = 0; i < 2; i++) {
+			filter.filter(exchange(MockServerHttpRequest.get("/api/content/1")
+					.header(HttpHeaders.AUTHORIZATION, "Bearer not-verified")), upstream).block();
+		}
+
+		assertThat(upstreamCalls).hasValue(2);
+		assertThat(mockingDetails(store).getInvocations()).isEmpty();
+		assertThat(meterRegistry.get("gateway.cache.requests").tag("result", "bypass").counter().count()).isEqualTo(2);
+	}
+
+	/**
+	 * Freshness of the entry stored for one uncached response, or null when it was not stored
+	 */
+	private Long storedFreshness(String cacheControl, boolean authenticated) {
+		ResponseCacheProperties properties = properties();
+		ResponseCacheStore store = spy(new ResponseCacheStore(null, new ObjectMapper(), properties, meterRegistry));
+		MockServerWebExchange exchange = authenticated ? authenticated("ada") : anonymous("/api/content/1");
+		new ResponseCacheFilter(store, properties, new SimpleMeterRegistry()).filter(exchange,
+				respond(HttpStatus.OK, "article", headers -> headers.setCacheControl(cacheControl))).block();
+
+		if (mockingDetails(store).getInvocations().stream().noneMatch(invocation -> invocation.getMethod().getName().equals("put"))) {
+			return null;
+		}
+		ArgumentCaptor<CachedResponse> stored = ArgumentCaptor.forClass(CachedResponse.class);
+		verify(store).put(anyString(), stored.capture());
+		return stored.getValue().expiresAtMillis() - stored.getValue().storedAtMillis();
+	}
+
+	private CachedResponse lastStored() {
+		ArgumentCaptor<CachedResponse> stored = ArgumentCaptor.forClass(CachedResponse.class);
+		verify(store, atLeast(1)).put(anyString(), stored.capture());
+		return stored.getValue();
+	}
+
+	/**
+	 * Backend answering with the given status, headers and body, as NettyWriteResponseFilter writes it
+	 */
+	private GatewayFilterChain respond(HttpStatus status, String body, Consumer<HttpHeaders> headers) {
+		return exchange -> {
+			upstreamCalls.incrementAndGet();
+			upstreamRequest.set(exchange.getRequest().getHeaders());
+			exchange.getResponse().setStatusCode(status);
+			headers.accept(exchange.getResponse().getHeaders());
+			byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+			return exchange.getResponse().writeWith(bytes.length == 0 ? Flux.empty()
+					: Mono.just(exchange.getResponse().bufferFactory().wrap(bytes)));
+		};
+	}
+
+	private MockServerWebExchange anonymous(String path) {
+		return exchange(MockServerHttpRequest.get(path));
+	}
+
+	private MockServerWebExchange authenticated(String subject) {
+		MockServerWebExchange exchange = exchange(MockServerHttpRequest.get("/api/content/inbox")
+				.header(HttpHeaders.AUTHORIZATION, "Bearer token-of-" + subject));
+		exchange.getAttributes().put(JwtAuthenticationFilter.CLAIMS_ATTRIBUTE, Jwts.claims().subject(subject).build());
+		return exchange;
+	}
+
+	private MockServerWebExchange exchange(MockServerHttpRequest.BaseBuilder<?> request) {
+		MockServerWebExchange exchange = MockServerWebExchange.from(request);
+		exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, route);
+		return exchange;
+	}
+
+	private static ResponseCacheProperties properties() {
+		ResponseCacheProperties.RouteCache routeCache = new ResponseCacheProperties.RouteCache();
+		routeCache.setPaths(List.of("/api/content/**"));
+		ResponseCacheProperties properties = new ResponseCacheProperties();
+		// The local tier alone; the Redis tier is ResponseCacheStore's concern
+		properties.setRemoteEnabled(false);
+		properties.setRoutes(Map.of("stub-route", routeCache));
+		return properties;
+	}
+}
@@ -0,0 +1,191 @@
+package com.aiapp.api_gateway.filter;
+
+import com.aiapp.api_gateway.config.RetryProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.NettyDataBuffer;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RetryFilterTests {
+
+	private final NettyDataBufferFactory bufferFactory = new NettyDataBufferFactory(UnpooledByteBufAllocator.DEFAULT);
+
+	private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private final AtomicInteger attempts = new AtomicInteger();
+
+	private final Route route = Route.async()
+			.id("stub-route")
+			.uri("lb://stub-service")
+			.predicate(exchange -> true)
+			.build();
+
+	@Test
+	void postWithoutIdempotencyKeyIsNeverRetried() {
+		RetryFilter filter = new RetryFilter(properties(new RetryProperties.RouteRetry()), meterRegistry);
+		MockServerWebExchange exchange = exchange(MockServerHttpRequest.post("/api/items").body("{}"));
+
+		filter.filter(exchange, respond(attempt -> HttpStatus.SERVICE_UNAVAILABLE)).block(Duration.ofSeconds(5));
+
+		assertThat(attempts).hasValue(1);
+		assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+	}
+
+	@Test
+	void postWithIdempotencyKeyIsRetried() {
+		RetryFilter filter = new RetryFilter(properties(new RetryProperties.RouteRetry()), meterRegistry);
+		MockServerWebExchange exchange = exchange(MockServerHttpRequest.post("/api/items")
+				.header(RetryFilter.IDEMPOTENCY_KEY_HEADER, "order-1")
+				.body("{}"));
+
+		filter.filter(exchange, respond(attempt -> attempt < 2 ? HttpStatus.SERVICE_UNAVAILABLE : HttpStatus.CREATED))
+				.block(Duration.ofSeconds(5));
+
+		assertThat(attempts).hasValue(2);
+		assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.CREATED);
+	}
+
+	@Test
+	void retryIsRefusedOnceTheBudgetIsSpent() {
+		RetryProperties properties = properties(new RetryProperties.RouteRetry());
+		properties.setBudgetRatio(0);
+		properties.setMinRetriesPerSecond(0);
+		RetryFilter filter = new RetryFilter(properties, meterRegistry);
+		MockServerWebExchange exchange = exchange(MockServerHttpRequest.get("/api/items"));
+
+		filter.filter(exchange, respond(attempt -> HttpStatus.SERVICE_UNAVAILABLE)).block(Duration.ofSeconds(5));
+
+		assertThat(attempts).hasValue(1);
+		assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+		assertThat(counter("gateway.retry.budget.exhausted")).isEqualTo(1);
+		assertThat(counter("gateway.retry.sent")).isZero();
+	}
+
+	@Test
+	void heldFailureIsSentWhenEveryAttemptFails() {
+		RetryFilter filter = new RetryFilter(properties(new RetryProperties.RouteRetry()), meterRegistry);
+		MockServerWebExchange exchange = exchange(MockServerHttpRequest.get("/api/items"));
+		AtomicReference<ByteBuf> firstBody = new AtomicReference<>();
+
+		filter.filter(exchange, attemptExchange -> {
+			int attempt = attempts.incrementAndGet();
+			NettyDataBuffer body = buffer("attempt-" + attempt);
+			if (attempt == 1) {
+				firstBody.set(body.getNativeBuffer());
+			}
+			attemptExchange.getResponse().setStatusCode(HttpStatus.BAD_GATEWAY);
+			return attemptExchange.getResponse().writeWith(Mono.just(body));
+		}).block(Duration.ofSeconds(5));
+
+		assertThat(attempts).hasValue(3);
+		assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.BAD_GATEWAY);
+		assertThat(exchange.getResponse().getBodyAsString().block()).isEqualTo("attempt-3");
+		// Superseded failures were drained, not leaked
+		assertThat(firstBody.get().refCnt()).isZero();
+		assertThat(counter("gateway.retry.sent")).isEqualTo(2);
+	}
+
+	@Test
+	void hedgeWinnerIsCommittedAndTheLoserIsReleased() throws InterruptedException {
+		RetryProperties.RouteRetry settings = new RetryProperties.RouteRetry();
+		settings.setHedge(true);
+		settings.setMinHedgeDelay(Duration.ofMillis(20));
+		RetryProperties properties = properties(settings);
+		// The original and its hedge use up every attempt, so the original's failure is held rather than retried
+		properties.setMaxAttempts(2);
+		RetryFilter filter = new RetryFilter(properties, meterRegistry);
+		// Fast answers give the route a latency history, so the hedge fires after the minimum delay
+		for (int i = 0; i < 25; i++) {
+			filter.filter(exchange(MockServerHttpRequest.get("/api/items")),
+					exchange -> exchange.getResponse().setComplete()).block();
+		}
+		// Let the hedge delay, cached for a second, be recomputed from those samples
+		Thread.sleep(1100);
+
+		AtomicReference<ByteBuf> loserBody = new AtomicReference<>();
+		AtomicBoolean loserWritten = new AtomicBoolean();
+		MockServerWebExchange exchange = exchange(MockServerHttpRequest.get("/api/items"));
+		filter.filter(exchange, attemptExchange -> {
+			if (attempts.incrementAndGet() == 1) {
+				// The slow original answers with a failure while the hedge is still running
+				NettyDataBuffer body = buffer("slow");
+				loserBody.set(body.getNativeBuffer());
+				return Mono.delay(Duration.ofMillis(100))
+						.then(Mono.defer(() -> {
+							attemptExchange.getResponse().setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+							return attemptExchange.getResponse().writeWith(Mono.just(body));
+						}))
+						.doOnSuccess(done -> loserWritten.set(true));
+			}
+			return Mono.delay(Duration.ofMillis(200))
+					.then(Mono.defer(() -> {
+						attemptExchange.getResponse().setStatusCode(HttpStatus.OK);
+						return attemptExchange.getResponse().writeWith(Mono.just(buffer("fast")));
+					}));
+		}).block(Duration.ofSeconds(5));
+
+		assertThat(attempts).hasValue(2);
+		assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(exchange.getResponse().getBodyAsString().block()).isEqualTo("fast");
+		assertThat(loserBody.get().refCnt()).isZero();
+		assertThat(loserWritten).isTrue();
+		assertThat(counter("gateway.hedge.sent")).isEqualTo(1);
+		assertThat(counter("gateway.hedge.wins")).isEqualTo(1);
+	}
+
+	private RetryProperties properties(RetryProperties.RouteRetry settings) {
+		RetryProperties properties = new RetryProperties();
+		properties.setBackoff(Duration.ofMillis(1));
+		properties.setRoutes(Map.of(route.getId(), settings));
+		return properties;
+	}
+
+	/**
+	 * Upstream that answers each attempt, numbered from 1, with an empty body and the given status
+	 */
+	private GatewayFilterChain respond(IntFunction<HttpStatus> status) {
+		return exchange -> {
+			exchange.getResponse().setStatusCode(status.apply(attempts.incrementAndGet()));
+			return exchange.getResponse().setComplete();
+		};
+	}
+
+	private NettyDataBuffer buffer(String content) {
+		return bufferFactory.wrap(Unpooled.copiedBuffer(content, StandardCharsets.UTF_8));
+	}
+
+	private double counter(String name) {
+		return meterRegistry.get(name).tag("route", route.getId()).counter().count();
+	}
+
+	private MockServerWebExchange exchange(MockServerHttpRequest.BaseBuilder<?> request) {
+		return exchange(request.build());
+	}
+
+	private MockServerWebExchange exchange(MockServerHttpRequest request) {
+		MockServerWebExchange exchange = MockServerWebExchange.from(request);
+		exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, route);
+		return exchange;
+	}
+}
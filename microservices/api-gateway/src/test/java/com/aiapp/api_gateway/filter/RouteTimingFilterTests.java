@@ -0,0 +1,92 @@
+package com.aiapp.api_gateway.filter;
+
+import com.aiapp.api_gateway.config.RouteTimingProperties;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RouteTimingFilterTests {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private final Route route = Route.async()
+			.id("stub-route")
+			.uri("lb://stub-service")
+			.predicate(exchange -> true)
+			.build();
+
+	/**
+	 * What the security chain and routing filter report for a proxied request
+	 */
+	private final WebFilterChain proxied = exchange -> {
+		exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, route);
+		ExchangeTiming timing = ExchangeTiming.of(exchange);
+		timing.addAuth(TimeUnit.MILLISECONDS.toNanos(2));
+		timing.connectionAcquired(TimeUnit.MILLISECONDS.toNanos(3));
+		timing.firstByte(TimeUnit.MILLISECONDS.toNanos(40));
+		return exchange.getResponse().setComplete();
+	};
+
+	@Test
+	void recordsEveryPhaseUnderTheRouteId() {
+		RouteTimingFilter filter = new RouteTimingFilter(new RouteTimingProperties(), meterRegistry);
+
+		filter.filter(exchange("/api/content/42?draft=true"), proxied).block();
+
+		assertThat(phase("stub-route", "auth").totalTime(TimeUnit.MILLISECONDS)).isEqualTo(2);
+		assertThat(phase("stub-route", "acquire").totalTime(TimeUnit.MILLISECONDS)).isEqualTo(3);
+		assertThat(phase("stub-route", "first_byte").totalTime(TimeUnit.MILLISECONDS)).isEqualTo(40);
+		assertThat(phase("stub-route", "total").count()).isEqualTo(1);
+		// The request path never becomes a tag value
+		assertThat(meterRegistry.find("gateway.route.phase").timers())
+				.allSatisfy(timer -> assertThat(timer.getId().getTag("route")).isEqualTo("stub-route"));
+	}
+
+	@Test
+	void requestsWithoutARouteShareOneTag() {
+		RouteTimingFilter filter = new RouteTimingFilter(new RouteTimingProperties(), meterRegistry);
+
+		filter.filter(exchange("/no/such/route/1"), exchange -> exchange.getResponse().setComplete()).block();
+		filter.filter(exchange("/no/such/route/2"), exchange -> exchange.getResponse().setComplete()).block();
+
+		assertThat(phase("none", "total").count()).isEqualTo(2);
+		// Phases the request never reached are not recorded
+		assertThat(phase("none", "first_byte").count()).isZero();
+		assertThat(meterRegistry.find("gateway.route.phase").timers())
+				.extracting(timer -> timer.getId().getTag("route"))
+				.containsOnly("none");
+	}
+
+	@Test
+	void serverTimingHeaderIsOnlySentWhenEnabled() {
+		MockServerWebExchange withoutHeader = exchange("/api/content/42");
+		new RouteTimingFilter(new RouteTimingProperties(), meterRegistry).filter(withoutHeader, proxied).block();
+
+		assertThat(withoutHeader.getResponse().getHeaders().containsKey(RouteTimingFilter.SERVER_TIMING_HEADER)).isFalse();
+
+		RouteTimingProperties properties = new RouteTimingProperties();
+		properties.setServerTimingHeader(true);
+		MockServerWebExchange withHeader = exchange("/api/content/42");
+		new RouteTimingFilter(properties, new SimpleMeterRegistry()).filter(withHeader, proxied).block();
+
+		assertThat(withHeader.getResponse().getHeaders().getFirst(RouteTimingFilter.SERVER_TIMING_HEADER))
+				.startsWith("auth;dur=2.00, acquire;dur=3.00, first_byte;dur=40.00, total;dur=");
+	}
+
+	private Timer phase(String routeId, String phase) {
+		return meterRegistry.get("gateway.route.phase").tag("route", routeId).tag("phase", phase).timer();
+	}
+
+	private static MockServerWebExchange exchange(String path) {
+		return MockServerWebExchange.from(MockServerHttpRequest.get(path));
+	}
+}
@@ -0,0 +1,93 @@
+package com.aiapp.api_gateway.filter;
+
+import com.aiapp.api_gateway.config.RetryProperties;
+import com.aiapp.api_gateway.config.UpstreamBalancingProperties;
+import com.aiapp.api_gateway.service.UpstreamInstanceTracker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+class UpstreamInFlightFilterTests {
+
+	private final UpstreamInstanceTracker tracker = new UpstreamInstanceTracker(
+			WebClient.builder(), new UpstreamBalancingProperties(), new SimpleMeterRegistry());
+
+	private final UpstreamInFlightFilter inFlightFilter = new UpstreamInFlightFilter(tracker);
+
+	private final ServiceInstance instance = new DefaultServiceInstance("a", "stub-service", "127.0.0.1", 8080, false);
+
+	private final Route route = Route.async()
+			.id("stub-route")
+			.uri("lb://stub-service")
+			.predicate(exchange -> true)
+			.build();
+
+	@Test
+	void releasesInFlightWhenAHedgedRequestIsCancelled() throws InterruptedException {
+		RetryFilter retryFilter = new RetryFilter(hedgingProperties(), new SimpleMeterRegistry());
+		// Fast answers give the route a latency history, so the hedge fires after the minimum delay
+		for (int i = 0; i < 25; i++) {
+			retryFilter.filter(exchange(), upstream(exchange -> exchange.getResponse().setComplete())).block();
+		}
+		// Let the hedge delay, cached for a second, be recomputed from those samples
+		Thread.sleep(1100);
+		assertThat(tracker.stats(instance).inFlight()).isZero();
+
+		Disposable request = retryFilter.filter(exchange(), upstream(exchange -> Mono.never())).subscribe();
+		await().atMost(Duration.ofSeconds(5)).until(() -> tracker.stats(instance).inFlight() == 2);
+
+		request.dispose();
+
+		assertThat(tracker.stats(instance).inFlight()).isZero();
+	}
+
+	@Test
+	void releasesInFlightWhenTheExchangeCompletes() {
+		upstream(exchange -> Mono.empty()).filter(exchange()).block();
+
+		assertThat(tracker.stats(instance).inFlight()).isZero();
+	}
+
+	private RetryProperties hedgingProperties() {
+		RetryProperties.RouteRetry settings = new RetryProperties.RouteRetry();
+		settings.setHedge(true);
+		settings.setMinHedgeDelay(Duration.ofMillis(20));
+		RetryProperties properties = new RetryProperties();
+		properties.setRoutes(Map.of(route.getId(), settings));
+		return properties;
+	}
+
+	/**
+	 * What the rest of the chain does per attempt: pick the instance, count it in flight, then call it
+	 */
+	private GatewayFilterChain upstream(GatewayFilterChain routing) {
+		return exchange -> {
+			exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR,
+					new DefaultResponse(instance));
+			return inFlightFilter.filter(exchange, routing);
+		};
+	}
+
+	private ServerWebExchange exchange() {
+		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/items"));
+		exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, route);
+		return exchange;
+	}
+}
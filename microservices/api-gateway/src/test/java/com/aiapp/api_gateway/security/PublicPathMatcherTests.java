@@ -0,0 +1,45 @@
+package com.aiapp.api_gateway.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class PublicPathMatcherTests {
+
+	private final PublicPathMatcher matcher = new PublicPathMatcher(List.of(
+			"/api/auth/login",
+			"/api/auth/oauth/**",
+			"/api/*/actuator/health",
+			"/actuator/health/**"));
+
+	@Test
+	void matchesLiteralPathsExactly() {
+		assertThat(matcher.isPublic("/api/auth/login")).isTrue();
+		assertThat(matcher.isPublic("/api/auth/logins")).isFalse();
+		assertThat(matcher.isPublic("/api/auth")).isFalse();
+	}
+
+	@Test
+	void trailingDoubleWildcardMatchesPrefixAndRemainder() {
+		assertThat(matcher.isPublic("/api/auth/oauth")).isTrue();
+		assertThat(matcher.isPublic("/api/auth/oauth/google/callback")).isTrue();
+		assertThat(matcher.isPublic("/actuator/health/liveness")).isTrue();
+		assertThat(matcher.isPublic("/actuator/metrics")).isFalse();
+	}
+
+	@Test
+	void singleWildcardMatchesExactlyOneSegment() {
+		assertThat(matcher.isPublic("/api/payments/actuator/health")).isTrue();
+		assertThat(matcher.isPublic("/api/auth/actuator/health")).isTrue();
+		assertThat(matcher.isPublic("/api/a/b/actuator/health")).isFalse();
+	}
+
+	@Test
+	void rejectsUnsupportedPatterns() {
+		assertThatIllegalArgumentException().isThrownBy(() -> new PublicPathMatcher(List.of("/api/**/health")));
+		assertThatIllegalArgumentException().isThrownBy(() -> new PublicPathMatcher(List.of("/api/auth*")));
+	}
+}
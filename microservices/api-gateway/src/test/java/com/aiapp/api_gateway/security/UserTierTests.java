@@ -0,0 +1,57 @@
+package com.aiapp.api_gateway.security;
+
+import com.aiapp.api_gateway.filter.JwtAuthenticationFilter;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+
+import java.net.InetSocketAddress;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserTierTests {
+
+	@Test
+	void authenticatedCallersAreKeyedBySubject() {
+		MockServerWebExchange exchange = anonymous("10.0.0.5", "203.0.113.7");
+		exchange.getAttributes().put(JwtAuthenticationFilter.CLAIMS_ATTRIBUTE,
+				Jwts.claims().subject("alice").build());
+
+		assertThat(UserTier.callerKey(exchange, 1)).isEqualTo("alice");
+	}
+
+	@Test
+	void anonymousCallersAreKeyedByPeerAddressWithoutTrustedProxies() {
+		assertThat(UserTier.callerKey(anonymous("10.0.0.5", "203.0.113.7"), 0)).isEqualTo("10.0.0.5");
+	}
+
+	@Test
+	void anonymousCallersBehindTheIngressAreKeyedByTheHopItAppended() {
+		assertThat(UserTier.callerKey(anonymous("10.0.0.5", "203.0.113.7"), 1)).isEqualTo("203.0.113.7");
+		assertThat(UserTier.callerKey(anonymous("10.0.0.5", "203.0.113.8"), 1)).isEqualTo("203.0.113.8");
+	}
+
+	@Test
+	void clientSuppliedForwardedForEntriesAreIgnored() {
+		// The client sent "1.2.3.4"; the ingress appended the address it actually connected from
+		assertThat(UserTier.callerKey(anonymous("10.0.0.5", "1.2.3.4, 203.0.113.7"), 1)).isEqualTo("203.0.113.7");
+		assertThat(UserTier.callerKey(anonymous("10.0.0.5", "1.2.3.4, 203.0.113.7, 10.0.0.9"), 2))
+				.isEqualTo("203.0.113.7");
+	}
+
+	@Test
+	void fallsBackToPeerAddressWhenFewerHopsThanTrustedProxies() {
+		assertThat(UserTier.callerKey(anonymous("10.0.0.5", null), 1)).isEqualTo("10.0.0.5");
+		assertThat(UserTier.callerKey(anonymous("10.0.0.5", "203.0.113.7"), 2)).isEqualTo("10.0.0.5");
+	}
+
+	private static MockServerWebExchange anonymous(String peer, String forwardedFor) {
+		MockServerHttpRequest.BaseBuilder<?> request = MockServerHttpRequest.post("/api/auth/login")
+				.remoteAddress(new InetSocketAddress(peer, 43210));
+		if (forwardedFor != null) {
+			request.header("X-Forwarded-For", forwardedFor);
+		}
+		return MockServerWebExchange.from(request);
+	}
+}
@@ -0,0 +1,70 @@
+package com.aiapp.api_gateway.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveConcurrencyLimiterTests {
+
+	private static final long BASELINE = TimeUnit.MILLISECONDS.toNanos(10);
+
+	private static final long NO_RESET = TimeUnit.HOURS.toNanos(1);
+
+	@Test
+	void raisesLimitWhileLatencyStaysAtBaseline() {
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 4, 500, 1.0, 0, NO_RESET);
+		long now = System.nanoTime();
+		limiter.update(BASELINE, 20, false, now);
+
+		for (int i = 0; i < 5; i++) {
+			limiter.update(BASELINE, limiter.limit(), false, now);
+		}
+
+		assertThat(limiter.limit()).isGreaterThan(20);
+	}
+
+	@Test
+	void lowersLimitWhenRequestsQueueOrDrop() {
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 4, 500, 1.0, 0, NO_RESET);
+		long now = System.nanoTime();
+		limiter.update(BASELINE, 20, false, now);
+
+		limiter.update(BASELINE * 10, 20, false, now);
+		int queued = limiter.limit();
+		assertThat(queued).isLessThan(20);
+
+		limiter.update(BASELINE, queued, true, now);
+		assertThat(limiter.limit()).isLessThan(queued);
+	}
+
+	@Test
+	void ignoresLatencyWhenFarBelowLimit() {
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 4, 500, 1.0, 0, NO_RESET);
+		long now = System.nanoTime();
+		limiter.update(BASELINE, 20, false, now);
+
+		limiter.update(BASELINE * 10, 2, false, now);
+
+		assertThat(limiter.limit()).isEqualTo(20);
+	}
+
+	@Test
+	void shedsStandardCallersBeforePremium() {
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 4, 500, 0.2, 0.2, NO_RESET);
+
+		for (int i = 0; i < 8; i++) {
+			assertThat(limiter.tryAcquire(false)).isNotNull();
+		}
+		assertThat(limiter.tryAcquire(false)).isNull();
+		assertThat(limiter.tryAcquire(true)).isNotNull();
+		AdaptiveConcurrencyLimiter.Permit last = limiter.tryAcquire(true);
+		assertThat(last).isNotNull();
+		assertThat(limiter.tryAcquire(true)).isNull();
+
+		last.onIgnore();
+		assertThat(limiter.inFlight()).isEqualTo(9);
+		assertThat(limiter.tryAcquire(true)).isNotNull();
+	}
+}
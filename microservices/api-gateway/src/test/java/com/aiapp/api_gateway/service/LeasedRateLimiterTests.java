@@ -0,0 +1,61 @@
+package com.aiapp.api_gateway.service;
+
+import com.aiapp.api_gateway.config.RateLimitProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class LeasedRateLimiterTests {
+
+	private final ReactiveStringRedisTemplate redisTemplate = mock(ReactiveStringRedisTemplate.class);
+
+	private final RateLimitProperties properties = new RateLimitProperties();
+
+	private final LeasedRateLimiter rateLimiter = new LeasedRateLimiter(redisTemplate, properties);
+
+	@Test
+	void leasesWhatTheBucketRefillsOverOneLease() {
+		properties.setLeaseTtl(Duration.ofMillis(500));
+
+		assertThat(rateLimiter.leaseSize(limit(50, 1000))).isEqualTo(10);
+		assertThat(rateLimiter.leaseSize(limit(10, 1000))).isEqualTo(5);
+	}
+
+	@Test
+	void leaseIsASmallShareOfTheBurst() {
+		assertThat(rateLimiter.leaseSize(limit(50, 100))).isEqualTo(10);
+		assertThat(rateLimiter.leaseSize(limit(20, 40))).isEqualTo(4);
+		// Low-burst tiers go to Redis for every token rather than let one pod take the bucket
+		assertThat(rateLimiter.leaseSize(limit(2, 10))).isEqualTo(1);
+		assertThat(rateLimiter.leaseSize(limit(0, 10))).isEqualTo(1);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void failsOpenWithoutAKnownRemainingCount() {
+		when(redisTemplate.execute(any(RedisScript.class), anyList(), anyList()))
+				.thenReturn(Flux.error(new RedisConnectionFailureException("Unable to connect to Redis")));
+
+		LeasedRateLimiter.Decision decision = rateLimiter.tryAcquire("route:USER:ada", limit(5, 10)).block();
+
+		assertThat(decision.allowed()).isTrue();
+		assertThat(decision.isRemainingKnown()).isFalse();
+	}
+
+	private static RateLimitProperties.Limit limit(int replenishRate, int burstCapacity) {
+		RateLimitProperties.Limit limit = new RateLimitProperties.Limit();
+		limit.setReplenishRate(replenishRate);
+		limit.setBurstCapacity(burstCapacity);
+		return limit;
+	}
+}
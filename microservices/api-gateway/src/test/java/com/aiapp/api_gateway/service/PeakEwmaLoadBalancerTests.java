@@ -0,0 +1,100 @@
+package com.aiapp.api_gateway.service;
+
+import com.aiapp.api_gateway.config.UpstreamBalancingProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class PeakEwmaLoadBalancerTests {
+
+	private final List<DisposableServer> stubs = new ArrayList<>();
+
+	private final UpstreamInstanceTracker tracker = new UpstreamInstanceTracker(
+			WebClient.builder(), new UpstreamBalancingProperties(), new SimpleMeterRegistry());
+
+	@SuppressWarnings("unchecked")
+	private final PeakEwmaLoadBalancer loadBalancer = new PeakEwmaLoadBalancer(
+			mock(ObjectProvider.class), tracker);
+
+	@AfterEach
+	void stopStubs() {
+		stubs.forEach(DisposableServer::disposeNow);
+	}
+
+	@Test
+	void prefersInstanceWithLowerLatency() {
+		List<ServiceInstance> instances = List.of(stub("fast", 200), stub("slow", 200));
+		// A 1ns decay lets each sample replace the initial estimate outright
+		long now = System.nanoTime();
+		tracker.stats(instances.get(0)).observeLatency(TimeUnit.MILLISECONDS.toNanos(5), now, 1);
+		tracker.stats(instances.get(1)).observeLatency(TimeUnit.MILLISECONDS.toNanos(500), now, 1);
+
+		// With two instances both are always sampled, so the cheaper one wins every time
+		Map<String, Integer> picks = pick(instances, 100);
+		assertThat(picks).containsOnlyKeys("fast");
+	}
+
+	@Test
+	void skipsEjectedInstancesUnlessAllAreEjected() {
+		List<ServiceInstance> instances = List.of(stub("a", 200), stub("b", 200), stub("c", 200));
+		tracker.stats(instances.get(0)).eject();
+
+		assertThat(pick(instances, 200)).containsOnlyKeys("b", "c");
+
+		tracker.stats(instances.get(1)).eject();
+		tracker.stats(instances.get(2)).eject();
+		assertThat(pick(instances, 200)).containsKeys("a", "b", "c");
+	}
+
+	@Test
+	void probeReadmitsOnlyHealthyInstances() {
+		ServiceInstance healthy = stub("healthy", 200);
+		ServiceInstance failing = stub("failing", 503);
+		tracker.stats(healthy).eject();
+		tracker.stats(failing).eject();
+
+		tracker.probeEjected().block();
+
+		assertThat(tracker.stats(healthy).isEjected()).isFalse();
+		assertThat(tracker.stats(failing).isEjected()).isTrue();
+	}
+
+	private Map<String, Integer> pick(List<ServiceInstance> instances, int times) {
+		Map<String, Integer> picks = new HashMap<>();
+		for (int i = 0; i < times; i++) {
+			ServiceInstance chosen = loadBalancer.choose(instances).getServer();
+			picks.merge(chosen.getInstanceId(), 1, Integer::sum);
+		}
+		return picks;
+	}
+
+	/**
+	 * Local backend whose health endpoint answers with the given status
+	 */
+	private ServiceInstance stub(String name, int healthStatus) {
+		DisposableServer server = HttpServer.create()
+				.host("127.0.0.1")
+				.port(0)
+				.route(routes -> routes.get("/actuator/health",
+						(request, response) -> response.status(healthStatus).sendString(Mono.just("{}"))))
+				.bindNow();
+		stubs.add(server);
+		return new DefaultServiceInstance(name, "stub-service", "127.0.0.1", server.port(), false);
+	}
+}
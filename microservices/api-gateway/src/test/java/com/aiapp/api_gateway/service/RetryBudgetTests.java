@@ -0,0 +1,34 @@
+package com.aiapp.api_gateway.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RetryBudgetTests {
+
+	@Test
+	void floorAllowsRetriesWithoutTraffic() {
+		RetryBudget budget = new RetryBudget(0.1, 1, Duration.ofSeconds(2));
+
+		assertThat(budget.tryAcquire()).isTrue();
+		assertThat(budget.tryAcquire()).isTrue();
+		assertThat(budget.tryAcquire()).isFalse();
+	}
+
+	@Test
+	void retriesStayWithinTheRatioOfRequests() {
+		RetryBudget budget = new RetryBudget(0.1, 0, Duration.ofSeconds(10));
+		for (int i = 0; i < 50; i++) {
+			budget.recordRequest();
+		}
+
+		int granted = 0;
+		while (budget.tryAcquire()) {
+			granted++;
+		}
+
+		assertThat(granted).isEqualTo(5);
+	}
+}
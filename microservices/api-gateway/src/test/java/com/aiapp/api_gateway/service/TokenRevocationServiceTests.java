@@ -0,0 +1,77 @@
+package com.aiapp.api_gateway.service;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.ReactiveZSetOperations;
+import org.springframework.data.redis.core.ZSetOperations;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatNoException;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TokenRevocationServiceTests {
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void startsWithoutRedisAndTreatsTokensAsNotRevoked() {
+		ReactiveStringRedisTemplate redisTemplate = mock(ReactiveStringRedisTemplate.class);
+		ReactiveZSetOperations<String, String> zSet = mock(ReactiveZSetOperations.class);
+		when(redisTemplate.listenToChannel(anyString()))
+				.thenThrow(new RedisConnectionFailureException("Unable to connect to Redis"));
+		when(redisTemplate.opsForZSet()).thenReturn(zSet);
+		when(zSet.rangeByScoreWithScores(anyString(), any()))
+				.thenReturn(Flux.error(new RedisConnectionFailureException("Unable to connect to Redis")));
+
+		TokenRevocationService service = new TokenRevocationService(redisTemplate, true, Duration.ofMinutes(1),
+				Duration.ofHours(24), 1000, new SimpleMeterRegistry());
+
+		assertThatNoException().isThrownBy(service::start);
+		assertThat(service.isRevoked(Jwts.claims().subject("ada").build())).isFalse();
+		service.stop();
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void tokensIssuedInTheSecondOfALogoutButAfterItAreNotRevoked() {
+		long second = (System.currentTimeMillis() / 1000 - 60) * 1000;
+		long logoutAt = second + 400;
+
+		ReactiveStringRedisTemplate redisTemplate = mock(ReactiveStringRedisTemplate.class);
+		ReactiveZSetOperations<String, String> zSet = mock(ReactiveZSetOperations.class);
+		when(redisTemplate.listenToChannel(anyString())).thenReturn(Flux.never());
+		when(redisTemplate.opsForZSet()).thenReturn(zSet);
+		when(zSet.rangeByScoreWithScores(eq(TokenRevocationService.REVOKED_USERS_KEY), any()))
+				.thenReturn(Flux.just(ZSetOperations.TypedTuple.of("ada", (double) logoutAt)));
+
+		TokenRevocationService service = new TokenRevocationService(redisTemplate, true, Duration.ofMinutes(1),
+				Duration.ofHours(24), 1000, new SimpleMeterRegistry());
+		service.start();
+		try {
+			await().atMost(Duration.ofSeconds(5)).until(() -> service.isRevoked(issuedAt("ada", second - 1000)));
+
+			// iat is truncated to the second, so a re-login 600 ms after the logout carries the logout's second
+			assertThat(service.isRevoked(issuedAt("ada", second))).isFalse();
+			assertThat(service.isRevoked(issuedAt("ada", second + 1000))).isFalse();
+			assertThat(service.isRevoked(issuedAt("grace", second - 1000))).isFalse();
+		} finally {
+			service.stop();
+		}
+	}
+
+	private static Claims issuedAt(String subject, long issuedAtMillis) {
+		return Jwts.claims().subject(subject).issuedAt(new Date(issuedAtMillis)).build();
+	}
+}
@@ -0,0 +1,37 @@
+package com.aiapp.auth_service.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class DataSourceConfig {
+
+    /**
+     * Virtual threads take off the request-thread cap, so the pool becomes the limit on concurrent database work:
+     * it is sized for Postgres rather than for request concurrency, kept warm, and callers past it fail fast instead
+     * of queueing for Hikari's 30s default. Platform-thread mode keeps Hikari's defaults.
+     */
+    @Bean
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public static BeanPostProcessor virtualThreadPoolSizing(@Value("${app.virtual-threads.db-pool-size:20}") int poolSize,
+                                                            @Value("${app.virtual-threads.db-connection-timeout:5s}") Duration connectionTimeout) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource dataSource) {
+                    dataSource.setMaximumPoolSize(poolSize);
+                    dataSource.setMinimumIdle(poolSize);
+                    dataSource.setConnectionTimeout(connectionTimeout.toMillis());
+                }
+                return bean;
+            }
+        };
+    }
+}
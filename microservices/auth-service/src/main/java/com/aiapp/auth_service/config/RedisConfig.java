@@ -0,0 +1,42 @@
+package com.aiapp.auth_service.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.data.redis.ClientResourcesBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+@Configuration
+public class RedisConfig {
+
+    /**
+     * Pub/sub subscriptions, such as cache invalidations from other replicas
+     */
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                       @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        if (virtualThreads) {
+            SimpleAsyncTaskExecutor listenerExecutor = new SimpleAsyncTaskExecutor("redis-listener-");
+            listenerExecutor.setVirtualThreads(true);
+            container.setTaskExecutor(listenerExecutor);
+        }
+        return container;
+    }
+
+    /**
+     * Lettuce multiplexes every blocking caller over one shared connection, so with virtual threads the
+     * event-loop threads, not a connection pool, decide how fast replies are decoded and handed back
+     */
+    @Bean
+    public ClientResourcesBuilderCustomizer redisClientResources(@Value("${app.redis.io-threads:0}") int ioThreads) {
+        return builder -> {
+            if (ioThreads > 0) {
+                builder.ioThreadPoolSize(ioThreads).computationThreadPoolSize(ioThreads);
+            }
+        };
+    }
+}
@@ -0,0 +1,34 @@
+package com.aiapp.auth_service.config;
+
+import com.aiapp.internal_identity.InternalIdentityFilter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.config.Customizer;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
+
+@Configuration
+@EnableWebSecurity
+public class SecurityConfig {
+
+    @Bean
+    public SecurityFilterChain securityFilterChain(HttpSecurity http,
+                                                   ObjectProvider<InternalIdentityFilter> internalIdentityFilter) throws Exception {
+        // Requests relayed by the gateway are authenticated by its signed identity header
+        internalIdentityFilter.ifAvailable(filter -> http.addFilterBefore(filter, BasicAuthenticationFilter.class));
+        return http
+                .authorizeHttpRequests(auth -> auth
+                        // Key set fetched by the gateway and other verifiers
+                        .requestMatchers(HttpMethod.GET, "/.well-known/jwks.json").permitAll()
+                        .requestMatchers("/actuator/health/**").permitAll()
+                        // All other endpoints require authentication
+                        .anyRequest().authenticated())
+                .httpBasic(Customizer.withDefaults())
+                .formLogin(Customizer.withDefaults())
+                .build();
+    }
+}
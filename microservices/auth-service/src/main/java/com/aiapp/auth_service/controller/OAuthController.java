@@ -1,16 +1,26 @@
 package com.aiapp.auth_service.controller;
 
 import com.aiapp.auth_service.entity.OAuthToken;
-import com.aiapp.auth_service.entity.User;
+import com.aiapp.auth_service.repository.OAuthTokenSummary;
+import com.aiapp.auth_service.repository.UserSummary;
 import com.aiapp.auth_service.service.OAuthService;
+import com.aiapp.auth_service.service.OAuthTokenBatchService;
+import com.aiapp.auth_service.service.TokenReaper;
+import com.aiapp.auth_service.service.UserCache;
 import com.aiapp.auth_service.service.UserService;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -22,6 +32,9 @@ public class OAuthController {
 
     private final OAuthService oAuthService;
     private final UserService userService;
+    private final TokenReaper tokenReaper;
+    private final OAuthTokenBatchService tokenBatchService;
+    private final ObjectMapper objectMapper;
 
     /**
      * Store OAuth token for a user
@@ -31,13 +44,13 @@ public class OAuthController {
         try {
             log.info("Storing OAuth token for user: {} with provider: {}", request.getUserId(), request.getProvider());
             
-            Optional<User> userOpt = userService.findById(request.getUserId());
+            Optional<UserCache.CachedUser> userOpt = userService.findById(request.getUserId());
             if (userOpt.isEmpty()) {
                 return ResponseEntity.badRequest()
                     .body(new ErrorResponse("User not found with ID: " + request.getUserId()));
             }
             
-            User user = userOpt.get();
+            UserCache.CachedUser user = userOpt.get();
             
             OAuthToken token = oAuthService.storeOAuthToken(
                 user,
@@ -59,6 +72,55 @@ public class OAuthController {
         }
     }
 
+    /**
+     * Store many OAuth tokens in one call, sent as a JSON array or as NDJSON (one token per line).
+     * Every item gets its own result; an item that fails does not fail the others.
+     */
+    @PostMapping(value = "/tokens/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<?> storeOAuthTokens(HttpServletRequest httpRequest) {
+        List<OAuthTokenBatchService.Item> items = new ArrayList<>();
+        // Read item by item, so an oversized batch is refused before it is held in memory
+        try (MappingIterator<OAuthTokenRequest> requests = objectMapper.readerFor(OAuthTokenRequest.class)
+                .readValues(httpRequest.getInputStream())) {
+            while (requests.hasNext()) {
+                if (items.size() == tokenBatchService.getMaxItems()) {
+                    return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+                        .body(new ErrorResponse("Batch exceeds " + tokenBatchService.getMaxItems() + " tokens"));
+                }
+                OAuthTokenRequest request = requests.next();
+                if (request == null) {
+                    request = new OAuthTokenRequest();
+                }
+                items.add(new OAuthTokenBatchService.Item(
+                    request.getUserId(),
+                    request.getProvider(),
+                    request.getProviderUserId(),
+                    request.getAccessToken(),
+                    request.getRefreshToken(),
+                    request.getTokenType(),
+                    request.getScope(),
+                    request.getExpiresIn()
+                ));
+            }
+        } catch (IOException | RuntimeException e) {
+            return ResponseEntity.badRequest()
+                .body(new ErrorResponse("Malformed token batch: " + e.getMessage()));
+        }
+
+        try {
+            log.info("Storing a batch of {} OAuth tokens", items.size());
+            
+            List<OAuthTokenBatchService.ItemResult> results = tokenBatchService.storeAll(items);
+            
+            return ResponseEntity.ok(new BatchResponse(results));
+            
+        } catch (Exception e) {
+            log.error("Error storing OAuth token batch", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(new ErrorResponse("Failed to store OAuth token batch: " + e.getMessage()));
+        }
+    }
+
     /**
      * Get OAuth tokens for a user
      */
@@ -67,16 +129,13 @@ public class OAuthController {
         try {
             log.info("Fetching OAuth tokens for user: {}", userId);
             
-            Optional<User> userOpt = userService.findById(userId);
+            Optional<UserCache.CachedUser> userOpt = userService.findById(userId);
             if (userOpt.isEmpty()) {
                 return ResponseEntity.badRequest()
                     .body(new ErrorResponse("User not found with ID: " + userId));
             }
             
-            User user = userOpt.get();
-            List<OAuthToken> tokens = oAuthService.findActiveTokensByUser(user);
-            
-            List<OAuthTokenResponse> tokenResponses = tokens.stream()
+            List<OAuthTokenResponse> tokenResponses = oAuthService.findActiveTokenSummaries(userId).stream()
                 .map(OAuthTokenResponse::new)
                 .toList();
             
@@ -117,7 +176,7 @@ public class OAuthController {
         try {
             log.info("Finding user by OAuth provider: {} and providerUserId: {}", provider, providerUserId);
             
-            Optional<User> userOpt = oAuthService.findUserByOAuthProvider(provider, providerUserId);
+            Optional<UserSummary> userOpt = oAuthService.findUserByOAuthProvider(provider, providerUserId);
             
             if (userOpt.isEmpty()) {
                 return ResponseEntity.notFound().build();
@@ -140,13 +199,13 @@ public class OAuthController {
         try {
             log.info("Deactivating OAuth tokens for user: {}", userId);
             
-            Optional<User> userOpt = userService.findById(userId);
+            Optional<UserCache.CachedUser> userOpt = userService.findById(userId);
             if (userOpt.isEmpty()) {
                 return ResponseEntity.badRequest()
                     .body(new ErrorResponse("User not found with ID: " + userId));
             }
             
-            User user = userOpt.get();
+            UserCache.CachedUser user = userOpt.get();
             oAuthService.deactivateUserTokens(user);
             
             return ResponseEntity.ok(new SuccessResponse("All OAuth tokens deactivated successfully"));
@@ -159,21 +218,23 @@ public class OAuthController {
     }
 
     /**
-     * Cleanup expired tokens (admin endpoint)
+     * Start a background cleanup of expired tokens (admin endpoint); progress is logged and exported as metrics
      */
     @PostMapping("/tokens/cleanup")
     public ResponseEntity<?> cleanupExpiredTokens() {
         try {
-            log.info("Starting OAuth token cleanup");
+            log.info("OAuth token cleanup requested");
             
-            oAuthService.cleanupExpiredTokens();
+            if (!tokenReaper.triggerAsync()) {
+                return ResponseEntity.accepted().body(new SuccessResponse("Token cleanup already running"));
+            }
             
-            return ResponseEntity.ok(new SuccessResponse("Token cleanup completed successfully"));
+            return ResponseEntity.accepted().body(new SuccessResponse("Token cleanup started"));
             
         } catch (Exception e) {
-            log.error("Error during OAuth token cleanup", e);
+            log.error("Error starting OAuth token cleanup", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                .body(new ErrorResponse("Failed to cleanup tokens: " + e.getMessage()));
+                .body(new ErrorResponse("Failed to start token cleanup: " + e.getMessage()));
         }
     }
 
@@ -234,6 +295,16 @@ public class OAuthController {
             this.isExpired = token.isExpired();
         }
         
+        public OAuthTokenResponse(OAuthTokenSummary token) {
+            this.id = token.id();
+            this.provider = token.provider();
+            this.providerUserId = token.providerUserId();
+            this.tokenType = token.tokenType();
+            this.scope = token.scope();
+            this.isActive = Boolean.TRUE.equals(token.isActive());
+            this.isExpired = token.isExpired();
+        }
+        
         // Getters
         public Long getId() { return id; }
         public String getProvider() { return provider; }
@@ -244,6 +315,23 @@ public class OAuthController {
         public boolean isExpired() { return isExpired; }
     }
     
+    public static class BatchResponse {
+        private int created;
+        private int failed;
+        private List<OAuthTokenBatchService.ItemResult> results;
+        
+        public BatchResponse(List<OAuthTokenBatchService.ItemResult> results) {
+            this.created = (int) results.stream().filter(result -> result.tokenId() != null).count();
+            this.failed = results.size() - created;
+            this.results = results;
+        }
+        
+        // Getters
+        public int getCreated() { return created; }
+        public int getFailed() { return failed; }
+        public List<OAuthTokenBatchService.ItemResult> getResults() { return results; }
+    }
+    
     public static class TokenValidationRequest {
         private String accessToken;
         
@@ -268,12 +356,12 @@ public class OAuthController {
         private String firstName;
         private String lastName;
         
-        public UserResponse(User user) {
-            this.id = user.getId();
-            this.username = user.getUsername();
-            this.email = user.getEmail();
-            this.firstName = user.getFirstName();
-            this.lastName = user.getLastName();
+        public UserResponse(UserSummary user) {
+            this.id = user.id();
+            this.username = user.username();
+            this.email = user.email();
+            this.firstName = user.firstName();
+            this.lastName = user.lastName();
         }
         
         // Getters
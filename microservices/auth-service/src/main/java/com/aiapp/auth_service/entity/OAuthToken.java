@@ -11,7 +11,11 @@ import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
+import java.util.HexFormat;
 
 @Data
 @Builder
@@ -21,13 +25,16 @@ import java.time.LocalDateTime;
 @Table(name = "oauth_tokens", indexes = {
     @Index(name = "idx_oauth_user_provider", columnList = "user_id, provider"),
     @Index(name = "idx_oauth_provider", columnList = "provider"),
-    @Index(name = "idx_oauth_expires_at", columnList = "expires_at")
+    @Index(name = "idx_oauth_expires_at", columnList = "expires_at"),
+    @Index(name = "idx_oauth_access_token_hash", columnList = "access_token_hash")
 })
 @EntityListeners(AuditingEntityListener.class)
 public class OAuthToken {
     
+    // Pooled sequence ids (V5__pooled_token_ids.sql) let Hibernate batch inserts; IDENTITY forces one insert per round-trip
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "oauth_token_ids")
+    @SequenceGenerator(name = "oauth_token_ids", sequenceName = "oauth_token_ids", allocationSize = 50)
     private Long id;
 
     // Relationship with User entity
@@ -48,6 +55,10 @@ public class OAuthToken {
     @Column(name = "access_token", nullable = false, columnDefinition = "TEXT")
     private String accessToken;
 
+    // Hex SHA-256 of accessToken; validation looks tokens up by this indexed column
+    @Column(name = "access_token_hash", nullable = false, columnDefinition = "CHAR(64)")
+    private String accessTokenHash;
+
     @Column(name = "refresh_token", columnDefinition = "TEXT")
     private String refreshToken;
 
@@ -63,10 +74,11 @@ public class OAuthToken {
     @Column(name = "expires_at")
     private LocalDateTime expiresAt;
 
+    @Builder.Default
     @Column(name = "is_active")
     private Boolean isActive = true;
 
-    // Audit fields
+    // Audit fields; created_at is also the partition key of oauth_tokens, so it never changes
     @CreatedDate
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -91,11 +103,26 @@ public class OAuthToken {
         this.lastUsedAt = LocalDateTime.now();
     }
 
+    /**
+     * Digest stored in {@code access_token_hash}, matching the backfill in V2__hash_access_tokens.sql
+     */
+    public static String hashAccessToken(String accessToken) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(accessToken.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
     @PrePersist
     protected void onCreate() {
         if (createdAt == null) {
             createdAt = LocalDateTime.now();
         }
+        if (accessToken != null) {
+            accessTokenHash = hashAccessToken(accessToken);
+        }
         if (expiresAt == null && expiresIn != null) {
             expiresAt = createdAt.plusSeconds(expiresIn);
         }
@@ -104,5 +131,8 @@ public class OAuthToken {
     @PreUpdate
     protected void onUpdate() {
         updatedAt = LocalDateTime.now();
+        if (accessToken != null) {
+            accessTokenHash = hashAccessToken(accessToken);
+        }
     }
 }
\ No newline at end of file
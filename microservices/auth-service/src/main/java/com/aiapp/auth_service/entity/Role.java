@@ -1,6 +1,8 @@
-package com.aiapp.aputh_service.entity;
+package com.aiapp.auth_service.entity;
 
 import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
 
 @Data
 @NoArgsConstructor // satisfies jpa requirement for constructors
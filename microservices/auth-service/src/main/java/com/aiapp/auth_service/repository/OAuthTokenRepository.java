@@ -29,6 +29,14 @@ public interface OAuthTokenRepository extends JpaRepository<OAuthToken, Long> {
     @Query("SELECT t FROM OAuthToken t WHERE t.user = :user AND t.isActive = true")
     List<OAuthToken> findActiveTokensByUser(@Param("user") User user);
 
+    /**
+     * Response columns of a user's active tokens, in one query and without hydrating tokens or user
+     */
+    @Query("SELECT new com.aiapp.auth_service.repository.OAuthTokenSummary(t.id, t.provider, t.providerUserId, "
+            + "t.tokenType, t.scope, t.isActive, t.expiresAt) "
+            + "FROM OAuthToken t WHERE t.user.id = :userId AND t.isActive = true ORDER BY t.id")
+    List<OAuthTokenSummary> findActiveTokenSummariesByUserId(@Param("userId") Long userId);
+
     /**
      * Find OAuth token by user and provider
      */
@@ -50,7 +58,8 @@ public interface OAuthTokenRepository extends JpaRepository<OAuthToken, Long> {
     List<OAuthToken> findExpiredTokens(@Param("currentTime") LocalDateTime currentTime);
 
     /**
-     * Find tokens that haven't been used for a specific period
+     * Find tokens that haven't been used for a specific period. Last-used times are written behind
+     * by TokenUsageRecorder, so results can lag by up to app.token-usage.flush-interval.
      */
     @Query("SELECT t FROM OAuthToken t WHERE t.lastUsedAt < :cutoffTime AND t.isActive = true")
     List<OAuthToken> findUnusedTokensSince(@Param("cutoffTime") LocalDateTime cutoffTime);
@@ -96,15 +105,8 @@ public interface OAuthTokenRepository extends JpaRepository<OAuthToken, Long> {
     long countActiveTokensByProvider(@Param("provider") String provider);
 
     /**
-     * Find tokens by access token (for validation)
+     * Find active tokens by the SHA-256 of the access token (for validation), newest first
      */
-    @Query("SELECT t FROM OAuthToken t WHERE t.accessToken = :accessToken AND t.isActive = true")
-    Optional<OAuthToken> findByAccessToken(@Param("accessToken") String accessToken);
-
-    /**
-     * Clean up old inactive tokens (for maintenance)
-     */
-    @Modifying
-    @Query("DELETE FROM OAuthToken t WHERE t.isActive = false AND t.updatedAt < :cutoffTime")
-    int deleteOldInactiveTokens(@Param("cutoffTime") LocalDateTime cutoffTime);
+    @Query("SELECT t FROM OAuthToken t WHERE t.accessTokenHash = :accessTokenHash AND t.isActive = true ORDER BY t.id DESC")
+    List<OAuthToken> findActiveByAccessTokenHash(@Param("accessTokenHash") String accessTokenHash);
 }
\ No newline at end of file
@@ -0,0 +1,14 @@
+package com.aiapp.auth_service.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * The columns of an OAuth token that API responses expose, selected without loading the entity
+ */
+public record OAuthTokenSummary(Long id, String provider, String providerUserId, String tokenType, String scope,
+                                Boolean isActive, LocalDateTime expiresAt) {
+
+    public boolean isExpired() {
+        return expiresAt != null && LocalDateTime.now().isAfter(expiresAt);
+    }
+}
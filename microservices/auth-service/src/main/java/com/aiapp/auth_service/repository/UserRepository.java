@@ -1,31 +1,46 @@
 package com.aiapp.auth_service.repository;
 
 import com.aiapp.auth_service.entity.User;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
+
+    // Lookups return users with their roles in one joined query; UserCache snapshots both
+
+    /**
+     * Find user by ID
+     */
+    @Override
+    @EntityGraph(attributePaths = "roles")
+    Optional<User> findById(Long id);
     
     /**
      * Find user by email
      */
+    @EntityGraph(attributePaths = "roles")
     @Query("SELECT u FROM User u WHERE u.email = :email")
     Optional<User> findByEmail(@Param("email") String email);
     
     /**
      * Find user by username
      */
+    @EntityGraph(attributePaths = "roles")
     @Query("SELECT u FROM User u WHERE u.username = :username")
     Optional<User> findByUsername(@Param("username") String username);
     
     /**
      * Find user by OAuth provider and provider user ID
      */
+    @EntityGraph(attributePaths = "roles")
     @Query("SELECT u FROM User u WHERE u.oauthProvider = :provider AND u.oauthId = :oauthId")
     Optional<User> findByOAuthProviderAndOAuthId(@Param("provider") String provider, @Param("oauthId") String oauthId);
     
@@ -43,4 +58,20 @@ public interface UserRepository extends JpaRepository<User, Long> {
      * Check if OAuth user exists
      */
     boolean existsByOauthProviderAndOauthId(String oauthProvider, String oauthId);
-}
\ No newline at end of file
+
+    /**
+     * IDs among the given ones that belong to existing users, without loading the users
+     */
+    @Query("SELECT u.id FROM User u WHERE u.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Profile of the users owning an active token for the given provider account, newest token first
+     */
+    @Query("SELECT new com.aiapp.auth_service.repository.UserSummary(u.id, u.username, u.email, u.firstName, u.lastName) "
+            + "FROM OAuthToken t JOIN t.user u "
+            + "WHERE t.provider = :provider AND t.providerUserId = :providerUserId AND t.isActive = true "
+            + "ORDER BY t.createdAt DESC, t.id DESC")
+    List<UserSummary> findSummariesByActiveOAuthToken(@Param("provider") String provider,
+                                                      @Param("providerUserId") String providerUserId);
+}
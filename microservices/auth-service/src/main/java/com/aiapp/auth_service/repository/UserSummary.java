@@ -0,0 +1,7 @@
+package com.aiapp.auth_service.repository;
+
+/**
+ * The public profile columns of a user, selected without loading the entity or its roles
+ */
+public record UserSummary(Long id, String username, String email, String firstName, String lastName) {
+}
@@ -0,0 +1,145 @@
+package com.aiapp.auth_service.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.MessageDigest;
+import java.security.interfaces.RSAPrivateCrtKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.RSAPublicKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Holds the RSA key pair used to sign access tokens and publishes the public half as a JWKS.
+ * Previous public keys can be listed so tokens signed before a rotation keep verifying.
+ */
+@Slf4j
+@Service
+public class JwtKeyService {
+
+    private static final Base64.Encoder BASE64_URL = Base64.getUrlEncoder().withoutPadding();
+
+    private final KeyPair signingKeyPair;
+    private final String signingKeyId;
+    private final List<Map<String, Object>> publicJwks;
+
+    public JwtKeyService(ResourceLoader resourceLoader,
+                         @Value("${app.jwt.signing.private-key-location:}") String privateKeyLocation,
+                         @Value("${app.jwt.signing.previous-public-key-locations:}") String[] previousPublicKeyLocations,
+                         @Value("${app.jwt.signing.allow-ephemeral-key:false}") boolean allowEphemeralKey)
+            throws IOException, GeneralSecurityException {
+        if (StringUtils.hasText(privateKeyLocation)) {
+            this.signingKeyPair = loadKeyPair(resourceLoader.getResource(privateKeyLocation));
+        } else if (!allowEphemeralKey) {
+            // Each replica would sign with its own key, and every restart would invalidate all issued tokens
+            throw new IllegalStateException("app.jwt.signing.private-key-location must be set");
+        } else {
+            log.warn("No app.jwt.signing.private-key-location configured, generating an ephemeral RSA signing key");
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(2048);
+            this.signingKeyPair = generator.generateKeyPair();
+        }
+
+        RSAPublicKey signingPublicKey = (RSAPublicKey) signingKeyPair.getPublic();
+        this.signingKeyId = thumbprint(signingPublicKey);
+
+        List<Map<String, Object>> jwks = new ArrayList<>();
+        jwks.add(toJwk(signingPublicKey, signingKeyId));
+        for (String location : previousPublicKeyLocations) {
+            if (StringUtils.hasText(location)) {
+                RSAPublicKey previous = loadPublicKey(resourceLoader.getResource(location.trim()));
+                jwks.add(toJwk(previous, thumbprint(previous)));
+            }
+        }
+        this.publicJwks = Collections.unmodifiableList(jwks);
+        log.info("JWT signing key {} active, publishing {} public keys", signingKeyId, publicJwks.size());
+    }
+
+    public KeyPair getSigningKeyPair() {
+        return signingKeyPair;
+    }
+
+    /**
+     * Key ID to put in the {@code kid} header of tokens signed with {@link #getSigningKeyPair()}
+     */
+    public String getSigningKeyId() {
+        return signingKeyId;
+    }
+
+    /**
+     * Public keys in JWK form, current signing key first
+     */
+    public List<Map<String, Object>> getPublicJwks() {
+        return publicJwks;
+    }
+
+    private static KeyPair loadKeyPair(Resource resource) throws IOException, GeneralSecurityException {
+        KeyFactory keyFactory = KeyFactory.getInstance("RSA");
+        RSAPrivateCrtKey privateKey = (RSAPrivateCrtKey) keyFactory.generatePrivate(
+                new PKCS8EncodedKeySpec(readPem(resource)));
+        RSAPublicKey publicKey = (RSAPublicKey) keyFactory.generatePublic(
+                new RSAPublicKeySpec(privateKey.getModulus(), privateKey.getPublicExponent()));
+        return new KeyPair(publicKey, privateKey);
+    }
+
+    private static RSAPublicKey loadPublicKey(Resource resource) throws IOException, GeneralSecurityException {
+        return (RSAPublicKey) KeyFactory.getInstance("RSA").generatePublic(new X509EncodedKeySpec(readPem(resource)));
+    }
+
+    private static byte[] readPem(Resource resource) throws IOException {
+        try (InputStream in = resource.getInputStream()) {
+            String pem = new String(in.readAllBytes(), StandardCharsets.US_ASCII);
+            String body = pem.replaceAll("-----(BEGIN|END) [A-Z ]+-----", "").replaceAll("\\s", "");
+            return Base64.getDecoder().decode(body);
+        }
+    }
+
+    private static Map<String, Object> toJwk(RSAPublicKey key, String keyId) {
+        Map<String, Object> jwk = new LinkedHashMap<>();
+        jwk.put("kty", "RSA");
+        jwk.put("use", "sig");
+        jwk.put("alg", "RS256");
+        jwk.put("kid", keyId);
+        jwk.put("n", encode(key.getModulus()));
+        jwk.put("e", encode(key.getPublicExponent()));
+        return jwk;
+    }
+
+    /**
+     * RFC 7638 JWK thumbprint, so the key ID is stable for a given key across restarts and replicas
+     */
+    private static String thumbprint(RSAPublicKey key) throws GeneralSecurityException {
+        String canonical = "{\"e\":\"" + encode(key.getPublicExponent())
+                + "\",\"kty\":\"RSA\",\"n\":\"" + encode(key.getModulus()) + "\"}";
+        byte[] digest = MessageDigest.getInstance("SHA-256").digest(canonical.getBytes(StandardCharsets.UTF_8));
+        return BASE64_URL.encodeToString(digest);
+    }
+
+    private static String encode(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        if (bytes.length > 1 && bytes[0] == 0) {
+            bytes = Arrays.copyOfRange(bytes, 1, bytes.length);
+        }
+        return BASE64_URL.encodeToString(bytes);
+    }
+}
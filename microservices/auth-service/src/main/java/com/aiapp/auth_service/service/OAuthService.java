@@ -1,8 +1,10 @@
 package com.aiapp.auth_service.service;
 
 import com.aiapp.auth_service.entity.OAuthToken;
-import com.aiapp.auth_service.entity.User;
 import com.aiapp.auth_service.repository.OAuthTokenRepository;
+import com.aiapp.auth_service.repository.OAuthTokenSummary;
+import com.aiapp.auth_service.repository.UserRepository;
+import com.aiapp.auth_service.repository.UserSummary;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -18,11 +20,17 @@ import java.util.Optional;
 @Transactional
 public class OAuthService {
     private final OAuthTokenRepository tokenRepository;
-    public OAuthToken storeAccessToken(User user, String provider, String providerUserId, String accessToken, String refreshToken, String tokenType, String scope, LocalDateTime expiresAt) {
-        log.info("Storing OAuth token for user: {}, provider: {}", user.getUsername(), provider);
+    private final UserRepository userRepository;
+    private final TokenRevocationPublisher tokenRevocationPublisher;
+    private final TokenValidationCache tokenValidationCache;
+    private final TokenUsageRecorder tokenUsageRecorder;
+
+    public OAuthToken storeAccessToken(UserCache.CachedUser user, String provider, String providerUserId, String accessToken, String refreshToken, String tokenType, String scope, LocalDateTime expiresAt) {
+        log.info("Storing OAuth token for user: {}, provider: {}", user.username(), provider);
         
         OAuthToken token = OAuthToken.builder()
-                .user(user)
+                // Only the foreign key is needed, so the user row is not loaded
+                .user(userRepository.getReferenceById(user.id()))
                 .provider(provider)
                 .providerUserId(providerUserId)
                 .accessToken(accessToken)
@@ -32,5 +40,70 @@ public class OAuthService {
                 .expiresAt(expiresAt)
                 .build();
         
-        return tokenRepository.save(token);
-    } 
\ No newline at end of file
+        OAuthToken saved = tokenRepository.save(token);
+        // A validation attempt before the token was stored may have cached it as invalid
+        tokenValidationCache.invalidateToken(saved.getAccessTokenHash());
+        return saved;
+    }
+
+    /**
+     * Store OAuth token with a lifetime in seconds as reported by the provider
+     */
+    public OAuthToken storeOAuthToken(UserCache.CachedUser user, String provider, String providerUserId, String accessToken, String refreshToken, String tokenType, String scope, Integer expiresIn) {
+        LocalDateTime expiresAt = expiresIn != null ? LocalDateTime.now().plusSeconds(expiresIn) : null;
+        OAuthToken token = storeAccessToken(user, provider, providerUserId, accessToken, refreshToken, tokenType, scope, expiresAt);
+        token.setExpiresIn(expiresIn);
+        return token;
+    }
+
+    /**
+     * Response columns of a user's active tokens
+     */
+    @Transactional(readOnly = true)
+    public List<OAuthTokenSummary> findActiveTokenSummaries(Long userId) {
+        return tokenRepository.findActiveTokenSummariesByUserId(userId);
+    }
+
+    /**
+     * Validate an access token and record its usage; the last-used time is written behind in batches
+     */
+    @Transactional(readOnly = true)
+    public boolean validateAndUseToken(String accessToken) {
+        TokenValidationCache.CachedToken token = tokenValidationCache.get(
+                OAuthToken.hashAccessToken(accessToken), this::loadValidation);
+        if (!token.isValid()) {
+            return false;
+        }
+
+        tokenUsageRecorder.record(token.tokenId(), LocalDateTime.now());
+        return true;
+    }
+
+    private TokenValidationCache.CachedToken loadValidation(String accessTokenHash) {
+        return tokenRepository.findActiveByAccessTokenHash(accessTokenHash).stream()
+                .filter(OAuthToken::isValid)
+                .findFirst()
+                .map(token -> new TokenValidationCache.CachedToken(token.getId(), token.getUser().getId(), token.getExpiresAt()))
+                .orElse(TokenValidationCache.CachedToken.INVALID);
+    }
+
+    /**
+     * Find the user owning an active token for the given provider account; the newest token wins if several are active
+     */
+    @Transactional(readOnly = true)
+    public Optional<UserSummary> findUserByOAuthProvider(String provider, String providerUserId) {
+        return userRepository.findSummariesByActiveOAuthToken(provider, providerUserId).stream().findFirst();
+    }
+
+    /**
+     * Deactivate all tokens for a user (logout)
+     */
+    public void deactivateUserTokens(UserCache.CachedUser user) {
+        int deactivated = tokenRepository.deactivateUserTokens(userRepository.getReferenceById(user.id()), LocalDateTime.now());
+        log.info("Deactivated {} OAuth tokens for user: {}", deactivated, user.username());
+        tokenValidationCache.invalidateUser(user.id());
+
+        // Gateway JWTs stay valid until exp unless every gateway pod learns about the logout
+        tokenRevocationPublisher.revokeUser(user.username());
+    }
+}
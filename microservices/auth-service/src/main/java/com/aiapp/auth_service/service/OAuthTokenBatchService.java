@@ -0,0 +1,217 @@
+package com.aiapp.auth_service.service;
+
+import com.aiapp.auth_service.entity.OAuthToken;
+import com.aiapp.auth_service.entity.User;
+import com.aiapp.auth_service.repository.OAuthTokenRepository;
+import com.aiapp.auth_service.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Bulk token import behind {@code POST /api/oauth/tokens/batch}. Users are checked with one query per
+ * chunk and referenced without being loaded; tokens are stored {@code chunk-size} at a time, each chunk in
+ * its own transaction, so Hibernate sends them as JDBC batches. A chunk that fails is retried item by
+ * item, so one bad token fails alone instead of taking its neighbours down with it.
+ */
+@Slf4j
+@Service
+public class OAuthTokenBatchService {
+
+    private final UserRepository userRepository;
+    private final OAuthTokenRepository tokenRepository;
+    private final TokenValidationCache tokenValidationCache;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxItems;
+    private final int chunkSize;
+    private final Counter createdItems;
+    private final Counter failedItems;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public OAuthTokenBatchService(UserRepository userRepository,
+                                  OAuthTokenRepository tokenRepository,
+                                  TokenValidationCache tokenValidationCache,
+                                  TransactionTemplate transactionTemplate,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${app.token-batch.max-items:10000}") int maxItems,
+                                  @Value("${app.token-batch.chunk-size:500}") int chunkSize) {
+        this.userRepository = userRepository;
+        this.tokenRepository = tokenRepository;
+        this.tokenValidationCache = tokenValidationCache;
+        this.transactionTemplate = transactionTemplate;
+        this.maxItems = maxItems;
+        this.chunkSize = chunkSize;
+        this.createdItems = items(meterRegistry, "created");
+        this.failedItems = items(meterRegistry, "failed");
+    }
+
+    private static Counter items(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("oauth.token.batch.items")
+                .description("Tokens received by the batch import, by outcome")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Token to import; {@code expiresIn} is the lifetime in seconds as reported by the provider
+     */
+    public record Item(Long userId, String provider, String providerUserId, String accessToken,
+                       String refreshToken, String tokenType, String scope, Integer expiresIn) {
+    }
+
+    /**
+     * Outcome for the item at {@code index} of the request: {@code tokenId} when created, {@code error} when failed
+     */
+    public record ItemResult(int index, String status, Long tokenId, String error) {
+
+        static ItemResult created(int index, Long tokenId) {
+            return new ItemResult(index, "created", tokenId, null);
+        }
+
+        static ItemResult failed(int index, String error) {
+            return new ItemResult(index, "failed", null, error);
+        }
+    }
+
+    /**
+     * Largest number of items accepted in one request
+     */
+    public int getMaxItems() {
+        return maxItems;
+    }
+
+    /**
+     * Stores the items and returns one result per item, in request order
+     */
+    public List<ItemResult> storeAll(List<Item> items) {
+        ItemResult[] results = new ItemResult[items.size()];
+        for (int from = 0; from < items.size(); from += chunkSize) {
+            storeChunk(items, from, Math.min(from + chunkSize, items.size()), results);
+        }
+
+        long created = Arrays.stream(results).filter(result -> result.tokenId() != null).count();
+        createdItems.increment(created);
+        failedItems.increment(results.length - created);
+        log.info("Batch import stored {} of {} OAuth tokens", created, results.length);
+        return Arrays.asList(results);
+    }
+
+    private void storeChunk(List<Item> items, int from, int to, ItemResult[] results) {
+        Set<Long> userIds = new HashSet<>();
+        for (int i = from; i < to; i++) {
+            if (items.get(i).userId() != null) {
+                userIds.add(items.get(i).userId());
+            }
+        }
+        Set<Long> existingUsers = userIds.isEmpty() ? Set.of() : new HashSet<>(userRepository.findExistingIds(userIds));
+
+        List<Integer> valid = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            String error = validate(items.get(i), existingUsers);
+            if (error != null) {
+                results[i] = ItemResult.failed(i, error);
+            } else {
+                valid.add(i);
+            }
+        }
+        if (valid.isEmpty()) {
+            return;
+        }
+
+        try {
+            record(valid, save(items, valid), results);
+        } catch (RuntimeException e) {
+            // Flush errors surface untranslated from the entity manager, commit errors from the transaction manager
+            log.warn("Batch import chunk of {} tokens failed, retrying item by item: {}", valid.size(), e.getMessage());
+            for (int index : valid) {
+                try {
+                    record(List.of(index), save(items, List.of(index)), results);
+                } catch (RuntimeException itemFailure) {
+                    results[index] = ItemResult.failed(index,
+                            "Failed to store OAuth token: " + NestedExceptionUtils.getMostSpecificCause(itemFailure).getMessage());
+                }
+            }
+        }
+    }
+
+    private static void record(List<Integer> indexes, List<Long> tokenIds, ItemResult[] results) {
+        for (int i = 0; i < indexes.size(); i++) {
+            results[indexes.get(i)] = ItemResult.created(indexes.get(i), tokenIds.get(i));
+        }
+    }
+
+    /**
+     * Inserts the given items in one transaction and returns their ids once committed. Entities are built
+     * afresh on every call, since a rolled-back attempt leaves sequence ids behind on the ones it persisted.
+     */
+    private List<Long> save(List<Item> items, List<Integer> indexes) {
+        return transactionTemplate.execute(status -> {
+            List<OAuthToken> tokens = new ArrayList<>(indexes.size());
+            for (int index : indexes) {
+                tokens.add(toEntity(items.get(index)));
+            }
+            tokenRepository.saveAll(tokens);
+            entityManager.flush();
+            // Keeps the persistence context small when it is bound to the whole request
+            entityManager.clear();
+
+            List<Long> tokenIds = new ArrayList<>(tokens.size());
+            List<String> hashes = new ArrayList<>(tokens.size());
+            for (OAuthToken token : tokens) {
+                tokenIds.add(token.getId());
+                hashes.add(token.getAccessTokenHash());
+            }
+            // A validation attempt before the tokens were stored may have cached them as invalid
+            tokenValidationCache.invalidateTokens(hashes);
+            return tokenIds;
+        });
+    }
+
+    private OAuthToken toEntity(Item item) {
+        return OAuthToken.builder()
+                .user(entityManager.getReference(User.class, item.userId()))
+                .provider(item.provider())
+                .providerUserId(item.providerUserId())
+                .accessToken(item.accessToken())
+                .refreshToken(item.refreshToken())
+                .tokenType(Objects.requireNonNullElse(item.tokenType(), "Bearer"))
+                .scope(item.scope())
+                .expiresIn(item.expiresIn())
+                .build();
+    }
+
+    private static String validate(Item item, Set<Long> existingUsers) {
+        if (item.userId() == null || !existingUsers.contains(item.userId())) {
+            return "User not found with ID: " + item.userId();
+        }
+        if (isBlank(item.provider())) {
+            return "OAuth provider is required";
+        }
+        if (isBlank(item.providerUserId())) {
+            return "Provider user ID is required";
+        }
+        if (isBlank(item.accessToken())) {
+            return "Access token is required";
+        }
+        return null;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
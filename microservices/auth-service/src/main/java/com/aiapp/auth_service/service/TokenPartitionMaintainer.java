@@ -0,0 +1,174 @@
+package com.aiapp.auth_service.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps the monthly partitions of {@code oauth_tokens} (see V4__partition_oauth_tokens.sql) ahead of
+ * time and enforces retention by dropping whole partitions: one whose range ended more than
+ * {@code retention} ago goes once it holds no active, unexpired token. Partitions that cannot be dropped
+ * yet (one live token is enough, and the legacy and default partitions have no usable range) instead lose
+ * their inactive rows older than {@code retention}, in chunks of their own short transactions.
+ */
+@Slf4j
+@Service
+public class TokenPartitionMaintainer {
+
+    private static final String CREATE_SQL = "SELECT oauth_tokens_create_partitions(?)";
+    private static final String PARTITIONS_SQL = "SELECT c.relname, pg_get_expr(c.relpartbound, c.oid) "
+            + "FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid "
+            + "WHERE i.inhparent = 'oauth_tokens'::regclass";
+    private static final Pattern LOWER_BOUND = Pattern.compile("FROM \\('([^']+)'\\)");
+    private static final Pattern UPPER_BOUND = Pattern.compile("TO \\('([^']+)'\\)");
+    private static final String LOCK_SQL = "SELECT pg_try_advisory_xact_lock(hashtext('oauth_tokens_drop_partitions'))";
+    private static final String PURGE_LOCK_SQL = "SELECT pg_try_advisory_xact_lock(hashtext('oauth_tokens_purge_partitions'))";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int monthsAhead;
+    private final Duration retention;
+    private final int purgeChunkSize;
+    private final Counter createdPartitions;
+    private final Counter droppedPartitions;
+    private final Counter purgedRows;
+
+    public TokenPartitionMaintainer(JdbcTemplate jdbcTemplate,
+                                    TransactionTemplate transactionTemplate,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${app.token-partitions.months-ahead:3}") int monthsAhead,
+                                    @Value("${app.token-partitions.retention:90d}") Duration retention,
+                                    @Value("${app.token-partitions.purge-chunk-size:1000}") int purgeChunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.monthsAhead = monthsAhead;
+        this.retention = retention;
+        this.purgeChunkSize = purgeChunkSize;
+        this.createdPartitions = partitions(meterRegistry, "created");
+        this.droppedPartitions = partitions(meterRegistry, "dropped");
+        this.purgedRows = Counter.builder("oauth.token.partitions.purged.rows")
+                .description("Inactive rows deleted past retention from partitions that could not be dropped")
+                .register(meterRegistry);
+    }
+
+    private static Counter partitions(MeterRegistry meterRegistry, String action) {
+        return Counter.builder("oauth.token.partitions")
+                .tag("action", action)
+                .register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "${app.token-partitions.initial-delay:30s}",
+            fixedDelayString = "${app.token-partitions.interval:6h}")
+    public void maintain() {
+        try {
+            Integer created = jdbcTemplate.queryForObject(CREATE_SQL, Integer.class, monthsAhead);
+            if (created != null && created > 0) {
+                createdPartitions.increment(created);
+                log.info("Created {} oauth_tokens partitions", created);
+            }
+            LocalDateTime cutoff = LocalDateTime.now().minus(retention);
+            List<Partition> kept = transactionTemplate.execute(status -> dropExpiredPartitions(cutoff));
+            if (kept != null) {
+                kept.forEach(partition -> purgeInactiveTokens(partition, cutoff));
+            }
+        } catch (DataAccessException e) {
+            log.error("oauth_tokens partition maintenance failed", e);
+        }
+    }
+
+    /**
+     * @return the partitions that may hold rows past retention but were kept, or null if another
+     * replica is already maintaining them
+     */
+    private List<Partition> dropExpiredPartitions(LocalDateTime cutoff) {
+        // Another replica is already at it
+        if (!Boolean.TRUE.equals(jdbcTemplate.queryForObject(LOCK_SQL, Boolean.class))) {
+            return null;
+        }
+        List<Partition> partitions = jdbcTemplate.query(PARTITIONS_SQL, (rs, row) -> new Partition(rs.getString(1),
+                bound(LOWER_BOUND, rs.getString(2)), bound(UPPER_BOUND, rs.getString(2))));
+        List<Partition> kept = new ArrayList<>();
+        for (Partition partition : partitions) {
+            // Rows created after the cutoff cannot have been deactivated before it
+            if (partition.lowerBound() != null && partition.lowerBound().isAfter(cutoff)) {
+                continue;
+            }
+            if (partition.upperBound() == null || partition.upperBound().isAfter(cutoff)) {
+                kept.add(partition);
+                continue;
+            }
+            if (holdsLiveTokens(partition.name())) {
+                log.info("Keeping expired partition {}: it still holds active tokens", partition.name());
+                kept.add(partition);
+                continue;
+            }
+            jdbcTemplate.execute("DROP TABLE " + quote(partition.name()));
+            droppedPartitions.increment();
+            log.info("Dropped oauth_tokens partition {} (rows created before {})", partition.name(), partition.upperBound());
+        }
+        return kept;
+    }
+
+    /**
+     * Deletes the partition's inactive rows last changed before the cutoff, one chunk per transaction so
+     * no lock is held for long; stops early if another replica is purging
+     */
+    private void purgeInactiveTokens(Partition partition, LocalDateTime cutoff) {
+        String table = quote(partition.name());
+        String purgeSql = "DELETE FROM " + table + " WHERE id IN (SELECT id FROM " + table
+                + " WHERE is_active = false AND COALESCE(updated_at, created_at) < ? LIMIT ?)";
+        long purged = 0;
+        while (true) {
+            Integer deleted = transactionTemplate.execute(status ->
+                    Boolean.TRUE.equals(jdbcTemplate.queryForObject(PURGE_LOCK_SQL, Boolean.class))
+                            ? jdbcTemplate.update(purgeSql, Timestamp.valueOf(cutoff), purgeChunkSize)
+                            : null);
+            if (deleted == null) {
+                break;
+            }
+            purged += deleted;
+            purgedRows.increment(deleted);
+            if (deleted < purgeChunkSize) {
+                break;
+            }
+        }
+        if (purged > 0) {
+            log.info("Purged {} inactive tokens from oauth_tokens partition {}", purged, partition.name());
+        }
+    }
+
+    private boolean holdsLiveTokens(String partition) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM " + quote(partition)
+                        + " WHERE is_active = true AND (expires_at IS NULL OR expires_at > ?))",
+                Boolean.class, Timestamp.valueOf(LocalDateTime.now())));
+    }
+
+    /**
+     * Lower or upper bound of a range partition; null for the default partition or an unbounded range
+     */
+    private static LocalDateTime bound(Pattern bound, String boundExpression) {
+        Matcher matcher = bound.matcher(boundExpression);
+        return matcher.find() ? Timestamp.valueOf(matcher.group(1)).toLocalDateTime() : null;
+    }
+
+    private static String quote(String identifier) {
+        return '"' + identifier.replace("\"", "\"\"") + '"';
+    }
+
+    private record Partition(String name, LocalDateTime lowerBound, LocalDateTime upperBound) {
+    }
+}
@@ -0,0 +1,231 @@
+package com.aiapp.auth_service.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Deactivates expired tokens in the background; old rows go with their partition (see
+ * {@link TokenPartitionMaintainer}). The table is walked in keyset-paginated chunks by id, each in its
+ * own short transaction, with pauses that keep the scan under {@code max-rows-per-second}. A lease row in {@code maintenance_jobs} keeps the job on one
+ * replica, and the checkpoint stored with it lets a restarted replica resume mid-table.
+ */
+@Slf4j
+@Service
+public class TokenReaper {
+
+    static final String JOB_NAME = "token-reaper";
+
+    private static final String ACQUIRE_LEASE_SQL = "UPDATE maintenance_jobs SET lease_owner = ?, "
+            + "lease_until = now() + make_interval(secs => ?) "
+            + "WHERE name = ? AND (lease_owner IS NULL OR lease_until < now() OR lease_owner = ?)";
+    private static final String RENEW_LEASE_SQL = "UPDATE maintenance_jobs SET checkpoint_id = ?, "
+            + "lease_until = now() + make_interval(secs => ?) WHERE name = ? AND lease_owner = ?";
+    private static final String COMPLETE_RUN_SQL = "UPDATE maintenance_jobs SET checkpoint_id = 0, "
+            + "last_completed_at = now() WHERE name = ? AND lease_owner = ?";
+    private static final String RELEASE_LEASE_SQL = "UPDATE maintenance_jobs SET lease_owner = NULL, lease_until = NULL "
+            + "WHERE name = ? AND lease_owner = ?";
+    private static final String CHECKPOINT_SQL = "SELECT checkpoint_id FROM maintenance_jobs WHERE name = ?";
+
+    // Upper bound of the next chunk: a bounded index range scan, however sparse the matching rows are
+    private static final String CHUNK_SQL = "SELECT max(id), count(*) FROM "
+            + "(SELECT id FROM oauth_tokens WHERE id > ? ORDER BY id LIMIT ?) chunk";
+    private static final String DEACTIVATE_SQL = "UPDATE oauth_tokens SET is_active = false, updated_at = ? "
+            + "WHERE id > ? AND id <= ? AND is_active = true AND expires_at < ?";
+    private static final String OLDEST_PENDING_SQL = "SELECT min(expires_at) FROM oauth_tokens "
+            + "WHERE is_active = true AND expires_at < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TaskScheduler taskScheduler;
+    private final int chunkSize;
+    private final double maxRowsPerSecond;
+    private final Duration leaseDuration;
+    private final String owner;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile boolean stopping;
+    private volatile long lagSeconds;
+
+    private final Counter deactivatedRows;
+    private final DistributionSummary rowsPerRun;
+    private final Timer runTimer;
+
+    public TokenReaper(JdbcTemplate jdbcTemplate,
+                       TransactionTemplate transactionTemplate,
+                       TaskScheduler taskScheduler,
+                       MeterRegistry meterRegistry,
+                       @Value("${app.token-reaper.chunk-size:1000}") int chunkSize,
+                       @Value("${app.token-reaper.max-rows-per-second:5000}") double maxRowsPerSecond,
+                       @Value("${app.token-reaper.lease-duration:2m}") Duration leaseDuration) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.taskScheduler = taskScheduler;
+        this.chunkSize = chunkSize;
+        this.maxRowsPerSecond = maxRowsPerSecond;
+        this.leaseDuration = leaseDuration;
+        this.owner = hostName() + "/" + UUID.randomUUID();
+
+        this.deactivatedRows = rows(meterRegistry, "deactivated");
+        this.rowsPerRun = DistributionSummary.builder("oauth.token.reaper.run.rows")
+                .description("Rows scanned per completed run")
+                .register(meterRegistry);
+        this.runTimer = Timer.builder("oauth.token.reaper.run")
+                .description("Duration of reaper runs, including pauses")
+                .register(meterRegistry);
+        Gauge.builder("oauth.token.reaper.lag", this, reaper -> reaper.lagSeconds)
+                .description("Age of the oldest expired token still active after the last run")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    private static Counter rows(MeterRegistry meterRegistry, String action) {
+        return Counter.builder("oauth.token.reaper.rows")
+                .tag("action", action)
+                .register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "${app.token-reaper.initial-delay:1m}",
+            fixedDelayString = "${app.token-reaper.interval:10m}")
+    public void reap() {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            if (acquireLease()) {
+                runTimer.record(this::run);
+            }
+        } catch (DataAccessException | IllegalStateException e) {
+            log.error("Token reaper run failed, resuming from the last checkpoint next time", e);
+        } finally {
+            releaseLease();
+            running.set(false);
+        }
+    }
+
+    /**
+     * Starts a run in the background unless one is already in progress on this replica
+     *
+     * @return whether a run was started
+     */
+    public boolean triggerAsync() {
+        if (running.get()) {
+            return false;
+        }
+        taskScheduler.schedule(this::reap, Instant.now());
+        return true;
+    }
+
+    @PreDestroy
+    void stop() {
+        stopping = true;
+    }
+
+    private void run() {
+        long from = jdbcTemplate.queryForObject(CHECKPOINT_SQL, Long.class, JOB_NAME);
+        if (from > 0) {
+            log.info("Token reaper resuming after id {}", from);
+        }
+        long scanned = 0;
+        long deactivated = 0;
+        long pauseNanos = (long) (chunkSize / maxRowsPerSecond * 1_000_000_000L);
+
+        while (!stopping) {
+            long chunkStart = System.nanoTime();
+            long after = from;
+            Chunk chunk = transactionTemplate.execute(status -> processChunk(after));
+            if (chunk == null) {
+                // Table walked to the end
+                jdbcTemplate.update(COMPLETE_RUN_SQL, JOB_NAME, owner);
+                lagSeconds = measureLag();
+                rowsPerRun.record(scanned);
+                log.info("Token reaper scanned {} tokens and deactivated {}; oldest unreaped expiry {}s behind",
+                        scanned, deactivated, lagSeconds);
+                return;
+            }
+            from = chunk.lastId();
+            scanned += chunk.scanned();
+            deactivated += chunk.deactivated();
+
+            long remaining = pauseNanos - (System.nanoTime() - chunkStart);
+            if (remaining > 0) {
+                try {
+                    Thread.sleep(Duration.ofNanos(remaining));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+        log.info("Token reaper stopped after id {}; the next run resumes there", from);
+    }
+
+    /**
+     * One chunk in one transaction; the checkpoint and lease renewal commit with it
+     *
+     * @return null when there are no rows after {@code from}
+     */
+    private Chunk processChunk(long from) {
+        long[] range = jdbcTemplate.queryForObject(CHUNK_SQL,
+                (rs, row) -> new long[]{rs.getLong(1), rs.getLong(2)}, from, chunkSize);
+        if (range == null || range[1] == 0) {
+            return null;
+        }
+        long to = range[0];
+        LocalDateTime now = LocalDateTime.now();
+        int deactivated = jdbcTemplate.update(DEACTIVATE_SQL, Timestamp.valueOf(now), from, to, Timestamp.valueOf(now));
+        if (jdbcTemplate.update(RENEW_LEASE_SQL, to, leaseDuration.toSeconds(), JOB_NAME, owner) == 0) {
+            throw new IllegalStateException("Token reaper lease lost to another replica");
+        }
+        deactivatedRows.increment(deactivated);
+        return new Chunk(to, range[1], deactivated);
+    }
+
+    private boolean acquireLease() {
+        return jdbcTemplate.update(ACQUIRE_LEASE_SQL, owner, leaseDuration.toSeconds(), JOB_NAME, owner) == 1;
+    }
+
+    private void releaseLease() {
+        try {
+            jdbcTemplate.update(RELEASE_LEASE_SQL, JOB_NAME, owner);
+        } catch (DataAccessException e) {
+            log.warn("Failed to release token reaper lease, it expires in {}", leaseDuration, e);
+        }
+    }
+
+    private long measureLag() {
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp oldest = jdbcTemplate.queryForObject(OLDEST_PENDING_SQL, Timestamp.class, Timestamp.valueOf(now));
+        return oldest == null ? 0 : Duration.between(oldest.toLocalDateTime(), now).toSeconds();
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "unknown";
+        }
+    }
+
+    private record Chunk(long lastId, long scanned, int deactivated) {
+    }
+}
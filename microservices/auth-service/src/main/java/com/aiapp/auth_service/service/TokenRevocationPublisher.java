@@ -0,0 +1,46 @@
+package com.aiapp.auth_service.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Writes revocations to the Redis revocation list and announces them to gateway pods over pub/sub
+ */
+@Slf4j
+@Service
+public class TokenRevocationPublisher {
+
+    // Shared with the gateway's TokenRevocationService
+    static final String REVOKED_USERS_KEY = "auth:revoked:users";
+    static final String REVOCATION_CHANNEL = "auth:revocations";
+
+    private final StringRedisTemplate redisTemplate;
+    private final Duration maxTokenLifetime;
+
+    public TokenRevocationPublisher(StringRedisTemplate redisTemplate,
+                                    @Value("${app.revocation.max-token-lifetime:24h}") Duration maxTokenLifetime) {
+        this.redisTemplate = redisTemplate;
+        this.maxTokenLifetime = maxTokenLifetime;
+    }
+
+    /**
+     * Revoke every token of the user issued before now
+     */
+    public void revokeUser(String username) {
+        long watermark = Instant.now().toEpochMilli();
+        try {
+            redisTemplate.opsForZSet().add(REVOKED_USERS_KEY, username, watermark);
+            // Watermarks older than any token still in circulation can no longer match
+            redisTemplate.opsForZSet().removeRangeByScore(REVOKED_USERS_KEY, 0, watermark - maxTokenLifetime.toMillis());
+            redisTemplate.convertAndSend(REVOCATION_CHANNEL, "user:" + watermark + ":" + username);
+        } catch (DataAccessException e) {
+            log.error("Failed to publish revocation for user: {}", username, e);
+        }
+    }
+}
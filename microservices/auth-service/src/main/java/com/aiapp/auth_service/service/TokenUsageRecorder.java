@@ -0,0 +1,128 @@
+package com.aiapp.auth_service.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind for {@code last_used_at}: validations record usage in memory, keeping the latest time
+ * per token, and the pending times are written in JDBC batches every {@code flush-interval}, once
+ * {@code max-pending} tokens are waiting, and on shutdown. Stored times can therefore lag real usage
+ * by up to one flush interval.
+ */
+@Slf4j
+@Service
+public class TokenUsageRecorder {
+
+    // Never moves a timestamp backwards, whichever replica flushes last
+    private static final String UPDATE_SQL = "UPDATE oauth_tokens SET last_used_at = ?, updated_at = ? "
+            + "WHERE id = ? AND (last_used_at IS NULL OR last_used_at < ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TaskScheduler taskScheduler;
+    private final int maxPending;
+    private final int batchSize;
+    private final Map<Long, LocalDateTime> pending = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final Timer flushTimer;
+    private final DistributionSummary batchSizes;
+
+    public TokenUsageRecorder(JdbcTemplate jdbcTemplate,
+                              TaskScheduler taskScheduler,
+                              MeterRegistry meterRegistry,
+                              @Value("${app.token-usage.max-pending:10000}") int maxPending,
+                              @Value("${app.token-usage.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.taskScheduler = taskScheduler;
+        this.maxPending = maxPending;
+        this.batchSize = batchSize;
+        this.flushTimer = Timer.builder("oauth.token.usage.flush")
+                .description("Time to write pending last-used times")
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("oauth.token.usage.batch.size")
+                .description("Tokens written per flush")
+                .register(meterRegistry);
+        Gauge.builder("oauth.token.usage.pending", pending, Map::size)
+                .description("Tokens whose last-used time is not yet written")
+                .register(meterRegistry);
+    }
+
+    public void record(Long tokenId, LocalDateTime usedAt) {
+        pending.merge(tokenId, usedAt, (current, next) -> next.isAfter(current) ? next : current);
+        if (pending.size() >= maxPending && flushRequested.compareAndSet(false, true)) {
+            taskScheduler.schedule(this::flush, Instant.now());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.token-usage.flush-interval:5s}")
+    public void flush() {
+        flushRequested.set(false);
+        flushLock.lock();
+        try {
+            List<Map.Entry<Long, LocalDateTime>> batch = drain();
+            if (batch.isEmpty()) {
+                return;
+            }
+            flushTimer.record(() -> write(batch));
+            batchSizes.record(batch.size());
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+
+    private List<Map.Entry<Long, LocalDateTime>> drain() {
+        List<Map.Entry<Long, LocalDateTime>> batch = new ArrayList<>(pending.size());
+        for (Long tokenId : pending.keySet()) {
+            LocalDateTime usedAt = pending.remove(tokenId);
+            if (usedAt != null) {
+                batch.add(Map.entry(tokenId, usedAt));
+            }
+        }
+        // Same lock order on every replica, so concurrent flushes cannot deadlock
+        batch.sort(Map.Entry.comparingByKey());
+        return batch;
+    }
+
+    private void write(List<Map.Entry<Long, LocalDateTime>> batch) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        try {
+            jdbcTemplate.batchUpdate(UPDATE_SQL, batch, batchSize, (statement, entry) -> {
+                Timestamp usedAt = Timestamp.valueOf(entry.getValue());
+                statement.setTimestamp(1, usedAt);
+                statement.setTimestamp(2, now);
+                statement.setLong(3, entry.getKey());
+                statement.setTimestamp(4, usedAt);
+            });
+        } catch (DataAccessException e) {
+            // Keep the times for the next flush; newer usage recorded meanwhile wins
+            log.error("Failed to write last-used times for {} tokens, retrying on next flush", batch.size(), e);
+            batch.forEach(entry -> pending.merge(entry.getKey(), entry.getValue(),
+                    (current, failed) -> current.isAfter(failed) ? current : failed));
+        }
+    }
+}
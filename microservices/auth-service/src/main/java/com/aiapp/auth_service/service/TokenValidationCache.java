@@ -0,0 +1,161 @@
+package com.aiapp.auth_service.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.Function;
+
+/**
+ * Bounded cache of access-token validation results keyed by token hash. Valid tokens are cached until
+ * they expire (at most {@code max-ttl}), unknown or inactive ones for {@code negative-ttl}. Invalidations
+ * are applied after the deactivating transaction commits and broadcast to the other replicas over Redis.
+ */
+@Slf4j
+@Service
+public class TokenValidationCache {
+
+    static final String INVALIDATION_CHANNEL = "auth:token-validation:invalidate";
+
+    private static final String TOKEN_PREFIX = "token:";
+    private static final String TOKENS_PREFIX = "tokens:";
+    private static final String USER_PREFIX = "user:";
+
+    /**
+     * Outcome of validating one token; {@link #INVALID} for unknown, inactive or expired tokens
+     */
+    public record CachedToken(Long tokenId, Long userId, LocalDateTime expiresAt) {
+
+        public static final CachedToken INVALID = new CachedToken(null, null, null);
+
+        public boolean isValid() {
+            return tokenId != null && (expiresAt == null || LocalDateTime.now().isBefore(expiresAt));
+        }
+    }
+
+    private final Cache<String, CachedToken> cache;
+    private final StringRedisTemplate redisTemplate;
+
+    public TokenValidationCache(StringRedisTemplate redisTemplate,
+                                RedisMessageListenerContainer listenerContainer,
+                                MeterRegistry meterRegistry,
+                                @Value("${app.token-cache.max-size:100000}") long maxSize,
+                                @Value("${app.token-cache.max-ttl:5m}") Duration maxTtl,
+                                @Value("${app.token-cache.negative-ttl:30s}") Duration negativeTtl) {
+        this.redisTemplate = redisTemplate;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new TokenExpiry(maxTtl.toNanos(), negativeTtl.toNanos()))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "oauth.token.validation");
+        listenerContainer.addMessageListener(
+                (message, pattern) -> apply(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(INVALIDATION_CHANNEL));
+    }
+
+    public CachedToken get(String accessTokenHash, Function<String, CachedToken> loader) {
+        return cache.get(accessTokenHash, loader);
+    }
+
+    /**
+     * Drop one token everywhere, e.g. when it is stored and a negative result may be cached
+     */
+    public void invalidateToken(String accessTokenHash) {
+        afterCommit(TOKEN_PREFIX + accessTokenHash);
+    }
+
+    /**
+     * Drop several tokens everywhere with a single broadcast, e.g. after a batch import
+     */
+    public void invalidateTokens(Collection<String> accessTokenHashes) {
+        if (!accessTokenHashes.isEmpty()) {
+            afterCommit(TOKENS_PREFIX + String.join(",", accessTokenHashes));
+        }
+    }
+
+    /**
+     * Drop every cached token of a user everywhere, e.g. on logout
+     */
+    public void invalidateUser(Long userId) {
+        afterCommit(USER_PREFIX + userId);
+    }
+
+    /**
+     * Running before commit would let a concurrent validation re-cache the row as it was before
+     */
+    private void afterCommit(String invalidation) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish(invalidation);
+                }
+            });
+        } else {
+            publish(invalidation);
+        }
+    }
+
+    private void publish(String invalidation) {
+        apply(invalidation);
+        try {
+            redisTemplate.convertAndSend(INVALIDATION_CHANNEL, invalidation);
+        } catch (DataAccessException e) {
+            // Other replicas catch up when their entries expire, after at most max-ttl
+            log.error("Failed to broadcast token cache invalidation {}", invalidation, e);
+        }
+    }
+
+    private void apply(String invalidation) {
+        if (invalidation.startsWith(TOKEN_PREFIX)) {
+            cache.invalidate(invalidation.substring(TOKEN_PREFIX.length()));
+        } else if (invalidation.startsWith(TOKENS_PREFIX)) {
+            cache.invalidateAll(Arrays.asList(invalidation.substring(TOKENS_PREFIX.length()).split(",")));
+        } else if (invalidation.startsWith(USER_PREFIX)) {
+            Long userId = Long.valueOf(invalidation.substring(USER_PREFIX.length()));
+            cache.asMap().values().removeIf(token -> userId.equals(token.userId()));
+        }
+    }
+
+    private record TokenExpiry(long maxTtlNanos, long negativeTtlNanos) implements Expiry<String, CachedToken> {
+
+        @Override
+        public long expireAfterCreate(String key, CachedToken token, long currentTime) {
+            if (token.tokenId() == null) {
+                return negativeTtlNanos;
+            }
+            if (token.expiresAt() == null) {
+                return maxTtlNanos;
+            }
+            long untilExpiry = Duration.between(LocalDateTime.now(), token.expiresAt()).toNanos();
+            return Math.max(0, Math.min(maxTtlNanos, untilExpiry));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, CachedToken token, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, token, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, CachedToken token, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
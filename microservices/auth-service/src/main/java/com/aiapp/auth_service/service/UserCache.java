@@ -0,0 +1,304 @@
+package com.aiapp.auth_service.service;
+
+import com.aiapp.auth_service.entity.Role;
+import com.aiapp.auth_service.entity.User;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.kafka.KafkaException;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Read-through user cache in two levels: a bounded in-process cache (L1, {@code local-ttl}) in front of
+ * Redis (L2, {@code redis-ttl}), in front of Postgres. A user is reachable by id, email, username and
+ * OAuth provider account. Callers get the immutable {@link CachedUser} snapshot, not an entity, so it can
+ * neither change the cache nor be saved over the row; it carries no password hash. After a user is saved, a shared version in Redis is
+ * bumped, its L2 entry is deleted and an invalidation is published on Kafka; every replica, including
+ * this one, evicts the user from L1 when it arrives. L2 is only filled under the version read before
+ * loading, so a row read before another replica's commit is never written back after its delete.
+ */
+@Slf4j
+@Service
+public class UserCache {
+
+    private static final String REDIS_USER_PREFIX = "auth:user:id:";
+    private static final String REDIS_INDEX_PREFIX = "auth:user:key:";
+    private static final String REDIS_VERSION_KEY = "auth:user:version";
+
+    private static final RedisScript<Long> CACHE_USER_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/cache_user.lua"), Long.class);
+
+    /**
+     * Published on {@code app.user-cache.invalidation-topic} after a user changed
+     */
+    public record Invalidation(Long userId) {
+    }
+
+    /**
+     * Snapshot of a user row with its roles, as kept in both cache levels and handed to callers. The
+     * password hash is left out so credentials never reach Redis.
+     */
+    public record CachedUser(Long id, String username, String email, String firstName,
+                             String lastName, String phoneNumber, Boolean enabled, Boolean accountNonExpired,
+                             Boolean accountNonLocked, Boolean credentialsNonExpired, String oauthProvider,
+                             String oauthId, Map<Integer, Role.RoleName> roles, LocalDateTime createdAt,
+                             LocalDateTime updatedAt) {
+
+        public CachedUser {
+            roles = roles != null ? Collections.unmodifiableMap(new TreeMap<>(roles)) : Map.of();
+        }
+
+        /**
+         * Must run inside the loading transaction, since roles are fetched lazily
+         */
+        public static CachedUser of(User user) {
+            Map<Integer, Role.RoleName> roles = new TreeMap<>();
+            user.getRoles().forEach(role -> roles.put(role.getId(), role.getName()));
+            return new CachedUser(user.getId(), user.getUsername(), user.getEmail(), user.getFirstName(), user.getLastName(), user.getPhoneNumber(), user.getIsEnabled(),
+                    user.getIsAccountNonExpired(), user.getIsAccountNonLocked(), user.getIsCredentialsNonExpired(),
+                    user.getOauthProvider(), user.getOauthId(), roles, user.getCreatedAt(), user.getUpdatedAt());
+        }
+
+        /**
+         * Every lookup key this user answers to
+         */
+        List<String> keys() {
+            List<String> keys = new ArrayList<>(4);
+            keys.add(idKey(id));
+            if (email != null) {
+                keys.add(emailKey(email));
+            }
+            if (username != null) {
+                keys.add(usernameKey(username));
+            }
+            if (oauthProvider != null && oauthId != null) {
+                keys.add(oauthKey(oauthProvider, oauthId));
+            }
+            return keys;
+        }
+    }
+
+    public static String idKey(Long id) {
+        return "id:" + id;
+    }
+
+    public static String emailKey(String email) {
+        return "email:" + email;
+    }
+
+    public static String usernameKey(String username) {
+        return "username:" + username;
+    }
+
+    public static String oauthKey(String provider, String oauthId) {
+        return "oauth:" + provider + ":" + oauthId;
+    }
+
+    private final Cache<String, CachedUser> local;
+    private final StringRedisTemplate redisTemplate;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final ObjectMapper objectMapper;
+    private final Duration redisTtl;
+    private final String invalidationTopic;
+    // Bumped by every eviction; a load that overlapped one may have read the old row and is not cached
+    private final AtomicLong generation = new AtomicLong();
+    private final Counter redisHits;
+    private final Counter redisMisses;
+
+    public UserCache(StringRedisTemplate redisTemplate,
+                     KafkaTemplate<String, Object> kafkaTemplate,
+                     ObjectMapper objectMapper,
+                     MeterRegistry meterRegistry,
+                     @Value("${app.user-cache.max-size:10000}") long maxSize,
+                     @Value("${app.user-cache.local-ttl:5m}") Duration localTtl,
+                     @Value("${app.user-cache.redis-ttl:30m}") Duration redisTtl,
+                     @Value("${app.user-cache.invalidation-topic:auth.user-invalidations}") String invalidationTopic) {
+        this.redisTemplate = redisTemplate;
+        this.kafkaTemplate = kafkaTemplate;
+        this.objectMapper = objectMapper;
+        this.redisTtl = redisTtl;
+        this.invalidationTopic = invalidationTopic;
+        this.local = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(localTtl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, local, "auth.user");
+        this.redisHits = redisLookups(meterRegistry, "hit");
+        this.redisMisses = redisLookups(meterRegistry, "miss");
+    }
+
+    private static Counter redisLookups(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("auth.user.cache.redis")
+                .description("User lookups that missed the in-process cache, by Redis outcome")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * The user under {@code key} (see {@link #idKey} and friends), from L1, then L2, then {@code loader}
+     */
+    public Optional<CachedUser> get(String key, Supplier<Optional<CachedUser>> loader) {
+        CachedUser cached = local.getIfPresent(key);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        long loadGeneration = generation.get();
+        cached = fromRedis(key);
+        if (cached != null) {
+            redisHits.increment();
+        } else {
+            redisMisses.increment();
+            String redisVersion = redisVersion();
+            Optional<CachedUser> loaded = loader.get();
+            if (loaded.isEmpty()) {
+                return Optional.empty();
+            }
+            cached = loaded.get();
+            if (redisVersion != null && loadGeneration == generation.get()) {
+                toRedis(cached, redisVersion);
+            }
+        }
+        if (loadGeneration == generation.get()) {
+            for (String userKey : cached.keys()) {
+                local.put(userKey, cached);
+            }
+        }
+        return Optional.of(cached);
+    }
+
+    /**
+     * Evict a user everywhere once the current transaction commits, e.g. after it was saved
+     */
+    public void evict(Long userId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish(userId);
+                }
+            });
+        } else {
+            publish(userId);
+        }
+    }
+
+    // Every replica gets its own consumer group, so each one sees every invalidation
+    @KafkaListener(topics = "${app.user-cache.invalidation-topic:auth.user-invalidations}",
+            groupId = "${spring.application.name}-user-cache-#{T(java.util.UUID).randomUUID()}",
+            properties = "auto.offset.reset=latest")
+    public void onInvalidation(Invalidation invalidation, Acknowledgment acknowledgment) {
+        evictLocal(invalidation.userId());
+        acknowledgment.acknowledge();
+    }
+
+    private void publish(Long userId) {
+        evictLocal(userId);
+        try {
+            // Bumped before the delete, so an L2 fill that started before this commit is refused
+            redisTemplate.opsForValue().increment(REDIS_VERSION_KEY);
+            redisTemplate.delete(REDIS_USER_PREFIX + userId);
+        } catch (DataAccessException e) {
+            log.error("Failed to delete cached user {} from Redis", userId, e);
+        }
+        try {
+            kafkaTemplate.send(invalidationTopic, String.valueOf(userId), new Invalidation(userId))
+                    .whenComplete((result, e) -> {
+                        if (e != null) {
+                            logPublishFailure(userId, e);
+                        }
+                    });
+        } catch (KafkaException e) {
+            logPublishFailure(userId, e);
+        }
+    }
+
+    private static void logPublishFailure(Long userId, Throwable e) {
+        // Other replicas catch up when their entries expire, after at most local-ttl
+        log.error("Failed to publish user cache invalidation for user {}", userId, e);
+    }
+
+    private void evictLocal(Long userId) {
+        generation.incrementAndGet();
+        local.asMap().values().removeIf(user -> userId.equals(user.id()));
+    }
+
+    /**
+     * Index entries may outlive a change of email or username, so the user they point to must still match
+     */
+    private CachedUser fromRedis(String key) {
+        try {
+            String userId = key.startsWith("id:") ? key.substring(3)
+                    : redisTemplate.opsForValue().get(REDIS_INDEX_PREFIX + key);
+            if (userId == null) {
+                return null;
+            }
+            String json = redisTemplate.opsForValue().get(REDIS_USER_PREFIX + userId);
+            if (json == null) {
+                return null;
+            }
+            CachedUser cached = objectMapper.readValue(json, CachedUser.class);
+            return cached.keys().contains(key) ? cached : null;
+        } catch (DataAccessException | JsonProcessingException e) {
+            log.warn("Failed to read cached user {} from Redis: {}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * The shared version before a load, or null when Redis is unavailable and L2 must not be filled
+     */
+    private String redisVersion() {
+        try {
+            String version = redisTemplate.opsForValue().get(REDIS_VERSION_KEY);
+            return version != null ? version : "0";
+        } catch (DataAccessException e) {
+            log.warn("Failed to read the user cache version from Redis: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void toRedis(CachedUser cached, String redisVersion) {
+        try {
+            List<String> keys = new ArrayList<>(6);
+            keys.add(REDIS_VERSION_KEY);
+            keys.add(REDIS_USER_PREFIX + cached.id());
+            for (String key : cached.keys()) {
+                if (!key.startsWith("id:")) {
+                    keys.add(REDIS_INDEX_PREFIX + key);
+                }
+            }
+            redisTemplate.execute(CACHE_USER_SCRIPT, keys, redisVersion, objectMapper.writeValueAsString(cached),
+                    String.valueOf(cached.id()), String.valueOf(redisTtl.toMillis()));
+        } catch (DataAccessException | JsonProcessingException e) {
+            log.warn("Failed to write cached user {} to Redis: {}", cached.id(), e.getMessage());
+        }
+    }
+}
@@ -2,54 +2,88 @@ package com.aiapp.auth_service.service;
 
 import com.aiapp.auth_service.entity.User;
 import com.aiapp.auth_service.repository.UserRepository;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.Optional;
+import java.util.function.Supplier;
 
+/**
+ * User lookups go through {@link UserCache}; they open a read-only transaction only on a cache miss,
+ * so a hit never takes a database connection. They return {@link UserCache.CachedUser} snapshots without
+ * the password hash, not entities: to change a user, load it from {@link UserRepository} in the writing
+ * transaction and {@link #save} that.
+ */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 @Transactional
 public class UserService {
 
     private final UserRepository userRepository;
+    private final UserCache userCache;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public UserService(UserRepository userRepository, UserCache userCache, PlatformTransactionManager transactionManager) {
+        this.userRepository = userRepository;
+        this.userCache = userCache;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
 
     /**
      * Find user by ID
      */
-    @Transactional(readOnly = true)
-    public Optional<User> findById(Long id) {
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Optional<UserCache.CachedUser> findById(Long id) {
         log.debug("Finding user by ID: {}", id);
-        return userRepository.findById(id);
+        return userCache.get(UserCache.idKey(id), load(() -> userRepository.findById(id)));
     }
 
     /**
      * Find user by email
      */
-    @Transactional(readOnly = true)
-    public Optional<User> findByEmail(String email) {
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Optional<UserCache.CachedUser> findByEmail(String email) {
         log.debug("Finding user by email: {}", email);
-        return userRepository.findByEmail(email);
+        return userCache.get(UserCache.emailKey(email), load(() -> userRepository.findByEmail(email)));
     }
 
     /**
      * Find user by username
      */
-    @Transactional(readOnly = true)
-    public Optional<User> findByUsername(String username) {
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Optional<UserCache.CachedUser> findByUsername(String username) {
         log.debug("Finding user by username: {}", username);
-        return userRepository.findByUsername(username);
+        return userCache.get(UserCache.usernameKey(username), load(() -> userRepository.findByUsername(username)));
     }
 
     /**
-     * Save user
+     * Find user by the account they signed in with at an OAuth provider
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Optional<UserCache.CachedUser> findByOAuthProviderAndOAuthId(String provider, String oauthId) {
+        log.debug("Finding user by OAuth provider: {} and oauthId: {}", provider, oauthId);
+        return userCache.get(UserCache.oauthKey(provider, oauthId),
+                load(() -> userRepository.findByOAuthProviderAndOAuthId(provider, oauthId)));
+    }
+
+    /**
+     * Save user; every replica drops its cached copy once the transaction commits
      */
     public User save(User user) {
         log.info("Saving user: {}", user.getUsername());
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        userCache.evict(saved.getId());
+        return saved;
+    }
+
+    private Supplier<Optional<UserCache.CachedUser>> load(Supplier<Optional<User>> query) {
+        // Roles are lazy, so the snapshot is taken before the transaction ends
+        return () -> readOnlyTransaction.execute(status -> query.get().map(UserCache.CachedUser::of));
     }
 
     /**
@@ -0,0 +1,54 @@
+-- Schema as mapped by the JPA entities before Flyway took over. Databases that already have these
+-- tables are baselined at version 1 (spring.flyway.baseline-on-migrate) and skip this script.
+
+CREATE TABLE IF NOT EXISTS roles (
+    id   SERIAL PRIMARY KEY,
+    name VARCHAR(20)
+);
+
+CREATE TABLE IF NOT EXISTS users (
+    id                         BIGSERIAL PRIMARY KEY,
+    username                   VARCHAR(255),
+    email                      VARCHAR(255),
+    password                   VARCHAR(255),
+    first_name                 VARCHAR(255),
+    last_name                  VARCHAR(255),
+    phone_number               VARCHAR(255),
+    is_enabled                 BOOLEAN,
+    is_account_non_expired     BOOLEAN,
+    is_account_non_locked      BOOLEAN,
+    is_credentials_non_expired BOOLEAN,
+    oauth_provider             VARCHAR(255),
+    oauth_id                   VARCHAR(255),
+    created_at                 TIMESTAMP,
+    updated_at                 TIMESTAMP,
+    CONSTRAINT uk_users_email UNIQUE (email),
+    CONSTRAINT uk_users_username UNIQUE (username)
+);
+
+CREATE TABLE IF NOT EXISTS user_roles (
+    user_id BIGINT  NOT NULL REFERENCES users (id),
+    role_id INTEGER NOT NULL REFERENCES roles (id),
+    PRIMARY KEY (user_id, role_id)
+);
+
+CREATE TABLE IF NOT EXISTS oauth_tokens (
+    id               BIGSERIAL PRIMARY KEY,
+    user_id          BIGINT       NOT NULL REFERENCES users (id),
+    provider         VARCHAR(50)  NOT NULL,
+    provider_user_id VARCHAR(100) NOT NULL,
+    access_token     TEXT         NOT NULL,
+    refresh_token    TEXT,
+    token_type       VARCHAR(20),
+    scope            VARCHAR(500),
+    expires_in       INTEGER,
+    expires_at       TIMESTAMP,
+    is_active        BOOLEAN,
+    created_at       TIMESTAMP    NOT NULL,
+    updated_at       TIMESTAMP,
+    last_used_at     TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_oauth_user_provider ON oauth_tokens (user_id, provider);
+CREATE INDEX IF NOT EXISTS idx_oauth_provider ON oauth_tokens (provider);
+CREATE INDEX IF NOT EXISTS idx_oauth_expires_at ON oauth_tokens (expires_at);
@@ -0,0 +1,13 @@
+-- Tokens are looked up by the hex SHA-256 of the raw token: fixed width and indexable,
+-- unlike the unbounded TEXT column, which was scanned on every validation.
+
+ALTER TABLE oauth_tokens ADD COLUMN access_token_hash CHAR(64);
+
+UPDATE oauth_tokens
+SET access_token_hash = encode(sha256(convert_to(access_token, 'UTF8')), 'hex')
+WHERE access_token_hash IS NULL;
+
+ALTER TABLE oauth_tokens ALTER COLUMN access_token_hash SET NOT NULL;
+
+-- Not unique: the same provider token may have been stored more than once
+CREATE INDEX idx_oauth_access_token_hash ON oauth_tokens (access_token_hash);
@@ -0,0 +1,12 @@
+-- Coordination for background jobs: at most one replica holds a job's lease, and the checkpoint
+-- lets a run interrupted by a restart or a lost lease continue where it stopped.
+
+CREATE TABLE maintenance_jobs (
+    name              VARCHAR(50) PRIMARY KEY,
+    lease_owner       VARCHAR(100),
+    lease_until       TIMESTAMP,
+    checkpoint_id     BIGINT      NOT NULL DEFAULT 0,
+    last_completed_at TIMESTAMP
+);
+
+INSERT INTO maintenance_jobs (name) VALUES ('token-reaper');
@@ -0,0 +1,97 @@
+-- oauth_tokens becomes range-partitioned by created_at, one partition per month, so retention is a
+-- partition drop instead of row deletes and every partition keeps small indexes of its own.
+--
+-- Existing rows are not copied: the old table is attached as the partition for everything up to the
+-- end of the current month (oauth_tokens_legacy). The CHECK constraint validated beforehand lets
+-- ATTACH skip its own scan; the (id, created_at) key index is built on it once, before attaching.
+
+ALTER TABLE oauth_tokens RENAME TO oauth_tokens_legacy;
+ALTER INDEX IF EXISTS idx_oauth_user_provider RENAME TO idx_oauth_legacy_user_provider;
+ALTER INDEX IF EXISTS idx_oauth_provider RENAME TO idx_oauth_legacy_provider;
+ALTER INDEX IF EXISTS idx_oauth_expires_at RENAME TO idx_oauth_legacy_expires_at;
+ALTER INDEX IF EXISTS idx_oauth_access_token_hash RENAME TO idx_oauth_legacy_access_token_hash;
+
+-- Ids come from a sequence owned by the parent, so they survive dropping the legacy partition
+CREATE SEQUENCE oauth_token_ids;
+SELECT setval('oauth_token_ids', (SELECT COALESCE(max(id), 0) + 1 FROM oauth_tokens_legacy), false);
+ALTER TABLE oauth_tokens_legacy ALTER COLUMN id DROP DEFAULT;
+ALTER TABLE oauth_tokens_legacy ALTER COLUMN id DROP IDENTITY IF EXISTS;
+
+-- The partition takes the parent's (id, created_at) key instead of its own, whatever it was named
+DO $$
+DECLARE
+    primary_key TEXT;
+BEGIN
+    SELECT conname INTO primary_key
+    FROM pg_constraint
+    WHERE conrelid = 'oauth_tokens_legacy'::regclass AND contype = 'p';
+    IF primary_key IS NOT NULL THEN
+        EXECUTE format('ALTER TABLE oauth_tokens_legacy DROP CONSTRAINT %I', primary_key);
+    END IF;
+END
+$$;
+CREATE UNIQUE INDEX oauth_tokens_legacy_id_created_at ON oauth_tokens_legacy (id, created_at);
+
+-- LIKE keeps column types identical to the legacy table, as ATTACH requires
+CREATE TABLE oauth_tokens (LIKE oauth_tokens_legacy) PARTITION BY RANGE (created_at);
+ALTER TABLE oauth_tokens ALTER COLUMN id SET DEFAULT nextval('oauth_token_ids');
+-- Unique keys of a partitioned table must contain the partition key; ids stay unique through the sequence
+ALTER TABLE oauth_tokens ADD PRIMARY KEY (id, created_at);
+ALTER TABLE oauth_tokens ADD FOREIGN KEY (user_id) REFERENCES users (id);
+
+ALTER SEQUENCE oauth_token_ids OWNED BY oauth_tokens.id;
+
+CREATE INDEX idx_oauth_user_provider ON oauth_tokens (user_id, provider);
+CREATE INDEX idx_oauth_provider ON oauth_tokens (provider);
+CREATE INDEX idx_oauth_expires_at ON oauth_tokens (expires_at);
+CREATE INDEX idx_oauth_access_token_hash ON oauth_tokens (access_token_hash);
+
+-- Catches rows outside every range, so inserts never fail; it stays empty while partitions are created ahead
+CREATE TABLE oauth_tokens_default PARTITION OF oauth_tokens DEFAULT;
+
+DO $$
+DECLARE
+    legacy_until TIMESTAMP;
+BEGIN
+    SELECT date_trunc('month', greatest(localtimestamp, COALESCE(max(created_at), localtimestamp))) + INTERVAL '1 month'
+    INTO legacy_until
+    FROM oauth_tokens_legacy;
+
+    EXECUTE format('ALTER TABLE oauth_tokens_legacy ADD CONSTRAINT oauth_tokens_legacy_range '
+                   'CHECK (created_at IS NOT NULL AND created_at < %L) NOT VALID', legacy_until);
+    ALTER TABLE oauth_tokens_legacy VALIDATE CONSTRAINT oauth_tokens_legacy_range;
+    EXECUTE format('ALTER TABLE oauth_tokens ATTACH PARTITION oauth_tokens_legacy FOR VALUES FROM (MINVALUE) TO (%L)',
+                   legacy_until);
+    ALTER TABLE oauth_tokens_legacy DROP CONSTRAINT oauth_tokens_legacy_range;
+END
+$$;
+
+-- Adds monthly partitions after the highest existing bound until months_ahead months past the current
+-- one are covered. Idempotent and serialised, so every replica may call it; returns partitions created.
+CREATE OR REPLACE FUNCTION oauth_tokens_create_partitions(months_ahead INTEGER) RETURNS INTEGER AS $$
+DECLARE
+    covered_until TIMESTAMP;
+    target TIMESTAMP := date_trunc('month', localtimestamp) + make_interval(months => months_ahead + 1);
+    created INTEGER := 0;
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext('oauth_tokens_create_partitions'));
+
+    SELECT max(substring(pg_get_expr(c.relpartbound, c.oid) FROM 'TO \(''([^'']+)''\)')::TIMESTAMP)
+    INTO covered_until
+    FROM pg_inherits i
+    JOIN pg_class c ON c.oid = i.inhrelid
+    WHERE i.inhparent = 'oauth_tokens'::regclass;
+    covered_until := COALESCE(covered_until, date_trunc('month', localtimestamp));
+
+    WHILE covered_until < target LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF oauth_tokens FOR VALUES FROM (%L) TO (%L)',
+                       'oauth_tokens_p' || to_char(covered_until, 'YYYY_MM'),
+                       covered_until, covered_until + INTERVAL '1 month');
+        covered_until := covered_until + INTERVAL '1 month';
+        created := created + 1;
+    END LOOP;
+    RETURN created;
+END
+$$ LANGUAGE plpgsql;
+
+SELECT oauth_tokens_create_partitions(3);
@@ -0,0 +1,9 @@
+-- Hibernate's pooled optimizer reserves 50 token ids per nextval, so batched inserts need no round-trip per row
+ALTER SEQUENCE oauth_token_ids INCREMENT BY 50;
+
+-- The optimizer takes the first value it reads as the top of its block and hands out the 49 ids below it.
+-- Right after V4 that value is max(id) + 1, so the block would reuse existing ids; the partition key lets
+-- such duplicates through the primary key. Moving the sequence one block past every id in use avoids that.
+SELECT setval('oauth_token_ids',
+              GREATEST((SELECT COALESCE(max(id), 0) FROM oauth_tokens),
+                       (SELECT last_value FROM oauth_token_ids)) + 50);
@@ -0,0 +1,14 @@
+-- Stores a user snapshot only if no user was saved since the loading replica read the version,
+-- so a row read before another replica's commit cannot land after that replica's delete.
+-- KEYS[1] user version counter, KEYS[2] user snapshot, KEYS[3..] lookup keys pointing at the user
+-- ARGV[1] version read before loading, ARGV[2] snapshot JSON, ARGV[3] user id, ARGV[4] ttl (ms)
+-- Returns 1 when stored, 0 when skipped
+if (redis.call('get', KEYS[1]) or '0') ~= ARGV[1] then
+  return 0
+end
+
+redis.call('set', KEYS[2], ARGV[2], 'PX', ARGV[4])
+for i = 3, #KEYS do
+  redis.call('set', KEYS[i], ARGV[3], 'PX', ARGV[4])
+end
+return 1
@@ -3,7 +3,10 @@ package com.aiapp.auth_service;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = {
+		"app.jwt.signing.allow-ephemeral-key=true",
+		"app.internal-identity.secret=auth-service-test-identity-secret-0123456789"
+})
 class AuthServiceApplicationTests {
 
 	@Test
@@ -0,0 +1,178 @@
+package com.aiapp.auth_service.benchmark;
+
+import com.aiapp.auth_service.AuthServiceApplication;
+import com.aiapp.internal_identity.InternalIdentity;
+import com.aiapp.internal_identity.InternalIdentityCodec;
+import com.aiapp.internal_identity.InternalIdentityProperties;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Compares auth-service in platform-thread and virtual-thread mode under high concurrency. Each mode
+ * starts the service in this JVM on a random port, warms it up, then keeps {@code --concurrency} clients
+ * calling {@code GET /api/oauth/tokens/user/{user-id}} (a cached user lookup plus one token query) for
+ * {@code --duration} seconds, and reports throughput and latency percentiles. The service gets a random
+ * internal-identity secret that only this run knows. Needs the service's Postgres, Redis and Kafka, and an
+ * existing user; run with
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.aiapp.auth_service.benchmark.ExecutionModeBenchmark \
+ *     -Dexec.args="--user-id=1 --concurrency=1000 --duration=30"
+ * </pre>
+ */
+public final class ExecutionModeBenchmark {
+
+	private final HttpClient client = HttpClient.newBuilder()
+			.connectTimeout(Duration.ofSeconds(5))
+			.executor(Executors.newVirtualThreadPerTaskExecutor())
+			.build();
+	private final URI uri;
+	private final InternalIdentityCodec codec;
+
+	private ExecutionModeBenchmark(URI uri, String identitySecret) {
+		this.uri = uri;
+		InternalIdentityProperties properties = new InternalIdentityProperties();
+		properties.setSecret(identitySecret);
+		this.codec = InternalIdentityCodec.from(properties);
+	}
+
+	public static void main(String[] args) throws Exception {
+		Map<String, String> options = parse(args);
+		if (!options.containsKey("user-id")) {
+			System.err.println("--user-id is required");
+			System.exit(2);
+		}
+		String userId = options.get("user-id");
+		int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "1000"));
+		Duration warmUp = Duration.ofSeconds(Long.parseLong(options.getOrDefault("warm-up", "10")));
+		Duration duration = Duration.ofSeconds(Long.parseLong(options.getOrDefault("duration", "30")));
+
+		String identitySecret = UUID.randomUUID() + "-" + UUID.randomUUID();
+		Map<String, Result> results = new LinkedHashMap<>();
+		for (String mode : options.getOrDefault("modes", "platform,virtual").split(",")) {
+			try (ConfigurableApplicationContext service = new SpringApplicationBuilder(AuthServiceApplication.class)
+					.run("--server.port=0", "--spring.threads.virtual.enabled=" + mode.equals("virtual"),
+							"--app.jwt.signing.allow-ephemeral-key=true",
+							"--app.internal-identity.secret=" + identitySecret)) {
+				int port = service.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+				ExecutionModeBenchmark benchmark = new ExecutionModeBenchmark(
+						URI.create("http://localhost:" + port + "/api/oauth/tokens/user/" + userId), identitySecret);
+				benchmark.run(concurrency, warmUp);
+				results.put(mode, benchmark.run(concurrency, duration));
+			}
+		}
+
+		System.out.printf("%n%-10s %12s %10s %10s %10s %8s%n", "mode", "requests/s", "p50 ms", "p99 ms", "max ms", "errors");
+		results.forEach((mode, result) -> System.out.printf("%-10s %12.0f %10.1f %10.1f %10.1f %8d%n",
+				mode, result.requestsPerSecond(), result.p50Millis(), result.p99Millis(), result.maxMillis(), result.errors()));
+	}
+
+	/**
+	 * Closed loop: every client sends its next request as soon as the previous one is answered
+	 */
+	private Result run(int concurrency, Duration duration) throws Exception {
+		long deadline = System.nanoTime() + duration.toNanos();
+		List<Future<ClientStats>> clients = new ArrayList<>(concurrency);
+		long start = System.nanoTime();
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			for (int i = 0; i < concurrency; i++) {
+				clients.add(executor.submit(() -> {
+					ClientStats stats = new ClientStats();
+					while (System.nanoTime() < deadline) {
+						long sent = System.nanoTime();
+						boolean ok = send();
+						stats.record(System.nanoTime() - sent, ok);
+					}
+					return stats;
+				}));
+			}
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+
+		int count = 0;
+		long errors = 0;
+		for (Future<ClientStats> client : clients) {
+			count += client.get().count;
+			errors += client.get().errors;
+		}
+		long[] latencies = new long[count];
+		int offset = 0;
+		for (Future<ClientStats> client : clients) {
+			ClientStats stats = client.get();
+			System.arraycopy(stats.latencies, 0, latencies, offset, stats.count);
+			offset += stats.count;
+		}
+		Arrays.sort(latencies);
+		return new Result((count - errors) / seconds, percentile(latencies, 0.50), percentile(latencies, 0.99),
+				latencies.length > 0 ? latencies[latencies.length - 1] / 1e6 : 0, errors);
+	}
+
+	private boolean send() {
+		HttpRequest request = HttpRequest.newBuilder(uri)
+				.header(InternalIdentity.HEADER, codec.encode(new InternalIdentity(
+						"execution-mode-benchmark", List.of("ADMIN"), Instant.now().plusSeconds(30))))
+				.timeout(Duration.ofSeconds(30))
+				.GET()
+				.build();
+		try {
+			return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+		} catch (Exception e) {
+			return false;
+		}
+	}
+
+	private static double percentile(long[] sorted, double quantile) {
+		if (sorted.length == 0) {
+			return 0;
+		}
+		return sorted[Math.min(sorted.length - 1, (int) Math.ceil(quantile * sorted.length) - 1)] / 1e6;
+	}
+
+	private static Map<String, String> parse(String[] args) {
+		Map<String, String> options = new HashMap<>();
+		for (String arg : args) {
+			if (!arg.startsWith("--") || arg.indexOf('=') < 0) {
+				throw new IllegalArgumentException("Expected --key=value, got " + arg);
+			}
+			options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+		}
+		return options;
+	}
+
+	private static final class ClientStats {
+		private long[] latencies = new long[1024];
+		private int count;
+		private long errors;
+
+		void record(long latencyNanos, boolean ok) {
+			if (count == latencies.length) {
+				latencies = Arrays.copyOf(latencies, count * 2);
+			}
+			latencies[count++] = latencyNanos;
+			if (!ok) {
+				errors++;
+			}
+		}
+	}
+
+	private record Result(double requestsPerSecond, double p50Millis, double p99Millis, double maxMillis, long errors) {
+	}
+}
@@ -0,0 +1,167 @@
+package com.aiapp.auth_service.benchmark;
+
+import com.aiapp.internal_identity.InternalIdentity;
+import com.aiapp.internal_identity.InternalIdentityCodec;
+import com.aiapp.internal_identity.InternalIdentityProperties;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares token ingestion throughput of {@code POST /api/oauth/tokens} (one token per call) with
+ * {@code POST /api/oauth/tokens/batch} against a running auth-service. Not part of the test suite; run with
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.aiapp.auth_service.benchmark.TokenIngestionBenchmark \
+ *     -Dexec.args="--user-id=1 --identity-secret=... --tokens=20000 --batch-size=1000 --concurrency=8"
+ * </pre>
+ *
+ * Requests carry an identity header signed with {@code --identity-secret}, which must match the service's
+ * {@code app.internal-identity.secret}. Every token is stored for {@code --user-id}, which must exist.
+ */
+public final class TokenIngestionBenchmark {
+
+	private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+	private final String baseUrl;
+	private final long userId;
+	private final InternalIdentityCodec codec;
+	private final String runId = UUID.randomUUID().toString();
+	private final AtomicInteger sequence = new AtomicInteger();
+
+	private TokenIngestionBenchmark(String baseUrl, long userId, String identitySecret) {
+		this.baseUrl = baseUrl;
+		this.userId = userId;
+		InternalIdentityProperties properties = new InternalIdentityProperties();
+		properties.setSecret(identitySecret);
+		this.codec = InternalIdentityCodec.from(properties);
+	}
+
+	public static void main(String[] args) throws Exception {
+		Map<String, String> options = parse(args);
+		for (String required : List.of("user-id", "identity-secret")) {
+			if (!options.containsKey(required)) {
+				System.err.println("--" + required + " is required");
+				System.exit(2);
+			}
+		}
+		int tokens = Integer.parseInt(options.getOrDefault("tokens", "20000"));
+		int batchSize = Integer.parseInt(options.getOrDefault("batch-size", "1000"));
+		int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "8"));
+
+		TokenIngestionBenchmark benchmark = new TokenIngestionBenchmark(
+				options.getOrDefault("url", "http://localhost:8081"),
+				Long.parseLong(options.get("user-id")),
+				options.get("identity-secret"));
+
+		// Warm up connections, JIT and the id pool before measuring
+		benchmark.run("warm-up single", Math.min(tokens, 500), 1, concurrency);
+		benchmark.run("warm-up batch", Math.min(tokens, 5 * batchSize), batchSize, concurrency);
+
+		Result single = benchmark.run("single", tokens, 1, concurrency);
+		Result batch = benchmark.run("batch", tokens, batchSize, concurrency);
+		System.out.printf("%nbatch/single speed-up: %.1fx%n", batch.tokensPerSecond() / single.tokensPerSecond());
+	}
+
+	/**
+	 * Sends {@code tokens} tokens from {@code concurrency} workers, {@code batchSize} per request;
+	 * a batch size of 1 uses the single-item endpoint
+	 */
+	private Result run(String name, int tokens, int batchSize, int concurrency) throws Exception {
+		int requests = (tokens + batchSize - 1) / batchSize;
+		AtomicInteger nextRequest = new AtomicInteger();
+		AtomicLong stored = new AtomicLong();
+		AtomicLong failed = new AtomicLong();
+
+		long start = System.nanoTime();
+		try (ExecutorService workers = Executors.newFixedThreadPool(concurrency)) {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int i = 0; i < concurrency; i++) {
+				futures.add(workers.submit(() -> {
+					int request;
+					while ((request = nextRequest.getAndIncrement()) < requests) {
+						int count = Math.min(batchSize, tokens - request * batchSize);
+						if (send(count, batchSize == 1)) {
+							stored.addAndGet(count);
+						} else {
+							failed.addAndGet(count);
+						}
+					}
+					return null;
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+
+		Result result = new Result(stored.get() / seconds);
+		System.out.printf("%-15s %7d tokens in %7.2fs  %9.0f tokens/s  %d failed%n",
+				name, stored.get(), seconds, result.tokensPerSecond(), failed.get());
+		return result;
+	}
+
+	private boolean send(int count, boolean single) {
+		StringBuilder body = new StringBuilder(count * 200);
+		for (int i = 0; i < count; i++) {
+			if (i > 0) {
+				body.append('\n');
+			}
+			int n = sequence.incrementAndGet();
+			body.append("{\"userId\":").append(userId)
+					.append(",\"provider\":\"benchmark\"")
+					.append(",\"providerUserId\":\"benchmark-").append(n).append('"')
+					.append(",\"accessToken\":\"").append(runId).append('-').append(n).append('"')
+					.append(",\"tokenType\":\"Bearer\",\"scope\":\"read\",\"expiresIn\":3600}");
+		}
+
+		HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + (single ? "/api/oauth/tokens" : "/api/oauth/tokens/batch")))
+				.header("Content-Type", single ? "application/json" : "application/x-ndjson")
+				.header(InternalIdentity.HEADER, codec.encode(new InternalIdentity(
+						"token-ingestion-benchmark", List.of("ADMIN"), Instant.now().plusSeconds(30))))
+				.timeout(Duration.ofMinutes(1))
+				.POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+				.build();
+		try {
+			HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+			if (response.statusCode() != 200) {
+				System.err.println("HTTP " + response.statusCode() + ": " + response.body());
+				return false;
+			}
+			// Items of a batch can fail individually; count the request as failed if any did
+			return single || response.body().contains("\"failed\":0");
+		} catch (Exception e) {
+			System.err.println("Request failed: " + e);
+			return false;
+		}
+	}
+
+	private static Map<String, String> parse(String[] args) {
+		Map<String, String> options = new HashMap<>();
+		for (String arg : args) {
+			if (!arg.startsWith("--") || arg.indexOf('=') < 0) {
+				throw new IllegalArgumentException("Expected --key=value, got " + arg);
+			}
+			options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+		}
+		return options;
+	}
+
+	private record Result(double tokensPerSecond) {
+	}
+}
@@ -0,0 +1,137 @@
+package com.aiapp.auth_service.repository;
+
+import com.aiapp.auth_service.entity.OAuthToken;
+import com.aiapp.auth_service.entity.Role;
+import com.aiapp.auth_service.entity.User;
+import com.aiapp.auth_service.service.OAuthService;
+import com.aiapp.auth_service.service.TokenRevocationPublisher;
+import com.aiapp.auth_service.service.TokenUsageRecorder;
+import com.aiapp.auth_service.service.TokenValidationCache;
+import com.aiapp.auth_service.service.UserCache;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * SQL statements per endpoint query, so that an N+1 (a lazy association touched per row) fails the build.
+ * Runs the Flyway schema against the Postgres service of the CI job; point {@code AUTH_TEST_DATABASE_URL}
+ * elsewhere to run locally.
+ */
+@DataJpaTest(properties = {
+		"spring.datasource.url=${AUTH_TEST_DATABASE_URL:jdbc:postgresql://localhost:5432/auth_test}",
+		"spring.datasource.username=${AUTH_TEST_DATABASE_USERNAME:postgres}",
+		"spring.datasource.password=${AUTH_TEST_DATABASE_PASSWORD:password}",
+		"spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(OAuthService.class)
+class OAuthQueryCountTests {
+
+	private static final int TOKENS = 5;
+
+	@MockitoBean
+	private TokenRevocationPublisher tokenRevocationPublisher;
+
+	@MockitoBean
+	private TokenValidationCache tokenValidationCache;
+
+	@MockitoBean
+	private TokenUsageRecorder tokenUsageRecorder;
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private OAuthService oAuthService;
+
+	private Statistics statistics;
+
+	private User user;
+
+	@BeforeEach
+	void createUserWithTokens() {
+		Role admin = role(Role.RoleName.ROLE_ADMIN);
+		Role member = role(Role.RoleName.ROLE_USER);
+		user = entityManager.persist(User.builder()
+				.username("ada")
+				.email("ada@example.com")
+				.password("{bcrypt}hash")
+				.oauthProvider("google")
+				.oauthId("g-ada")
+				.roles(new HashSet<>(Set.of(admin, member)))
+				.build());
+		for (int i = 0; i < TOKENS; i++) {
+			entityManager.persist(OAuthToken.builder()
+					.user(user)
+					.provider("google")
+					.providerUserId("g-ada")
+					.accessToken("query-count-token-" + i)
+					.tokenType("Bearer")
+					.isActive(true)
+					.expiresAt(LocalDateTime.now().plusHours(1))
+					.build());
+		}
+		entityManager.flush();
+		entityManager.clear();
+
+		statistics = entityManager.getEntityManager().getEntityManagerFactory()
+				.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+	}
+
+	@Test
+	void getUserTokensSelectsOnlyResponseColumnsInOneStatement() {
+		List<OAuthTokenSummary> tokens = oAuthService.findActiveTokenSummaries(user.getId());
+
+		assertThat(tokens).hasSize(TOKENS);
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+		assertThat(statistics.getEntityLoadCount()).isZero();
+	}
+
+	@Test
+	void findUserByProviderSelectsOnlyResponseColumnsInOneStatement() {
+		assertThat(oAuthService.findUserByOAuthProvider("google", "g-ada"))
+				.hasValueSatisfying(summary -> assertThat(summary.username()).isEqualTo("ada"));
+
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+		assertThat(statistics.getEntityLoadCount()).isZero();
+	}
+
+	@Test
+	void userLookupsFetchRolesInTheSameStatement() {
+		// What UserService caches on a miss: the user and its roles
+		UserCache.CachedUser byId = UserCache.CachedUser.of(userRepository.findById(user.getId()).orElseThrow());
+		UserCache.CachedUser byEmail = UserCache.CachedUser.of(userRepository.findByEmail("ada@example.com").orElseThrow());
+		entityManager.clear();
+		UserCache.CachedUser byOAuth = UserCache.CachedUser.of(
+				userRepository.findByOAuthProviderAndOAuthId("google", "g-ada").orElseThrow());
+
+		assertThat(byId.roles()).hasSize(2);
+		assertThat(byEmail.roles()).hasSize(2);
+		assertThat(byOAuth.roles()).hasSize(2);
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+	}
+
+	private Role role(Role.RoleName name) {
+		Role role = new Role();
+		role.setName(name);
+		return entityManager.persist(role);
+	}
+}
@@ -0,0 +1,111 @@
+package com.aiapp.auth_service.repository;
+
+import com.aiapp.auth_service.entity.OAuthToken;
+import com.aiapp.auth_service.entity.User;
+import jakarta.persistence.EntityManager;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Upgrades a database that already holds tokens through the partitioning (V4) and pooled-id (V5) migrations
+ * in one go, as a deployment would, then stores tokens through Hibernate's pooled optimizer. Ids must not
+ * repeat: the primary key includes created_at, so it would not catch a reused id. Runs in its own schema,
+ * rebuilt on every run, of the Postgres used by {@link OAuthQueryCountTests}.
+ */
+@DataJpaTest(properties = {
+		"spring.datasource.url=${AUTH_TEST_DATABASE_URL:jdbc:postgresql://localhost:5432/auth_test}",
+		"spring.datasource.username=${AUTH_TEST_DATABASE_USERNAME:postgres}",
+		"spring.datasource.password=${AUTH_TEST_DATABASE_PASSWORD:password}",
+		"spring.datasource.hikari.schema=" + PooledTokenIdMigrationTests.SCHEMA,
+		"spring.flyway.schemas=" + PooledTokenIdMigrationTests.SCHEMA,
+		"spring.flyway.clean-disabled=false",
+		"spring.flyway.target=3"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+// Flyway migrates on its own connection, so rows written before it must be committed
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PooledTokenIdMigrationTests {
+
+	static final String SCHEMA = "pooled_token_id_migration";
+
+	private static final int EXISTING_TOKENS = 120;
+
+	private static final int NEW_TOKENS = 120;
+
+	@TestConfiguration
+	static class StartAtVersion3 {
+
+		@Bean
+		FlywayMigrationStrategy cleanMigrationStrategy() {
+			return flyway -> {
+				flyway.clean();
+				flyway.migrate();
+			};
+		}
+	}
+
+	@Autowired
+	private Flyway flyway;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Test
+	void tokensStoredAfterUpgradeGetIdsAboveExistingOnes() {
+		// Rows as the service wrote them before V4: ids from the table's own serial
+		Long userId = jdbcTemplate.queryForObject(
+				"INSERT INTO users (username, email, created_at) VALUES ('ada', 'ada@example.com', now()) RETURNING id",
+				Long.class);
+		for (int i = 0; i < EXISTING_TOKENS; i++) {
+			jdbcTemplate.update("INSERT INTO oauth_tokens (user_id, provider, provider_user_id, access_token, "
+					+ "access_token_hash, is_active, created_at) VALUES (?, 'google', 'g-ada', ?, ?, true, now() - interval '1 day')",
+					userId, "existing-token-" + i, OAuthToken.hashAccessToken("existing-token-" + i));
+		}
+
+		Flyway.configure().configuration(flyway.getConfiguration()).target("latest").load().migrate();
+
+		new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+			User user = entityManager.getReference(User.class, userId);
+			for (int i = 0; i < NEW_TOKENS; i++) {
+				entityManager.persist(OAuthToken.builder()
+						.user(user)
+						.provider("google")
+						.providerUserId("g-ada")
+						.accessToken("new-token-" + i)
+						.tokenType("Bearer")
+						.isActive(true)
+						.expiresAt(LocalDateTime.now().plusHours(1))
+						.build());
+			}
+		});
+
+		Long maxExistingId = jdbcTemplate.queryForObject(
+				"SELECT max(id) FROM oauth_tokens WHERE access_token LIKE 'existing-token-%'", Long.class);
+		Long minNewId = jdbcTemplate.queryForObject(
+				"SELECT min(id) FROM oauth_tokens WHERE access_token LIKE 'new-token-%'", Long.class);
+		assertThat(minNewId).isGreaterThan(maxExistingId);
+		assertThat(jdbcTemplate.queryForObject("SELECT count(DISTINCT id) FROM oauth_tokens", Long.class))
+				.isEqualTo(EXISTING_TOKENS + NEW_TOKENS);
+	}
+}
@@ -0,0 +1,114 @@
+package com.aiapp.auth_service.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the batch import against the Flyway schema, in its own schema of the Postgres used by
+ * {@code OAuthQueryCountTests}: a chunk the database rejects is retried item by item, and every result
+ * still describes the item at its index.
+ */
+@DataJpaTest(properties = {
+		"spring.datasource.url=${AUTH_TEST_DATABASE_URL:jdbc:postgresql://localhost:5432/auth_test}",
+		"spring.datasource.username=${AUTH_TEST_DATABASE_USERNAME:postgres}",
+		"spring.datasource.password=${AUTH_TEST_DATABASE_PASSWORD:password}",
+		"spring.datasource.hikari.schema=" + OAuthTokenBatchServiceTests.SCHEMA,
+		"spring.flyway.schemas=" + OAuthTokenBatchServiceTests.SCHEMA,
+		"spring.flyway.clean-disabled=false",
+		"app.token-batch.chunk-size=" + OAuthTokenBatchServiceTests.CHUNK_SIZE
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(OAuthTokenBatchService.class)
+// Each chunk commits or rolls back on its own, so the test must not wrap them in a transaction of its own
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OAuthTokenBatchServiceTests {
+
+	static final String SCHEMA = "token_batch";
+
+	static final int CHUNK_SIZE = 3;
+
+	@TestConfiguration
+	static class Config {
+
+		@Bean
+		FlywayMigrationStrategy cleanMigrationStrategy() {
+			return flyway -> {
+				flyway.clean();
+				flyway.migrate();
+			};
+		}
+
+		@Bean
+		MeterRegistry meterRegistry() {
+			return new SimpleMeterRegistry();
+		}
+	}
+
+	@MockitoBean
+	private TokenValidationCache tokenValidationCache;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private OAuthTokenBatchService batchService;
+
+	private long userId;
+
+	@BeforeEach
+	void createUser() {
+		jdbcTemplate.update("DELETE FROM oauth_tokens");
+		jdbcTemplate.update("DELETE FROM users");
+		userId = jdbcTemplate.queryForObject(
+				"INSERT INTO users (username, email, created_at) VALUES ('ada', 'ada@example.com', now()) RETURNING id",
+				Long.class);
+	}
+
+	@Test
+	void itemTheDatabaseRejectsFailsAloneAndNeighboursKeepTheirIndexes() {
+		// Passes validation but not provider VARCHAR(50), so the whole first chunk fails at flush
+		String tooLong = "p".repeat(51);
+		List<OAuthTokenBatchService.Item> items = List.of(
+				item(userId, "google", "token-0"),
+				item(userId, tooLong, "token-1"),
+				item(userId, "google", "token-2"),
+				item(userId, "google", "token-3"),
+				item(userId + 1, "google", "token-4"));
+
+		List<OAuthTokenBatchService.ItemResult> results = batchService.storeAll(items);
+
+		assertThat(results).extracting(OAuthTokenBatchService.ItemResult::index).containsExactly(0, 1, 2, 3, 4);
+		assertThat(results).extracting(OAuthTokenBatchService.ItemResult::status)
+				.containsExactly("created", "failed", "created", "created", "failed");
+		assertThat(results.get(1).error()).contains("value too long");
+		assertThat(results.get(4).error()).isEqualTo("User not found with ID: " + (userId + 1));
+		for (int index : List.of(0, 2, 3)) {
+			Map<String, Object> row = jdbcTemplate.queryForMap(
+					"SELECT access_token, is_active FROM oauth_tokens WHERE id = ?", results.get(index).tokenId());
+			assertThat(row).containsEntry("access_token", "token-" + index).containsEntry("is_active", true);
+		}
+		assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM oauth_tokens", Integer.class)).isEqualTo(3);
+	}
+
+	private static OAuthTokenBatchService.Item item(long userId, String provider, String accessToken) {
+		return new OAuthTokenBatchService.Item(userId, provider, "g-ada", accessToken, null, null, null, 3600);
+	}
+}
@@ -0,0 +1,152 @@
+package com.aiapp.auth_service.service;
+
+import com.aiapp.auth_service.entity.OAuthToken;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs partition maintenance against the Flyway schema, in its own schema of the Postgres used by
+ * {@code OAuthQueryCountTests}: expired partitions are dropped only without live tokens, and the rest,
+ * legacy and default included, still lose their inactive rows past retention.
+ */
+@DataJpaTest(properties = {
+		"spring.datasource.url=${AUTH_TEST_DATABASE_URL:jdbc:postgresql://localhost:5432/auth_test}",
+		"spring.datasource.username=${AUTH_TEST_DATABASE_USERNAME:postgres}",
+		"spring.datasource.password=${AUTH_TEST_DATABASE_PASSWORD:password}",
+		"spring.datasource.hikari.schema=" + TokenPartitionMaintainerTests.SCHEMA,
+		"spring.flyway.schemas=" + TokenPartitionMaintainerTests.SCHEMA,
+		"spring.flyway.clean-disabled=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+// Maintenance commits chunk by chunk and drops tables, so the test must not wrap it in a transaction of its own
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TokenPartitionMaintainerTests {
+
+	static final String SCHEMA = "token_partitions";
+
+	// Smaller than the rows to purge, so purging takes several chunks
+	private static final int PURGE_CHUNK_SIZE = 2;
+
+	private static final LocalDateTime NOW = LocalDateTime.now();
+
+	@Autowired
+	private Flyway flyway;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private long userId;
+
+	@BeforeEach
+	void migrateFreshSchema() {
+		// Tests reshape the partitions, so each one starts from the migrations again
+		flyway.clean();
+		flyway.migrate();
+		userId = jdbcTemplate.queryForObject(
+				"INSERT INTO users (username, email, created_at) VALUES ('ada', 'ada@example.com', now()) RETURNING id",
+				Long.class);
+	}
+
+	@Test
+	void legacyPartitionLosesOldInactiveTokensButKeepsLiveOnes() {
+		long live = token("never-expires", true, NOW.minusYears(2), null, null);
+		long recentlyRevoked = token("revoked-last-week", false, NOW.minusYears(2), NOW.minusDays(7), NOW.minusDays(7));
+		for (int i = 0; i < 5; i++) {
+			token("revoked-last-year-" + i, false, NOW.minusYears(2), NOW.minusYears(1), NOW.minusYears(1));
+		}
+		assertThat(partitionOf(live)).isEqualTo("oauth_tokens_legacy");
+
+		maintainer().maintain();
+
+		assertThat(jdbcTemplate.queryForList("SELECT id FROM oauth_tokens ORDER BY id", Long.class))
+				.containsExactly(live, recentlyRevoked);
+		assertThat(partitionExists("oauth_tokens_legacy")).isTrue();
+	}
+
+	@Test
+	void defaultPartitionLosesOldInactiveTokens() {
+		// Created past every monthly partition, so the row can only land in the default partition
+		long kept = token("future-active", true, NOW.plusYears(5), null, null);
+		for (int i = 0; i < 3; i++) {
+			token("future-revoked-" + i, false, NOW.plusYears(5), NOW.minusYears(1), NOW.minusYears(1));
+		}
+		assertThat(partitionOf(kept)).isEqualTo("oauth_tokens_default");
+
+		maintainer().maintain();
+
+		assertThat(jdbcTemplate.queryForList("SELECT id FROM oauth_tokens ORDER BY id", Long.class))
+				.containsExactly(kept);
+	}
+
+	@Test
+	void expiredPartitionIsDroppedOnlyWithoutLiveTokens() {
+		// Monthly partitions from long ago, as if the service had been partitioned for years
+		jdbcTemplate.execute("ALTER TABLE oauth_tokens DETACH PARTITION oauth_tokens_legacy");
+		jdbcTemplate.execute("DROP TABLE oauth_tokens_legacy");
+		jdbcTemplate.execute("CREATE TABLE oauth_tokens_p2020_01 PARTITION OF oauth_tokens "
+				+ "FOR VALUES FROM ('2020-01-01') TO ('2020-02-01')");
+		jdbcTemplate.execute("CREATE TABLE oauth_tokens_p2020_02 PARTITION OF oauth_tokens "
+				+ "FOR VALUES FROM ('2020-02-01') TO ('2020-03-01')");
+		LocalDateTime january = LocalDateTime.of(2020, 1, 15, 12, 0);
+		LocalDateTime february = LocalDateTime.of(2020, 2, 15, 12, 0);
+		token("january-expired", true, january, january, january.plusHours(1));
+		token("january-revoked", false, january, january.plusDays(1), january.plusHours(1));
+		long longLived = token("february-never-expires", true, february, null, null);
+		for (int i = 0; i < 3; i++) {
+			token("february-revoked-" + i, false, february, february.plusDays(1), february.plusHours(1));
+		}
+
+		maintainer().maintain();
+
+		assertThat(partitionExists("oauth_tokens_p2020_01")).isFalse();
+		assertThat(partitionExists("oauth_tokens_p2020_02")).isTrue();
+		assertThat(jdbcTemplate.queryForList("SELECT id FROM oauth_tokens ORDER BY id", Long.class))
+				.containsExactly(longLived);
+	}
+
+	private TokenPartitionMaintainer maintainer() {
+		return new TokenPartitionMaintainer(jdbcTemplate, new TransactionTemplate(transactionManager),
+				new SimpleMeterRegistry(), 3, Duration.ofDays(90), PURGE_CHUNK_SIZE);
+	}
+
+	private long token(String accessToken, boolean active, LocalDateTime createdAt, LocalDateTime updatedAt,
+					   LocalDateTime expiresAt) {
+		return jdbcTemplate.queryForObject("INSERT INTO oauth_tokens (user_id, provider, provider_user_id, "
+						+ "access_token, access_token_hash, is_active, created_at, updated_at, expires_at) "
+						+ "VALUES (?, 'google', 'g-ada', ?, ?, ?, ?, CAST(? AS TIMESTAMP), CAST(? AS TIMESTAMP)) RETURNING id",
+				Long.class, userId, accessToken, OAuthToken.hashAccessToken(accessToken), active,
+				Timestamp.valueOf(createdAt), timestamp(updatedAt), timestamp(expiresAt));
+	}
+
+	private String partitionOf(long tokenId) {
+		return jdbcTemplate.queryForObject("SELECT tableoid::regclass::text FROM oauth_tokens WHERE id = ?",
+				String.class, tokenId);
+	}
+
+	private boolean partitionExists(String name) {
+		return Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, name));
+	}
+
+	private static Timestamp timestamp(LocalDateTime time) {
+		return time == null ? null : Timestamp.valueOf(time);
+	}
+}
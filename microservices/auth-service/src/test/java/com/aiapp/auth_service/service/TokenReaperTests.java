@@ -0,0 +1,169 @@
+package com.aiapp.auth_service.service;
+
+import com.aiapp.auth_service.entity.OAuthToken;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Runs the reaper against the Flyway schema, in its own schema of the Postgres used by
+ * {@code OAuthQueryCountTests}: lease exclusion, resuming from the checkpoint and giving up a lost lease.
+ */
+@DataJpaTest(properties = {
+		"spring.datasource.url=${AUTH_TEST_DATABASE_URL:jdbc:postgresql://localhost:5432/auth_test}",
+		"spring.datasource.username=${AUTH_TEST_DATABASE_USERNAME:postgres}",
+		"spring.datasource.password=${AUTH_TEST_DATABASE_PASSWORD:password}",
+		"spring.datasource.hikari.schema=" + TokenReaperTests.SCHEMA,
+		"spring.flyway.schemas=" + TokenReaperTests.SCHEMA,
+		"spring.flyway.clean-disabled=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+// The reaper commits chunk by chunk, so the test must not wrap it in a transaction of its own
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TokenReaperTests {
+
+	static final String SCHEMA = "token_reaper";
+
+	private static final int CHUNK_SIZE = 10;
+
+	private static final int TOKENS = 30;
+
+	@TestConfiguration
+	static class CleanSchema {
+
+		@Bean
+		FlywayMigrationStrategy cleanMigrationStrategy() {
+			return flyway -> {
+				flyway.clean();
+				flyway.migrate();
+			};
+		}
+	}
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private final List<Long> tokenIds = new ArrayList<>();
+
+	@BeforeEach
+	void createExpiredTokens() {
+		jdbcTemplate.update("DELETE FROM oauth_tokens");
+		jdbcTemplate.update("DELETE FROM users");
+		jdbcTemplate.update("UPDATE maintenance_jobs SET lease_owner = NULL, lease_until = NULL, checkpoint_id = 0, "
+				+ "last_completed_at = NULL WHERE name = ?", TokenReaper.JOB_NAME);
+
+		Long userId = jdbcTemplate.queryForObject(
+				"INSERT INTO users (username, email, created_at) VALUES ('ada', 'ada@example.com', now()) RETURNING id",
+				Long.class);
+		for (int i = 0; i < TOKENS; i++) {
+			// Two days back, so the reaper sees them as expired whatever the database's time zone
+			tokenIds.add(jdbcTemplate.queryForObject("INSERT INTO oauth_tokens (user_id, provider, provider_user_id, "
+					+ "access_token, access_token_hash, is_active, created_at, expires_at) VALUES (?, 'google', 'g-ada', "
+					+ "?, ?, true, now() - interval '3 days', now() - interval '2 days') RETURNING id",
+					Long.class, userId, "expired-token-" + i, OAuthToken.hashAccessToken("expired-token-" + i)));
+		}
+	}
+
+	@Test
+	void secondOwnerCannotTakeAHeldLease() {
+		jdbcTemplate.update("UPDATE maintenance_jobs SET lease_owner = 'other-replica', "
+				+ "lease_until = now() + interval '1 minute' WHERE name = ?", TokenReaper.JOB_NAME);
+
+		reaper(Double.MAX_VALUE).reap();
+
+		assertThat(activeTokens()).isEqualTo(TOKENS);
+		assertThat(leaseOwner()).isEqualTo("other-replica");
+
+		// Once the holder's lease runs out, the next run takes over
+		jdbcTemplate.update("UPDATE maintenance_jobs SET lease_until = now() - interval '1 second' WHERE name = ?",
+				TokenReaper.JOB_NAME);
+
+		reaper(Double.MAX_VALUE).reap();
+
+		assertThat(activeTokens()).isZero();
+		assertThat(leaseOwner()).isNull();
+	}
+
+	@Test
+	void interruptedRunResumesAfterTheCheckpoint() {
+		long checkpoint = tokenIds.get(14);
+		jdbcTemplate.update("UPDATE maintenance_jobs SET checkpoint_id = ? WHERE name = ?", checkpoint, TokenReaper.JOB_NAME);
+
+		TokenReaper reaper = reaper(Double.MAX_VALUE);
+		reaper.reap();
+
+		assertThat(jdbcTemplate.queryForList("SELECT id FROM oauth_tokens WHERE is_active ORDER BY id", Long.class))
+				.containsExactlyElementsOf(tokenIds.subList(0, 15));
+		// A completed run starts the next one from the beginning of the table
+		assertThat(checkpoint()).isZero();
+		assertThat(jdbcTemplate.queryForObject("SELECT last_completed_at IS NOT NULL FROM maintenance_jobs WHERE name = ?",
+				Boolean.class, TokenReaper.JOB_NAME)).isTrue();
+
+		reaper.reap();
+
+		assertThat(activeTokens()).isZero();
+	}
+
+	@Test
+	void runStopsWhenItsLeaseIsTaken() {
+		// Pauses of 200 ms between chunks leave time to take the lease mid-run
+		TokenReaper reaper = reaper(CHUNK_SIZE * 5);
+		CompletableFuture<Void> run = CompletableFuture.runAsync(reaper::reap);
+
+		await().atMost(Duration.ofSeconds(10)).pollInterval(Duration.ofMillis(10)).until(() -> checkpoint() > 0);
+		jdbcTemplate.update("UPDATE maintenance_jobs SET lease_owner = 'other-replica', "
+				+ "lease_until = now() + interval '1 minute' WHERE name = ?", TokenReaper.JOB_NAME);
+		run.join();
+
+		long checkpoint = checkpoint();
+		assertThat(checkpoint).isLessThan(tokenIds.get(TOKENS - 1));
+		// The chunk that found the lease gone rolled back; everything up to the checkpoint was committed
+		assertThat(jdbcTemplate.queryForList("SELECT id FROM oauth_tokens WHERE is_active ORDER BY id", Long.class))
+				.containsExactlyElementsOf(tokenIds.stream().filter(id -> id > checkpoint).toList());
+		// Releasing only clears a lease this reaper still holds
+		assertThat(leaseOwner()).isEqualTo("other-replica");
+	}
+
+	private TokenReaper reaper(double maxRowsPerSecond) {
+		return new TokenReaper(jdbcTemplate, new TransactionTemplate(transactionManager), mock(TaskScheduler.class),
+				new SimpleMeterRegistry(), CHUNK_SIZE, maxRowsPerSecond, Duration.ofMinutes(2));
+	}
+
+	private int activeTokens() {
+		return jdbcTemplate.queryForObject("SELECT count(*) FROM oauth_tokens WHERE is_active", Integer.class);
+	}
+
+	private long checkpoint() {
+		return jdbcTemplate.queryForObject("SELECT checkpoint_id FROM maintenance_jobs WHERE name = ?",
+				Long.class, TokenReaper.JOB_NAME);
+	}
+
+	private String leaseOwner() {
+		return jdbcTemplate.queryForObject("SELECT lease_owner FROM maintenance_jobs WHERE name = ?",
+				String.class, TokenReaper.JOB_NAME);
+	}
+}
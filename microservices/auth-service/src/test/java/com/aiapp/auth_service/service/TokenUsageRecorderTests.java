@@ -0,0 +1,66 @@
+package com.aiapp.auth_service.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TokenUsageRecorderTests {
+
+	private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+
+	private final TokenUsageRecorder recorder = new TokenUsageRecorder(jdbcTemplate, mock(TaskScheduler.class),
+			new SimpleMeterRegistry(), 10_000, 500);
+
+	private final LocalDateTime now = LocalDateTime.of(2026, 1, 1, 12, 0);
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void flushesLatestTimePerTokenInIdOrder() {
+		recorder.record(2L, now);
+		recorder.record(1L, now.plusSeconds(5));
+		recorder.record(2L, now.plusSeconds(3));
+		recorder.record(2L, now.plusSeconds(1));
+
+		recorder.flush();
+
+		ArgumentCaptor<List<Map.Entry<Long, LocalDateTime>>> batch = ArgumentCaptor.forClass(List.class);
+		verify(jdbcTemplate).batchUpdate(anyString(), batch.capture(), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+		assertThat(batch.getValue()).containsExactly(Map.entry(1L, now.plusSeconds(5)), Map.entry(2L, now.plusSeconds(3)));
+
+		recorder.flush();
+		verify(jdbcTemplate, times(1)).batchUpdate(anyString(), any(List.class), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void keepsTimesForNextFlushWhenWriteFails() {
+		when(jdbcTemplate.batchUpdate(anyString(), any(List.class), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+				.thenThrow(new QueryTimeoutException("timeout"))
+				.thenReturn(new int[0][]);
+		recorder.record(1L, now);
+
+		recorder.flush();
+		recorder.flush();
+
+		ArgumentCaptor<List<Map.Entry<Long, LocalDateTime>>> batch = ArgumentCaptor.forClass(List.class);
+		verify(jdbcTemplate, times(2)).batchUpdate(anyString(), batch.capture(), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+		assertThat(batch.getAllValues().get(1)).containsExactly(Map.entry(1L, now));
+	}
+}
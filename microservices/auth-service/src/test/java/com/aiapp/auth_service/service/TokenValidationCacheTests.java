@@ -0,0 +1,62 @@
+package com.aiapp.auth_service.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class TokenValidationCacheTests {
+
+	private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+
+	private final TokenValidationCache cache = new TokenValidationCache(redisTemplate,
+			mock(RedisMessageListenerContainer.class), new SimpleMeterRegistry(),
+			1000, Duration.ofMinutes(5), Duration.ofSeconds(30));
+
+	private final AtomicInteger loads = new AtomicInteger();
+
+	@Test
+	void cachesPositiveAndNegativeResults() {
+		assertThat(cache.get("valid", this::valid).isValid()).isTrue();
+		assertThat(cache.get("valid", this::valid).isValid()).isTrue();
+		assertThat(cache.get("unknown", this::invalid).isValid()).isFalse();
+		assertThat(cache.get("unknown", this::invalid).isValid()).isFalse();
+
+		assertThat(loads).hasValue(2);
+	}
+
+	@Test
+	void userInvalidationDropsOnlyThatUsersTokensAndIsBroadcast() {
+		cache.get("a", hash -> token(1L, 7L));
+		cache.get("b", hash -> token(2L, 8L));
+
+		cache.invalidateUser(7L);
+
+		assertThat(cache.get("a", hash -> token(1L, 7L))).isNotNull();
+		assertThat(cache.get("b", hash -> token(2L, 8L))).isNotNull();
+		assertThat(loads).hasValue(3);
+		verify(redisTemplate).convertAndSend(TokenValidationCache.INVALIDATION_CHANNEL, "user:7");
+	}
+
+	private TokenValidationCache.CachedToken valid(String hash) {
+		return token(1L, 1L);
+	}
+
+	private TokenValidationCache.CachedToken invalid(String hash) {
+		loads.incrementAndGet();
+		return TokenValidationCache.CachedToken.INVALID;
+	}
+
+	private TokenValidationCache.CachedToken token(Long tokenId, Long userId) {
+		loads.incrementAndGet();
+		return new TokenValidationCache.CachedToken(tokenId, userId, LocalDateTime.now().plusHours(1));
+	}
+}
@@ -0,0 +1,152 @@
+package com.aiapp.auth_service.service;
+
+import com.aiapp.auth_service.entity.Role;
+import com.aiapp.auth_service.entity.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserCacheTests {
+
+	private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+
+	@SuppressWarnings("unchecked")
+	private final ValueOperations<String, String> redisValues = mock(ValueOperations.class);
+
+	@SuppressWarnings("unchecked")
+	private final KafkaTemplate<String, Object> kafkaTemplate = mock(KafkaTemplate.class);
+
+	private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+	private final UserCache cache = new UserCache(redisTemplate, kafkaTemplate, objectMapper,
+			new SimpleMeterRegistry(), 1000, Duration.ofMinutes(5), Duration.ofMinutes(30), "auth.user-invalidations");
+
+	private final AtomicInteger loads = new AtomicInteger();
+
+	@BeforeEach
+	void stubClients() {
+		when(redisTemplate.opsForValue()).thenReturn(redisValues);
+		when(kafkaTemplate.send(anyString(), anyString(), any())).thenReturn(CompletableFuture.completedFuture(null));
+	}
+
+	@Test
+	void servesEveryKeyOfALoadedUserFromMemory() {
+		cache.get(UserCache.idKey(7L), load(7L));
+		UserCache.CachedUser byEmail = cache.get(UserCache.emailKey("ada@example.com"), load(7L)).orElseThrow();
+		UserCache.CachedUser byUsername = cache.get(UserCache.usernameKey("ada"), load(7L)).orElseThrow();
+
+		assertThat(loads).hasValue(1);
+		assertThat(byEmail.id()).isEqualTo(7L);
+		assertThat(byUsername.roles()).containsExactly(Map.entry(2, Role.RoleName.ROLE_ADMIN));
+	}
+
+	@Test
+	void snapshotsHandedToCallersCannotBeChanged() {
+		UserCache.CachedUser user = cache.get(UserCache.idKey(7L), load(7L)).orElseThrow();
+
+		assertThatThrownBy(() -> user.roles().put(3, Role.RoleName.ROLE_USER))
+				.isInstanceOf(UnsupportedOperationException.class);
+	}
+
+	@Test
+	void readsThroughRedisBeforeTheDatabase() throws Exception {
+		when(redisValues.get("auth:user:id:7")).thenReturn(objectMapper.writeValueAsString(snapshot(7L)));
+
+		assertThat(cache.get(UserCache.idKey(7L), load(7L))).isPresent();
+
+		assertThat(loads).hasValue(0);
+	}
+
+	@Test
+	void evictionDropsTheUserAndIsPublished() {
+		cache.get(UserCache.idKey(7L), load(7L));
+
+		cache.evict(7L);
+
+		cache.get(UserCache.usernameKey("ada"), load(7L));
+		assertThat(loads).hasValue(2);
+		verify(redisTemplate).delete("auth:user:id:7");
+		verify(kafkaTemplate).send("auth.user-invalidations", "7", new UserCache.Invalidation(7L));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void fillsRedisUnderTheVersionReadBeforeLoading() throws Exception {
+		when(redisValues.get("auth:user:version")).thenReturn("3");
+		// Another replica saves the user while this one is reading the old row
+		Supplier<Optional<UserCache.CachedUser>> racingLoad = () -> {
+			when(redisValues.get("auth:user:version")).thenReturn("4");
+			return Optional.of(snapshot(7L));
+		};
+
+		cache.get(UserCache.emailKey("ada@example.com"), racingLoad);
+
+		ArgumentCaptor<List<String>> keys = ArgumentCaptor.forClass(List.class);
+		verify(redisTemplate).execute(any(RedisScript.class), keys.capture(), eq("3"),
+				eq(objectMapper.writeValueAsString(snapshot(7L))), eq("7"), eq("1800000"));
+		assertThat(keys.getValue()).containsExactly("auth:user:version", "auth:user:id:7",
+				"auth:user:key:email:ada@example.com", "auth:user:key:username:ada");
+	}
+
+	@Test
+	void evictionBumpsTheRedisVersionBeforeDeleting() {
+		cache.evict(7L);
+
+		InOrder order = inOrder(redisValues, redisTemplate);
+		order.verify(redisValues).increment("auth:user:version");
+		order.verify(redisTemplate).delete("auth:user:id:7");
+	}
+
+	@Test
+	void snapshotsLeaveThePasswordHashOut() throws Exception {
+		User user = User.builder()
+				.id(7L)
+				.username("ada")
+				.email("ada@example.com")
+				.password("{bcrypt}hash")
+				.roles(new HashSet<>())
+				.build();
+
+		String json = objectMapper.writeValueAsString(UserCache.CachedUser.of(user));
+
+		assertThat(json).doesNotContain("hash").doesNotContain("password");
+	}
+
+	private Supplier<Optional<UserCache.CachedUser>> load(Long id) {
+		return () -> {
+			loads.incrementAndGet();
+			return Optional.of(snapshot(id));
+		};
+	}
+
+	private static UserCache.CachedUser snapshot(Long id) {
+		return new UserCache.CachedUser(id, "ada", "ada@example.com", "Ada", "Lovelace", null,
+				true, true, true, true, null, null, Map.of(2, Role.RoleName.ROLE_ADMIN), null, null);
+	}
+}
@@ -0,0 +1,24 @@
+package com.aiapp.internal_identity;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Caller verified by the API Gateway, as carried to internal services in {@link #HEADER}
+ */
+public record InternalIdentity(String subject, List<String> roles, Instant expiresAt) {
+
+    /** Request header set by the gateway; copies sent by clients are removed before forwarding */
+    public static final String HEADER = "X-Internal-Identity";
+
+    /** Servlet request attribute holding the verified identity */
+    public static final String REQUEST_ATTRIBUTE = InternalIdentity.class.getName();
+
+    public InternalIdentity {
+        roles = List.copyOf(roles);
+    }
+
+    public boolean hasRole(String role) {
+        return roles.contains(role);
+    }
+}
@@ -0,0 +1,44 @@
+package com.aiapp.internal_identity;
+
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.Ordered;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Verifying side for servlet services. Fails at startup if enabled without a secret.
+ */
+@AutoConfiguration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnClass(OncePerRequestFilter.class)
+@ConditionalOnProperty(prefix = "app.internal-identity", name = "enabled", matchIfMissing = true)
+@EnableConfigurationProperties(InternalIdentityProperties.class)
+public class InternalIdentityAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public InternalIdentityCodec internalIdentityCodec(InternalIdentityProperties properties) {
+        return InternalIdentityCodec.from(properties);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public InternalIdentityFilter internalIdentityFilter(InternalIdentityCodec codec, InternalIdentityProperties properties) {
+        return new InternalIdentityFilter(codec, properties.isRequired());
+    }
+
+    @Bean
+    public FilterRegistrationBean<InternalIdentityFilter> internalIdentityFilterRegistration(InternalIdentityFilter filter) {
+        FilterRegistrationBean<InternalIdentityFilter> registration = new FilterRegistrationBean<>(filter);
+        // With Spring Security the application adds the filter to its security filter chain instead
+        registration.setEnabled(!InternalIdentityFilter.SECURITY_PRESENT);
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 20);
+        return registration;
+    }
+}
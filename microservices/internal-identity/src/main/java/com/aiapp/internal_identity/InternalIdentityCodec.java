@@ -0,0 +1,139 @@
+package com.aiapp.internal_identity;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Signs and verifies the identity header with HMAC-SHA256, so a hop can trust it with one MAC
+ * computation instead of parsing and verifying the caller's JWT or asking auth-service.
+ * <p>
+ * Format: {@code v1.<kid>.<expires epoch seconds>.<b64url subject>.<b64url comma-separated roles>.<b64url mac>},
+ * the MAC covering everything before its dot. The key ID selects among the current and previous
+ * secrets, so secrets can be rotated by deploying verifiers with the new key before the gateway signs with it.
+ */
+public final class InternalIdentityCodec {
+
+    private static final String VERSION = "v1";
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int MIN_KEY_BYTES = 32;
+    private static final Base64.Encoder BASE64_URL = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder BASE64_URL_DECODER = Base64.getUrlDecoder();
+
+    private final String signingKeyId;
+    private final Map<String, Mac> macs = new HashMap<>();
+    private final Duration clockSkew;
+
+    /**
+     * @param keys secrets by key ID; must contain {@code signingKeyId}
+     */
+    public InternalIdentityCodec(String signingKeyId, Map<String, byte[]> keys, Duration clockSkew) {
+        if (!keys.containsKey(signingKeyId)) {
+            throw new IllegalArgumentException("No secret for signing key " + signingKeyId);
+        }
+        keys.forEach((keyId, secret) -> {
+            if (keyId.isEmpty() || keyId.indexOf('.') >= 0) {
+                throw new IllegalArgumentException("Key ID must be non-empty and free of dots: " + keyId);
+            }
+            if (secret.length < MIN_KEY_BYTES) {
+                throw new IllegalArgumentException("Secret for key " + keyId + " must be at least " + MIN_KEY_BYTES + " bytes");
+            }
+            macs.put(keyId, newMac(secret));
+        });
+        this.signingKeyId = signingKeyId;
+        this.clockSkew = clockSkew;
+    }
+
+    public static InternalIdentityCodec from(InternalIdentityProperties properties) {
+        if (properties.getSecret() == null || properties.getSecret().isEmpty()) {
+            throw new IllegalStateException("app.internal-identity.secret must be set");
+        }
+        Map<String, byte[]> keys = new LinkedHashMap<>();
+        keys.put(properties.getKeyId(), properties.getSecret().getBytes(StandardCharsets.UTF_8));
+        properties.getPreviousKeys().forEach((keyId, secret) ->
+                keys.putIfAbsent(keyId, secret.getBytes(StandardCharsets.UTF_8)));
+        return new InternalIdentityCodec(properties.getKeyId(), keys, properties.getClockSkew());
+    }
+
+    public String encode(InternalIdentity identity) {
+        String signed = VERSION + '.' + signingKeyId + '.' + identity.expiresAt().getEpochSecond()
+                + '.' + encode(identity.subject())
+                + '.' + encode(String.join(",", identity.roles()));
+        byte[] mac = mac(signingKeyId).doFinal(signed.getBytes(StandardCharsets.US_ASCII));
+        return signed + '.' + BASE64_URL.encodeToString(mac);
+    }
+
+    /**
+     * @throws InvalidInternalIdentityException if the header cannot be trusted at {@code now}
+     */
+    public InternalIdentity decode(String header, Instant now) {
+        String[] parts = header.split("\\.", -1);
+        if (parts.length != 6 || !VERSION.equals(parts[0])) {
+            throw new InvalidInternalIdentityException("Malformed identity header");
+        }
+        if (!macs.containsKey(parts[1])) {
+            throw new InvalidInternalIdentityException("Unknown key " + parts[1]);
+        }
+
+        int macStart = header.lastIndexOf('.') + 1;
+        byte[] expected = mac(parts[1]).doFinal(header.substring(0, macStart - 1).getBytes(StandardCharsets.US_ASCII));
+        byte[] actual;
+        try {
+            actual = BASE64_URL_DECODER.decode(parts[5]);
+        } catch (IllegalArgumentException ex) {
+            throw new InvalidInternalIdentityException("Malformed identity header");
+        }
+        if (!MessageDigest.isEqual(expected, actual)) {
+            throw new InvalidInternalIdentityException("Signature mismatch");
+        }
+
+        // Only fields covered by a valid MAC are parsed from here on
+        Instant expiresAt = Instant.ofEpochSecond(Long.parseLong(parts[2]));
+        if (now.isAfter(expiresAt.plus(clockSkew))) {
+            throw new InvalidInternalIdentityException("Expired at " + expiresAt);
+        }
+        String roles = decode(parts[4]);
+        return new InternalIdentity(decode(parts[3]),
+                roles.isEmpty() ? List.of() : Arrays.asList(roles.split(",")),
+                expiresAt);
+    }
+
+    private Mac mac(String keyId) {
+        Mac prototype = macs.get(keyId);
+        try {
+            // Cloning an initialised Mac is far cheaper than Mac.getInstance and init per call
+            return (Mac) prototype.clone();
+        } catch (CloneNotSupportedException ex) {
+            throw new IllegalStateException(ALGORITHM + " provider does not support cloning", ex);
+        }
+    }
+
+    private static Mac newMac(byte[] secret) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(new SecretKeySpec(secret, ALGORITHM));
+            mac.clone();
+            return mac;
+        } catch (GeneralSecurityException | CloneNotSupportedException ex) {
+            throw new IllegalStateException(ALGORITHM + " is not usable", ex);
+        }
+    }
+
+    private static String encode(String value) {
+        return BASE64_URL.encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decode(String value) {
+        return new String(BASE64_URL_DECODER.decode(value), StandardCharsets.UTF_8);
+    }
+}
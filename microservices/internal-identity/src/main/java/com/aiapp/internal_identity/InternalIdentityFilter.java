@@ -0,0 +1,88 @@
+package com.aiapp.internal_identity;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.util.ClassUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Trusts the identity header set by the gateway. A valid header is exposed as the
+ * {@link InternalIdentity#REQUEST_ATTRIBUTE} request attribute and, when Spring Security is present,
+ * as an authenticated principal with one {@code ROLE_} authority per role. An invalid header is
+ * answered with 401; a missing one only when {@code app.internal-identity.required} is set.
+ * <p>
+ * With Spring Security the filter has to run inside the security filter chain, for example
+ * {@code http.addFilterBefore(filter, BasicAuthenticationFilter.class)}; the auto-configuration
+ * only registers it with the servlet container otherwise.
+ */
+public class InternalIdentityFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(InternalIdentityFilter.class);
+
+    static final boolean SECURITY_PRESENT = ClassUtils.isPresent(
+            "org.springframework.security.core.context.SecurityContextHolder", InternalIdentityFilter.class.getClassLoader());
+
+    private final InternalIdentityCodec codec;
+    private final boolean required;
+
+    public InternalIdentityFilter(InternalIdentityCodec codec, boolean required) {
+        this.codec = codec;
+        this.required = required;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String header = request.getHeader(InternalIdentity.HEADER);
+        if (header == null) {
+            if (required) {
+                response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+                return;
+            }
+            chain.doFilter(request, response);
+            return;
+        }
+
+        InternalIdentity identity;
+        try {
+            identity = codec.decode(header, Instant.now());
+        } catch (InvalidInternalIdentityException ex) {
+            log.debug("Rejecting request to {}: {}", request.getRequestURI(), ex.getMessage());
+            response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+            return;
+        }
+
+        request.setAttribute(InternalIdentity.REQUEST_ATTRIBUTE, identity);
+        if (SECURITY_PRESENT) {
+            SecuritySupport.authenticate(identity);
+        }
+        chain.doFilter(request, response);
+    }
+
+    /**
+     * Kept apart so the filter loads without Spring Security on the classpath
+     */
+    private static final class SecuritySupport {
+
+        static void authenticate(InternalIdentity identity) {
+            List<SimpleGrantedAuthority> authorities = identity.roles().stream()
+                    .map(role -> new SimpleGrantedAuthority("ROLE_" + role))
+                    .toList();
+            SecurityContext context = SecurityContextHolder.createEmptyContext();
+            context.setAuthentication(UsernamePasswordAuthenticationToken.authenticated(identity.subject(), null, authorities));
+            SecurityContextHolder.setContext(context);
+        }
+    }
+}
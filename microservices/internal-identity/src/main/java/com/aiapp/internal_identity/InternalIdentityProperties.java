@@ -0,0 +1,55 @@
+package com.aiapp.internal_identity;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Shared by the gateway, which signs identity headers, and the services that verify them
+ */
+@ConfigurationProperties(prefix = "app.internal-identity")
+public class InternalIdentityProperties {
+
+    private boolean enabled = true;
+
+    /** ID of {@link #secret}; the gateway signs with it */
+    private String keyId = "k1";
+
+    /** HMAC secret, at least 32 bytes, shared by the gateway and every verifying service */
+    private String secret;
+
+    /** Secrets still accepted during a rotation, by key ID */
+    private Map<String, String> previousKeys = new LinkedHashMap<>();
+
+    /** Lifetime of a header the gateway issues; capped by the token's own expiry */
+    private Duration ttl = Duration.ofSeconds(30);
+
+    /** Tolerated clock difference between the gateway and a verifying service */
+    private Duration clockSkew = Duration.ofSeconds(5);
+
+    /** Reject requests that arrive without the header instead of passing them on unauthenticated */
+    private boolean required = false;
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public String getKeyId() { return keyId; }
+    public void setKeyId(String keyId) { this.keyId = keyId; }
+
+    public String getSecret() { return secret; }
+    public void setSecret(String secret) { this.secret = secret; }
+
+    public Map<String, String> getPreviousKeys() { return previousKeys; }
+    public void setPreviousKeys(Map<String, String> previousKeys) { this.previousKeys = previousKeys; }
+
+    public Duration getTtl() { return ttl; }
+    public void setTtl(Duration ttl) { this.ttl = ttl; }
+
+    public Duration getClockSkew() { return clockSkew; }
+    public void setClockSkew(Duration clockSkew) { this.clockSkew = clockSkew; }
+
+    public boolean isRequired() { return required; }
+    public void setRequired(boolean required) { this.required = required; }
+}
@@ -0,0 +1,11 @@
+package com.aiapp.internal_identity;
+
+/**
+ * Identity header that is malformed, signed with an unknown key, tampered with or expired
+ */
+public class InvalidInternalIdentityException extends RuntimeException {
+
+    public InvalidInternalIdentityException(String message) {
+        super(message);
+    }
+}
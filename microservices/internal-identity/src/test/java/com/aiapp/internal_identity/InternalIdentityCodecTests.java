@@ -0,0 +1,68 @@
+package com.aiapp.internal_identity;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class InternalIdentityCodecTests {
+
+	private static final byte[] CURRENT = "current-secret-that-is-long-enough-for-hmac".getBytes(StandardCharsets.UTF_8);
+	private static final byte[] PREVIOUS = "previous-secret-that-is-long-enough-for-hmac".getBytes(StandardCharsets.UTF_8);
+
+	private final Instant now = Instant.parse("2026-01-01T12:00:00Z");
+
+	private final InternalIdentityCodec codec = new InternalIdentityCodec("k2",
+			Map.of("k2", CURRENT, "k1", PREVIOUS), Duration.ofSeconds(5));
+
+	@Test
+	void roundTripsSubjectAndRoles() {
+		InternalIdentity identity = new InternalIdentity("jane.doe@lexaai.com", List.of("USER", "PREMIUM_USER"),
+				now.plusSeconds(30));
+
+		InternalIdentity decoded = codec.decode(codec.encode(identity), now);
+
+		assertThat(decoded).isEqualTo(identity);
+		assertThat(decoded.hasRole("PREMIUM_USER")).isTrue();
+	}
+
+	@Test
+	void rejectsTamperedHeader() {
+		String header = codec.encode(new InternalIdentity("user@lexaai.com", List.of("USER"), now.plusSeconds(30)));
+		String[] parts = header.split("\\.");
+		parts[4] = Base64.getUrlEncoder().withoutPadding().encodeToString("USER,ADMIN".getBytes(StandardCharsets.UTF_8));
+
+		assertThatThrownBy(() -> codec.decode(String.join(".", parts), now))
+				.isInstanceOf(InvalidInternalIdentityException.class)
+				.hasMessageContaining("Signature");
+	}
+
+	@Test
+	void rejectsExpiredHeaderBeyondClockSkew() {
+		String header = codec.encode(new InternalIdentity("user@lexaai.com", List.of(), now));
+
+		assertThat(codec.decode(header, now.plusSeconds(5)).roles()).isEmpty();
+		assertThatThrownBy(() -> codec.decode(header, now.plusSeconds(6)))
+				.isInstanceOf(InvalidInternalIdentityException.class);
+	}
+
+	@Test
+	void acceptsHeadersSignedWithPreviousKeyDuringRotation() {
+		InternalIdentityCodec oldGateway = new InternalIdentityCodec("k1", Map.of("k1", PREVIOUS), Duration.ZERO);
+		String header = oldGateway.encode(new InternalIdentity("user@lexaai.com", List.of("USER"), now.plusSeconds(30)));
+
+		assertThat(codec.decode(header, now).subject()).isEqualTo("user@lexaai.com");
+
+		InternalIdentityCodec unaware = new InternalIdentityCodec("k3", Map.of("k3", CURRENT), Duration.ZERO);
+		assertThatThrownBy(() -> unaware.decode(header, now))
+				.isInstanceOf(InvalidInternalIdentityException.class)
+				.hasMessageContaining("Unknown key");
+	}
+}
@@ -0,0 +1,95 @@
+package com.aiapp.internal_identity;
+
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InternalIdentityFilterTests {
+
+	private static final byte[] SECRET = "filter-test-secret-that-is-long-enough".getBytes(StandardCharsets.UTF_8);
+
+	private final InternalIdentityCodec codec = new InternalIdentityCodec("k1", Map.of("k1", SECRET), Duration.ZERO);
+
+	private final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/oauth/tokens/user/7");
+
+	private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+	private final MockFilterChain chain = new MockFilterChain();
+
+	@AfterEach
+	void clearSecurityContext() {
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	void validHeaderAuthenticatesTheCaller() throws Exception {
+		InternalIdentity identity = new InternalIdentity("ada@lexaai.com", List.of("USER", "PREMIUM_USER"),
+				Instant.now().plusSeconds(30).truncatedTo(ChronoUnit.SECONDS));
+		request.addHeader(InternalIdentity.HEADER, codec.encode(identity));
+
+		new InternalIdentityFilter(codec, true).doFilter(request, response, chain);
+
+		assertThat(chain.getRequest()).isSameAs(request);
+		assertThat(request.getAttribute(InternalIdentity.REQUEST_ATTRIBUTE)).isEqualTo(identity);
+		Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+		assertThat(authentication.isAuthenticated()).isTrue();
+		assertThat(authentication.getName()).isEqualTo("ada@lexaai.com");
+		assertThat(authentication.getAuthorities()).extracting(GrantedAuthority::getAuthority)
+				.containsExactly("ROLE_USER", "ROLE_PREMIUM_USER");
+	}
+
+	@Test
+	void invalidHeaderIsRejected() throws Exception {
+		InternalIdentityCodec otherKey = new InternalIdentityCodec("k1",
+				Map.of("k1", "some-other-secret-that-is-long-enough".getBytes(StandardCharsets.UTF_8)), Duration.ZERO);
+		request.addHeader(InternalIdentity.HEADER,
+				otherKey.encode(new InternalIdentity("ada@lexaai.com", List.of("ADMIN"), Instant.now().plusSeconds(30))));
+
+		new InternalIdentityFilter(codec, false).doFilter(request, response, chain);
+
+		assertThat(response.getStatus()).isEqualTo(HttpServletResponse.SC_UNAUTHORIZED);
+		assertThat(chain.getRequest()).isNull();
+		assertThat(request.getAttribute(InternalIdentity.REQUEST_ATTRIBUTE)).isNull();
+		assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+	}
+
+	@Test
+	void malformedHeaderIsRejected() throws Exception {
+		request.addHeader(InternalIdentity.HEADER, "not-an-identity");
+
+		new InternalIdentityFilter(codec, false).doFilter(request, response, chain);
+
+		assertThat(response.getStatus()).isEqualTo(HttpServletResponse.SC_UNAUTHORIZED);
+		assertThat(chain.getRequest()).isNull();
+	}
+
+	@Test
+	void missingHeaderPassesUnauthenticatedUnlessRequired() throws Exception {
+		new InternalIdentityFilter(codec, false).doFilter(request, response, chain);
+
+		assertThat(chain.getRequest()).isSameAs(request);
+		assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+
+		MockHttpServletResponse requiredResponse = new MockHttpServletResponse();
+		MockFilterChain requiredChain = new MockFilterChain();
+		new InternalIdentityFilter(codec, true).doFilter(new MockHttpServletRequest(), requiredResponse, requiredChain);
+
+		assertThat(requiredResponse.getStatus()).isEqualTo(HttpServletResponse.SC_UNAUTHORIZED);
+		assertThat(requiredChain.getRequest()).isNull();
+	}
+}